@@ -0,0 +1,128 @@
+package net.filebot;
+
+import static java.util.stream.Collectors.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import net.filebot.web.Episode;
+
+/**
+ * Reproducible corpus of release names, episode lists and media files. The same seed always yields the same corpus, so that benchmark results of different revisions can be compared.
+ */
+public class SyntheticCorpus {
+
+	public static final long DEFAULT_SEED = 42;
+
+	private static final String[] WORDS = { "The", "Doctor", "Who", "Big", "Bang", "Theory", "Game", "of", "Thrones", "Breaking", "Bad", "House", "Cards", "Mad", "Men", "Lost", "Office", "Friends", "Firefly", "Dark", "Matter", "Star", "Trek", "Discovery", "Wire", "True", "Detective", "Black", "Mirror", "Stranger", "Things", "Walking", "Dead", "Sherlock", "Fargo", "Westworld", "Expanse", "Americans", "Crown", "Legion" };
+
+	private static final String[] TITLES = { "Pilot", "Rose", "The End of Time", "Blink", "Winter is Coming", "Ozymandias", "The Rains of Castamere", "Out of Gas", "Serenity", "The Train Job", "Heart of Gold", "Objects in Space", "The Constant", "Through the Looking Glass", "Hush", "Once More, with Feeling" };
+
+	private static final String[] SOURCES = { "HDTV", "WEB-DL", "WEBRip", "BluRay", "DVDRip", "AMZN.WEB-DL", "NF.WEBRip" };
+	private static final String[] RESOLUTIONS = { "480p", "720p", "1080p", "2160p" };
+	private static final String[] CODECS = { "x264", "x265", "H.264", "HEVC", "XviD" };
+	private static final String[] AUDIO = { "", ".DD5.1", ".AAC2.0", ".DTS-HD.MA.5.1", ".Atmos" };
+	private static final String[] GROUPS = { "LOL", "DIMENSION", "KILLERS", "NTb", "CtrlHD", "DEMAND", "SVA", "AVS", "FLEET", "SPARKS" };
+	private static final String[] EXTENSIONS = { "mkv", "mp4", "avi" };
+
+	private final Random random;
+
+	public SyntheticCorpus() {
+		this(DEFAULT_SEED);
+	}
+
+	public SyntheticCorpus(long seed) {
+		this.random = new Random(seed);
+	}
+
+	public List<String> getSeriesNames(int size) {
+		List<String> names = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			int length = 1 + random.nextInt(3);
+			names.add(Stream.generate(() -> pick(WORDS)).limit(length).collect(joining(" ")));
+		}
+		return names;
+	}
+
+	public List<Episode> getEpisodeList(String seriesName, int seasons, int episodes) {
+		List<Episode> episodeList = new ArrayList<Episode>(seasons * episodes);
+		for (int s = 1; s <= seasons; s++) {
+			for (int e = 1; e <= episodes; e++) {
+				episodeList.add(new Episode(seriesName, s, e, pick(TITLES)));
+			}
+		}
+		return episodeList;
+	}
+
+	public String getReleaseName(Episode episode) {
+		StringBuilder name = new StringBuilder();
+		name.append(episode.getSeriesName().replace(' ', '.'));
+
+		// different episode number patterns
+		switch (random.nextInt(4)) {
+		case 0:
+			name.append(String.format(".S%02dE%02d", episode.getSeason(), episode.getEpisode()));
+			break;
+		case 1:
+			name.append(String.format(".%dx%02d", episode.getSeason(), episode.getEpisode()));
+			break;
+		case 2:
+			name.append(String.format(".s%02de%02d.%s", episode.getSeason(), episode.getEpisode(), episode.getTitle().replaceAll("\\W+", ".")));
+			break;
+		default:
+			name.append(String.format(".Season.%d.Episode.%d", episode.getSeason(), episode.getEpisode()));
+			break;
+		}
+
+		name.append('.').append(pick(RESOLUTIONS));
+		name.append('.').append(pick(SOURCES));
+		name.append(pick(AUDIO));
+		name.append('.').append(pick(CODECS));
+		name.append('-').append(pick(GROUPS));
+		return name.toString();
+	}
+
+	public List<String> getReleaseNames(List<Episode> episodes) {
+		return episodes.stream().map(this::getReleaseName).collect(toList());
+	}
+
+	public List<File> getFiles(File folder, List<String> releaseNames) {
+		return releaseNames.stream().map(n -> new File(folder, n + '.' + pick(EXTENSIONS))).collect(toList());
+	}
+
+	public List<File> createMediaFiles(File folder, int count, int size) throws IOException {
+		List<File> files = new ArrayList<File>(count);
+		byte[] data = new byte[size];
+
+		for (int i = 0; i < count; i++) {
+			random.nextBytes(data);
+
+			File file = new File(folder, String.format("Media.File.%03d.%s", i, pick(EXTENSIONS)));
+			Files.write(file.toPath(), data);
+			files.add(file);
+		}
+		return files;
+	}
+
+	public static File createFolder() throws IOException {
+		return Files.createTempDirectory("filebot-benchmark").toFile();
+	}
+
+	public static void deleteFolder(File folder) throws IOException {
+		try (Stream<Path> paths = Files.walk(folder.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private String pick(String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+}
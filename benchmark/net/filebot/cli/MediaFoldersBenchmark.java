@@ -0,0 +1,54 @@
+package net.filebot.cli;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MediaFoldersBenchmark {
+
+	@Param({ "500" })
+	int series;
+
+	@Param({ "2000" })
+	int movies;
+
+	File root;
+
+	@Setup
+	public void setup() throws Exception {
+		root = SyntheticCorpus.createFolder();
+		ScriptShellMethodsTest.createLibrary(root, series, movies);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(root);
+	}
+
+	@Benchmark
+	public void getMediaFolders(Blackhole blackhole) throws Exception {
+		blackhole.consume(ScriptShellMethods.getMediaFolders(root));
+	}
+
+}
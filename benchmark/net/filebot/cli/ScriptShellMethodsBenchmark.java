@@ -0,0 +1,41 @@
+package net.filebot.cli;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptShellMethodsBenchmark {
+
+	@Param({ "2000", "50000" })
+	int size;
+
+	List<String> names;
+
+	@Setup
+	public void setup() {
+		names = ScriptShellMethodsTest.names(size);
+	}
+
+	@Benchmark
+	public List<Object> sortBySimilarity() {
+		return ScriptShellMethods.sortBySimilarity(names, "Doctor Who", Object::toString);
+	}
+
+}
@@ -0,0 +1,84 @@
+package net.filebot.cli;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+import net.filebot.subtitle.SubtitleNaming;
+
+/**
+ * Fetch subtitles for 40 files from the stub service of {@link SubtitlePipelineTest} with a fixed latency for each request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubtitlePipelineBenchmark {
+
+	@Param({ "1", "8" })
+	int threads;
+
+	File root;
+	List<File> videos;
+	SubtitlePipelineTest.StubSubtitleService service;
+
+	@Setup
+	public void setup() throws Exception {
+		root = SyntheticCorpus.createFolder();
+		videos = new ArrayList<File>();
+		service = new SubtitlePipelineTest.StubSubtitleService();
+
+		for (int s = 1; s <= 4; s++) {
+			File folder = new File(root, "Season " + s);
+			folder.mkdirs();
+
+			for (int e = 1; e <= 10; e++) {
+				File video = new File(folder, String.format("Firefly.S%02dE%02d.mkv", s, e));
+				video.createNewFile();
+				videos.add(video);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(root);
+	}
+
+	@Benchmark
+	public void getSubtitlesByHash(Blackhole blackhole) throws Exception {
+		blackhole.consume(deleteAll(new SubtitlePipeline(Locale.ENGLISH, null, null, SubtitleNaming.MATCH_VIDEO, false, threads).getSubtitlesByHash(service, videos)));
+	}
+
+	@Benchmark
+	public void getSubtitlesByName(Blackhole blackhole) throws Exception {
+		blackhole.consume(deleteAll(new SubtitlePipeline(Locale.ENGLISH, null, null, SubtitleNaming.MATCH_VIDEO, false, threads).getSubtitlesByName(service, videos, "Firefly")));
+	}
+
+	static Map<File, File> deleteAll(Map<File, File> subtitles) {
+		// subtitle files must not exist for the next invocation
+		subtitles.values().forEach(File::delete);
+		return subtitles;
+	}
+
+}
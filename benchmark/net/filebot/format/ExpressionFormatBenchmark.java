@@ -0,0 +1,60 @@
+package net.filebot.format;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+import net.filebot.web.Episode;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionFormatBenchmark {
+
+	@Param({ "{n} - {s00e00} - {t}", "{n.upperInitial()}/Season {s}/{n.space('.')}.{s00e00}.{t.replaceAll(/[!?.]+$/).space('.')}" })
+	String expression;
+
+	ExpressionFormat format;
+
+	List<Episode> episodes;
+	List<File> files;
+
+	@Setup
+	public void setup() throws Exception {
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		episodes = corpus.getEpisodeList("Firefly", 1, 14);
+		files = corpus.getFiles(new File("Media"), corpus.getReleaseNames(episodes));
+
+		format = new ExpressionFormat(expression);
+	}
+
+	@Benchmark
+	public void compile(Blackhole blackhole) throws Exception {
+		blackhole.consume(new ExpressionFormat(expression));
+	}
+
+	@Benchmark
+	public void format(Blackhole blackhole) {
+		for (int i = 0; i < episodes.size(); i++) {
+			blackhole.consume(format.format(new MediaBindingBean(episodes.get(i), files.get(i))));
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package net.filebot.hash;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerificationEngineBenchmark {
+
+	@Param({ "SFV", "MD5", "SHA1" })
+	HashType type;
+
+	@Param({ "1", "4" })
+	int threadsPerDevice;
+
+	File folder;
+	List<File> files;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = SyntheticCorpus.createFolder();
+		files = new SyntheticCorpus().createMediaFiles(folder, 24, 8 * 1024 * 1024);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(folder);
+	}
+
+	@Benchmark
+	public void submit(Blackhole blackhole) throws Exception {
+		try (VerificationEngine engine = new VerificationEngine(threadsPerDevice)) {
+			List<CompletableFuture<String>> hashes = new ArrayList<CompletableFuture<String>>();
+			for (File file : files) {
+				hashes.add(engine.submit(file, type));
+			}
+			for (CompletableFuture<String> hash : hashes) {
+				blackhole.consume(hash.get());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package net.filebot.hash;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerificationUtilitiesBenchmark {
+
+	@Param({ "SFV", "MD5", "SHA1", "SHA256", "ED2K" })
+	HashType hashType;
+
+	File folder;
+	List<File> files;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = SyntheticCorpus.createFolder();
+		files = new SyntheticCorpus().createMediaFiles(folder, 4, 16 * 1024 * 1024);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(folder);
+	}
+
+	@Benchmark
+	public void computeHash(Blackhole blackhole) throws Exception {
+		for (File f : files) {
+			blackhole.consume(VerificationUtilities.computeHash(f, hashType));
+		}
+	}
+
+}
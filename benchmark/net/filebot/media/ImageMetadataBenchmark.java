@@ -0,0 +1,60 @@
+package net.filebot.media;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Read the Exif header of JPEG photos with camera, date, location, maker note and thumbnail, and the header of MP4 videos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageMetadataBenchmark {
+
+	@Param({ "2000" })
+	int count;
+
+	List<File> files;
+
+	@Setup
+	public void setup() throws Exception {
+		ImageMetadataTest.createFolder();
+		files = ImageMetadataTest.createPhotos(ImageMetadataTest.root, count);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		ImageMetadataTest.deleteFolder();
+	}
+
+	@Benchmark
+	public void readExifHeader(Blackhole blackhole) throws Exception {
+		for (File f : files) {
+			blackhole.consume(new ImageMetadata(f));
+		}
+	}
+
+	@Benchmark
+	public void match(Blackhole blackhole) throws Exception {
+		blackhole.consume(LocalDatasource.EXIF.match(files, true));
+	}
+
+}
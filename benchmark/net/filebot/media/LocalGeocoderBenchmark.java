@@ -0,0 +1,65 @@
+package net.filebot.media;
+
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalGeocoderBenchmark {
+
+	@Param({ "150000" })
+	int places;
+
+	@Param({ "100000" })
+	int lookups;
+
+	String gazetteer;
+	LocalGeocoder geocoder;
+	double[] coordinates;
+
+	@Setup
+	public void setup() throws Exception {
+		Random random = new Random(SyntheticCorpus.DEFAULT_SEED);
+		gazetteer = LocalGeocoderTest.randomPlaces(random, places);
+		geocoder = LocalGeocoder.read(new StringReader(gazetteer), null, null);
+
+		coordinates = new double[2 * lookups];
+		for (int i = 0; i < lookups; i++) {
+			coordinates[2 * i] = 180 * random.nextDouble() - 90;
+			coordinates[2 * i + 1] = 360 * random.nextDouble() - 180;
+		}
+	}
+
+	@Benchmark
+	public LocalGeocoder read() throws Exception {
+		return LocalGeocoder.read(new StringReader(gazetteer), null, null);
+	}
+
+	@Benchmark
+	public void locate(Blackhole blackhole) {
+		for (int i = 0; i < coordinates.length; i += 2) {
+			blackhole.consume(geocoder.locate(coordinates[i], coordinates[i + 1]));
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package net.filebot.media;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MediaDetectionBenchmark {
+
+	@Param({ "1000" })
+	int size;
+
+	List<String> releaseNames;
+
+	@Setup
+	public void setup() {
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		releaseNames = corpus.getReleaseNames(corpus.getEpisodeList("Doctor Who", 10, size / 10));
+
+		// load release info patterns before measuring
+		MediaDetection.stripReleaseInfo(releaseNames.get(0));
+	}
+
+	@Benchmark
+	public List<String> stripReleaseInfo() {
+		return MediaDetection.stripReleaseInfo(releaseNames, false);
+	}
+
+	@Benchmark
+	public List<String> stripReleaseInfoStrict() {
+		return MediaDetection.stripReleaseInfo(releaseNames, true);
+	}
+
+}
@@ -0,0 +1,54 @@
+package net.filebot.similarity;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.filebot.SyntheticCorpus;
+import net.filebot.web.Episode;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBenchmark {
+
+	@Param({ "50", "200" })
+	int size;
+
+	List<File> files;
+	List<Episode> episodes;
+
+	@Setup
+	public void setup() {
+		SyntheticCorpus corpus = new SyntheticCorpus();
+
+		// files for some episodes of a few different shows
+		episodes = new ArrayList<Episode>();
+		for (String seriesName : corpus.getSeriesNames(4)) {
+			episodes.addAll(corpus.getEpisodeList(seriesName, 5, size / 10));
+		}
+		files = corpus.getFiles(new File("Media"), corpus.getReleaseNames(episodes.subList(0, size)));
+	}
+
+	@Benchmark
+	public List<Match<File, Episode>> match() throws Exception {
+		return new Matcher<File, Episode>(files, episodes, true, EpisodeMetrics.defaultSequence(false)).match();
+	}
+
+}
@@ -0,0 +1,57 @@
+package net.filebot.similarity;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeasonEpisodeMatcherBenchmark {
+
+	@Param({ "1000" })
+	int size;
+
+	List<String> releaseNames;
+
+	SeasonEpisodeMatcher strict = new SeasonEpisodeMatcher(SeasonEpisodeMatcher.DEFAULT_SANITY, true);
+	SeasonEpisodeMatcher lenient = new SeasonEpisodeMatcher(SeasonEpisodeMatcher.LENIENT_SANITY, false);
+
+	@Setup
+	public void setup() {
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		releaseNames = corpus.getReleaseNames(corpus.getEpisodeList("Firefly", 10, size / 10));
+	}
+
+	@Benchmark
+	public void matchStrict(Blackhole blackhole) {
+		for (String name : releaseNames) {
+			blackhole.consume(strict.match(name));
+		}
+	}
+
+	@Benchmark
+	public void matchLenient(Blackhole blackhole) {
+		for (String name : releaseNames) {
+			blackhole.consume(lenient.match(name));
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package net.filebot.torrent;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+/**
+ * Read a large multi-file torrent (run with -prof gc to compare allocation of mapped and heap buffers)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BencodeReaderBenchmark {
+
+	@Param({ "100000" })
+	int files;
+
+	@Param({ "true", "false" })
+	boolean memoryMapped;
+
+	File folder;
+	File file;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = SyntheticCorpus.createFolder();
+		file = new File(folder, "benchmark.torrent");
+		Files.write(file.toPath(), BencodeReaderTest.encode(BencodeReaderTest.createTorrent(files)));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(folder);
+	}
+
+	@Benchmark
+	public void torrent(Blackhole blackhole) throws Exception {
+		blackhole.consume(new Torrent(BencodeReader.decode(file, memoryMapped)));
+	}
+
+}
@@ -0,0 +1,68 @@
+package net.filebot.ui.sfv;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+import net.filebot.ui.sfv.ChecksumTableTransferablePolicy.VerificationTracker;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerificationTrackerBenchmark {
+
+	@Param({ "1000" })
+	int folders;
+
+	@Param({ "5" })
+	int verificationFilesPerFolder;
+
+	@Param({ "40" })
+	int entries;
+
+	File root;
+	List<File> files;
+	ExecutorService executor;
+
+	@Setup
+	public void setup() throws Exception {
+		root = SyntheticCorpus.createFolder();
+		files = VerificationTrackerTest.createTree(root, folders, verificationFilesPerFolder, entries);
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+		SyntheticCorpus.deleteFolder(root);
+	}
+
+	@Benchmark
+	public void getHashByVerificationFile(Blackhole blackhole) throws Exception {
+		VerificationTracker tracker = new VerificationTracker(5, executor);
+		for (File file : files) {
+			blackhole.consume(tracker.getHashByVerificationFile(file));
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package net.filebot.ui.subtitle;
+
+import static java.util.Arrays.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+import net.filebot.subtitle.SubtitleNaming;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.DownloadTask;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.SubtitleDescriptorBean;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.SubtitleServiceBean;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.VideoHashSubtitleServiceBean;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialogTest.StubHashService;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialogTest.StubSubtitleDescriptor;
+
+/**
+ * Download subtitles for each video from two stub services of {@link SubtitleAutoMatchDialogTest} with a fixed latency for each download, the same way as the subtitle auto-match dialog does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubtitleDownloadBenchmark {
+
+	@Param({ "8" })
+	int videoCount;
+
+	File root;
+	List<File> videos;
+	List<SubtitleServiceBean> services;
+
+	@Setup
+	public void setup() throws Exception {
+		root = SyntheticCorpus.createFolder();
+		videos = new ArrayList<File>();
+
+		for (int e = 1; e <= videoCount; e++) {
+			File video = new File(root, String.format("Firefly.S01E%02d.mkv", e));
+			video.createNewFile();
+			videos.add(video);
+		}
+
+		services = asList(new VideoHashSubtitleServiceBean(new StubHashService("OpenSubtitles", f -> true, null)), new VideoHashSubtitleServiceBean(new StubHashService("Shooter", f -> true, null)));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(root);
+	}
+
+	@Benchmark
+	public void download(Blackhole blackhole) throws Exception {
+		// downloads of the same service are queued one after another
+		List<DownloadTask> downloadQueue = new ArrayList<DownloadTask>();
+		for (SubtitleServiceBean service : services) {
+			for (File video : videos) {
+				String name = video.getName().replace(".mkv", "");
+				downloadQueue.add(new DownloadTask(video, new SubtitleDescriptorBean(video, new StubSubtitleDescriptor(name + "." + service.getName(), null), service), SubtitleNaming.ORIGINAL));
+			}
+		}
+
+		ExecutorService downloadService = Executors.newFixedThreadPool(SubtitleAutoMatchDialog.DOWNLOAD_THREAD_POOL_SIZE);
+		try {
+			for (DownloadTask task : downloadQueue) {
+				task.getSubtitleBean().getService().submitDownload(task, downloadService);
+			}
+			for (DownloadTask task : downloadQueue) {
+				blackhole.consume(task.get());
+			}
+		} finally {
+			downloadService.shutdown();
+		}
+	}
+
+}
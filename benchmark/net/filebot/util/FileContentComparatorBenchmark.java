@@ -0,0 +1,99 @@
+package net.filebot.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileContentComparatorBenchmark {
+
+	static final int SIZE = 16 * 1024 * 1024;
+
+	File folder;
+	File[] a;
+	File[] b;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = SyntheticCorpus.createFolder();
+
+		// conflicts with existing files are mostly files of the same size with different content, e.g. a different encode or a damaged copy
+		a = new SyntheticCorpus().createMediaFiles(folder, 4, SIZE).toArray(new File[0]);
+		b = new File[a.length];
+
+		for (int i = 0; i < a.length; i++) {
+			b[i] = new File(folder, "copy." + a[i].getName());
+			Files.copy(a[i].toPath(), b[i].toPath());
+		}
+
+		FileContentComparatorTest.modify(b[1], SIZE - 1);
+		FileContentComparatorTest.modify(b[2], SIZE / 3 + 7);
+		Files.write(b[3].toPath(), Files.readAllBytes(a[2].toPath()), StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(folder);
+	}
+
+	/**
+	 * Number of comparisons and of comparisons that had to read the whole file
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Comparisons {
+
+		public long comparisons;
+		public long fullComparisons;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			comparisons = 0;
+			fullComparisons = 0;
+		}
+	}
+
+	@Benchmark
+	public void equals(Comparisons counters, Blackhole blackhole) throws Exception {
+		FileContentComparator comparator = new FileContentComparator();
+
+		for (int i = 0; i < a.length; i++) {
+			blackhole.consume(comparator.equals(a[i], b[i]));
+		}
+
+		counters.comparisons += comparator.getComparisonCount();
+		counters.fullComparisons += comparator.getFullComparisonCount();
+	}
+
+	@Benchmark
+	public void contentEquals(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < a.length; i++) {
+			blackhole.consume(FileUtils.contentEquals(a[i], b[i]));
+		}
+	}
+
+}
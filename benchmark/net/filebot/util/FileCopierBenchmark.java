@@ -0,0 +1,58 @@
+package net.filebot.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileCopierBenchmark {
+
+	File folder;
+	File source;
+	File destination;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = SyntheticCorpus.createFolder();
+		source = new SyntheticCorpus().createMediaFiles(folder, 1, 64 * 1024 * 1024).get(0);
+		destination = new File(folder, "destination.bin");
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(folder);
+	}
+
+	@Benchmark
+	public void copy(Blackhole blackhole) throws Exception {
+		blackhole.consume(FileCopier.copy(source, destination));
+	}
+
+	@Benchmark
+	public void filesCopy(Blackhole blackhole) throws Exception {
+		// previous implementation of the COPY rename action
+		blackhole.consume(Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING));
+	}
+
+}
@@ -0,0 +1,57 @@
+package net.filebot.util;
+
+import static net.filebot.util.FileUtilities.*;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileTreeWalkerBenchmark {
+
+	@Param({ "1", "4" })
+	int parallelism;
+
+	File folder;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = SyntheticCorpus.createFolder();
+		String[] extensions = { "mkv", "avi", "srt", "nfo", "jpg", "txt" };
+
+		// deep tree with a few thousand folders and files
+		FileTreeWalkerTest.createFolder(new File(folder, "Media"), 5, new Random(SyntheticCorpus.DEFAULT_SEED), extensions);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		SyntheticCorpus.deleteFolder(folder);
+	}
+
+	@Benchmark
+	public void walk(Blackhole blackhole) {
+		blackhole.consume(new FileTreeWalker(FILES, HUMAN_NAME_ORDER, parallelism).walk(folder, FILE_WALK_MAX_DEPTH));
+	}
+
+}
@@ -0,0 +1,59 @@
+package net.filebot.web;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnidbTitlesBenchmark {
+
+	@Param({ "200000" })
+	int lines;
+
+	byte[] dump;
+	String checksum;
+	SearchResult[] index;
+	byte[] snapshot;
+
+	@Setup
+	public void setup() throws Exception {
+		dump = AnidbTitlesTest.createDump(SyntheticCorpus.DEFAULT_SEED, lines);
+		checksum = AnidbTitles.getChecksum(dump);
+		index = AnidbTitles.parse(dump);
+		snapshot = AnidbTitles.writeSnapshot(index, checksum);
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		blackhole.consume(AnidbTitles.parse(dump));
+	}
+
+	@Benchmark
+	public void writeSnapshot(Blackhole blackhole) throws Exception {
+		blackhole.consume(AnidbTitles.writeSnapshot(index, checksum));
+	}
+
+	@Benchmark
+	public void readSnapshot(Blackhole blackhole) throws Exception {
+		blackhole.consume(AnidbTitles.readSnapshot(snapshot, checksum));
+	}
+
+}
@@ -0,0 +1,85 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sun.net.httpserver.HttpServer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HostExecutorBenchmark {
+
+	@Param({ "1000" })
+	int requests;
+
+	HttpServer server;
+	ExecutorService serverExecutor;
+	URL[] urls;
+
+	@Setup
+	public void setup() throws Exception {
+		// avoid Nagle / delayed ACK stalls between response header and response body
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		serverExecutor = Executors.newFixedThreadPool(8);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(serverExecutor);
+		server.createContext("/", exchange -> {
+			byte[] body = exchange.getRequestURI().getQuery().getBytes(UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+
+		urls = new URL[requests];
+		for (int i = 0; i < requests; i++) {
+			urls[i] = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/?" + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public void fetchAsync(Blackhole blackhole) throws Exception {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[urls.length];
+		for (int i = 0; i < urls.length; i++) {
+			futures[i] = WebRequest.fetchAsync(urls[i]);
+		}
+		CompletableFuture.allOf(futures).join();
+
+		for (CompletableFuture<?> it : futures) {
+			blackhole.consume(it.get());
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package net.filebot.web;
+
+import static java.util.Collections.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.filebot.SyntheticCorpus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalSearchBenchmark {
+
+	@Param({ "10000", "50000" })
+	int size;
+
+	LocalSearch<String> index;
+	List<String> queries;
+
+	@Setup
+	public void setup() {
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		index = new LocalSearch<String>(corpus.getSeriesNames(size).toArray(new String[0]), n -> singleton(n));
+		queries = corpus.getSeriesNames(100);
+	}
+
+	@Benchmark
+	public void search(Blackhole blackhole) throws Exception {
+		for (String q : queries) {
+			blackhole.consume(index.search(q));
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+import static net.filebot.util.JsonUtilities.*;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sun.net.httpserver.HttpServer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TMDbAlternativeTitlesBenchmark {
+
+	@Param({ "20" })
+	int results;
+
+	@Param({ "50" })
+	int latency;
+
+	HttpServer server;
+	ExecutorService serverExecutor;
+	TMDbClient client;
+
+	@Setup
+	public void setup() throws Exception {
+		// avoid Nagle / delayed ACK stalls between response header and response body
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		serverExecutor = Executors.newFixedThreadPool(8);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(serverExecutor);
+		server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			String json;
+
+			if (path.equals("/3/search/movie")) {
+				json = IntStream.rangeClosed(1, results).mapToObj(i -> String.format("{\"id\":%d,\"title\":\"Movie %d\",\"original_title\":\"Original %d\",\"release_date\":\"2001-01-01\"}", i, i, i)).collect(Collectors.joining(",", "{\"results\":[", "]}"));
+			} else {
+				String id = path.replaceAll("\\D+", "");
+				json = String.format("{\"id\":%s,\"titles\":[{\"iso_3166_1\":\"US\",\"title\":\"Alias %s\"}]}", id, id);
+
+				// simulate network latency
+				try {
+					Thread.sleep(latency);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			byte[] body = json.getBytes(UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+
+		client = new TMDbStubClient("http://127.0.0.1:" + server.getAddress().getPort() + "/3/");
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	/**
+	 * TMDb client for the local stub server that bypasses the persistent cache
+	 */
+	static class TMDbStubClient extends TMDbClient {
+
+		private final String host;
+
+		public TMDbStubClient(String host) {
+			super("apikey", false);
+			this.host = host;
+		}
+
+		@Override
+		protected URL getResource(String path, String language) throws Exception {
+			return new URL(host + path + (path.lastIndexOf('?') < 0 ? '?' : '&') + "api_key=apikey");
+		}
+
+		@Override
+		protected Object request(String resource, Map<String, Object> parameters, Locale locale) throws Exception {
+			String key = parameters.isEmpty() ? resource : resource + '?' + WebRequest.encodeParameters(parameters, true);
+			return readJson(UTF_8.decode(WebRequest.fetch(getResource(key, null))));
+		}
+	}
+
+	@Benchmark
+	public void searchMovieExtendedInfo(Blackhole blackhole) throws Exception {
+		for (Movie movie : client.searchMovie("Movie", 2001, Locale.ENGLISH, true)) {
+			blackhole.consume(movie.getAliasNames());
+		}
+	}
+
+}
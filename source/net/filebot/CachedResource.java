@@ -25,6 +25,8 @@ import org.w3c.dom.Document;
 import net.filebot.util.ByteBufferInputStream;
 import net.filebot.util.ByteBufferOutputStream;
 import net.filebot.util.JsonUtilities;
+import net.filebot.web.FloodLimit;
+import net.filebot.web.HostExecutor;
 import net.filebot.web.WebRequest;
 
 public class CachedResource<K, R> implements Resource<R> {
@@ -265,6 +267,22 @@ public class CachedResource<K, R> implements Resource<R> {
 		return ByteBuffer.allocate(0);
 	}
 
+	public static Fetch withPermit(Fetch fetch, FloodLimit limit) {
+		return (url, lastModified) -> {
+			limit.acquirePermit();
+
+			// adapt request rate to rate limit response headers
+			return WebRequest.observeResponseHeaders(limit::update, () -> fetch.fetch(url, lastModified));
+		};
+	}
+
+	public static Fetch withHostLimit(Fetch fetch) {
+		return (url, lastModified) -> {
+			// limit concurrent requests per host and wait on the calling thread if too many requests are running
+			return HostExecutor.of(url).call(() -> fetch.fetch(url, lastModified));
+		};
+	}
+
 	@FunctionalInterface
 	public interface Permit {
 		void acquire(URL resource) throws Exception;
@@ -17,13 +17,13 @@ import static net.filebot.util.FileUtilities.*;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -35,6 +35,10 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -50,6 +54,7 @@ import net.filebot.format.ExpressionFilter;
 import net.filebot.format.ExpressionFormat;
 import net.filebot.format.MediaBindingBean;
 import net.filebot.hash.HashType;
+import net.filebot.hash.VerificationEngine;
 import net.filebot.hash.VerificationFileReader;
 import net.filebot.hash.VerificationFileWriter;
 import net.filebot.media.AutoDetection;
@@ -63,9 +68,10 @@ import net.filebot.similarity.Match;
 import net.filebot.subtitle.SubtitleFormat;
 import net.filebot.subtitle.SubtitleNaming;
 import net.filebot.util.EntryList;
+import net.filebot.util.FileContentComparator;
+import net.filebot.util.FileCopier;
 import net.filebot.util.FileUtilities.ParentFilter;
 import net.filebot.vfs.FileInfo;
-import net.filebot.vfs.MemoryFile;
 import net.filebot.vfs.SimpleFileInfo;
 import net.filebot.web.AudioTrack;
 import net.filebot.web.Datasource;
@@ -78,7 +84,6 @@ import net.filebot.web.MusicIdentificationService;
 import net.filebot.web.OpenSubtitlesClient;
 import net.filebot.web.SearchResult;
 import net.filebot.web.SortOrder;
-import net.filebot.web.SubtitleDescriptor;
 import net.filebot.web.SubtitleProvider;
 import net.filebot.web.VideoHashSubtitleService;
 
@@ -588,6 +593,14 @@ public class CmdlineOperations implements CmdlineInterface {
 		// rename files
 		Map<File, File> renameLog = new LinkedHashMap<File, File>();
 
+		// copy files in parallel but keep track of pending copy operations in order
+		FileCopier copier = isCopyAction(renameAction) ? new FileCopier(FileCopier.DEFAULT_PARALLELISM, new CopyProgress()) : null;
+		Map<File, CompletableFuture<File>> pending = new LinkedHashMap<File, CompletableFuture<File>>();
+		Set<File> pendingDestinations = new HashSet<File>();
+
+		// reuse checksums of previously compared files if possible
+		FileContentComparator contentComparator = xattr.getFileContentComparator();
+
 		try {
 			for (Entry<File, File> it : renameMap.entrySet()) {
 				try {
@@ -600,13 +613,19 @@ public class CmdlineOperations implements CmdlineInterface {
 						destination = resolve(source, destination);
 					}
 
+					// wait for pending copy operations if this operation depends on their outcome
+					if (pendingDestinations.contains(destination) || pendingDestinations.contains(source)) {
+						completeAll(pending, renameLog);
+						pendingDestinations.clear();
+					}
+
 					if (!destination.equals(source) && destination.exists()) {
 						if (conflictAction == ConflictAction.FAIL) {
 							throw new CmdlineException(String.format("Failed to process [%s] because [%s] already exists", source, destination));
 						}
 
 						// do not allow abuse of online databases by repeatedly processing the same files
-						if (matches != null && renameAction.canRevert() && source.length() > 0 && equalsFileContent(source, destination)) {
+						if (matches != null && renameAction.canRevert() && source.length() > 0 && equalsFileContent(source, destination, contentComparator)) {
 							throw new CmdlineException(String.format("Failed to process [%s] because [%s] is an exact copy and already exists", source, destination));
 						}
 
@@ -632,10 +651,17 @@ public class CmdlineOperations implements CmdlineInterface {
 					// rename file, throw exception on failure
 					if (!destination.equals(source) && !destination.exists()) {
 						log.info(format("[%s] from [%s] to [%s]", renameAction, source, destination));
-						destination = renameAction.rename(source, destination);
 
-						// remember successfully renamed matches for history entry and possible revert
-						renameLog.put(source, destination);
+						if (copier != null) {
+							File from = source, to = destination;
+							pending.put(source, copier.submit(source, destination, () -> renameAction.rename(from, to)));
+							pendingDestinations.add(destination);
+						} else {
+							destination = renameAction.rename(source, destination);
+
+							// remember successfully renamed matches for history entry and possible revert
+							renameLog.put(source, destination);
+						}
 					} else {
 						log.info(format("Skipped [%s] because [%s] already exists", source, destination));
 					}
@@ -644,7 +670,25 @@ public class CmdlineOperations implements CmdlineInterface {
 					throw e;
 				}
 			}
+
+			// wait for remaining copy operations
+			try {
+				completeAll(pending, renameLog);
+			} catch (IOException e) {
+				log.warning(format("[%s] Failure: %s", renameAction, e));
+				throw e;
+			}
 		} finally {
+			if (copier != null) {
+				// abort pending copy operations and remember completed copy operations
+				copier.close();
+				pending.forEach((source, destination) -> {
+					if (destination.isDone() && !destination.isCompletedExceptionally()) {
+						renameLog.put(source, destination.join());
+					}
+				});
+			}
+
 			// update history and xattr metadata
 			if (renameLog.size() > 0) {
 				writeHistory(renameAction, renameLog, matches);
@@ -666,6 +710,46 @@ public class CmdlineOperations implements CmdlineInterface {
 		return new ArrayList<File>(renameLog.values());
 	}
 
+	protected boolean isCopyAction(RenameAction action) {
+		return action == StandardRenameAction.COPY || action == StandardRenameAction.DUPLICATE;
+	}
+
+	protected void completeAll(Map<File, CompletableFuture<File>> pending, Map<File, File> renameLog) throws Exception {
+		for (Iterator<Entry<File, CompletableFuture<File>>> it = pending.entrySet().iterator(); it.hasNext();) {
+			Entry<File, CompletableFuture<File>> copy = it.next();
+			renameLog.put(copy.getKey(), getResult(copy.getValue()));
+			it.remove();
+		}
+	}
+
+	protected <T> T getResult(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static class CopyProgress implements FileCopier.Progress {
+
+		// report progress in 10% steps
+		private final Map<File, Integer> progress = new ConcurrentHashMap<File, Integer>();
+
+		@Override
+		public void update(File source, File destination, long bytes, long length) {
+			int step = length > 0 ? (int) (bytes * 10 / length) : 10;
+
+			if (step >= 10) {
+				progress.remove(destination);
+			} else if (!Objects.equals(progress.put(destination, step), step) && step > 0) {
+				log.finest(format("Copying [%s] %d%% (%s of %s)", destination.getName(), step * 10, formatSize(bytes), formatSize(length)));
+			}
+		}
+	}
+
 	protected void writeHistory(RenameAction action, Map<File, File> log, List<Match<File, ?>> matches) {
 		// write rename history
 		if (action.canRevert()) {
@@ -703,7 +787,8 @@ public class CmdlineOperations implements CmdlineInterface {
 		// try to find subtitles for each video file
 		List<File> remainingVideos = new ArrayList<File>(files);
 
-		// parallel download
+		// parallel lookup and download
+		SubtitlePipeline pipeline = new SubtitlePipeline(language.getLocale(), output, encoding, format, strict);
 		List<File> subtitleFiles = new ArrayList<File>();
 
 		log.finest(format("Get [%s] subtitles for %d files", language.getName(), remainingVideos.size()));
@@ -719,8 +804,7 @@ public class CmdlineOperations implements CmdlineInterface {
 
 			try {
 				log.fine("Looking up subtitles by hash via " + service.getName());
-				Map<File, List<SubtitleDescriptor>> options = lookupSubtitlesByHash(service, remainingVideos, language.getLocale(), false, strict);
-				Map<File, File> downloads = downloadSubtitleBatch(service, options, output, encoding, format);
+				Map<File, File> downloads = pipeline.getSubtitlesByHash(service, remainingVideos);
 				remainingVideos.removeAll(downloads.keySet());
 				subtitleFiles.addAll(downloads.values());
 			} catch (Exception e) {
@@ -735,8 +819,7 @@ public class CmdlineOperations implements CmdlineInterface {
 
 			try {
 				log.fine(format("Looking up subtitles by name via %s", service.getName()));
-				Map<File, List<SubtitleDescriptor>> options = findSubtitlesByName(service, remainingVideos, language.getLocale(), query, false, strict);
-				Map<File, File> downloads = downloadSubtitleBatch(service, options, output, encoding, format);
+				Map<File, File> downloads = pipeline.getSubtitlesByName(service, remainingVideos, query);
 				remainingVideos.removeAll(downloads.keySet());
 				subtitleFiles.addAll(downloads.values());
 			} catch (Exception e) {
@@ -809,55 +892,6 @@ public class CmdlineOperations implements CmdlineInterface {
 		return getSubtitles(videoFiles, query, language, output, encoding, format, strict);
 	}
 
-	private Map<File, File> downloadSubtitleBatch(Datasource service, Map<File, List<SubtitleDescriptor>> subtitles, SubtitleFormat outputFormat, Charset outputEncoding, SubtitleNaming naming) {
-		Map<File, File> downloads = new LinkedHashMap<File, File>();
-
-		// fetch subtitle
-		subtitles.forEach((movie, options) -> {
-			if (options.size() > 0) {
-				SubtitleDescriptor subtitle = options.get(0);
-				try {
-					downloads.put(movie, downloadSubtitle(service, subtitle, movie, outputFormat, outputEncoding, naming));
-				} catch (Exception e) {
-					log.warning(format("Failed to download %s: %s", subtitle, e));
-				}
-			}
-		});
-
-		return downloads;
-	}
-
-	private File downloadSubtitle(Datasource service, SubtitleDescriptor descriptor, File movieFile, SubtitleFormat outputFormat, Charset outputEncoding, SubtitleNaming naming) throws Exception {
-		// fetch subtitle archive
-		log.config(format("Fetching [%s] subtitles [%s] from [%s]", descriptor.getLanguageName(), descriptor.getPath(), service.getName()));
-		MemoryFile subtitleFile = fetchSubtitle(descriptor);
-
-		// subtitle filename is based on movie filename
-		String extension = getExtension(subtitleFile.getName());
-		ByteBuffer data = subtitleFile.getData();
-
-		if (outputFormat != null || outputEncoding != null) {
-			// adjust extension of the output file
-			if (outputFormat != null) {
-				extension = outputFormat.getFilter().extension();
-			}
-
-			// default to UTF-8 if no other encoding is given
-			if (outputEncoding == null) {
-				outputEncoding = UTF_8;
-			}
-
-			log.finest(format("Export [%s] as [%s / %s]", subtitleFile.getName(), outputFormat, outputEncoding));
-			data = exportSubtitles(subtitleFile, outputFormat, 0, outputEncoding);
-		}
-
-		File destination = new File(movieFile.getParentFile(), naming.format(movieFile, descriptor, extension));
-		log.info(format("Writing [%s] to [%s]", subtitleFile.getName(), destination.getName()));
-
-		writeFile(data, destination);
-		return destination;
-	}
-
 	protected <T> List<T> applyExpressionFilter(List<T> input, ExpressionFilter filter) {
 		if (filter == null) {
 			return input;
@@ -905,13 +939,48 @@ public class CmdlineOperations implements CmdlineInterface {
 	@Override
 	public boolean check(Collection<File> files) throws Exception {
 		// only check existing hashes
-		boolean result = true;
+		List<File> verificationFiles = filter(files, VERIFICATION_FILES);
 
-		for (File it : filter(files, VERIFICATION_FILES)) {
-			result &= check(it, it.getParentFile());
+		for (File it : verificationFiles) {
+			if (getHashType(it) == null) {
+				throw new CmdlineException("Unsupported format: " + it);
+			}
 		}
 
-		return result;
+		// compute hashes for all files in parallel but print results in order
+		try (VerificationEngine engine = new VerificationEngine()) {
+			Map<File, Map<File, Entry<String, CompletableFuture<String>>>> results = new LinkedHashMap<File, Map<File, Entry<String, CompletableFuture<String>>>>();
+
+			for (File it : verificationFiles) {
+				results.put(it, check(engine, it, it.getParentFile()));
+			}
+
+			boolean status = true;
+
+			for (Entry<File, Map<File, Entry<String, CompletableFuture<String>>>> it : results.entrySet()) {
+				log.fine(format("Checking [%s]", it.getKey().getName()));
+
+				for (Entry<File, Entry<String, CompletableFuture<String>>> entry : it.getValue().entrySet()) {
+					File file = entry.getKey();
+					String expected = entry.getValue().getKey();
+
+					try {
+						String current = entry.getValue().getValue().get();
+						log.info(format("%s %s", current, file));
+
+						if (current.compareToIgnoreCase(expected) != 0) {
+							status = false;
+							log.warning(format("Corrupted file found: %s [hash mismatch: %s vs %s]", file, current, expected));
+						}
+					} catch (ExecutionException e) {
+						status = false;
+						log.warning(format("Failed to check [%s]: %s", file, e.getCause()));
+					}
+				}
+			}
+
+			return status;
+		}
 	}
 
 	@Override
@@ -952,55 +1021,45 @@ public class CmdlineOperations implements CmdlineInterface {
 		return output;
 	}
 
-	private boolean check(File verificationFile, File root) throws Exception {
+	private Map<File, Entry<String, CompletableFuture<String>>> check(VerificationEngine engine, File verificationFile, File root) throws Exception {
 		HashType type = getHashType(verificationFile);
 
-		// check if type is supported
-		if (type == null) {
-			throw new CmdlineException("Unsupported format: " + verificationFile);
-		}
-
 		// add all file names from verification file
-		log.fine(format("Checking [%s]", verificationFile.getName()));
+		Map<File, Entry<String, CompletableFuture<String>>> results = new LinkedHashMap<File, Entry<String, CompletableFuture<String>>>();
 		VerificationFileReader parser = new VerificationFileReader(createTextReader(verificationFile), type.getFormat());
-		boolean status = true;
 
 		try {
 			while (parser.hasNext()) {
-				try {
-					Entry<File, String> it = parser.next();
-
-					File file = new File(root, it.getKey().getPath()).getAbsoluteFile();
-					String current = computeHash(new File(root, it.getKey().getPath()), type);
-					log.info(format("%s %s", current, file));
+				Entry<File, String> it = parser.next();
+				File file = new File(root, it.getKey().getPath()).getAbsoluteFile();
 
-					if (current.compareToIgnoreCase(it.getValue()) != 0) {
-						throw new IOException(String.format("Corrupted file found: %s [hash mismatch: %s vs %s]", it.getKey(), current, it.getValue()));
-					}
-				} catch (IOException e) {
-					status = false;
-					log.warning(e.getMessage());
-				}
+				results.put(file, new AbstractMap.SimpleImmutableEntry<String, CompletableFuture<String>>(it.getValue(), engine.submit(file, type)));
 			}
 		} finally {
 			parser.close();
 		}
 
-		return status;
+		return results;
 	}
 
 	private void compute(File root, Collection<File> files, File outputFile, HashType hashType, Charset encoding) throws IOException, Exception {
 		// compute hashes recursively and write to file
 		VerificationFileWriter out = new VerificationFileWriter(outputFile, hashType.getFormat(), encoding != null ? encoding : UTF_8);
 
-		try {
+		try (VerificationEngine engine = new VerificationEngine()) {
+			// compute hashes in parallel but write results in order
+			Map<File, CompletableFuture<String>> hashes = new LinkedHashMap<File, CompletableFuture<String>>();
+
 			for (File it : files) {
 				if (it.isHidden() || VERIFICATION_FILES.accept(it)) {
 					continue;
 				}
+				hashes.put(it, engine.submit(it, hashType));
+			}
 
-				String relativePath = normalizePathSeparators(it.getPath().substring(root.getPath().length() + 1)); // skip root and first slash
-				String hash = computeHash(it, hashType);
+			for (Entry<File, CompletableFuture<String>> it : hashes.entrySet()) {
+				String relativePath = normalizePathSeparators(it.getKey().getPath().substring(root.getPath().length() + 1)); // skip root and first slash
+				String hash = getResult(it.getValue());
 				log.info(format("%s %s", hash, relativePath));
 
 				out.write(relativePath, hash);
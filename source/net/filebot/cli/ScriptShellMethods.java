@@ -6,6 +6,7 @@ import static java.util.Collections.*;
 import static java.util.stream.Collectors.*;
 import static net.filebot.Logging.*;
 import static net.filebot.MediaTypes.*;
+import static net.filebot.Settings.*;
 import static net.filebot.util.FileUtilities.*;
 
 import java.io.File;
@@ -13,17 +14,18 @@ import java.io.FileFilter;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.ByteBuffer;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 import org.codehaus.groovy.runtime.DefaultGroovyMethods;
@@ -39,8 +41,10 @@ import net.filebot.media.XattrMetaInfo;
 import net.filebot.similarity.NameSimilarityMetric;
 import net.filebot.similarity.Normalization;
 import net.filebot.similarity.SimilarityMetric;
+import net.filebot.util.DefaultThreadFactory;
 import net.filebot.util.FastFile;
 import net.filebot.util.FileUtilities;
+import net.filebot.util.SystemProperty;
 import net.filebot.web.WebRequest;
 
 public class ScriptShellMethods {
@@ -194,28 +198,10 @@ public class ScriptShellMethods {
 	}
 
 	public static List<File> getMediaFolders(File self) throws IOException {
-		SortedSet<File> folders = new TreeSet<File>(CASE_INSENSITIVE_PATH_ORDER);
+		// folders that contain video files or disk folder entries (e.g. VIDEO_TS or BDMV)
+		FileFilter diskFolderEntryFilter = MediaDetection.getDiskFolderEntryFilter();
 
-		Files.walkFileTree(self.toPath(), new SimpleFileVisitor<Path>() {
-
-			@Override
-			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-				File folder = dir.toFile();
-
-				if (folder.isHidden() || !folder.canRead()) {
-					return FileVisitResult.SKIP_SUBTREE;
-				}
-
-				if (FileUtilities.getChildren(folder, VIDEO_FILES).size() > 0 || MediaDetection.isDiskFolder(folder)) {
-					folders.add(folder);
-					return FileVisitResult.SKIP_SUBTREE;
-				}
-
-				return FileVisitResult.CONTINUE;
-			}
-		});
-
-		return new ArrayList<File>(folders);
+		return FileUtilities.listFolders(self, f -> VIDEO_FILES.accept(f) || diskFolderEntryFilter.accept(f), CASE_INSENSITIVE_PATH_ORDER);
 	}
 
 	public static void eachMediaFolder(Collection<?> self, Closure<?> closure) throws IOException {
@@ -403,22 +389,76 @@ public class ScriptShellMethods {
 	}
 
 	public static float getSimilarity(String self, String other) {
-		return new NameSimilarityMetric().getSimilarity(self, other);
+		return NAME_SIMILARITY.getSimilarity(self, other);
 	}
 
 	public static Collection<?> sortBySimilarity(Collection<?> self, final Object prime, final Closure<String> toStringFunction) {
-		List<Object> values = new ArrayList<Object>(self);
+		return sortBySimilarity(self, prime, toStringFunction != null ? toStringFunction::call : Object::toString);
+	}
+
+	static List<Object> sortBySimilarity(Collection<?> self, Object prime, Function<Object, String> toStringFunction) {
+		// compute similarity only once for each value
+		List<Entry<Object, Float>> values = new ArrayList<Entry<Object, Float>>(self.size());
+
+		for (Object it : self) {
+			String s = toStringFunction.apply(it);
+			values.add(new SimpleImmutableEntry<Object, Float>(it, NAME_SIMILARITY.getSimilarity(s, prime)));
+		}
+
+		values.sort((o1, o2) -> Float.compare(o2.getValue(), o1.getValue()));
+
+		return values.stream().map(Entry::getKey).collect(toList());
+	}
 
-		SimilarityMetric metric = new NameSimilarityMetric();
-		values.sort((o1, o2) -> {
-			String s1 = toStringFunction != null ? toStringFunction.call(o1) : o1.toString();
-			String s2 = toStringFunction != null ? toStringFunction.call(o2) : o2.toString();
-			return Float.compare(metric.getSimilarity(s2, prime), metric.getSimilarity(s1, prime));
-		});
+	private static final SimilarityMetric NAME_SIMILARITY = new NameSimilarityMetric();
 
-		return values;
+	public static <T> List<T> parallelCollect(Collection<?> self, Closure<T> closure) throws Exception {
+		return parallelCollect(self, PARALLEL_THREAD_POOL_SIZE, closure);
 	}
 
+	public static <T> List<T> parallelCollect(Collection<?> self, int threads, Closure<T> closure) throws Exception {
+		return parallelCollect(self, threads, (Function<Object, T>) closure::call);
+	}
+
+	static <T> List<T> parallelCollect(Collection<?> self, int threads, Function<Object, T> function) throws Exception {
+		// call closure for all values in parallel but return results in order
+		ExecutorService threadPool = Executors.newFixedThreadPool(Math.max(1, Math.min(self.size(), threads)), new DefaultThreadFactory("ScriptParallel", Thread.NORM_PRIORITY, true));
+		try {
+			List<Future<T>> futures = new ArrayList<Future<T>>(self.size());
+			for (Object it : self) {
+				futures.add(threadPool.submit(() -> function.apply(it)));
+			}
+
+			List<T> results = new ArrayList<T>(futures.size());
+			for (Future<T> it : futures) {
+				try {
+					results.add(it.get());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
+					}
+					if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					}
+					throw e;
+				}
+			}
+			return results;
+		} finally {
+			threadPool.shutdownNow();
+		}
+	}
+
+	public static void parallelEach(Collection<?> self, Closure<?> closure) throws Exception {
+		parallelCollect(self, PARALLEL_THREAD_POOL_SIZE, closure);
+	}
+
+	public static void parallelEach(Collection<?> self, int threads, Closure<?> closure) throws Exception {
+		parallelCollect(self, threads, closure);
+	}
+
+	private static final int PARALLEL_THREAD_POOL_SIZE = SystemProperty.of("net.filebot.cli.parallel.threadPool", Integer::parseInt, getPreferredThreadPoolSize()).get();
+
 	public static MetaAttributeView getXattr(File self) {
 		try {
 			return new MetaAttributeView(self);
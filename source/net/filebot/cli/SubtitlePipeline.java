@@ -0,0 +1,192 @@
+package net.filebot.cli;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static net.filebot.Logging.*;
+import static net.filebot.Settings.*;
+import static net.filebot.subtitle.SubtitleUtilities.*;
+import static net.filebot.util.FileUtilities.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.filebot.subtitle.SubtitleFormat;
+import net.filebot.subtitle.SubtitleNaming;
+import net.filebot.util.DefaultThreadFactory;
+import net.filebot.util.SystemProperty;
+import net.filebot.vfs.MemoryFile;
+import net.filebot.web.Datasource;
+import net.filebot.web.SubtitleDescriptor;
+import net.filebot.web.SubtitleProvider;
+import net.filebot.web.VideoHashSubtitleService;
+
+/**
+ * Look up, fetch, decode and write subtitles for many video files at once. Lookups and downloads for different files overlap, while the number of concurrent tasks is bounded and each service still enforces its own request limits.
+ */
+class SubtitlePipeline {
+
+	public static final int DEFAULT_THREAD_POOL_SIZE = SystemProperty.of("net.filebot.cli.subtitles.threadPool", Integer::parseInt, getPreferredThreadPoolSize()).get();
+
+	private final Locale locale;
+	private final SubtitleFormat outputFormat;
+	private final Charset outputEncoding;
+	private final SubtitleNaming naming;
+	private final boolean strict;
+	private final int threadPoolSize;
+
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicInteger completed = new AtomicInteger();
+
+	public SubtitlePipeline(Locale locale, SubtitleFormat outputFormat, Charset outputEncoding, SubtitleNaming naming, boolean strict) {
+		this(locale, outputFormat, outputEncoding, naming, strict, DEFAULT_THREAD_POOL_SIZE);
+	}
+
+	public SubtitlePipeline(Locale locale, SubtitleFormat outputFormat, Charset outputEncoding, SubtitleNaming naming, boolean strict, int threadPoolSize) {
+		this.locale = locale;
+		this.outputFormat = outputFormat;
+		this.outputEncoding = outputEncoding;
+		this.naming = naming;
+		this.strict = strict;
+		this.threadPoolSize = threadPoolSize;
+	}
+
+	public Map<File, File> getSubtitlesByHash(VideoHashSubtitleService service, Collection<File> files) throws Exception {
+		// lookup each file separately so that hashing and lookup overlap with downloads
+		List<Callable<Map<File, List<SubtitleDescriptor>>>> lookups = files.stream().map(f -> {
+			return (Callable<Map<File, List<SubtitleDescriptor>>>) () -> {
+				try {
+					return lookupSubtitlesByHash(service, singleton(f), locale, false, strict);
+				} catch (Exception e) {
+					log.warning(format("Lookup by hash failed: %s", e.getMessage()));
+					return emptyMap();
+				}
+			};
+		}).collect(toList());
+
+		return process(service, lookups);
+	}
+
+	public Map<File, File> getSubtitlesByName(SubtitleProvider service, Collection<File> files, String query) throws Exception {
+		// lookup each series and media folder separately so that searches overlap with downloads
+		List<Callable<Map<File, List<SubtitleDescriptor>>>> lookups = mapBySeriesNameAndMediaFolder(files).stream().map(it -> {
+			return (Callable<Map<File, List<SubtitleDescriptor>>>) () -> {
+				try {
+					return findSubtitlesByName(service, it.getKey(), it.getValue(), locale, query, false, strict);
+				} catch (Exception e) {
+					log.warning(format("Search by name failed: %s", e.getMessage()));
+					return emptyMap();
+				}
+			};
+		}).collect(toList());
+
+		return process(service, lookups);
+	}
+
+	private Map<File, File> process(Datasource service, List<Callable<Map<File, List<SubtitleDescriptor>>>> lookups) throws Exception {
+		ExecutorService workerThreadPool = Executors.newFixedThreadPool(threadPoolSize, new DefaultThreadFactory(service.getIdentifier(), Thread.NORM_PRIORITY, true));
+		try {
+			List<CompletableFuture<Map<File, File>>> batches = new ArrayList<CompletableFuture<Map<File, File>>>(lookups.size());
+
+			for (Callable<Map<File, List<SubtitleDescriptor>>> lookup : lookups) {
+				batches.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						return lookup.call();
+					} catch (Exception e) {
+						throw new CompletionException(e);
+					}
+				}, workerThreadPool).thenCompose(options -> download(service, options, workerThreadPool)));
+			}
+
+			// collect results in input order
+			Map<File, File> downloads = new LinkedHashMap<File, File>();
+			for (CompletableFuture<Map<File, File>> it : batches) {
+				downloads.putAll(it.get());
+			}
+			return downloads;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		} finally {
+			workerThreadPool.shutdownNow();
+		}
+	}
+
+	private CompletableFuture<Map<File, File>> download(Datasource service, Map<File, List<SubtitleDescriptor>> options, ExecutorService workerThreadPool) {
+		Map<File, CompletableFuture<File>> downloads = new LinkedHashMap<File, CompletableFuture<File>>();
+
+		options.forEach((movie, subtitles) -> {
+			if (subtitles.size() > 0) {
+				SubtitleDescriptor subtitle = subtitles.get(0);
+				pending.incrementAndGet();
+
+				downloads.put(movie, CompletableFuture.supplyAsync(() -> {
+					try {
+						return downloadSubtitle(service, subtitle, movie);
+					} catch (Exception e) {
+						log.warning(format("Failed to download %s: %s", subtitle, e));
+						return null;
+					} finally {
+						log.finest(format("Fetched %d of %d subtitles", completed.incrementAndGet(), pending.get()));
+					}
+				}, workerThreadPool));
+			}
+		});
+
+		return CompletableFuture.allOf(downloads.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+			Map<File, File> files = new LinkedHashMap<File, File>();
+			downloads.forEach((movie, subtitle) -> {
+				if (subtitle.join() != null) {
+					files.put(movie, subtitle.join());
+				}
+			});
+			return files;
+		});
+	}
+
+	private File downloadSubtitle(Datasource service, SubtitleDescriptor descriptor, File movieFile) throws Exception {
+		// fetch subtitle archive
+		log.config(format("Fetching [%s] subtitles [%s] from [%s]", descriptor.getLanguageName(), descriptor.getPath(), service.getName()));
+		MemoryFile subtitleFile = fetchSubtitle(descriptor);
+
+		// subtitle filename is based on movie filename
+		String extension = getExtension(subtitleFile.getName());
+		ByteBuffer data = subtitleFile.getData();
+
+		if (outputFormat != null || outputEncoding != null) {
+			// adjust extension of the output file
+			if (outputFormat != null) {
+				extension = outputFormat.getFilter().extension();
+			}
+
+			// default to UTF-8 if no other encoding is given
+			Charset encoding = outputEncoding != null ? outputEncoding : UTF_8;
+
+			log.finest(format("Export [%s] as [%s / %s]", subtitleFile.getName(), outputFormat, encoding));
+			data = exportSubtitles(subtitleFile, outputFormat, 0, encoding);
+		}
+
+		File destination = new File(movieFile.getParentFile(), naming.format(movieFile, descriptor, extension));
+		log.info(format("Writing [%s] to [%s]", subtitleFile.getName(), destination.getName()));
+
+		writeFile(data, destination);
+		return destination;
+	}
+
+}
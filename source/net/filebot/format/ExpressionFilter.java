@@ -17,7 +17,8 @@ public class ExpressionFilter {
 	private final String expression;
 	private final CompiledScript compiledExpression;
 
-	private Throwable lastException;
+	// filters may be used on multiple threads at once (e.g. when walking file trees in parallel)
+	private final ThreadLocal<Throwable> lastException = new ThreadLocal<Throwable>();
 
 	public ExpressionFilter(String expression) throws ScriptException {
 		this.expression = expression;
@@ -28,8 +29,11 @@ public class ExpressionFilter {
 		return expression;
 	}
 
+	/**
+	 * @return exception of the last evaluation on the current thread
+	 */
 	public Throwable getLastException() {
-		return lastException;
+		return lastException.get();
 	}
 
 	public boolean matches(Object value) {
@@ -37,7 +41,7 @@ public class ExpressionFilter {
 	}
 
 	public boolean matches(Bindings bindings) {
-		this.lastException = null;
+		lastException.remove();
 
 		// use privileged bindings so we are not restricted by the script sandbox
 		Bindings priviledgedBindings = PrivilegedInvocation.newProxy(Bindings.class, bindings, AccessController.getContext());
@@ -54,7 +58,7 @@ public class ExpressionFilter {
 			return DefaultTypeTransformation.castToBoolean(value);
 		} catch (Throwable e) {
 			// ignore any and all scripting exceptions
-			this.lastException = e;
+			lastException.set(e);
 		}
 
 		return false;
@@ -83,6 +83,7 @@ public class MediaBindingBean {
 	private final Map<File, ?> context;
 
 	private MediaInfo mediaInfo;
+	private ImageMetadata photo;
 
 	public MediaBindingBean(Object infoObject, File mediaFile) {
 		this(infoObject, mediaFile, null);
@@ -945,11 +946,16 @@ public class MediaBindingBean {
 	}
 
 	@Define("photo")
-	public ImageMetadata getPhoto() throws Exception {
+	public synchronized ImageMetadata getPhoto() throws Exception {
 		if (infoObject instanceof PhotoFile) {
 			return ((PhotoFile) infoObject).getMetadata();
 		}
-		return new ImageMetadata((File) infoObject);
+
+		// lazy initialize, so that {exif}, {camera} and {location} share the metadata read from the same file
+		if (photo == null) {
+			photo = new ImageMetadata((File) infoObject);
+		}
+		return photo;
 	}
 
 	@Define("pi")
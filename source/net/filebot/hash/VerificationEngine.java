@@ -0,0 +1,114 @@
+package net.filebot.hash;
+
+import static net.filebot.util.FileUtilities.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+
+import net.filebot.util.DefaultThreadFactory;
+import net.filebot.util.SystemProperty;
+
+/**
+ * Compute checksums for many files at once. Each device gets its own bounded thread pool, so that files on different disks are read in parallel without flooding a single disk with concurrent reads.
+ */
+public class VerificationEngine implements AutoCloseable {
+
+	public static final int DEFAULT_THREADS_PER_DEVICE = SystemProperty.of("net.filebot.hash.VerificationEngine.threadsPerDevice", Integer::parseInt, Math.min(4, Runtime.getRuntime().availableProcessors())).get();
+
+	public static final int BLOCK_SIZE = 1024 * 1024;
+
+	public static String computeHash(File file, HashType type) throws IOException, InterruptedException {
+		return computeHash(file, type, null);
+	}
+
+	public static String computeHash(File file, HashType type, LongConsumer progress) throws IOException, InterruptedException {
+		Hash hash = type.newHash();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+			long position = 0;
+
+			while (channel.read(buffer.clear()) >= 0) {
+				hash.update(buffer.array(), 0, buffer.position());
+				position += buffer.position();
+
+				if (progress != null) {
+					progress.accept(position);
+				}
+
+				// make this long-running operation interruptible
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			}
+		}
+
+		return hash.digest();
+	}
+
+	private final int threadsPerDevice;
+	private final Map<Object, ExecutorService> executors = new HashMap<Object, ExecutorService>();
+
+	// resolve the device of each folder only once
+	private final Map<File, ExecutorService> folders = new HashMap<File, ExecutorService>();
+
+	public VerificationEngine() {
+		this(DEFAULT_THREADS_PER_DEVICE);
+	}
+
+	public VerificationEngine(int threadsPerDevice) {
+		this.threadsPerDevice = threadsPerDevice;
+	}
+
+	public CompletableFuture<String> submit(File file, HashType type) {
+		return submit(file, () -> computeHash(file, type));
+	}
+
+	public <T> CompletableFuture<T> submit(File file, Callable<T> task) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return task.call();
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, getExecutor(file));
+	}
+
+	private synchronized ExecutorService getExecutor(File file) {
+		File folder = file.getAbsoluteFile().getParentFile();
+		if (folder == null) {
+			folder = file.getAbsoluteFile();
+		}
+
+		return folders.computeIfAbsent(folder, f -> getExecutor(getDevice(f)));
+	}
+
+	private synchronized ExecutorService getExecutor(Object device) {
+		return executors.computeIfAbsent(device, k -> {
+			return Executors.newFixedThreadPool(threadsPerDevice, new DefaultThreadFactory("VerificationEngine", Thread.MIN_PRIORITY, true));
+		});
+	}
+
+	public static Object getDevice(File file) {
+		return String.valueOf(getFileStore(file));
+	}
+
+	@Override
+	public synchronized void close() {
+		executors.values().forEach(ExecutorService::shutdownNow);
+		executors.clear();
+		folders.clear();
+	}
+
+}
@@ -3,9 +3,7 @@ package net.filebot.hash;
 import static net.filebot.util.FileUtilities.*;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -80,27 +78,7 @@ public final class VerificationUtilities {
 	}
 
 	public static String computeHash(File file, HashType type) throws IOException, InterruptedException {
-		Hash hash = type.newHash();
-
-		// calculate checksum
-		InputStream in = new FileInputStream(file);
-
-		try {
-			byte[] buffer = new byte[BUFFER_SIZE];
-			int len = 0;
-
-			while ((len = in.read(buffer)) >= 0) {
-				hash.update(buffer, 0, len);
-
-				// make this long-running operation interruptible
-				if (Thread.interrupted())
-					throw new InterruptedException();
-			}
-		} finally {
-			in.close();
-		}
-
-		return hash.digest();
+		return VerificationEngine.computeHash(file, type);
 	}
 
 	public static String crc32(File file) throws IOException, InterruptedException {
@@ -0,0 +1,706 @@
+package net.filebot.media;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.stream.Collectors.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read basic media characteristics from MKV / MP4 / AVI container headers without native libraries or external processes. Instances are immutable and the file is only read via positional reads while parsing, so many files can be probed concurrently.
+ */
+public class ContainerHeader implements MediaCharacteristics {
+
+	public enum Container {
+
+		Matroska, MPEG4, AVI;
+
+		public static Container forMagicBytes(ByteBuffer head) {
+			if (head.remaining() >= 4 && head.getInt(0) == 0x1A45DFA3) {
+				return Matroska;
+			}
+			if (head.remaining() >= 8 && "ftyp".equals(fourcc(head, 4))) {
+				return MPEG4;
+			}
+			if (head.remaining() >= 12 && "RIFF".equals(fourcc(head, 0)) && "AVI ".equals(fourcc(head, 8))) {
+				return AVI;
+			}
+			return null;
+		}
+	}
+
+	public enum TrackType {
+		Video, Audio, Text;
+	}
+
+	public static class Track {
+
+		private final TrackType type;
+		private String codec;
+		private String language;
+		private Integer width;
+		private Integer height;
+		private Float frameRate;
+
+		private Track(TrackType type) {
+			this.type = type;
+		}
+
+		public TrackType getType() {
+			return type;
+		}
+
+		public String getCodec() {
+			return codec;
+		}
+
+		public String getLanguage() {
+			return language;
+		}
+
+		public Integer getWidth() {
+			return width;
+		}
+
+		public Integer getHeight() {
+			return height;
+		}
+
+		public Float getFrameRate() {
+			return frameRate;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s [%s, %s, %sx%s, %s]", type, codec, language, width, height, frameRate);
+		}
+	}
+
+	public static boolean isSupported(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return Container.forMagicBytes(read(channel, 0, 12)) != null;
+		}
+	}
+
+	public static ContainerHeader read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			Container container = Container.forMagicBytes(read(channel, 0, 12));
+			if (container == null) {
+				throw new UnsupportedContainerException("Unsupported container format: " + file);
+			}
+
+			ContainerHeader header = new ContainerHeader(container);
+			switch (container) {
+			case Matroska:
+				header.readMatroska(channel);
+				break;
+			case MPEG4:
+				header.readMPEG4(channel);
+				break;
+			case AVI:
+				header.readAVI(channel);
+				break;
+			}
+
+			if (header.tracks.isEmpty()) {
+				throw new IOException("No tracks found: " + file);
+			}
+			return header;
+		}
+	}
+
+	private final Container container;
+	private final List<Track> tracks = new ArrayList<Track>();
+	private Duration duration;
+
+	private ContainerHeader(Container container) {
+		this.container = container;
+	}
+
+	public Container getContainer() {
+		return container;
+	}
+
+	public List<Track> getTracks() {
+		return new ArrayList<Track>(tracks);
+	}
+
+	@Override
+	public String getVideoCodec() {
+		return first(TrackType.Video).map(Track::getCodec).orElse(null);
+	}
+
+	@Override
+	public String getAudioCodec() {
+		return first(TrackType.Audio).map(Track::getCodec).orElse(null);
+	}
+
+	@Override
+	public String getAudioLanguage() {
+		return list(TrackType.Audio, Track::getLanguage);
+	}
+
+	@Override
+	public String getSubtitleCodec() {
+		return list(TrackType.Text, Track::getCodec);
+	}
+
+	@Override
+	public Duration getDuration() {
+		return duration;
+	}
+
+	@Override
+	public Integer getWidth() {
+		return first(TrackType.Video).map(Track::getWidth).orElse(null);
+	}
+
+	@Override
+	public Integer getHeight() {
+		return first(TrackType.Video).map(Track::getHeight).orElse(null);
+	}
+
+	@Override
+	public Float getFrameRate() {
+		return first(TrackType.Video).map(Track::getFrameRate).orElse(null);
+	}
+
+	@Override
+	public void close() {
+		// file channel is already closed after parsing
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %s %s", container, duration, tracks);
+	}
+
+	private Optional<Track> first(TrackType type) {
+		return tracks.stream().filter(t -> t.type == type).findFirst();
+	}
+
+	private String list(TrackType type, Function<Track, String> property) {
+		return tracks.stream().filter(t -> t.type == type).map(property).filter(Objects::nonNull).collect(joining(" / "));
+	}
+
+	/**
+	 * Matroska / WebM (EBML)
+	 */
+	private static final int EBML_SEGMENT = 0x18538067;
+	private static final int EBML_SEEK_HEAD = 0x114D9B74;
+	private static final int EBML_SEEK = 0x4DBB;
+	private static final int EBML_SEEK_ID = 0x53AB;
+	private static final int EBML_SEEK_POSITION = 0x53AC;
+	private static final int EBML_INFO = 0x1549A966;
+	private static final int EBML_TIMECODE_SCALE = 0x2AD7B1;
+	private static final int EBML_DURATION = 0x4489;
+	private static final int EBML_TRACKS = 0x1654AE6B;
+	private static final int EBML_TRACK_ENTRY = 0xAE;
+	private static final int EBML_TRACK_TYPE = 0x83;
+	private static final int EBML_CODEC_ID = 0x86;
+	private static final int EBML_LANGUAGE = 0x22B59C;
+	private static final int EBML_LANGUAGE_IETF = 0x22B59D;
+	private static final int EBML_DEFAULT_DURATION = 0x23E383;
+	private static final int EBML_VIDEO = 0xE0;
+	private static final int EBML_PIXEL_WIDTH = 0xB0;
+	private static final int EBML_PIXEL_HEIGHT = 0xBA;
+	private static final int EBML_CLUSTER = 0x1F43B675;
+
+	private static final long EBML_UNKNOWN_SIZE = -1;
+
+	private void readMatroska(FileChannel channel) throws IOException {
+		long size = channel.size();
+
+		// skip EBML header
+		long[] element = readElementHeader(channel, 0);
+		long position = element[2] + element[1];
+
+		// find segment
+		while (position < size) {
+			element = readElementHeader(channel, position);
+			if (element[0] == EBML_SEGMENT) {
+				break;
+			}
+			if (element[1] == EBML_UNKNOWN_SIZE) {
+				throw new IOException("Segment not found");
+			}
+			position = element[2] + element[1];
+		}
+
+		if (element[0] != EBML_SEGMENT) {
+			throw new IOException("Segment not found");
+		}
+
+		long segmentStart = element[2];
+		long segmentEnd = element[1] == EBML_UNKNOWN_SIZE ? size : Math.min(size, segmentStart + element[1]);
+
+		long infoPosition = -1;
+		long tracksPosition = -1;
+		boolean info = false;
+		boolean tracks = false;
+
+		for (position = segmentStart; position < segmentEnd && !(info && tracks);) {
+			element = readElementHeader(channel, position);
+
+			if (element[0] == EBML_INFO) {
+				readMatroskaInfo(read(channel, element[2], element[1]));
+				info = true;
+			} else if (element[0] == EBML_TRACKS) {
+				readMatroskaTracks(read(channel, element[2], element[1]));
+				tracks = true;
+			} else if (element[0] == EBML_SEEK_HEAD) {
+				ByteBuffer seekHead = read(channel, element[2], element[1]);
+				while (seekHead.hasRemaining()) {
+					long[] seek = readElementHeader(seekHead);
+					ByteBuffer entry = slice(seekHead, seek[1]);
+					if (seek[0] == EBML_SEEK) {
+						long id = 0, offset = -1;
+						while (entry.hasRemaining()) {
+							long[] value = readElementHeader(entry);
+							ByteBuffer data = slice(entry, value[1]);
+							if (value[0] == EBML_SEEK_ID) {
+								id = readUnsigned(data);
+							} else if (value[0] == EBML_SEEK_POSITION) {
+								offset = readUnsigned(data);
+							}
+						}
+						if (id == EBML_INFO) {
+							infoPosition = segmentStart + offset;
+						} else if (id == EBML_TRACKS) {
+							tracksPosition = segmentStart + offset;
+						}
+					}
+				}
+			} else if (element[0] == EBML_CLUSTER) {
+				// header elements are usually located before the first cluster, but may be referenced by the seek head
+				if (!info && infoPosition >= 0) {
+					element = readElementHeader(channel, infoPosition);
+					readMatroskaInfo(read(channel, element[2], element[1]));
+					info = true;
+				}
+				if (!tracks && tracksPosition >= 0) {
+					element = readElementHeader(channel, tracksPosition);
+					readMatroskaTracks(read(channel, element[2], element[1]));
+					tracks = true;
+				}
+				break;
+			}
+
+			if (element[1] == EBML_UNKNOWN_SIZE) {
+				break;
+			}
+			position = element[2] + element[1];
+		}
+	}
+
+	private void readMatroskaInfo(ByteBuffer data) throws IOException {
+		long timecodeScale = 1000000;
+		double duration = -1;
+
+		while (data.hasRemaining()) {
+			long[] element = readElementHeader(data);
+			ByteBuffer value = slice(data, element[1]);
+			if (element[0] == EBML_TIMECODE_SCALE) {
+				timecodeScale = readUnsigned(value);
+			} else if (element[0] == EBML_DURATION) {
+				duration = value.remaining() == 4 ? value.getFloat() : value.getDouble();
+			}
+		}
+
+		if (duration >= 0) {
+			this.duration = Duration.ofMillis((long) (duration * timecodeScale / 1000000));
+		}
+	}
+
+	private void readMatroskaTracks(ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) {
+			long[] element = readElementHeader(data);
+			ByteBuffer entry = slice(data, element[1]);
+			if (element[0] != EBML_TRACK_ENTRY) {
+				continue;
+			}
+
+			long type = 0;
+			String codec = null;
+			String language = "eng"; // Matroska default language
+			String languageIETF = null;
+			long defaultDuration = 0;
+			Integer width = null;
+			Integer height = null;
+
+			while (entry.hasRemaining()) {
+				long[] property = readElementHeader(entry);
+				ByteBuffer value = slice(entry, property[1]);
+
+				if (property[0] == EBML_TRACK_TYPE) {
+					type = readUnsigned(value);
+				} else if (property[0] == EBML_CODEC_ID) {
+					codec = readString(value);
+				} else if (property[0] == EBML_LANGUAGE) {
+					language = readString(value);
+				} else if (property[0] == EBML_LANGUAGE_IETF) {
+					languageIETF = readString(value);
+				} else if (property[0] == EBML_DEFAULT_DURATION) {
+					defaultDuration = readUnsigned(value);
+				} else if (property[0] == EBML_VIDEO) {
+					while (value.hasRemaining()) {
+						long[] dimension = readElementHeader(value);
+						ByteBuffer pixels = slice(value, dimension[1]);
+						if (dimension[0] == EBML_PIXEL_WIDTH) {
+							width = (int) readUnsigned(pixels);
+						} else if (dimension[0] == EBML_PIXEL_HEIGHT) {
+							height = (int) readUnsigned(pixels);
+						}
+					}
+				}
+			}
+
+			Track track = new Track(type == 1 ? TrackType.Video : type == 2 ? TrackType.Audio : type == 0x11 ? TrackType.Text : null);
+			if (track.type != null) {
+				track.codec = codec;
+				track.language = languageIETF != null ? languageIETF : language;
+				track.width = width;
+				track.height = height;
+				track.frameRate = defaultDuration > 0 ? getFrameRate(1e9 / defaultDuration) : null;
+				tracks.add(track);
+			}
+		}
+	}
+
+	private static long[] readElementHeader(FileChannel channel, long position) throws IOException {
+		ByteBuffer head = read(channel, position, Math.min(12, channel.size() - position));
+		long[] element = readElementHeader(head);
+		element[2] = position + head.position();
+		return element;
+	}
+
+	private static long[] readElementHeader(ByteBuffer data) throws IOException {
+		long id = readVariableInteger(data, false);
+		long size = readVariableInteger(data, true);
+		return new long[] { id, size, data.position() };
+	}
+
+	private static long readVariableInteger(ByteBuffer data, boolean mask) throws IOException {
+		if (!data.hasRemaining()) {
+			throw new EOFException();
+		}
+
+		int first = data.get() & 0xFF;
+		int length = Integer.numberOfLeadingZeros(first) - 23;
+		if (length < 1 || length > 8 || data.remaining() < length - 1) {
+			throw new IOException("Illegal EBML variable size integer");
+		}
+
+		long value = mask ? first & (0xFF >> length) : first;
+		boolean unknown = mask && value == (0xFF >> length);
+		for (int i = 1; i < length; i++) {
+			int next = data.get() & 0xFF;
+			unknown &= next == 0xFF;
+			value = (value << 8) | next;
+		}
+		return unknown ? EBML_UNKNOWN_SIZE : value;
+	}
+
+	private static long readUnsigned(ByteBuffer data) {
+		long value = 0;
+		while (data.hasRemaining()) {
+			value = (value << 8) | (data.get() & 0xFF);
+		}
+		return value;
+	}
+
+	private static String readString(ByteBuffer data) {
+		String s = UTF_8.decode(data).toString();
+		int end = s.indexOf('\0');
+		return end >= 0 ? s.substring(0, end) : s;
+	}
+
+	/**
+	 * MPEG-4 Part 14 (ISO Base Media File Format)
+	 */
+	private void readMPEG4(FileChannel channel) throws IOException {
+		long[] moov = findBox(channel, 0, channel.size(), "moov");
+		if (moov == null) {
+			throw new IOException("Movie box not found");
+		}
+
+		long[] mvhd = findBox(channel, moov[0], moov[1], "mvhd");
+		if (mvhd != null) {
+			ByteBuffer data = read(channel, mvhd[0], Math.min(mvhd[1] - mvhd[0], 32));
+			long[] time = readTimeScaleAndDuration(data);
+			if (time[0] > 0) {
+				duration = Duration.ofMillis(time[1] * 1000 / time[0]);
+			}
+		}
+
+		for (long position = moov[0]; position < moov[1];) {
+			long[] trak = findBox(channel, position, moov[1], "trak");
+			if (trak == null) {
+				break;
+			}
+			readMPEG4Track(channel, trak);
+			position = trak[1];
+		}
+	}
+
+	private void readMPEG4Track(FileChannel channel, long[] trak) throws IOException {
+		long[] mdia = findBox(channel, trak[0], trak[1], "mdia");
+		if (mdia == null) {
+			return;
+		}
+
+		long[] hdlr = findBox(channel, mdia[0], mdia[1], "hdlr");
+		if (hdlr == null) {
+			return;
+		}
+
+		String handler = fourcc(read(channel, hdlr[0] + 8, 4), 0);
+		TrackType type = null;
+		switch (handler) {
+		case "vide":
+			type = TrackType.Video;
+			break;
+		case "soun":
+			type = TrackType.Audio;
+			break;
+		case "text":
+		case "sbtl":
+		case "subt":
+			type = TrackType.Text;
+			break;
+		default:
+			return;
+		}
+
+		Track track = new Track(type);
+		long[] time = null;
+
+		long[] mdhd = findBox(channel, mdia[0], mdia[1], "mdhd");
+		if (mdhd != null) {
+			ByteBuffer data = read(channel, mdhd[0], Math.min(mdhd[1] - mdhd[0], 36));
+			time = readTimeScaleAndDuration(data);
+
+			int code = data.getShort() & 0x7FFF;
+			char[] language = { (char) (((code >> 10) & 0x1F) + 0x60), (char) (((code >> 5) & 0x1F) + 0x60), (char) ((code & 0x1F) + 0x60) };
+			if (code != 0 && !"und".equals(new String(language))) {
+				track.language = new String(language);
+			}
+		}
+
+		long[] minf = findBox(channel, mdia[0], mdia[1], "minf");
+		long[] stbl = minf == null ? null : findBox(channel, minf[0], minf[1], "stbl");
+		if (stbl != null) {
+			long[] stsd = findBox(channel, stbl[0], stbl[1], "stsd");
+			if (stsd != null && stsd[1] - stsd[0] >= 16) {
+				ByteBuffer entry = read(channel, stsd[0] + 8, Math.min(stsd[1] - stsd[0] - 8, 36));
+				track.codec = fourcc(entry, 4).trim();
+
+				if (type == TrackType.Video && entry.remaining() >= 36) {
+					track.width = entry.getShort(32) & 0xFFFF;
+					track.height = entry.getShort(34) & 0xFFFF;
+				}
+			}
+
+			long[] stts = findBox(channel, stbl[0], stbl[1], "stts");
+			if (type == TrackType.Video && stts != null && time != null && time[0] > 0 && time[1] > 0) {
+				ByteBuffer data = read(channel, stts[0], stts[1] - stts[0]);
+				long entries = data.getInt(4) & 0xFFFFFFFFL;
+				long samples = 0;
+				for (int i = 0; i < entries && data.remaining() >= 16 + i * 8; i++) {
+					samples += data.getInt(8 + i * 8) & 0xFFFFFFFFL;
+				}
+				if (samples > 0) {
+					track.frameRate = getFrameRate(samples * (double) time[0] / time[1]);
+				}
+			}
+		}
+
+		tracks.add(track);
+	}
+
+	private static long[] readTimeScaleAndDuration(ByteBuffer data) {
+		int version = data.get() & 0xFF;
+		if (version == 1) {
+			data.position(20);
+			return new long[] { data.getInt() & 0xFFFFFFFFL, data.getLong() };
+		}
+		data.position(12);
+		return new long[] { data.getInt() & 0xFFFFFFFFL, data.getInt() & 0xFFFFFFFFL };
+	}
+
+	/**
+	 * @return start and end position of the box contents, or null if there is no such box in the given range
+	 */
+	private static long[] findBox(FileChannel channel, long position, long end, String type) throws IOException {
+		while (position + 8 <= end) {
+			ByteBuffer head = read(channel, position, Math.min(16, end - position));
+			long size = head.getInt(0) & 0xFFFFFFFFL;
+			int headerSize = 8;
+
+			if (size == 1 && head.remaining() >= 16) {
+				size = head.getLong(8);
+				headerSize = 16;
+			} else if (size == 0) {
+				size = end - position;
+			}
+
+			if (size < headerSize) {
+				throw new IOException("Illegal box size: " + size);
+			}
+
+			if (type.equals(fourcc(head, 4))) {
+				return new long[] { position + headerSize, Math.min(end, position + size) };
+			}
+			position += size;
+		}
+		return null;
+	}
+
+	/**
+	 * Audio Video Interleave (RIFF)
+	 */
+	private void readAVI(FileChannel channel) throws IOException {
+		long end = channel.size();
+		ByteBuffer hdrl = null;
+
+		for (long position = 12; position + 12 <= end;) {
+			ByteBuffer chunk = read(channel, position, 12).order(ByteOrder.LITTLE_ENDIAN);
+			long size = chunk.getInt(4) & 0xFFFFFFFFL;
+			if ("LIST".equals(fourcc(chunk, 0)) && "hdrl".equals(fourcc(chunk, 8))) {
+				hdrl = read(channel, position + 12, size - 4).order(ByteOrder.LITTLE_ENDIAN);
+				break;
+			}
+			position += 8 + size + (size & 1);
+		}
+
+		if (hdrl == null) {
+			throw new IOException("Header list not found");
+		}
+
+		long microSecPerFrame = 0;
+		long totalFrames = 0;
+
+		while (hdrl.remaining() >= 8) {
+			String id = fourcc(hdrl, hdrl.position());
+			int size = hdrl.getInt(hdrl.position() + 4);
+			hdrl.position(hdrl.position() + 8);
+			ByteBuffer chunk = slice(hdrl, Math.min(size + (size & 1), hdrl.remaining())).order(ByteOrder.LITTLE_ENDIAN);
+
+			if ("avih".equals(id) && size >= 40) {
+				microSecPerFrame = chunk.getInt(0) & 0xFFFFFFFFL;
+				totalFrames = chunk.getInt(16) & 0xFFFFFFFFL;
+			} else if ("LIST".equals(id) && size >= 4 && "strl".equals(fourcc(chunk, 0))) {
+				readAVIStream(chunk);
+			}
+		}
+
+		if (microSecPerFrame > 0 && totalFrames > 0) {
+			duration = Duration.ofMillis(totalFrames * microSecPerFrame / 1000);
+		}
+	}
+
+	private void readAVIStream(ByteBuffer strl) throws IOException {
+		Track track = null;
+		strl.position(4);
+
+		while (strl.remaining() >= 8) {
+			String id = fourcc(strl, strl.position());
+			int size = strl.getInt(strl.position() + 4);
+			strl.position(strl.position() + 8);
+			ByteBuffer chunk = slice(strl, Math.min(size + (size & 1), strl.remaining())).order(ByteOrder.LITTLE_ENDIAN);
+
+			if ("strh".equals(id) && size >= 28) {
+				switch (fourcc(chunk, 0)) {
+				case "vids":
+					track = new Track(TrackType.Video);
+					long scale = chunk.getInt(20) & 0xFFFFFFFFL;
+					long rate = chunk.getInt(24) & 0xFFFFFFFFL;
+					if (scale > 0 && rate > 0) {
+						track.frameRate = getFrameRate((double) rate / scale);
+					}
+					break;
+				case "auds":
+					track = new Track(TrackType.Audio);
+					break;
+				case "txts":
+					track = new Track(TrackType.Text);
+					break;
+				default:
+					return;
+				}
+			} else if ("strf".equals(id) && track != null) {
+				if (track.type == TrackType.Video && size >= 20) {
+					track.width = chunk.getInt(4);
+					track.height = Math.abs(chunk.getInt(8));
+					track.codec = fourcc(chunk, 16).trim();
+				} else if (track.type == TrackType.Audio && size >= 2) {
+					track.codec = Integer.toHexString(chunk.getShort(0) & 0xFFFF).toUpperCase();
+				}
+			}
+		}
+
+		if (track != null) {
+			tracks.add(track);
+		}
+	}
+
+	private static Float getFrameRate(double fps) {
+		// round to 3 decimals (using MediaInfo standards)
+		return (float) (Math.round(fps * 1000) / 1000d);
+	}
+
+	private static final int MAX_HEADER_SIZE = 64 * 1024 * 1024;
+
+	private static ByteBuffer read(FileChannel channel, long position, long length) throws IOException {
+		if (length < 0 || length > MAX_HEADER_SIZE) {
+			throw new IOException("Illegal header size: " + length);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static ByteBuffer slice(ByteBuffer data, long length) throws IOException {
+		if (length < 0 || length > data.remaining()) {
+			throw new IOException("Illegal element size: " + length);
+		}
+
+		ByteBuffer slice = data.slice();
+		slice.limit((int) length);
+		data.position(data.position() + (int) length);
+		return slice;
+	}
+
+	private static String fourcc(ByteBuffer data, int index) {
+		byte[] b = new byte[4];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = data.get(index + i);
+		}
+		return new String(b, US_ASCII);
+	}
+
+	public static class UnsupportedContainerException extends IOException {
+
+		public UnsupportedContainerException(String message) {
+			super(message);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package net.filebot.media;
+
+import static java.util.Arrays.*;
+import static net.filebot.util.JsonUtilities.*;
+
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import net.filebot.Cache;
+import net.filebot.CacheType;
+import net.filebot.media.ImageMetadata.AddressComponent;
+
+public class GoogleGeocoder implements ReverseGeocoder {
+
+	@Override
+	public Map<AddressComponent, String> locate(double latitude, double longitude) throws Exception {
+		// e.g. https://maps.googleapis.com/maps/api/geocode/json?latlng=40.747,-73.941
+		Cache cache = Cache.getCache("geocode", CacheType.Persistent);
+
+		Object json = cache.json(getKey(latitude, longitude), p -> new URL("https://maps.googleapis.com/maps/api/geocode/json?latlng=" + p)).get();
+
+		Map<AddressComponent, String> address = new EnumMap<AddressComponent, String>(AddressComponent.class);
+
+		streamJsonObjects(json, "results").limit(1).forEach(r -> {
+			streamJsonObjects(r, "address_components").forEach(a -> {
+				String name = getString(a, "long_name");
+				if (name != null) {
+					for (Object type : getArray(a, "types")) {
+						stream(AddressComponent.values()).filter(c -> c.name().equals(type)).findFirst().ifPresent(c -> {
+							address.putIfAbsent(c, name);
+						});
+					}
+				}
+			});
+		});
+
+		return address;
+	}
+
+	/**
+	 * Round coordinates to 3 decimal places (about 100 meters) so that photos taken at the same place share the same cache entry
+	 */
+	public static String getKey(double latitude, double longitude) {
+		return String.format(Locale.ROOT, "%.3f,%.3f", Math.round(latitude * 1000) / 1000d, Math.round(longitude * 1000) / 1000d);
+	}
+
+}
@@ -1,133 +1,125 @@
 package net.filebot.media;
 
-import static java.util.Arrays.*;
+import static java.util.Collections.*;
 import static net.filebot.Logging.*;
-import static net.filebot.util.JsonUtilities.*;
+import static net.filebot.util.FileUtilities.*;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import com.drew.imaging.ImageMetadataReader;
 import com.drew.imaging.ImageProcessingException;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
 import com.drew.lang.GeoLocation;
+import com.drew.lang.RandomAccessFileReader;
+import com.drew.lang.RandomAccessReader;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.Tag;
 import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifTiffHandler;
 import com.drew.metadata.exif.GpsDirectory;
-import com.drew.metadata.file.FileSystemDirectory;
 
-import net.filebot.Cache;
-import net.filebot.CacheType;
+import net.filebot.Resource;
 import net.filebot.util.FileUtilities.ExtensionFileFilter;
 
+/**
+ * Date taken, camera model and location of a photo. Only the Exif tags needed for these properties are read from the file header, and all other metadata is read once on demand.
+ */
 public class ImageMetadata {
 
-	private final Metadata metadata;
+	private final File file;
+
+	private final ZonedDateTime dateTaken;
+	private final Map<CameraProperty, String> cameraModel;
+	private final GeoLocation geoLocation;
+
+	private Metadata metadata;
 
 	public ImageMetadata(File file) throws ImageProcessingException, IOException {
 		if (!SUPPORTED_FILE_TYPES.accept(file)) {
 			throw new IllegalArgumentException("Image type not supported: " + file);
 		}
 
-		metadata = ImageMetadataReader.readMetadata(file);
-	}
+		Metadata metadata = readHeader(file);
 
-	public Map<String, String> snapshot() {
-		return snapshot(Tag::getTagName);
-	}
+		this.file = file;
+		this.dateTaken = extract(metadata, m -> m.getFirstDirectoryOfType(ExifIFD0Directory.class)).map(d -> d.getDate(ExifSubIFDDirectory.TAG_DATETIME)).map(d -> d.toInstant().atZone(ZoneOffset.UTC)).orElse(null);
+		this.cameraModel = extract(metadata, m -> m.getFirstDirectoryOfType(ExifIFD0Directory.class)).map(d -> {
+			String maker = d.getDescription(ExifIFD0Directory.TAG_MAKE);
+			String model = d.getDescription(ExifIFD0Directory.TAG_MODEL);
+
+			Map<CameraProperty, String> camera = new EnumMap<CameraProperty, String>(CameraProperty.class);
+			if (maker != null) {
+				camera.put(CameraProperty.maker, maker);
+			}
+			if (model != null) {
+				camera.put(CameraProperty.model, model);
+			}
 
-	public Map<String, String> snapshot(Function<Tag, String> key) {
-		return snapshot(key, d -> Stream.of("JPEG", "JFIF", "Interoperability", "Huffman", "File").noneMatch(d.getName()::equals));
+			return unmodifiableMap(camera);
+		}).filter(m -> !m.isEmpty()).orElse(null);
+		this.geoLocation = extract(metadata, m -> m.getFirstDirectoryOfType(GpsDirectory.class)).map(GpsDirectory::getGeoLocation).orElse(null);
 	}
 
-	public Map<String, String> snapshot(Function<Tag, String> key, Predicate<Directory> accept) {
-		Map<String, String> values = new LinkedHashMap<String, String>();
+	public File getFile() {
+		return file;
+	}
 
-		for (Directory directory : metadata.getDirectories()) {
-			if (accept.test(directory)) {
-				for (Tag tag : directory.getTags()) {
-					String v = tag.getDescription();
-					if (v != null && v.length() > 0) {
-						values.put(key.apply(tag), v);
-					}
-				}
-			}
-		}
+	public Map<String, String> snapshot() throws ImageProcessingException, IOException {
+		return snapshot(Tag::getTagName);
+	}
 
-		return values;
+	public Map<String, String> snapshot(Function<Tag, String> key) throws ImageProcessingException, IOException {
+		return snapshot(getMetadata(), key, DEFAULT_DIRECTORIES);
 	}
 
 	public Optional<String> getName() {
-		return extract(m -> m.getFirstDirectoryOfType(FileSystemDirectory.class)).map(d -> d.getString(FileSystemDirectory.TAG_FILE_NAME));
+		return Optional.of(file.getName());
 	}
 
 	public Optional<ZonedDateTime> getDateTaken() {
-		return extract(m -> m.getFirstDirectoryOfType(ExifIFD0Directory.class)).map(d -> d.getDate(ExifSubIFDDirectory.TAG_DATETIME)).map(d -> {
-			return d.toInstant().atZone(ZoneOffset.UTC);
-		});
+		return Optional.ofNullable(dateTaken);
 	}
 
 	public Optional<Map<CameraProperty, String>> getCameraModel() {
-		return extract(m -> m.getFirstDirectoryOfType(ExifIFD0Directory.class)).map(d -> {
-			String maker = d.getDescription(ExifIFD0Directory.TAG_MAKE);
-			String model = d.getDescription(ExifIFD0Directory.TAG_MODEL);
+		return Optional.ofNullable(cameraModel);
+	}
 
-			Map<CameraProperty, String> camera = new EnumMap<CameraProperty, String>(CameraProperty.class);
-			if (maker != null) {
-				camera.put(CameraProperty.maker, maker);
-			}
-			if (model != null) {
-				camera.put(CameraProperty.model, model);
-			}
+	public Optional<GeoLocation> getGeoLocation() {
+		return Optional.ofNullable(geoLocation);
+	}
 
-			return camera;
-		}).filter(m -> !m.isEmpty());
+	public Optional<Map<AddressComponent, String>> getLocationTaken() {
+		return getGeoLocation().map(this::locate);
 	}
 
 	public enum CameraProperty {
 		maker, model;
 	}
 
-	public Optional<Map<AddressComponent, String>> getLocationTaken() {
-		return extract(m -> m.getFirstDirectoryOfType(GpsDirectory.class)).map(GpsDirectory::getGeoLocation).map(this::locate);
-	}
-
 	protected Map<AddressComponent, String> locate(GeoLocation location) {
 		try {
-			// e.g. https://maps.googleapis.com/maps/api/geocode/json?latlng=40.7470444,-073.9411611
-			Cache cache = Cache.getCache("geocode", CacheType.Persistent);
-
-			Object json = cache.json(location.getLatitude() + "," + location.getLongitude(), p -> new URL("https://maps.googleapis.com/maps/api/geocode/json?latlng=" + p)).get();
-
-			Map<AddressComponent, String> address = new EnumMap<AddressComponent, String>(AddressComponent.class);
-
-			streamJsonObjects(json, "results").limit(1).forEach(r -> {
-				streamJsonObjects(r, "address_components").forEach(a -> {
-					String name = getString(a, "long_name");
-					if (name != null) {
-						for (Object type : getArray(a, "types")) {
-							stream(AddressComponent.values()).filter(c -> c.name().equals(type)).findFirst().ifPresent(c -> {
-								address.putIfAbsent(c, name);
-							});
-						}
-					}
-				});
-			});
-
-			return address;
+			return geocoder.get().locate(location.getLatitude(), location.getLongitude());
 		} catch (Exception e) {
 			debug.warning(e::toString);
 		}
@@ -135,11 +127,28 @@ public class ImageMetadata {
 		return null;
 	}
 
+	private static final Resource<ReverseGeocoder> geocoder = Resource.lazy(ReverseGeocoder::getDefault);
+
 	public enum AddressComponent {
-		country, administrative_area_level_1, administrative_area_level_2, administrative_area_level_3, administrative_area_level_4, sublocality, neighborhood, route;
+		country, administrative_area_level_1, administrative_area_level_2, administrative_area_level_3, administrative_area_level_4, locality, sublocality, neighborhood, route;
 	}
 
-	public <T> Optional<T> extract(Function<Metadata, T> extract) {
+	/**
+	 * Read all metadata of the given file (only once) and extract a value
+	 */
+	public <T> Optional<T> extract(Function<Metadata, T> extract) throws ImageProcessingException, IOException {
+		return extract(getMetadata(), extract);
+	}
+
+	protected synchronized Metadata getMetadata() throws ImageProcessingException, IOException {
+		// lazy initialize
+		if (metadata == null) {
+			metadata = ImageMetadataReader.readMetadata(file);
+		}
+		return metadata;
+	}
+
+	private static <T> Optional<T> extract(Metadata metadata, Function<Metadata, T> extract) {
 		try {
 			return Optional.ofNullable(extract.apply(metadata));
 		} catch (Exception e) {
@@ -148,6 +157,101 @@ public class ImageMetadata {
 		return Optional.empty();
 	}
 
+	public static Map<String, String> snapshot(File file) throws ImageProcessingException, IOException {
+		return snapshot(file, Tag::getTagName);
+	}
+
+	public static Map<String, String> snapshot(File file, Function<Tag, String> key) throws ImageProcessingException, IOException {
+		return snapshot(file, key, DEFAULT_DIRECTORIES);
+	}
+
+	public static Map<String, String> snapshot(File file, Function<Tag, String> key, Predicate<Directory> accept) throws ImageProcessingException, IOException {
+		return snapshot(ImageMetadataReader.readMetadata(file), key, accept);
+	}
+
+	private static final Predicate<Directory> DEFAULT_DIRECTORIES = d -> Stream.of("JPEG", "JFIF", "Interoperability", "Huffman", "File").noneMatch(d.getName()::equals);
+
+	private static Map<String, String> snapshot(Metadata metadata, Function<Tag, String> key, Predicate<Directory> accept) {
+		Map<String, String> values = new LinkedHashMap<String, String>();
+
+		for (Directory directory : metadata.getDirectories()) {
+			if (accept.test(directory)) {
+				for (Tag tag : directory.getTags()) {
+					String v = tag.getDescription();
+					if (v != null && v.length() > 0) {
+						values.put(key.apply(tag), v);
+					}
+				}
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Read IFD0 and GPS tags from the Exif header of JPEG and TIFF based images, and skip maker notes, thumbnails and image data
+	 */
+	protected static Metadata readHeader(File file) throws ImageProcessingException, IOException {
+		Metadata metadata = new Metadata();
+
+		if (JPEG_FILES.accept(file)) {
+			try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+				JpegMetadataReader.process(metadata, in, singleton(new ExifHeaderReader()));
+			}
+			return metadata;
+		}
+
+		if (TIFF_FILES.accept(file)) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+				new TiffReader().processTiff(new RandomAccessFileReader(raf), new ExifHeaderTiffHandler(metadata), 0);
+			}
+			return metadata;
+		}
+
+		// read all metadata for other file types
+		return ImageMetadataReader.readMetadata(file);
+	}
+
+	private static class ExifHeaderReader extends ExifReader {
+
+		@Override
+		public void extract(RandomAccessReader reader, Metadata metadata, int readerOffset, Directory parentDirectory) {
+			try {
+				new TiffReader().processTiff(reader, new ExifHeaderTiffHandler(metadata), readerOffset);
+			} catch (TiffProcessingException | IOException e) {
+				debug.finest(format("Failed to read Exif header: %s", e));
+			}
+		}
+	}
+
+	private static class ExifHeaderTiffHandler extends ExifTiffHandler {
+
+		public ExifHeaderTiffHandler(Metadata metadata) {
+			super(metadata, null);
+		}
+
+		@Override
+		public boolean tryEnterSubIfd(int tagId) {
+			// ignore Exif SubIFD and Interop IFD
+			return tagId == ExifIFD0Directory.TAG_GPS_INFO_OFFSET && super.tryEnterSubIfd(tagId);
+		}
+
+		@Override
+		public boolean hasFollowerIfd() {
+			// ignore IFD1 (thumbnail)
+			return false;
+		}
+
+		@Override
+		public boolean customProcessTag(int tagOffset, Set<Integer> processedIfdOffsets, int tiffHeaderOffset, RandomAccessReader reader, int tagId, int byteCount) throws IOException {
+			// ignore maker notes
+			return tagId == ExifSubIFDDirectory.TAG_MAKERNOTE || super.customProcessTag(tagOffset, processedIfdOffsets, tiffHeaderOffset, reader, tagId, byteCount);
+		}
+	}
+
+	private static final FileFilter JPEG_FILES = new ExtensionFileFilter("jpg", "jpeg");
+	private static final FileFilter TIFF_FILES = new ExtensionFileFilter("tif", "tiff", "cr2", "nef", "orf", "rw2", "rwl", "srw", "arw", "dng");
+
 	public static final FileFilter SUPPORTED_FILE_TYPES = new ExtensionFileFilter("jpg", "jpeg", "png", "webp", "gif", "ico", "bmp", "tif", "tiff", "psd", "pcx", "raw", "crw", "cr2", "nef", "orf", "raf", "rw2", "rwl", "srw", "arw", "dng", "x3f", "mov", "mp4", "m4v", "3g2", "3gp", "3gp");
 
 }
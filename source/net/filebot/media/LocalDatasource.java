@@ -2,16 +2,26 @@ package net.filebot.media;
 
 import static java.util.stream.Collectors.*;
 import static net.filebot.Logging.*;
+import static net.filebot.Settings.*;
 import static net.filebot.util.FileUtilities.*;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.Icon;
 
 import net.filebot.ResourceManager;
+import net.filebot.util.DefaultThreadFactory;
+import net.filebot.util.SystemProperty;
 import net.filebot.web.Datasource;
 
 public enum LocalDatasource implements Datasource {
@@ -69,17 +79,33 @@ public enum LocalDatasource implements Datasource {
 			return xattrMap;
 		case EXIF:
 			Map<File, Object> exifMap = new LinkedHashMap<File, Object>(files.size());
-			for (File f : filter(files, ImageMetadata.SUPPORTED_FILE_TYPES)) {
-				try {
-					ImageMetadata metadata = new ImageMetadata(f);
-					if (metadata.getDateTaken().isPresent()) {
-						exifMap.put(f, new PhotoFile(f, metadata)); // photo mode is the same as generic file mode (but only select photo files)
-					} else if (!strict) {
-						exifMap.put(f, f);
+			List<File> photos = filter(files, ImageMetadata.SUPPORTED_FILE_TYPES);
+
+			// read Exif headers in parallel but keep the original file order
+			ExecutorService threadPool = Executors.newFixedThreadPool(Math.max(1, Math.min(photos.size(), EXIF_THREAD_POOL_SIZE)), new DefaultThreadFactory("ImageMetadata", Thread.NORM_PRIORITY, true));
+			try {
+				List<Future<ImageMetadata>> futures = new ArrayList<Future<ImageMetadata>>(photos.size());
+				for (File f : photos) {
+					futures.add(threadPool.submit(() -> new ImageMetadata(f)));
+				}
+
+				for (int i = 0; i < photos.size(); i++) {
+					File f = photos.get(i);
+					try {
+						ImageMetadata metadata = futures.get(i).get();
+						if (metadata.getDateTaken().isPresent()) {
+							exifMap.put(f, new PhotoFile(f, metadata)); // photo mode is the same as generic file mode (but only select photo files)
+						} else if (!strict) {
+							exifMap.put(f, f);
+						}
+					} catch (ExecutionException e) {
+						debug.warning(format("%s [%s]", e.getCause(), f));
 					}
-				} catch (Exception e) {
-					debug.warning(format("%s [%s]", e, f));
 				}
+			} catch (InterruptedException e) {
+				throw new CancellationException(e.getMessage());
+			} finally {
+				threadPool.shutdownNow();
 			}
 			return exifMap;
 		default:
@@ -87,6 +113,8 @@ public enum LocalDatasource implements Datasource {
 		}
 	}
 
+	private static final int EXIF_THREAD_POOL_SIZE = SystemProperty.of("net.filebot.media.exif.threadPool", Integer::parseInt, getPreferredThreadPoolSize()).get();
+
 	// enable xattr regardless of -DuseExtendedFileAttributes system properties
 	private static final XattrMetaInfo xattr = new XattrMetaInfo(true, false);
 
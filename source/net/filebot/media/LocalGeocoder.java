@@ -0,0 +1,274 @@
+package net.filebot.media;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import net.filebot.media.ImageMetadata.AddressComponent;
+
+/**
+ * Reverse geocoder backed by a GeoNames gazetteer (e.g. cities1000.txt) and an optional countryInfo.txt and admin1CodesASCII.txt in the same folder. Places are indexed in a k-d tree of points on the unit sphere, so that the nearest place by chord distance is also the nearest place by great-circle distance.
+ */
+public class LocalGeocoder implements ReverseGeocoder {
+
+	// GeoNames main table columns
+	private static final int NAME = 1;
+	private static final int LATITUDE = 4;
+	private static final int LONGITUDE = 5;
+	private static final int FEATURE_CLASS = 6;
+	private static final int COUNTRY_CODE = 8;
+	private static final int ADMIN1_CODE = 10;
+
+	// x, y, z in tree order
+	private final double[] points;
+
+	private final String[] city;
+	private final String[] country;
+	private final String[] state;
+
+	protected LocalGeocoder(List<Place> places, Map<String, String> countries, Map<String, String> admin1) {
+		int size = places.size();
+
+		double[] xyz = new double[size * 3];
+		int[] index = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			Place place = places.get(i);
+			toPoint(place.latitude, place.longitude, xyz, i * 3);
+			index[i] = i;
+		}
+
+		build(xyz, index, 0, size, 0);
+
+		// store places in tree order
+		points = new double[size * 3];
+		city = new String[size];
+		country = new String[size];
+		state = new String[size];
+
+		for (int i = 0; i < size; i++) {
+			Place place = places.get(index[i]);
+			System.arraycopy(xyz, index[i] * 3, points, i * 3, 3);
+
+			city[i] = place.name;
+			country[i] = countries.getOrDefault(place.countryCode, place.countryCode);
+			state[i] = admin1.get(place.countryCode + '.' + place.admin1Code);
+		}
+	}
+
+	protected static class Place {
+
+		final String name;
+		final double latitude;
+		final double longitude;
+		final String countryCode;
+		final String admin1Code;
+
+		public Place(String name, double latitude, double longitude, String countryCode, String admin1Code) {
+			this.name = name;
+			this.latitude = latitude;
+			this.longitude = longitude;
+			this.countryCode = countryCode;
+			this.admin1Code = admin1Code;
+		}
+	}
+
+	public int size() {
+		return city.length;
+	}
+
+	@Override
+	public Map<AddressComponent, String> locate(double latitude, double longitude) {
+		Map<AddressComponent, String> address = new EnumMap<AddressComponent, String>(AddressComponent.class);
+
+		int i = nearest(latitude, longitude);
+		if (i >= 0) {
+			put(address, AddressComponent.country, country[i]);
+			put(address, AddressComponent.administrative_area_level_1, state[i]);
+			put(address, AddressComponent.locality, city[i]);
+		}
+
+		return address;
+	}
+
+	private void put(Map<AddressComponent, String> address, AddressComponent key, String value) {
+		if (value != null && value.length() > 0) {
+			address.put(key, value);
+		}
+	}
+
+	/**
+	 * @return index of the nearest place or -1 if there are no places
+	 */
+	protected int nearest(double latitude, double longitude) {
+		Search search = new Search();
+		toPoint(latitude, longitude, search.point, 0);
+		search(search, 0, size(), 0);
+		return search.index;
+	}
+
+	private void search(Search search, int from, int to, int axis) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+
+			double dx = points[mid * 3] - search.point[0];
+			double dy = points[mid * 3 + 1] - search.point[1];
+			double dz = points[mid * 3 + 2] - search.point[2];
+			double distance = dx * dx + dy * dy + dz * dz;
+
+			if (distance < search.distance) {
+				search.distance = distance;
+				search.index = mid;
+			}
+
+			double delta = search.point[axis] - points[mid * 3 + axis];
+			int next = (axis + 1) % 3;
+
+			// search near side first, and only search far side if it could contain a closer point
+			if (delta < 0) {
+				search(search, from, mid, next);
+				if (delta * delta >= search.distance) {
+					return;
+				}
+				from = mid + 1;
+			} else {
+				search(search, mid + 1, to, next);
+				if (delta * delta >= search.distance) {
+					return;
+				}
+				to = mid;
+			}
+			axis = next;
+		}
+	}
+
+	private static class Search {
+
+		final double[] point = new double[3];
+		double distance = Double.POSITIVE_INFINITY;
+		int index = -1;
+	}
+
+	private static void toPoint(double latitude, double longitude, double[] xyz, int offset) {
+		double phi = Math.toRadians(latitude);
+		double lambda = Math.toRadians(longitude);
+
+		xyz[offset] = Math.cos(phi) * Math.cos(lambda);
+		xyz[offset + 1] = Math.cos(phi) * Math.sin(lambda);
+		xyz[offset + 2] = Math.sin(phi);
+	}
+
+	/**
+	 * Arrange index so that each median element splits its range by the given axis, alternating axis by depth
+	 */
+	private static void build(double[] xyz, int[] index, int from, int to, int axis) {
+		while (to - from > 1) {
+			int mid = (from + to) >>> 1;
+			select(xyz, index, from, to - 1, mid, axis);
+
+			int next = (axis + 1) % 3;
+			build(xyz, index, from, mid, next);
+			from = mid + 1;
+			axis = next;
+		}
+	}
+
+	private static void select(double[] xyz, int[] index, int left, int right, int k, int axis) {
+		while (left < right) {
+			double pivot = xyz[index[(left + right) >>> 1] * 3 + axis];
+			int i = left;
+			int j = right;
+
+			while (i <= j) {
+				while (xyz[index[i] * 3 + axis] < pivot) {
+					i++;
+				}
+				while (xyz[index[j] * 3 + axis] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int t = index[i];
+					index[i] = index[j];
+					index[j] = t;
+					i++;
+					j--;
+				}
+			}
+
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	public static LocalGeocoder read(File gazetteer) throws IOException {
+		File countryInfo = new File(gazetteer.getParentFile(), "countryInfo.txt");
+		File admin1Codes = new File(gazetteer.getParentFile(), "admin1CodesASCII.txt");
+
+		try (Reader places = Files.newBufferedReader(gazetteer.toPath(), UTF_8); Reader countries = countryInfo.isFile() ? Files.newBufferedReader(countryInfo.toPath(), UTF_8) : null; Reader admin1 = admin1Codes.isFile() ? Files.newBufferedReader(admin1Codes.toPath(), UTF_8) : null) {
+			return read(places, countries, admin1);
+		}
+	}
+
+	/**
+	 * @param places
+	 *            GeoNames main table (geonameid, name, asciiname, alternatenames, latitude, longitude, feature class, feature code, country code, cc2, admin1 code, ...)
+	 * @param countries
+	 *            GeoNames country info table (ISO, ISO3, ISO-Numeric, fips, Country, ...) or {@code null}
+	 * @param admin1
+	 *            GeoNames admin1 codes table (code, name, ...) or {@code null}
+	 */
+	public static LocalGeocoder read(Reader places, Reader countries, Reader admin1) throws IOException {
+		List<Place> rows = new ArrayList<Place>();
+		readTable(places, ADMIN1_CODE + 1, row -> {
+			// populated places only
+			if (row[FEATURE_CLASS].isEmpty() || row[FEATURE_CLASS].equals("P")) {
+				try {
+					rows.add(new Place(row[NAME], Double.parseDouble(row[LATITUDE]), Double.parseDouble(row[LONGITUDE]), row[COUNTRY_CODE], row[ADMIN1_CODE]));
+				} catch (NumberFormatException e) {
+					// ignore malformed coordinates
+				}
+			}
+		});
+
+		return new LocalGeocoder(rows, readNames(countries, 0, 4), readNames(admin1, 0, 1));
+	}
+
+	private static Map<String, String> readNames(Reader table, int key, int value) throws IOException {
+		Map<String, String> names = new HashMap<String, String>();
+		if (table != null) {
+			readTable(table, Math.max(key, value) + 1, row -> names.put(row[key], row[value]));
+		}
+		return names;
+	}
+
+	private static void readTable(Reader table, int columns, Consumer<String[]> consumer) throws IOException {
+		BufferedReader lines = table instanceof BufferedReader ? (BufferedReader) table : new BufferedReader(table);
+
+		for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] row = line.split("\t", -1);
+			if (row.length >= columns) {
+				consumer.accept(row);
+			}
+		}
+	}
+
+}
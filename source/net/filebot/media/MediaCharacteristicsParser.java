@@ -1,13 +1,16 @@
 package net.filebot.media;
 
+import static net.filebot.Logging.*;
+
 import java.io.File;
 
+import net.filebot.media.ContainerHeader.UnsupportedContainerException;
 import net.filebot.mediainfo.MediaInfo;
 import net.filebot.util.SystemProperty;
 
 public enum MediaCharacteristicsParser {
 
-	libmediainfo, ffprobe;
+	libmediainfo, ffprobe, header;
 
 	public static MediaCharacteristicsParser getDefault() {
 		return SystemProperty.of("net.filebot.media.parser", MediaCharacteristicsParser::valueOf, libmediainfo).get();
@@ -19,9 +22,20 @@ public enum MediaCharacteristicsParser {
 			return new MediaInfo().open(f);
 		case ffprobe:
 			return new FFProbe().open(f);
+		case header:
+			try {
+				return ContainerHeader.read(f);
+			} catch (UnsupportedContainerException e) {
+				debug.finest(e::getMessage);
+			} catch (Exception e) {
+				debug.warning(format("Failed to read container header: %s", e));
+			}
+
+			// fall back to libmediainfo for unsupported or unusual container formats
+			return new MediaInfo().open(f);
 		}
 
 		throw new IllegalStateException();
 	}
 
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import static java.util.regex.Pattern.*;
 import static java.util.stream.Collectors.*;
 import static net.filebot.Logging.*;
 import static net.filebot.MediaTypes.*;
+import static net.filebot.Settings.*;
 import static net.filebot.media.XattrMetaInfo.*;
 import static net.filebot.similarity.CommonSequenceMatcher.*;
 import static net.filebot.similarity.Normalization.*;
@@ -17,6 +18,7 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.text.CollationKey;
+import java.text.Collator;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -36,6 +38,10 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -81,6 +87,10 @@ public class MediaDetection {
 		return releaseInfo.getDiskFolderFilter();
 	}
 
+	public static FileFilter getDiskFolderEntryFilter() {
+		return releaseInfo.getDiskFolderEntryFilter();
+	}
+
 	public static FileFilter getClutterFileFilter() {
 		return releaseInfo.getClutterFileFilter();
 	}
@@ -185,56 +195,72 @@ public class MediaDetection {
 
 	public static Map<Set<File>, Set<String>> mapSeriesNamesByFiles(Collection<File> files, Locale locale, boolean anime) throws Exception {
 		// map series names by folder
-		Map<File, Set<String>> seriesNamesByFolder = new HashMap<File, Set<String>>();
 		Map<File, List<File>> filesByFolder = mapByFolder(files);
+		Map<File, Set<String>> seriesNamesByFolder = detectSeriesNamesByFolder(filesByFolder, locale, anime);
+
+		return mapSeriesNamesByFiles(files, filesByFolder, seriesNamesByFolder, locale);
+	}
+
+	private static Map<File, Set<String>> detectSeriesNamesByFolder(Map<File, List<File>> filesByFolder, Locale locale, boolean anime) throws Exception {
+		Map<File, Set<String>> seriesNamesByFolder = new LinkedHashMap<File, Set<String>>();
+
+		// can't use parallel stream because default fork/join pool doesn't play well with the security manager
+		ExecutorService workerThreadPool = Executors.newFixedThreadPool(Math.max(1, Math.min(filesByFolder.size(), getPreferredThreadPoolSize())));
+		try {
+			Map<File, Future<List<String>>> tasks = new LinkedHashMap<File, Future<List<String>>>();
+			filesByFolder.forEach((folder, files) -> {
+				tasks.put(folder, workerThreadPool.submit(() -> detectSeriesNames(files, anime, locale)));
+			});
 
-		for (Entry<File, List<File>> it : filesByFolder.entrySet()) {
-			Set<String> namesForFolder = new TreeSet<String>(getLenientCollator(locale));
-			namesForFolder.addAll(detectSeriesNames(it.getValue(), anime, locale));
+			for (Entry<File, Future<List<String>>> it : tasks.entrySet()) {
+				Set<String> namesForFolder = new TreeSet<String>(getLenientCollator(locale));
+				namesForFolder.addAll(it.getValue().get());
 
-			seriesNamesByFolder.put(it.getKey(), namesForFolder);
+				seriesNamesByFolder.put(it.getKey(), namesForFolder);
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		} finally {
+			workerThreadPool.shutdownNow();
 		}
 
-		// reverse map folders by series name
-		Map<String, Set<File>> foldersBySeriesName = new HashMap<String, Set<File>>();
+		return seriesNamesByFolder;
+	}
+
+	static Map<Set<File>, Set<String>> mapSeriesNamesByFiles(Collection<File> files, Map<File, List<File>> filesByFolder, Map<File, Set<String>> seriesNamesByFolder, Locale locale) {
+		// join folders that share any series name (union-find over lenient series name keys)
+		Collator collator = getLenientCollator(locale);
+		File[] folders = seriesNamesByFolder.keySet().toArray(new File[0]);
+		int[] parent = IntStream.range(0, folders.length).toArray();
 
-		for (Set<String> nameSet : seriesNamesByFolder.values()) {
-			for (String name : nameSet) {
-				Set<File> foldersForSeries = new HashSet<File>();
-				for (Entry<File, Set<String>> it : seriesNamesByFolder.entrySet()) {
-					if (it.getValue().contains(name)) {
-						foldersForSeries.add(it.getKey());
-					}
+		Map<CollationKey, Integer> folderBySeriesName = new HashMap<CollationKey, Integer>();
+		for (int i = 0; i < folders.length; i++) {
+			for (String name : seriesNamesByFolder.get(folders[i])) {
+				Integer j = folderBySeriesName.putIfAbsent(collator.getCollationKey(name), i);
+				if (j != null) {
+					parent[find(parent, i)] = find(parent, j);
 				}
-				foldersBySeriesName.put(name, foldersForSeries);
 			}
 		}
 
+		Map<Integer, List<File>> foldersBySeries = new LinkedHashMap<Integer, List<File>>();
+		for (int i = 0; i < folders.length; i++) {
+			foldersBySeries.computeIfAbsent(find(parent, i), k -> new ArrayList<File>()).add(folders[i]);
+		}
+
 		// join both sets
 		Map<Set<File>, Set<String>> batchSets = new HashMap<Set<File>, Set<String>>();
 
-		while (seriesNamesByFolder.size() > 0) {
+		for (List<File> combinedFolderSet : foldersBySeries.values()) {
 			Set<String> combinedNameSet = new TreeSet<String>(getLenientCollator(locale));
-			Set<File> combinedFolderSet = new HashSet<File>();
+			Set<File> combinedFileSet = new TreeSet<File>();
 
 			// build combined match set
-			combinedFolderSet.add(seriesNamesByFolder.keySet().iterator().next());
-
-			boolean resolveFurther = true;
-			while (resolveFurther) {
-				boolean modified = false;
-				for (File folder : combinedFolderSet) {
-					modified |= combinedNameSet.addAll(seriesNamesByFolder.get(folder));
-				}
-				for (String name : combinedNameSet) {
-					modified |= combinedFolderSet.addAll(foldersBySeriesName.get(name));
-				}
-				resolveFurther &= modified;
-			}
-
-			// build result entry
-			Set<File> combinedFileSet = new TreeSet<File>();
 			for (File folder : combinedFolderSet) {
+				combinedNameSet.addAll(seriesNamesByFolder.get(folder));
 				combinedFileSet.addAll(filesByFolder.get(folder));
 			}
 
@@ -285,9 +311,6 @@ public class MediaDetection {
 					batchSets.put(combinedFileSet, combinedNameSet);
 				}
 			}
-
-			// set folders as accounted for
-			seriesNamesByFolder.keySet().removeAll(combinedFolderSet);
 		}
 
 		// handle files that have not been matched to a batch set yet
@@ -302,6 +325,13 @@ public class MediaDetection {
 		return batchSets;
 	}
 
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			i = parent[i] = parent[parent[i]];
+		}
+		return i;
+	}
+
 	public static Object getEpisodeIdentifier(CharSequence name, boolean strict) {
 		// check SxE first
 		Object match = getSeasonEpisodeMatcher(true).match(name);
@@ -27,6 +27,7 @@ public class MetaAttributes {
 
 	public static final String FILENAME_KEY = "net.filebot.filename";
 	public static final String METADATA_KEY = "net.filebot.metadata";
+	public static final String CHECKSUM_KEY = "net.filebot.checksum";
 
 	public static final Map<String, String> JSON_TYPE_MAP = unmodifiableMap(Stream.of(Episode.class, MultiEpisode.class, Movie.class, MoviePart.class, AudioTrack.class, SimpleFileInfo.class).collect(toMap(Class::getName, Class::getSimpleName)));
 
@@ -70,12 +71,26 @@ public class MetaAttributes {
 		return null;
 	}
 
+	public void setChecksum(String checksum) {
+		metaAttributeView.put(CHECKSUM_KEY, checksum);
+	}
+
+	public String getChecksum() {
+		return metaAttributeView.get(CHECKSUM_KEY);
+	}
+
 	public void clear() {
 		metaAttributeView.put(FILENAME_KEY, null);
 		metaAttributeView.put(METADATA_KEY, null);
+		metaAttributeView.put(CHECKSUM_KEY, null);
 	}
 
 	public static String toJson(Object object) {
+		// lazy alias names are transient
+		if (object instanceof Movie) {
+			((Movie) object).resolveAliasNames();
+		}
+
 		Map<String, Object> options = new HashMap<String, Object>();
 		options.put(JsonWriter.TYPE_NAME_MAP, JSON_TYPE_MAP);
 		options.put(JsonWriter.SKIP_NULL_FIELDS, true);
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.regex.Matcher;
@@ -158,6 +159,10 @@ public class ReleaseInfo {
 	private final Pattern[][] stopwords = new Pattern[2][];
 	private final Pattern[][] blacklist = new Pattern[2][];
 
+	// cached results, since the same file and folder names are cleaned many times during media detection
+	private static final int CLEAN_RELEASE_CACHE_SIZE = 10000;
+	private final List<Map<String, String>> cleaned = List.of(new ConcurrentHashMap<String, String>(), new ConcurrentHashMap<String, String>());
+
 	public List<String> cleanRelease(Collection<String> items, boolean strict) throws Exception {
 		int b = strict ? 1 : 0;
 
@@ -179,9 +184,19 @@ public class ReleaseInfo {
 			blacklist[b] = new Pattern[] { EMBEDDED_CHECKSUM, languageSuffix, releaseGroupTrim, queryBlacklist, languageTag, clutterBracket, releaseGroup, videoSource, videoTags, videoFormat, resolution, stereoscopic3d };
 		}
 
+		Map<String, String> cache = cleaned.get(b);
+		if (cache.size() > CLEAN_RELEASE_CACHE_SIZE) {
+			cache.clear();
+		}
+
+		// patterns must be applied one after another, since each removal may create new matches for the following patterns
 		return items.stream().map(it -> {
-			String head = strict ? clean(it, stopwords[b]) : substringBefore(it, stopwords[b]);
-			String norm = normalizePunctuation(clean(head, blacklist[b]));
+			String norm = cache.get(it);
+			if (norm == null) {
+				String head = strict ? clean(it, stopwords[b]) : substringBefore(it, stopwords[b]);
+				norm = normalizePunctuation(clean(head, blacklist[b]));
+				cache.put(it, norm);
+			}
 			return norm;
 		}).filter(s -> s.length() > 0).collect(toList());
 	}
@@ -0,0 +1,34 @@
+package net.filebot.media;
+
+import static net.filebot.Logging.*;
+
+import java.io.File;
+import java.util.Map;
+
+import net.filebot.ApplicationFolder;
+import net.filebot.media.ImageMetadata.AddressComponent;
+import net.filebot.util.SystemProperty;
+
+public interface ReverseGeocoder {
+
+	Map<AddressComponent, String> locate(double latitude, double longitude) throws Exception;
+
+	static File getGazetteerFile() {
+		return SystemProperty.of("net.filebot.media.gazetteer", File::new, ApplicationFolder.AppData.resolve("gazetteer.txt")).get();
+	}
+
+	static ReverseGeocoder getDefault() {
+		// prefer local gazetteer (e.g. GeoNames cities1000.txt) over online lookups
+		File gazetteer = getGazetteerFile();
+		if (gazetteer.isFile()) {
+			try {
+				return LocalGeocoder.read(gazetteer);
+			} catch (Exception e) {
+				debug.warning(format("Failed to read gazetteer [%s]: %s", gazetteer, e));
+			}
+		}
+
+		return new GoogleGeocoder();
+	}
+
+}
@@ -11,6 +11,7 @@ import net.filebot.Cache;
 import net.filebot.CacheType;
 import net.filebot.Resource;
 import net.filebot.WebServices;
+import net.filebot.util.FileContentComparator;
 import net.filebot.web.Episode;
 import net.filebot.web.Movie;
 import net.filebot.web.SimpleDate;
@@ -132,6 +133,31 @@ public class XattrMetaInfo {
 		}
 	}
 
+	public FileContentComparator getFileContentComparator() {
+		// remember checksums of previously compared files
+		if (useExtendedFileAttributes) {
+			return new FileContentComparator(this::getChecksum, this::setChecksum);
+		}
+		return new FileContentComparator();
+	}
+
+	private String getChecksum(File file) {
+		try {
+			return xattr(file).getChecksum();
+		} catch (Throwable e) {
+			debug.finest(cause("Failed to read xattr", e));
+		}
+		return null;
+	}
+
+	private void setChecksum(File file, String checksum) {
+		try {
+			xattr(file).setChecksum(checksum);
+		} catch (Throwable e) {
+			debug.finest(cause("Failed to set xattr", e));
+		}
+	}
+
 	public synchronized void clear(File file) {
 		// clear in-memory cache
 		xattrMetaInfoCache.remove(file);
@@ -7,8 +7,10 @@ import static net.filebot.util.RegularExpressions.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -38,16 +40,24 @@ public class MediaInfo implements MediaCharacteristics {
 		}
 	}
 
-	public synchronized MediaInfo open(File file) throws IOException, IllegalArgumentException {
+	public MediaInfo open(File file) throws IOException, IllegalArgumentException {
+		return open(file, false);
+	}
+
+	/**
+	 * @param interruptible
+	 *            always feed file contents via the buffer interface so that reading can be aborted by interrupting the current thread
+	 */
+	public synchronized MediaInfo open(File file, boolean interruptible) throws IOException, IllegalArgumentException {
 		if (!file.isFile() || file.length() < 64 * 1024) {
 			throw new IllegalArgumentException("Invalid media file: " + file);
 		}
 
 		String path = file.getCanonicalPath();
 
-		if (preferOpenViaBuffer(path)) {
-			try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
-				if (openViaBuffer(raf)) {
+		if (interruptible || preferOpenViaBuffer(path)) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				if (openViaBuffer(channel)) {
 					return this;
 				}
 				throw new IOException("Failed to initialize media info buffer: " + path);
@@ -73,25 +83,27 @@ public class MediaInfo implements MediaCharacteristics {
 		return false;
 	}
 
-	private boolean openViaBuffer(RandomAccessFile f) throws IOException {
-		byte[] buffer = new byte[4 * 1024 * 1024]; // use large buffer to reduce JNA calls
+	private boolean openViaBuffer(FileChannel f) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4 * 1024 * 1024); // use large buffer to reduce JNA calls
 		int read = -1;
 
-		if (0 == MediaInfoLibrary.INSTANCE.Open_Buffer_Init(handle, f.length(), 0)) {
+		if (0 == MediaInfoLibrary.INSTANCE.Open_Buffer_Init(handle, f.size(), 0)) {
 			return false;
 		}
 
 		do {
+			// throws ClosedByInterruptException if the current thread has been interrupted
+			buffer.clear();
 			read = f.read(buffer);
-			int result = MediaInfoLibrary.INSTANCE.Open_Buffer_Continue(handle, buffer, read);
+			int result = MediaInfoLibrary.INSTANCE.Open_Buffer_Continue(handle, buffer.array(), read);
 			if ((result & 8) == 8) {
 				break;
 			}
 
 			long gotoPos = MediaInfoLibrary.INSTANCE.Open_Buffer_Continue_GoTo_Get(handle);
 			if (gotoPos >= 0) {
-				f.seek(gotoPos);
-				MediaInfoLibrary.INSTANCE.Open_Buffer_Init(handle, f.length(), gotoPos);
+				f.position(gotoPos);
+				MediaInfoLibrary.INSTANCE.Open_Buffer_Init(handle, f.size(), gotoPos);
 			}
 		} while (read > 0);
 
@@ -215,7 +227,7 @@ public class MediaInfo implements MediaCharacteristics {
 		if (streamKind == StreamKind.Image && streamNumber == 0) {
 			String path = get(StreamKind.General, 0, "CompleteName");
 			try {
-				Map<String, String> values = new ImageMetadata(new File(path)).snapshot(t -> {
+				Map<String, String> values = ImageMetadata.snapshot(new File(path), t -> {
 					return Stream.of(t.getDirectoryName(), t.getTagName()).flatMap(NON_WORD::splitAsStream).distinct().collect(joining("_"));
 				});
 				streamInfo.putAll(values);
@@ -0,0 +1,62 @@
+package net.filebot.mediainfo;
+
+import static net.filebot.Logging.*;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.filebot.util.DefaultThreadFactory;
+
+/**
+ * Read media files in parallel with a fixed number of reusable {@link MediaInfo} handles. Closing the pool will abort all pending and in-flight reads.
+ */
+public class MediaInfoPool implements AutoCloseable {
+
+	@FunctionalInterface
+	public interface Reader<T> {
+
+		T read(MediaInfo mediaInfo) throws Exception;
+	}
+
+	private final BlockingQueue<MediaInfo> handles = new LinkedBlockingQueue<MediaInfo>();
+	private final ExecutorService executor;
+
+	public MediaInfoPool(int size) {
+		for (int i = 0; i < size; i++) {
+			handles.add(new MediaInfo());
+		}
+		executor = Executors.newFixedThreadPool(size, new DefaultThreadFactory("MediaInfoPool", Thread.MIN_PRIORITY, true));
+	}
+
+	public <T> Future<T> submit(File file, Reader<T> reader) {
+		return executor.submit(() -> {
+			MediaInfo mi = handles.take();
+			try {
+				return reader.read(mi.open(file, true));
+			} finally {
+				handles.add(mi);
+			}
+		});
+	}
+
+	@Override
+	public void close() {
+		// interrupt worker threads and abort reading
+		executor.shutdownNow();
+
+		// native handles must not be released while they are still in use (handles of workers that do not terminate in time will be released by the cleaner later)
+		try {
+			if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				handles.forEach(MediaInfo::close);
+			}
+		} catch (InterruptedException e) {
+			debug.finest(e::toString);
+		}
+	}
+
+}
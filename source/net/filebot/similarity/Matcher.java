@@ -2,22 +2,29 @@ package net.filebot.similarity;
 
 import static java.util.Collections.*;
 import static net.filebot.Logging.*;
+import static net.filebot.Settings.*;
 
+import java.util.AbstractCollection;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
+import java.util.stream.IntStream;
+
+import net.filebot.util.DefaultThreadFactory;
 
 public class Matcher<V, C> {
 
@@ -39,19 +46,32 @@ public class Matcher<V, C> {
 		this.disjointMatchCollection = new DisjointMatchCollection<V, C>();
 	}
 
-	public synchronized List<Match<V, C>> match() throws InterruptedException {
-		// list of all combinations of values and candidates
-		List<Match<V, C>> possibleMatches = new ArrayList<Match<V, C>>(values.size() * candidates.size());
+	// distinct values and candidates of the current match() call
+	private Object[] matchValues;
+	private Object[] matchCandidates;
 
-		// populate with all possible matches
-		for (V value : values) {
-			for (C candidate : candidates) {
-				possibleMatches.add(new Match<V, C>(value, candidate));
-			}
-		}
+	// index of the first equal value or candidate, since the same value may be represented by different objects
+	private int[] matchValueKeys;
+	private int[] matchCandidateKeys;
 
-		// match recursively
-		deepMatch(possibleMatches, 0);
+	public synchronized List<Match<V, C>> match() throws InterruptedException {
+		matchValues = distinct(values);
+		matchCandidates = distinct(candidates);
+		matchValueKeys = equalityKeys(matchValues);
+		matchCandidateKeys = equalityKeys(matchCandidates);
+
+		// all combinations of values and candidates as (value index * candidate count + candidate index) without creating any Match objects
+		int[] possibleMatches = IntStream.range(0, Math.multiplyExact(matchValues.length, matchCandidates.length)).toArray();
+
+		try {
+			// match recursively
+			deepMatch(new MatchSet(possibleMatches), 0);
+		} finally {
+			matchValues = null;
+			matchCandidates = null;
+			matchValueKeys = null;
+			matchCandidateKeys = null;
+		}
 
 		// restore order according to the given values
 		List<Match<V, C>> result = new ArrayList<Match<V, C>>();
@@ -85,117 +105,260 @@ public class Matcher<V, C> {
 	}
 
 	protected void deepMatch(Collection<Match<V, C>> possibleMatches, int level) throws InterruptedException {
-		if (level >= metrics.length || possibleMatches.isEmpty()) {
+		MatchSet matches = (MatchSet) possibleMatches;
+
+		if (level >= metrics.length || matches.isEmpty()) {
 			// add the first possible match if non-strict, otherwise ignore ambiguous matches
 			if (!strict) {
 				// order alphabetically to get more predictable matching (when no matching is possible anymore)
-				List<Match<V, C>> rest = new ArrayList<Match<V, C>>(possibleMatches);
-				sort(rest, new Comparator<Match<V, C>>() {
+				List<Match<V, C>> rest = new ArrayList<Match<V, C>>(matches);
+				String[] names = rest.stream().map(Match::toString).toArray(String[]::new);
 
-					@Override
-					public int compare(Match<V, C> o1, Match<V, C> o2) {
-						return o1.toString().compareToIgnoreCase(o2.toString());
-					}
-				});
-				disjointMatchCollection.addAll(rest);
+				Integer[] order = IntStream.range(0, names.length).boxed().toArray(Integer[]::new);
+				Arrays.sort(order, (i1, i2) -> names[i1].compareToIgnoreCase(names[i2]));
+
+				for (int i : order) {
+					disjointMatchCollection.add(rest.get(i));
+				}
 			}
 
 			// no further refinement possible
 			return;
 		}
 
-		for (Set<Match<V, C>> matchesWithEqualSimilarity : mapBySimilarity(possibleMatches, metrics[level]).values()) {
-			// some matches may already be unique
-			List<Match<V, C>> disjointMatches = disjointMatches(matchesWithEqualSimilarity);
+		int[] pairs = matches.toPairArray();
+		float[] similarity = getSimilarity(pairs, metrics[level]);
+
+		// order by similarity descending and by pair index ascending for matches with equal similarity
+		long[] order = new long[pairs.length];
+		for (int i = 0; i < pairs.length; i++) {
+			order[i] = ((long) ~getSortableBits(similarity[i]) << 32) | pairs[i];
+		}
+		Arrays.parallelSort(order);
+
+		// value and candidate counts within the current set of matches with equal similarity
+		int[] valueCount = new int[matchValues.length];
+		int[] candidateCount = new int[matchCandidates.length];
+
+		for (int from = 0, to = 0; from < order.length; from = to) {
+			while (to < order.length && (order[to] >>> 32) == (order[from] >>> 32)) {
+				to++;
+			}
 
-			if (!disjointMatches.isEmpty()) {
-				// collect disjoint matches
-				disjointMatchCollection.addAll(disjointMatches);
+			int[] matchesWithEqualSimilarity = new int[to - from];
+			for (int i = from; i < to; i++) {
+				int pair = (int) order[i];
+				matchesWithEqualSimilarity[i - from] = pair;
+				valueCount[matchValueKeys[getValueIndex(pair)]]++;
+				candidateCount[matchCandidateKeys[getCandidateIndex(pair)]]++;
+			}
 
-				// no need for further matching
-				matchesWithEqualSimilarity.removeAll(disjointMatches);
+			// some matches may already be unique, and those that are not unique may be invalid by now
+			int size = 0;
+			for (int pair : matchesWithEqualSimilarity) {
+				if (valueCount[matchValueKeys[getValueIndex(pair)]] == 1 && candidateCount[matchCandidateKeys[getCandidateIndex(pair)]] == 1) {
+					disjointMatchCollection.add(new Match<V, C>(getValue(pair), getCandidate(pair)));
+				} else {
+					matchesWithEqualSimilarity[size++] = pair;
+				}
+			}
+
+			for (int i = from; i < to; i++) {
+				int pair = (int) order[i];
+				valueCount[matchValueKeys[getValueIndex(pair)]] = 0;
+				candidateCount[matchCandidateKeys[getCandidateIndex(pair)]] = 0;
 			}
 
 			// remove invalid matches
-			removeCollected(matchesWithEqualSimilarity);
+			MatchSet ambiguousMatches = new MatchSet(Arrays.copyOf(matchesWithEqualSimilarity, size));
+			removeCollected(ambiguousMatches);
 
 			// matches may be ambiguous, more refined matching required
-			deepMatch(matchesWithEqualSimilarity, level + 1);
+			deepMatch(ambiguousMatches, level + 1);
 		}
 	}
 
 	protected void removeCollected(Collection<Match<V, C>> matches) {
+		if (matches instanceof Matcher.MatchSet) {
+			((MatchSet) matches).removeIf((v, c) -> !disjointMatchCollection.disjoint(v, c));
+			return;
+		}
+
 		for (Iterator<Match<V, C>> iterator = matches.iterator(); iterator.hasNext();) {
 			if (!disjointMatchCollection.disjoint(iterator.next()))
 				iterator.remove();
 		}
 	}
 
-	protected SortedMap<Float, Set<Match<V, C>>> mapBySimilarity(Collection<Match<V, C>> possibleMatches, SimilarityMetric metric) throws InterruptedException {
-		// map sorted by similarity descending
-		SortedMap<Float, Set<Match<V, C>>> similarityMap = new TreeMap<Float, Set<Match<V, C>>>(Collections.reverseOrder());
+	protected float[] getSimilarity(int[] pairs, SimilarityMetric metric) throws InterruptedException {
+		float[] similarity = new float[pairs.length];
+
+		// use metric on all matches, and make use of multiple cores for large sets of matches
+		if (pairs.length < PARALLEL_THRESHOLD) {
+			getSimilarity(pairs, metric, similarity, 0, pairs.length, Thread.currentThread());
+		} else {
+			Thread thread = Thread.currentThread();
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+
+			try {
+				for (int i = 0; i < pairs.length; i += PARALLEL_THRESHOLD) {
+					int from = i;
+					int to = Math.min(i + PARALLEL_THRESHOLD, pairs.length);
+					tasks.add(getExecutor().submit(() -> getSimilarity(pairs, metric, similarity, from, to, thread)));
+				}
+
+				for (Future<?> it : tasks) {
+					it.get();
+				}
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			} finally {
+				for (Future<?> it : tasks) {
+					it.cancel(true);
+				}
+			}
+		}
 
-		// use metric on all matches
-		for (Match<V, C> possibleMatch : possibleMatches) {
-			float similarity = metric.getSimilarity(possibleMatch.getValue(), possibleMatch.getCandidate());
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
 
-			// DEBUG
-			debug.finest(format("%s %.04f => %s", metric, similarity, possibleMatch));
+		return similarity;
+	}
 
-			Set<Match<V, C>> matchSet = similarityMap.get(similarity);
-			if (matchSet == null) {
-				matchSet = new LinkedHashSet<Match<V, C>>();
-				similarityMap.put(similarity, matchSet);
+	private void getSimilarity(int[] pairs, SimilarityMetric metric, float[] similarity, int from, int to, Thread thread) {
+		for (int i = from; i < to; i++) {
+			// unwind if we have been interrupted or cancelled
+			if (thread.isInterrupted() || Thread.currentThread().isInterrupted()) {
+				return;
 			}
-			matchSet.add(possibleMatch);
 
-			// unwind this thread if we have been interrupted
-			if (Thread.interrupted()) {
-				throw new InterruptedException();
-			}
+			V value = getValue(pairs[i]);
+			C candidate = getCandidate(pairs[i]);
+			float f = similarity[i] = metric.getSimilarity(value, candidate);
+
+			// DEBUG
+			debug.finest(() -> String.format("%s %.04f => %s", metric, f, new Match<V, C>(value, candidate)));
 		}
+	}
+
+	private static ExecutorService executor;
 
-		return similarityMap;
+	private static synchronized ExecutorService getExecutor() {
+		// can't use parallel stream because default fork/join pool doesn't play well with the security manager
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(getPreferredThreadPoolSize(), new DefaultThreadFactory("Matcher", Thread.NORM_PRIORITY, true));
+		}
+		return executor;
 	}
 
-	protected List<Match<V, C>> disjointMatches(Collection<Match<V, C>> collection) {
-		Map<V, List<Match<V, C>>> matchesByValue = new HashMap<V, List<Match<V, C>>>();
-		Map<C, List<Match<V, C>>> matchesByCandidate = new HashMap<C, List<Match<V, C>>>();
+	private static final int PARALLEL_THRESHOLD = 1000;
 
-		// map matches by value and candidate respectively
-		for (Match<V, C> match : collection) {
-			List<Match<V, C>> matchListForValue = matchesByValue.get(match.getValue());
-			List<Match<V, C>> matchListForCandidate = matchesByCandidate.get(match.getCandidate());
+	private static int getSortableBits(float f) {
+		// same order as Float.compare(), i.e. -0.0 < 0.0 < NaN
+		int bits = Float.floatToIntBits(f);
+		return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+	}
 
-			// create list if necessary
-			if (matchListForValue == null) {
-				matchListForValue = new ArrayList<Match<V, C>>();
-				matchesByValue.put(match.getValue(), matchListForValue);
-			}
+	private static Object[] distinct(Collection<?> objects) {
+		return objects.stream().filter(newSetFromMap(new IdentityHashMap<Object, Boolean>())::add).toArray();
+	}
 
-			// create list if necessary
-			if (matchListForCandidate == null) {
-				matchListForCandidate = new ArrayList<Match<V, C>>();
-				matchesByCandidate.put(match.getCandidate(), matchListForCandidate);
-			}
+	private static int[] equalityKeys(Object[] objects) {
+		Map<Object, Integer> keys = new HashMap<Object, Integer>(objects.length);
+		return IntStream.range(0, objects.length).map(i -> keys.computeIfAbsent(objects[i], k -> i)).toArray();
+	}
+
+	private int getValueIndex(int pair) {
+		return pair / matchCandidates.length;
+	}
+
+	private int getCandidateIndex(int pair) {
+		return pair % matchCandidates.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V getValue(int pair) {
+		return (V) matchValues[getValueIndex(pair)];
+	}
+
+	@SuppressWarnings("unchecked")
+	private C getCandidate(int pair) {
+		return (C) matchCandidates[getCandidateIndex(pair)];
+	}
+
+	/**
+	 * Set of possible matches backed by an ordered array of pair indices. Match objects are only created on demand.
+	 */
+	protected class MatchSet extends AbstractCollection<Match<V, C>> {
 
-			// add match to both lists
-			matchListForValue.add(match);
-			matchListForCandidate.add(match);
+		private int[] pairs;
+		private int size;
+
+		public MatchSet(int[] pairs) {
+			this.pairs = pairs;
+			this.size = pairs.length;
 		}
 
-		// collect disjoint matches
-		List<Match<V, C>> disjointMatches = new ArrayList<Match<V, C>>();
+		public int[] toPairArray() {
+			return size == pairs.length ? pairs : Arrays.copyOf(pairs, size);
+		}
 
-		for (List<Match<V, C>> matchListForValue : matchesByValue.values()) {
-			// check if match is the only element in both lists
-			if (matchListForValue.size() == 1 && matchListForValue.equals(matchesByCandidate.get(matchListForValue.get(0).getCandidate()))) {
-				// match is disjoint :)
-				disjointMatches.add(matchListForValue.get(0));
+		public void removeIf(BiPredicate<V, C> filter) {
+			int n = 0;
+			for (int i = 0; i < size; i++) {
+				if (!filter.test(getValue(pairs[i]), getCandidate(pairs[i]))) {
+					pairs[n++] = pairs[i];
+				}
 			}
+			size = n;
 		}
 
-		return disjointMatches;
+		@Override
+		public Iterator<Match<V, C>> iterator() {
+			return new Iterator<Match<V, C>>() {
+
+				private int index = 0;
+				private boolean removable = false;
+
+				@Override
+				public boolean hasNext() {
+					return index < size;
+				}
+
+				@Override
+				public Match<V, C> next() {
+					if (index >= size) {
+						throw new NoSuchElementException();
+					}
+					removable = true;
+					int pair = pairs[index++];
+					return new Match<V, C>(getValue(pair), getCandidate(pair));
+				}
+
+				@Override
+				public void remove() {
+					if (!removable) {
+						throw new IllegalStateException();
+					}
+					removable = false;
+					System.arraycopy(pairs, index, pairs, index - 1, size - index);
+					index--;
+					size--;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
 	}
 
 	protected static class DisjointMatchCollection<V, C> extends AbstractList<Match<V, C>> {
@@ -218,7 +381,11 @@ public class Matcher<V, C> {
 		}
 
 		public boolean disjoint(Match<V, C> match) {
-			return !values.containsKey(match.getValue()) && !candidates.containsKey(match.getCandidate());
+			return disjoint(match.getValue(), match.getCandidate());
+		}
+
+		public boolean disjoint(V value, C candidate) {
+			return !values.containsKey(value) && !candidates.containsKey(candidate);
 		}
 
 		public Match<V, C> getByValue(V value) {
@@ -41,7 +41,9 @@ public class NameSimilarityMetric implements SimilarityMetric {
 
 		// apply transliterator
 		if (transliterator != null) {
-			name = transliterator.transform(name);
+			synchronized (transliterator) {
+				name = transliterator.transform(name);
+			}
 		}
 
 		// normalize separators
@@ -99,136 +99,151 @@ public final class SubtitleUtilities {
 		// collect results
 		Map<File, List<SubtitleDescriptor>> subtitlesByFile = new HashMap<File, List<SubtitleDescriptor>>();
 
-		for (List<File> byMediaFolder : mapByMediaFolder(fileSet).values()) {
-			for (Entry<String, List<File>> bySeries : mapBySeriesName(byMediaFolder, false, Locale.ENGLISH).entrySet()) {
-				// allow early abort
-				if (Thread.interrupted())
-					throw new InterruptedException();
-
-				// auto-detect query and search for subtitles
-				Collection<SubtitleSearchResult> selection = new LinkedHashSet<SubtitleSearchResult>();
-				Collection<String> querySet = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
-				List<File> files = bySeries.getValue();
-
-				// try to guess what type of search might be required (minimize false negatives)
-				boolean searchBySeries = files.stream().anyMatch(f -> isEpisode(getName(f), true) || (isEpisode(getName(f), false) && matchMovie(f, 2) == null));
-				boolean searchByMovie = files.stream().anyMatch(f -> !isEpisode(getName(f), true));
-
-				if (forceQuery != null && forceQuery.length() > 0) {
-					querySet.add(forceQuery);
-					searchByMovie = true; // manual query could be a movie
-					searchBySeries = true; // manual query could be a tv series
-				} else if (searchBySeries && bySeries.getKey().length() > 0) {
-					// use auto-detected series name as query
-					querySet.add(bySeries.getKey());
-				} else if (searchBySeries || searchByMovie) {
-					// remainder is most likely a movie, or a badly named tv series
-					for (File f : files) {
-						List<String> queries = new ArrayList<String>();
-
-						// might be a movie, auto-detect movie names
-						if (!isEpisode(f.getPath(), true)) {
-							for (Movie it : detectMovie(f, null, Locale.ENGLISH, strict)) {
-								queries.add(it.getName());
-							}
-						}
-
-						if (queries.size() > 0) {
-							querySet.addAll(queries);
-						} else {
-							// just use heavily stripped file names
-							String keywords = stripReleaseInfo(getName(f), false);
-							if (keywords != null && keywords.length() > 0) {
-								querySet.add(keywords);
-							}
-						}
-					}
-				}
+		for (Entry<String, List<File>> bySeries : mapBySeriesNameAndMediaFolder(fileSet)) {
+			// allow early abort
+			if (Thread.interrupted())
+				throw new InterruptedException();
+
+			subtitlesByFile.putAll(findSubtitlesByName(service, bySeries.getKey(), bySeries.getValue(), locale, forceQuery, addOptions, strict));
+		}
 
-				if (searchByMovie || searchBySeries) {
-					selection.addAll(findProbableSearchResults(service, querySet, searchByMovie, searchBySeries));
+		return subtitlesByFile;
+	}
+
+	public static List<Entry<String, List<File>>> mapBySeriesNameAndMediaFolder(Collection<File> files) throws Exception {
+		List<Entry<String, List<File>>> groups = new ArrayList<Entry<String, List<File>>>();
+
+		for (List<File> byMediaFolder : mapByMediaFolder(files).values()) {
+			groups.addAll(mapBySeriesName(byMediaFolder, false, Locale.ENGLISH).entrySet());
+		}
+
+		return groups;
+	}
+
+	public static Map<File, List<SubtitleDescriptor>> findSubtitlesByName(SubtitleProvider service, String seriesName, List<File> files, Locale locale, String forceQuery, boolean addOptions, boolean strict) throws Exception {
+		Map<File, List<SubtitleDescriptor>> subtitlesByFile = new LinkedHashMap<File, List<SubtitleDescriptor>>();
+
+		// auto-detect query and search for subtitles
+		Collection<SubtitleSearchResult> selection = new LinkedHashSet<SubtitleSearchResult>();
+		Collection<String> querySet = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+
+		// try to guess what type of search might be required (minimize false negatives)
+		boolean searchBySeries = files.stream().anyMatch(f -> isEpisode(getName(f), true) || (isEpisode(getName(f), false) && matchMovie(f, 2) == null));
+		boolean searchByMovie = files.stream().anyMatch(f -> !isEpisode(getName(f), true));
+
+		if (forceQuery != null && forceQuery.length() > 0) {
+			querySet.add(forceQuery);
+			searchByMovie = true; // manual query could be a movie
+			searchBySeries = true; // manual query could be a tv series
+		} else if (searchBySeries && seriesName.length() > 0) {
+			// use auto-detected series name as query
+			querySet.add(seriesName);
+		} else if (searchBySeries || searchByMovie) {
+			// remainder is most likely a movie, or a badly named tv series
+			for (File f : files) {
+				List<String> queries = new ArrayList<String>();
+
+				// might be a movie, auto-detect movie names
+				if (!isEpisode(f.getPath(), true)) {
+					for (Movie it : detectMovie(f, null, Locale.ENGLISH, strict)) {
+						queries.add(it.getName());
+					}
 				}
 
-				// try OpenSubtitles guess function if we can't make sense of the files using local search
-				if (selection.isEmpty()) {
-					for (File f : files) {
-						try {
-							selection.addAll(service.guess(getName(f)));
-						} catch (Exception e) {
-							debug.warning(format("Failed to identify file [%s]: %s", f.getName(), e.getMessage()));
-						}
+				if (queries.size() > 0) {
+					querySet.addAll(queries);
+				} else {
+					// just use heavily stripped file names
+					String keywords = stripReleaseInfo(getName(f), false);
+					if (keywords != null && keywords.length() > 0) {
+						querySet.add(keywords);
 					}
 				}
+			}
+		}
 
-				if (selection.isEmpty()) {
-					continue;
+		if (searchByMovie || searchBySeries) {
+			selection.addAll(findProbableSearchResults(service, querySet, searchByMovie, searchBySeries));
+		}
+
+		// try OpenSubtitles guess function if we can't make sense of the files using local search
+		if (selection.isEmpty()) {
+			for (File f : files) {
+				try {
+					selection.addAll(service.guess(getName(f)));
+				} catch (Exception e) {
+					debug.warning(format("Failed to identify file [%s]: %s", f.getName(), e.getMessage()));
 				}
+			}
+		}
 
-				// search for subtitles online using the auto-detected or forced query information
-				Set<SubtitleDescriptor> subtitles = new LinkedHashSet<SubtitleDescriptor>();
+		if (selection.isEmpty()) {
+			return subtitlesByFile;
+		}
 
-				// fetch subtitles for all search results
-				for (SubtitleSearchResult it : selection) {
-					int[][] episodeFilter = null; // no filter
+		// search for subtitles online using the auto-detected or forced query information
+		Set<SubtitleDescriptor> subtitles = new LinkedHashSet<SubtitleDescriptor>();
 
-					if (searchBySeries) {
-						// search for subtitles for the given files
-						List<SxE> numbers = files.stream().map(f -> parseEpisodeNumber(f, true)).filter(Objects::nonNull).flatMap(Collection::stream).distinct().collect(toList());
+		// fetch subtitles for all search results
+		for (SubtitleSearchResult it : selection) {
+			int[][] episodeFilter = null; // no filter
 
-						if (numbers.size() == 1) {
-							episodeFilter = numbers.stream().map(sxe -> new int[] { sxe.season, sxe.episode }).toArray(int[][]::new); // season-and-episode filter
-						} else {
-							episodeFilter = numbers.stream().map(sxe -> new int[] { sxe.season, -1 }).toArray(int[][]::new); // season-only filter
-						}
-					}
+			if (searchBySeries) {
+				// search for subtitles for the given files
+				List<SxE> numbers = files.stream().map(f -> parseEpisodeNumber(f, true)).filter(Objects::nonNull).flatMap(Collection::stream).distinct().collect(toList());
 
-					subtitles.addAll(service.getSubtitleList(it, episodeFilter, locale));
+				if (numbers.size() == 1) {
+					episodeFilter = numbers.stream().map(sxe -> new int[] { sxe.season, sxe.episode }).toArray(int[][]::new); // season-and-episode filter
+				} else {
+					episodeFilter = numbers.stream().map(sxe -> new int[] { sxe.season, -1 }).toArray(int[][]::new); // season-only filter
 				}
+			}
 
-				// allow early abort
-				if (Thread.interrupted()) {
-					throw new InterruptedException();
-				}
+			subtitles.addAll(service.getSubtitleList(it, episodeFilter, locale));
+		}
 
-				// files by possible subtitles matches
-				for (File file : files) {
-					subtitlesByFile.put(file, new ArrayList<SubtitleDescriptor>());
-				}
+		// allow early abort
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
 
-				// add other possible matches to the options
-				SimilarityMetric sanity = SubtitleMetrics.verificationMetric();
-				float minMatchSimilarity = strict ? 0.9f : 0.6f;
+		// files by possible subtitles matches
+		for (File file : files) {
+			subtitlesByFile.put(file, new ArrayList<SubtitleDescriptor>());
+		}
 
-				// first match everything as best as possible, then filter possibly bad matches
-				for (Entry<File, SubtitleDescriptor> it : matchSubtitles(files, subtitles).entrySet()) {
-					if (sanity.getSimilarity(it.getKey(), it.getValue()) >= minMatchSimilarity) {
-						subtitlesByFile.get(it.getKey()).add(it.getValue());
-					}
-				}
+		// add other possible matches to the options
+		SimilarityMetric sanity = SubtitleMetrics.verificationMetric();
+		float minMatchSimilarity = strict ? 0.9f : 0.6f;
 
-				// this could be very slow, lets hope at this point there is not much left due to positive hash matches
-				for (File file : files) {
-					// add matching subtitles
-					for (SubtitleDescriptor it : subtitles) {
-						// grab only the first best option unless we really want all options
-						if (!addOptions && subtitlesByFile.get(file).size() >= 1)
-							continue;
+		// first match everything as best as possible, then filter possibly bad matches
+		for (Entry<File, SubtitleDescriptor> it : matchSubtitles(files, subtitles).entrySet()) {
+			if (sanity.getSimilarity(it.getKey(), it.getValue()) >= minMatchSimilarity) {
+				subtitlesByFile.get(it.getKey()).add(it.getValue());
+			}
+		}
+
+		// this could be very slow, lets hope at this point there is not much left due to positive hash matches
+		for (File file : files) {
+			// add matching subtitles
+			for (SubtitleDescriptor it : subtitles) {
+				// grab only the first best option unless we really want all options
+				if (!addOptions && subtitlesByFile.get(file).size() >= 1)
+					continue;
 
-						// ignore if it's already been added
-						if (subtitlesByFile.get(file).contains(it))
-							continue;
+				// ignore if it's already been added
+				if (subtitlesByFile.get(file).contains(it))
+					continue;
 
-						// ignore if we're sure that SxE is a negative match
-						if ((isEpisode(it.getName(), true) || isEpisode(file.getPath(), true)) && EpisodeMetrics.EpisodeIdentifier.getSimilarity(file, it) < 1)
-							continue;
+				// ignore if we're sure that SxE is a negative match
+				if ((isEpisode(it.getName(), true) || isEpisode(file.getPath(), true)) && EpisodeMetrics.EpisodeIdentifier.getSimilarity(file, it) < 1)
+					continue;
 
-						// ignore if it's not similar enough
-						if (sanity.getSimilarity(file, it) < minMatchSimilarity)
-							continue;
+				// ignore if it's not similar enough
+				if (sanity.getSimilarity(file, it) < minMatchSimilarity)
+					continue;
 
-						subtitlesByFile.get(file).add(it);
-					}
-				}
+				subtitlesByFile.get(file).add(it);
 			}
 		}
 
@@ -0,0 +1,405 @@
+package net.filebot.torrent;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.sun.jna.Platform;
+
+/**
+ * Decode bencoded data the same way as {@link BDecoder} (integers as Long, strings as byte[], dictionaries as Map and lists as List) but without reading the data into memory first. The data is validated once, and dictionaries and lists are read-only views of the underlying buffer that decode their values on access, so values that are never accessed (e.g. the piece hashes) are skipped without being copied.
+ */
+class BencodeReader {
+
+	// mapped files cannot be deleted or moved on Windows until the mapping has been garbage collected
+	private static final boolean MEMORY_MAPPED = !Platform.isWindows();
+
+	public static Map<String, Object> decode(File file) throws IOException {
+		return decode(file, MEMORY_MAPPED);
+	}
+
+	static Map<String, Object> decode(File file, boolean memoryMapped) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("BencodeReader: file too large (" + size + ")");
+			}
+
+			// mapped buffer remains valid after the channel has been closed
+			if (memoryMapped) {
+				return decode(channel.map(MapMode.READ_ONLY, 0, size));
+			}
+
+			ByteBuffer data = ByteBuffer.allocate((int) size);
+			while (data.hasRemaining() && channel.read(data) >= 0) {
+				// read all
+			}
+			data.flip();
+			return decode(data);
+		}
+	}
+
+	public static Map<String, Object> decode(ByteBuffer data) throws IOException {
+		BencodeReader reader = new BencodeReader(data.slice());
+
+		if (reader.limit == 0) {
+			throw new IOException("BencodeReader: zero length file");
+		}
+		if (reader.data.get(0) != 'd') {
+			throw new IOException("BencodeReader: top level isn't a Map");
+		}
+
+		reader.validate(0);
+		return reader.new Dictionary(0);
+	}
+
+	private final ByteBuffer data;
+	private final int limit;
+
+	private BencodeReader(ByteBuffer data) {
+		this.data = data;
+		this.limit = data.limit();
+	}
+
+	/**
+	 * Check the structure of the value at the given position, so that views can skip values without further checks
+	 */
+	private int validate(int position) throws IOException {
+		// -1 for lists and the number of keys and values for dictionaries
+		int[] stack = new int[16];
+		int depth = 0;
+
+		do {
+			byte b = get(position);
+
+			// dictionary keys must be strings
+			if (depth > 0 && stack[depth - 1] >= 0 && stack[depth - 1] % 2 == 0 && b != 'e' && !isDigit(b)) {
+				throw new IOException("BencodeReader: invalid dictionary key at " + position);
+			}
+
+			switch (b) {
+			case 'd':
+			case 'l':
+				if (depth == stack.length) {
+					stack = Arrays.copyOf(stack, depth * 2);
+				}
+				stack[depth++] = b == 'd' ? 0 : -1;
+				position++;
+				continue;
+			case 'e':
+				if (depth == 0 || stack[depth - 1] % 2 == 1) {
+					throw new IOException("BencodeReader: unexpected 'e' at " + position);
+				}
+				depth--;
+				position++;
+				break;
+			case 'i':
+				int end = indexOf('e', position + 1);
+				parseLong(position + 1, end);
+				position = end + 1;
+				break;
+			default:
+				if (!isDigit(b)) {
+					throw new IOException("BencodeReader: unknown command '" + (char) b + "' at " + position);
+				}
+				int separator = indexOf(':', position);
+				long length = parseLong(position, separator);
+				if (length < 0 || length > limit - separator - 1) {
+					throw new IOException("BencodeReader: invalid string length (" + length + ") at " + position);
+				}
+				position = separator + 1 + (int) length;
+				break;
+			}
+
+			// count keys and values of the parent dictionary
+			if (depth > 0 && stack[depth - 1] >= 0) {
+				stack[depth - 1]++;
+			}
+		} while (depth > 0);
+
+		return position;
+	}
+
+	private byte get(int position) throws IOException {
+		if (position >= limit) {
+			throw new IOException("BencodeReader: truncated");
+		}
+		return data.get(position);
+	}
+
+	private int indexOf(char c, int position) throws IOException {
+		while (get(position) != c) {
+			position++;
+		}
+		return position;
+	}
+
+	private long parseLong(int start, int end) throws IOException {
+		boolean negative = start < end && data.get(start) == '-';
+		int i = negative ? start + 1 : start;
+
+		if (i == end) {
+			throw new IOException("BencodeReader: invalid number at " + start);
+		}
+
+		try {
+			// accumulate negative value so that Long.MIN_VALUE can be parsed as well
+			long value = 0;
+			for (; i < end; i++) {
+				byte b = data.get(i);
+				if (!isDigit(b)) {
+					throw new IOException("BencodeReader: invalid number at " + start);
+				}
+				value = Math.subtractExact(Math.multiplyExact(value, 10), b - '0');
+			}
+			return negative ? value : Math.negateExact(value);
+		} catch (ArithmeticException e) {
+			throw new IOException("BencodeReader: number too large at " + start);
+		}
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	/**
+	 * @return position after the (valid) value at the given position
+	 */
+	private int skip(int position) {
+		int depth = 0;
+
+		do {
+			byte b = data.get(position);
+			switch (b) {
+			case 'd':
+			case 'l':
+				depth++;
+				position++;
+				break;
+			case 'e':
+				depth--;
+				position++;
+				break;
+			case 'i':
+				position = find('e', position) + 1;
+				break;
+			default:
+				int separator = find(':', position);
+				position = separator + 1 + (int) toLong(position, separator);
+				break;
+			}
+		} while (depth > 0);
+
+		return position;
+	}
+
+	private int find(char c, int position) {
+		while (data.get(position) != c) {
+			position++;
+		}
+		return position;
+	}
+
+	private long toLong(int start, int end) {
+		boolean negative = data.get(start) == '-';
+		long value = 0;
+		for (int i = negative ? start + 1 : start; i < end; i++) {
+			value = value * 10 - (data.get(i) - '0');
+		}
+		return negative ? value : -value;
+	}
+
+	private Object value(int position) {
+		byte b = data.get(position);
+		switch (b) {
+		case 'd':
+			return new Dictionary(position);
+		case 'l':
+			return new Sequence(position);
+		case 'i':
+			return toLong(position + 1, find('e', position));
+		default:
+			int separator = find(':', position);
+			byte[] bytes = new byte[(int) toLong(position, separator)];
+			data.duplicate().position(separator + 1).get(bytes);
+			return bytes;
+		}
+	}
+
+	private boolean equals(int position, byte[] key) {
+		int separator = find(':', position);
+		if (toLong(position, separator) != key.length) {
+			return false;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (data.get(separator + 1 + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String string(int position) {
+		int separator = find(':', position);
+		int length = (int) toLong(position, separator);
+
+		ByteBuffer bytes = data.duplicate();
+		bytes.position(separator + 1).limit(separator + 1 + length);
+		return ISO_8859_1.decode(bytes).toString();
+	}
+
+	private class Dictionary extends AbstractMap<String, Object> {
+
+		private final int offset;
+		private int size = -1;
+
+		public Dictionary(int offset) {
+			this.offset = offset;
+		}
+
+		/**
+		 * @return position of the value for the given key or -1
+		 */
+		private int find(Object key) {
+			if (key instanceof String) {
+				byte[] bytes = ((String) key).getBytes(ISO_8859_1);
+
+				for (int position = offset + 1; data.get(position) != 'e';) {
+					int value = skip(position);
+					if (BencodeReader.this.equals(position, bytes)) {
+						return value;
+					}
+					position = skip(value);
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public Object get(Object key) {
+			int position = find(key);
+			return position < 0 ? null : value(position);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return find(key) >= 0;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return new Iterator<Entry<String, Object>>() {
+
+						private int position = offset + 1;
+
+						@Override
+						public boolean hasNext() {
+							return data.get(position) != 'e';
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+
+							int value = skip(position);
+							Entry<String, Object> entry = new SimpleImmutableEntry<String, Object>(string(position), value(value));
+							position = skip(value);
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					if (size < 0) {
+						int count = 0;
+						for (int position = offset + 1; data.get(position) != 'e'; position = skip(skip(position))) {
+							count++;
+						}
+						size = count;
+					}
+					return size;
+				}
+			};
+		}
+	}
+
+	private class Sequence extends AbstractList<Object> {
+
+		private final int offset;
+		private int size = -1;
+
+		public Sequence(int offset) {
+			this.offset = offset;
+		}
+
+		@Override
+		public Object get(int index) {
+			int position = offset + 1;
+			for (int i = 0; i < index && data.get(position) != 'e'; i++) {
+				position = skip(position);
+			}
+
+			if (index < 0 || data.get(position) == 'e') {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+			return value(position);
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			return new Iterator<Object>() {
+
+				private int position = offset + 1;
+
+				@Override
+				public boolean hasNext() {
+					return data.get(position) != 'e';
+				}
+
+				@Override
+				public Object next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+
+					Object value = value(position);
+					position = skip(position);
+					return value;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			if (size < 0) {
+				int count = 0;
+				for (int position = offset + 1; data.get(position) != 'e'; position = skip(position)) {
+					count++;
+				}
+				size = count;
+			}
+			return size;
+		}
+	}
+
+}
@@ -3,11 +3,8 @@ package net.filebot.torrent;
 import static java.nio.charset.StandardCharsets.*;
 import static java.util.Collections.*;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -35,7 +32,8 @@ public class Torrent {
 	}
 
 	public Torrent(File torrent) throws IOException {
-		this(decodeTorrent(torrent));
+		// decode values lazily and skip piece hashes
+		this(BencodeReader.decode(torrent));
 	}
 
 	public Torrent(Map<?, ?> torrentMap) {
@@ -98,16 +96,6 @@ public class Torrent {
 		}
 	}
 
-	private static Map<?, ?> decodeTorrent(File torrent) throws IOException {
-		InputStream in = new BufferedInputStream(new FileInputStream(torrent));
-
-		try {
-			return BDecoder.decode(in);
-		} finally {
-			in.close();
-		}
-	}
-
 	private String decodeString(Object byteArray, Charset charset) {
 		if (byteArray == null)
 			return null;
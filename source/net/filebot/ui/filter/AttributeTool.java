@@ -10,10 +10,12 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
 
@@ -49,7 +51,7 @@ class AttributeTool extends Tool<TableModel> {
 	}
 
 	@Override
-	protected TableModel createModelInBackground(List<File> root) {
+	protected TableModel createModelInBackground(List<File> root, Consumer<TableModel> progress) {
 		FileAttributesTableModel model = new FileAttributesTableModel();
 
 		if (root.isEmpty()) {
@@ -58,24 +60,33 @@ class AttributeTool extends Tool<TableModel> {
 
 		List<File> files = listFiles(root, filter(VIDEO_FILES, SUBTITLE_FILES), HUMAN_NAME_ORDER);
 
+		// display rows as soon as they are available
+		progress.accept(model);
+
 		for (File file : files) {
 			Object metaObject = xattr.getMetaInfo(file);
 			String originalName = xattr.getOriginalName(file);
+			String metaId = null;
 
 			if (metaObject instanceof Episode) {
 				SeriesInfo seriesInfo = ((Episode) metaObject).getSeriesInfo();
 				if (seriesInfo != null) {
-					model.addRow(String.format("%s::%d", seriesInfo.getDatabase(), seriesInfo.getId()), metaObject, originalName, file);
+					metaId = String.format("%s::%d", seriesInfo.getDatabase(), seriesInfo.getId());
 				}
 			} else if (metaObject instanceof Movie) {
 				Movie movie = (Movie) metaObject;
 				if (movie.getTmdbId() > 0) {
-					model.addRow(String.format("%s::%d", "TheMovieDB", movie.getTmdbId()), metaObject, originalName, file);
+					metaId = String.format("%s::%d", "TheMovieDB", movie.getTmdbId());
 				} else if (movie.getImdbId() > 0) {
-					model.addRow(String.format("%s::%d", "OMDb", movie.getImdbId()), metaObject, originalName, file);
+					metaId = String.format("%s::%d", "OMDb", movie.getImdbId());
 				}
 			}
 
+			if (metaId != null) {
+				Object[] row = { metaId, metaObject, originalName, file };
+				SwingUtilities.invokeLater(() -> model.addRow(row));
+			}
+
 			if (Thread.interrupted()) {
 				throw new CancellationException();
 			}
@@ -86,7 +97,9 @@ class AttributeTool extends Tool<TableModel> {
 
 	@Override
 	protected void setModel(TableModel model) {
-		table.setModel(model);
+		if (table.getModel() != model) {
+			table.setModel(model);
+		}
 	}
 
 	private static class FileAttributesTableModel extends AbstractTableModel {
@@ -97,7 +110,9 @@ class AttributeTool extends Tool<TableModel> {
 			if (row.length != getColumnCount())
 				return false;
 
-			return rows.add(row);
+			rows.add(row);
+			fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
+			return true;
 		}
 
 		@Override
@@ -74,7 +74,7 @@ class ExtractTool extends Tool<TableModel> {
 	}
 
 	@Override
-	protected TableModel createModelInBackground(List<File> root) throws Exception {
+	protected TableModel createModelInBackground(List<File> root, Consumer<TableModel> progress) throws Exception {
 		if (root.isEmpty()) {
 			return new ArchiveEntryModel();
 		}
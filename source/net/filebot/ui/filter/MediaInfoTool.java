@@ -1,30 +1,40 @@
 package net.filebot.ui.filter;
 
 import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
 import static javax.swing.BorderFactory.*;
 import static net.filebot.Logging.*;
 import static net.filebot.MediaTypes.*;
+import static net.filebot.Settings.*;
 import static net.filebot.util.FileUtilities.*;
 
 import java.awt.Color;
 import java.io.File;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.TreeMap;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
 
 import net.filebot.mediainfo.MediaInfo;
 import net.filebot.mediainfo.MediaInfo.StreamKind;
+import net.filebot.mediainfo.MediaInfoPool;
 import net.filebot.util.ui.LoadingOverlayPane;
 import net.miginfocom.swing.MigLayout;
 
@@ -54,45 +64,71 @@ class MediaInfoTool extends Tool<TableModel> {
 	}
 
 	@Override
-	protected TableModel createModelInBackground(List<File> root) {
+	protected TableModel createModelInBackground(List<File> root, Consumer<TableModel> progress) throws Exception {
 		if (root.isEmpty()) {
 			return new MediaInfoTableModel();
 		}
 
 		List<File> files = listFiles(root, filter(VIDEO_FILES, AUDIO_FILES), HUMAN_NAME_ORDER);
-		Map<MediaInfoKey, String[]> data = new TreeMap<MediaInfoKey, String[]>();
+		MediaInfoTableModel model = new MediaInfoTableModel(files);
 
-		try (MediaInfo mi = new MediaInfo()) {
-			IntStream.range(0, files.size()).forEach(f -> {
-				try {
-					mi.open(files.get(f));
-					mi.snapshot().forEach((kind, streams) -> {
-						IntStream.range(0, streams.size()).forEach(i -> {
-							streams.get(i).forEach((name, value) -> {
-								String[] values = data.computeIfAbsent(new MediaInfoKey(kind, i, name), k -> new String[files.size()]);
-								values[f] = value;
-							});
-						});
-					});
-				} catch (IllegalArgumentException e) {
-					debug.finest(e::toString);
-				} catch (Exception e) {
-					debug.warning(e::toString);
-				}
+		// display files right away and fill in rows as soon as they are available
+		progress.accept(model);
+
+		try (MediaInfoPool pool = new MediaInfoPool(getPreferredThreadPoolSize())) {
+			List<Future<Map<MediaInfoKey, String>>> rows = files.stream().map(f -> pool.submit(f, this::readRow)).collect(toList());
 
-				if (Thread.interrupted()) {
-					throw new CancellationException();
+			for (int i = 0; i < rows.size(); i++) {
+				try {
+					Map<MediaInfoKey, String> row = rows.get(i).get();
+					int index = i;
+					SwingUtilities.invokeLater(() -> model.setRow(index, row));
+				} catch (InterruptedException e) {
+					throw new CancellationException(); // pending and in-flight reads will be aborted when the pool is closed
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IllegalArgumentException) {
+						debug.finest(e.getCause()::toString);
+					} else {
+						debug.warning(e.getCause()::toString);
+					}
 				}
-			});
+			}
 		}
 
-		return new MediaInfoTableModel(data.isEmpty() ? emptyList() : files, data);
+		return model;
+	}
+
+	private Map<MediaInfoKey, String> readRow(MediaInfo mi) {
+		Map<MediaInfoKey, String> row = new HashMap<MediaInfoKey, String>();
+		mi.snapshot().forEach((kind, streams) -> {
+			IntStream.range(0, streams.size()).forEach(i -> {
+				streams.get(i).forEach((name, value) -> {
+					row.put(new MediaInfoKey(kind, i, name), value);
+				});
+			});
+		});
+		return row;
 	}
 
 	@Override
 	protected void setModel(TableModel model) {
+		if (table.getModel() == model) {
+			return;
+		}
+
+		// restore column settings after the table has recreated columns for newly added keys
+		model.addTableModelListener(evt -> {
+			if (evt.getFirstRow() == TableModelEvent.HEADER_ROW) {
+				updateColumns();
+			}
+		});
+
 		table.setModel(model);
-		table.setAutoResizeMode(table.getRowCount() > 0 ? JTable.AUTO_RESIZE_OFF : JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS);
+		updateColumns();
+	}
+
+	private void updateColumns() {
+		table.setAutoResizeMode(table.getColumnCount() > 1 ? JTable.AUTO_RESIZE_OFF : JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS);
 
 		TableColumnModel columnModel = table.getColumnModel();
 		IntStream.range(0, columnModel.getColumnCount()).forEach(i -> columnModel.getColumn(i).setMinWidth(150));
@@ -153,20 +189,48 @@ class MediaInfoTool extends Tool<TableModel> {
 
 	private static class MediaInfoTableModel extends AbstractTableModel {
 
-		private final MediaInfoKey[] keys;
-		private final String[][] values;
 		private final String[] files;
-		private final Class<?>[] columnClass;
+		private final Map<MediaInfoKey, String[]> data = new TreeMap<MediaInfoKey, String[]>();
+
+		private MediaInfoKey[] keys = new MediaInfoKey[0];
+		private String[][] values = new String[0][];
+		private Class<?>[] columnClass = new Class<?>[0];
 
 		public MediaInfoTableModel() {
-			this(emptyList(), emptyMap());
+			this(emptyList());
 		}
 
-		public MediaInfoTableModel(List<File> files, Map<MediaInfoKey, String[]> values) {
-			this.keys = values.keySet().toArray(new MediaInfoKey[0]);
-			this.values = values.values().toArray(new String[0][]);
+		public MediaInfoTableModel(List<File> files) {
 			this.files = files.stream().map(File::getName).toArray(String[]::new);
-			this.columnClass = new Class<?>[getColumnCount()];
+		}
+
+		public void setRow(int row, Map<MediaInfoKey, String> rowValues) {
+			boolean newColumns = false;
+
+			for (Entry<MediaInfoKey, String> it : rowValues.entrySet()) {
+				String[] column = data.get(it.getKey());
+				if (column == null) {
+					column = new String[files.length];
+					data.put(it.getKey(), column);
+					newColumns = true;
+				}
+				column[row] = it.getValue();
+			}
+
+			if (newColumns) {
+				keys = data.keySet().toArray(new MediaInfoKey[0]);
+				values = data.values().toArray(new String[0][]);
+				columnClass = new Class<?>[keys.length];
+				fireTableStructureChanged();
+			} else {
+				// new values may change the column class
+				for (int c = 0; c < keys.length; c++) {
+					if (rowValues.containsKey(keys[c])) {
+						columnClass[c] = null;
+					}
+				}
+				fireTableRowsUpdated(row, row);
+			}
 		}
 
 		public int getHeaderColumnCount() {
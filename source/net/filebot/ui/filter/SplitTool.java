@@ -8,6 +8,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 import javax.swing.JLabel;
 import javax.swing.JScrollPane;
@@ -64,7 +65,7 @@ class SplitTool extends Tool<TreeModel> {
 	}
 
 	@Override
-	protected TreeModel createModelInBackground(List<File> root) {
+	protected TreeModel createModelInBackground(List<File> root, Consumer<TreeModel> progress) {
 		if (root.isEmpty()) {
 			return new DefaultTreeModel(new FolderNode("Volumes", emptyList()));
 		}
@@ -10,6 +10,7 @@ import java.io.File;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 import javax.swing.JComponent;
@@ -52,11 +53,15 @@ abstract class Tool<M> extends JComponent {
 		firePropertyChange(LoadingOverlayPane.LOADING_PROPERTY, !loading, loading);
 	}
 
-	protected abstract M createModelInBackground(List<File> root) throws Exception;
+	/**
+	 * @param progress
+	 *            publish a partially populated model that will be displayed while the background task is still running
+	 */
+	protected abstract M createModelInBackground(List<File> root, Consumer<M> progress) throws Exception;
 
 	protected abstract void setModel(M model);
 
-	private class UpdateModelTask extends SwingWorker<M, Void> {
+	private class UpdateModelTask extends SwingWorker<M, M> {
 
 		private final List<File> root;
 
@@ -66,7 +71,15 @@ abstract class Tool<M> extends JComponent {
 
 		@Override
 		protected M doInBackground() throws Exception {
-			return createModelInBackground(root);
+			return createModelInBackground(root, this::publish);
+		}
+
+		@Override
+		protected void process(List<M> chunks) {
+			// display latest partial model unless a newer update task has been started
+			if (this == updateTask && !isCancelled()) {
+				setModel(chunks.get(chunks.size() - 1));
+			}
 		}
 
 		@Override
@@ -14,6 +14,7 @@ import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 import javax.swing.JScrollPane;
 import javax.swing.tree.DefaultTreeModel;
@@ -45,7 +46,7 @@ class TypeTool extends Tool<TreeModel> {
 	}
 
 	@Override
-	protected TreeModel createModelInBackground(List<File> root) {
+	protected TreeModel createModelInBackground(List<File> root, Consumer<TreeModel> progress) {
 		if (root.isEmpty()) {
 			return new DefaultTreeModel(new FolderNode("Types", emptyList()));
 		}
@@ -58,6 +59,9 @@ class TypeTool extends Tool<TreeModel> {
 			List<File> selection = filter(filesAndFolders, it.getValue());
 			if (selection.size() > 0) {
 				groups.add(createStatisticsNode(it.getKey(), selection));
+
+				// display groups as they become available since media detection may take a while
+				progress.accept(new DefaultTreeModel(new FolderNode("Types", new ArrayList<TreeNode>(groups))));
 			}
 
 			if (Thread.interrupted()) {
@@ -56,16 +56,19 @@ class ExpressionFormatter implements MatchFormatter {
 		return preview != null ? preview.format(match.getValue()) : match.getValue().toString();
 	}
 
-	@Override
-	public synchronized String format(Match<?, ?> match, boolean extension, Map<?, ?> context) throws ScriptException {
+	private synchronized ExpressionFileFormat getFormat() throws ScriptException {
 		// lazy initialize script engine
 		if (format == null) {
 			format = new ExpressionFileFormat(expression);
 		}
+		return format;
+	}
 
-		// evaluate the expression using the given bindings
+	@Override
+	public String format(Match<?, ?> match, boolean extension, Map<?, ?> context) throws ScriptException {
+		// evaluate the expression using the given bindings (compiled expressions may be evaluated concurrently)
 		Object bindingBean = new MediaBindingBean(match.getValue(), (File) match.getCandidate(), (Map) context);
-		String destination = format.format(bindingBean);
+		String destination = getFormat().format(bindingBean);
 
 		return getPath((File) match.getCandidate(), destination);
 	}
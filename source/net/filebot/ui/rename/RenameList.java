@@ -7,6 +7,7 @@ import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.function.BiConsumer;
 
 import javax.swing.Action;
 import javax.swing.JButton;
@@ -55,6 +56,13 @@ class RenameList<E> extends FileBotList<E> {
 		return buttonPanel;
 	}
 
+	public void addVisibleRangeListener(BiConsumer<Integer, Integer> listener) {
+		// viewport changes on scroll, resize and whenever the list grows or shrinks
+		listScrollPane.getViewport().addChangeListener(evt -> {
+			listener.accept(list.getFirstVisibleIndex(), list.getLastVisibleIndex());
+		});
+	}
+
 	private JButton createLoadButton() {
 		ActionPopup actionPopup = new ActionPopup("Load Files", ResourceManager.getIcon("action.load"));
 
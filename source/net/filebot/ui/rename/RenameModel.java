@@ -1,6 +1,7 @@
 package net.filebot.ui.rename;
 
 import static java.util.Collections.*;
+import static net.filebot.Settings.*;
 import static net.filebot.util.ExceptionUtilities.*;
 import static net.filebot.util.FileUtilities.*;
 
@@ -9,14 +10,14 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -28,6 +29,8 @@ import ca.odell.glazedlists.EventList;
 import ca.odell.glazedlists.TransformedList;
 import ca.odell.glazedlists.event.ListEvent;
 import net.filebot.similarity.Match;
+import net.filebot.util.DefaultThreadFactory;
+import net.filebot.util.SystemProperty;
 import net.filebot.util.ui.SwingUI;
 
 public class RenameModel extends MatchModel<Object, File> {
@@ -75,6 +78,11 @@ public class RenameModel extends MatchModel<Object, File> {
 		names.refresh();
 	}
 
+	public void setVisibleRange(int fromIndex, int toIndex) {
+		// format visible names first
+		names.prioritize(fromIndex, toIndex);
+	}
+
 	public Map<File, File> getRenameMap() {
 		Map<File, File> map = new LinkedHashMap<File, File>();
 
@@ -162,11 +170,24 @@ public class RenameModel extends MatchModel<Object, File> {
 
 		private final List<FormattedFuture> futures = new ArrayList<FormattedFuture>();
 
-		private final Executor backgroundFormatter = new ThreadPoolExecutor(0, 1, 5L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+		// current worker task of each future
+		private final Map<FormattedFuture, FormatTask> tasks = new IdentityHashMap<FormattedFuture, FormatTask>();
+
+		private final int threadPoolSize = SystemProperty.of("net.filebot.rename.threadPool", Integer::parseInt, getPreferredThreadPoolSize()).get();
+
+		private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<Runnable>();
+		private final ThreadPoolExecutor backgroundFormatter = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 5L, TimeUnit.SECONDS, queue, new DefaultThreadFactory("RenameFormatter", Thread.NORM_PRIORITY, true));
+
+		private long sequence = 0;
+		private int visibleFromIndex = -1;
+		private int visibleToIndex = -1;
 
 		public FormattedFutureEventList(EventList<Object> source) {
 			super(source);
 			this.source.addListEventListener(this);
+
+			// release worker threads when there is nothing to do
+			backgroundFormatter.allowCoreThreadTimeOut(true);
 		}
 
 		@Override
@@ -245,7 +266,7 @@ public class RenameModel extends MatchModel<Object, File> {
 					}
 
 					// observe and enqueue worker task
-					submit(future);
+					submit(index, future);
 				} else if (type == ListEvent.DELETE) {
 					// remove future from data and formatter queue
 					FormattedFuture obsolete = futures.remove(index);
@@ -269,24 +290,68 @@ public class RenameModel extends MatchModel<Object, File> {
 				cancel(futures.set(i, future));
 
 				// submit new future
-				submit(future);
+				submit(i, future);
 
 				updates.elementUpdated(i, obsolete, future);
 			}
 
 			updates.commitEvent();
+
+			// discard obsolete tasks right away
+			queue.removeIf(it -> ((FormatTask) it).isObsolete());
+		}
+
+		public void prioritize(int fromIndex, int toIndex) {
+			int previousFromIndex = visibleFromIndex;
+			int previousToIndex = visibleToIndex;
+
+			visibleFromIndex = fromIndex;
+			visibleToIndex = toIndex;
+
+			// only rows that moved out of or into the visible range need a new priority
+			for (int i = Math.max(0, previousFromIndex); i <= previousToIndex && i < futures.size(); i++) {
+				if (!isVisible(i)) {
+					reschedule(futures.get(i), false);
+				}
+			}
+
+			for (int i = Math.max(0, fromIndex); i <= toIndex && i < futures.size(); i++) {
+				if (i < previousFromIndex || i > previousToIndex) {
+					reschedule(futures.get(i), true);
+				}
+			}
+		}
+
+		private boolean isVisible(int index) {
+			return index >= visibleFromIndex && index <= visibleToIndex;
+		}
+
+		private void reschedule(FormattedFuture future, boolean visible) {
+			FormatTask task = tasks.get(future);
+
+			// enqueue pending tasks again with updated priority, and let the obsolete task do nothing when it is taken off the queue
+			if (task != null && task.visible != visible && future.getState() == StateValue.PENDING && !future.isDone()) {
+				task.superseded = true;
+				submit(future, new FormatTask(future, task.sequence, visible));
+			}
 		}
 
-		private void submit(FormattedFuture future) {
+		private void submit(int index, FormattedFuture future) {
 			// observe and enqueue worker task
 			future.addPropertyChangeListener(futureListener);
-			backgroundFormatter.execute(future);
+			submit(future, new FormatTask(future, sequence++, isVisible(index)));
+		}
+
+		private void submit(FormattedFuture future, FormatTask task) {
+			tasks.put(future, task);
+			backgroundFormatter.execute(task);
 		}
 
 		private void cancel(FormattedFuture future) {
 			// remove listener and cancel worker task
 			future.removePropertyChangeListener(futureListener);
 			future.cancel(true);
+			tasks.remove(future);
 		}
 
 		private final PropertyChangeListener futureListener = new PropertyChangeListener() {
@@ -307,6 +372,42 @@ public class RenameModel extends MatchModel<Object, File> {
 		};
 	}
 
+	private static class FormatTask implements Runnable, Comparable<FormatTask> {
+
+		private final FormattedFuture future;
+		private final long sequence;
+		private final boolean visible;
+
+		private volatile boolean superseded;
+
+		public FormatTask(FormattedFuture future, long sequence, boolean visible) {
+			this.future = future;
+			this.sequence = sequence;
+			this.visible = visible;
+		}
+
+		@Override
+		public void run() {
+			// a future runs only once, even if it has been enqueued again in the meantime
+			if (!superseded) {
+				future.run();
+			}
+		}
+
+		public boolean isObsolete() {
+			return superseded || future.isCancelled();
+		}
+
+		@Override
+		public int compareTo(FormatTask other) {
+			// visible names first, then in order of submission
+			if (visible != other.visible) {
+				return visible ? -1 : 1;
+			}
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+
 	public static class FormattedFuture extends SwingWorker<String, Void> {
 
 		private final Match<Object, File> match;
@@ -179,6 +179,9 @@ public class RenamePanel extends JComponent {
 		// synchronize viewports
 		new ScrollPaneSynchronizer(namesList, filesList);
 
+		// format visible names first
+		namesList.addVisibleRangeListener(renameModel::setVisibleRange);
+
 		// delete items from both lists
 		Action removeAction = newAction("Exclude Selected Items", ResourceManager.getIcon("dialog.cancel"), evt -> {
 			RenameList list = null;
@@ -14,7 +14,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
-import net.filebot.Settings;
+import net.filebot.hash.VerificationEngine;
 import net.filebot.util.DefaultThreadFactory;
 
 class ChecksumComputationService {
@@ -26,12 +26,24 @@ class ChecksumComputationService {
 	private final AtomicInteger completedTaskCount = new AtomicInteger(0);
 	private final AtomicInteger totalTaskCount = new AtomicInteger(0);
 
-	private final int threadPoolSize = Settings.getPreferredThreadPoolSize();
+	// executors are created for each device
+	private final int threadPoolSize = VerificationEngine.DEFAULT_THREADS_PER_DEVICE;
+
+	// verification files are read on a separate pool, so that imports are not queued behind checksum computations
+	private final ThreadPoolExecutor importExecutor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DefaultThreadFactory("VerificationFileImportPool", Thread.NORM_PRIORITY, true));
+
+	public ChecksumComputationService() {
+		importExecutor.allowCoreThreadTimeOut(true);
+	}
 
 	public ExecutorService newExecutor() {
 		return new ChecksumComputationExecutor();
 	}
 
+	public ExecutorService getImportExecutor() {
+		return importExecutor;
+	}
+
 	public void reset() {
 		synchronized (executors) {
 			for (ExecutorService executor : executors) {
@@ -12,11 +12,14 @@ import static net.filebot.util.ui.SwingUI.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import net.filebot.hash.HashType;
@@ -81,7 +84,7 @@ class ChecksumTableTransferablePolicy extends BackgroundFileTransferablePolicy<C
 
 		// initialize drop parameters
 		executor.set(computationService.newExecutor());
-		verificationTracker.set(new VerificationTracker(5));
+		verificationTracker.set(new VerificationTracker(5, computationService.getImportExecutor()));
 
 		try {
 			// handle single verification file drop
@@ -219,19 +222,21 @@ class ChecksumTableTransferablePolicy extends BackgroundFileTransferablePolicy<C
 		return asList(VERIFICATION_FILES.extensions());
 	}
 
-	private static class VerificationTracker {
+	static class VerificationTracker {
 
 		private final Map<File, Integer> seen = new HashMap<File, Integer>();
-		private final Map<File, Map<File, String>> cache = new HashMap<File, Map<File, String>>();
+		private final Map<File, Map<File, String>> index = new HashMap<File, Map<File, String>>();
 		private final Map<File, HashType> types = new HashMap<File, HashType>();
 
 		private final int maxDepth;
+		private final ExecutorService executor;
 
-		public VerificationTracker(int maxDepth) {
+		public VerificationTracker(int maxDepth, ExecutorService executor) {
 			this.maxDepth = maxDepth;
+			this.executor = executor;
 		}
 
-		public Map<File, String> getHashByVerificationFile(File file) throws IOException {
+		public Map<File, String> getHashByVerificationFile(File file) throws IOException, InterruptedException {
 			// cache all verification files
 			File folder = file.getParentFile();
 			int depth = 0;
@@ -246,11 +251,7 @@ class ChecksumTableTransferablePolicy extends BackgroundFileTransferablePolicy<C
 
 				if (seenLevel == null) {
 					// folder we have never encountered before
-					for (File verificationFile : getChildren(folder, VERIFICATION_FILES)) {
-						HashType hashType = getHashType(verificationFile);
-						cache.put(verificationFile, importVerificationFile(verificationFile, hashType, verificationFile.getParentFile()));
-						types.put(verificationFile, hashType);
-					}
+					importVerificationFiles(getChildren(folder, VERIFICATION_FILES));
 				}
 
 				// update
@@ -261,33 +262,53 @@ class ChecksumTableTransferablePolicy extends BackgroundFileTransferablePolicy<C
 				depth++;
 			}
 
-			// just return if we know we won't find anything
-			if (cache.isEmpty()) {
-				return emptyMap();
-			}
-
-			// search all cached verification files
-			Map<File, String> result = new HashMap<File, String>(2);
+			Map<File, String> hashByVerificationFile = index.get(file);
+			return hashByVerificationFile == null ? emptyMap() : new HashMap<File, String>(hashByVerificationFile);
+		}
 
-			for (Entry<File, Map<File, String>> entry : cache.entrySet()) {
-				String hash = entry.getValue().get(file);
+		public HashType getVerificationFileType(File verificationFile) {
+			return types.get(verificationFile);
+		}
 
-				if (hash != null) {
-					result.put(entry.getKey(), hash);
-				}
+		private void importVerificationFiles(List<File> verificationFiles) throws IOException, InterruptedException {
+			if (verificationFiles.isEmpty()) {
+				return;
 			}
 
-			return result;
-		}
+			// read all verification files in parallel
+			List<Future<Map<File, String>>> imports = new ArrayList<Future<Map<File, String>>>(verificationFiles.size());
+			for (File verificationFile : verificationFiles) {
+				imports.add(executor.submit(() -> importVerificationFile(verificationFile, getHashType(verificationFile), verificationFile.getParentFile())));
+			}
 
-		public HashType getVerificationFileType(File verificationFile) {
-			return types.get(verificationFile);
+			try {
+				for (int i = 0; i < verificationFiles.size(); i++) {
+					File verificationFile = verificationFiles.get(i);
+					types.put(verificationFile, getHashType(verificationFile));
+
+					// add file -> hash mappings to reverse index
+					imports.get(i).get().forEach((file, hash) -> {
+						index.merge(file, singletonMap(verificationFile, hash), (m1, m2) -> {
+							Map<File, String> m = new HashMap<File, String>(m1);
+							m.putAll(m2);
+							return m;
+						});
+					});
+				}
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			} finally {
+				imports.forEach(it -> it.cancel(true));
+			}
 		}
 
 		/**
 		 * Completely read a verification file and resolve all relative file paths against a given base folder
 		 */
-		private Map<File, String> importVerificationFile(File verificationFile, HashType hashType, File baseFolder) throws IOException {
+		private static Map<File, String> importVerificationFile(File verificationFile, HashType hashType, File baseFolder) throws IOException {
 			VerificationFileReader parser = new VerificationFileReader(createTextReader(verificationFile), hashType.getFormat());
 			Map<File, String> result = new HashMap<File, String>();
 
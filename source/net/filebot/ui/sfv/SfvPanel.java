@@ -33,6 +33,7 @@ import com.google.common.eventbus.Subscribe;
 
 import net.filebot.ResourceManager;
 import net.filebot.hash.HashType;
+import net.filebot.hash.VerificationEngine;
 import net.filebot.ui.SelectDialog;
 import net.filebot.ui.transfer.DefaultTransferHandler;
 import net.filebot.ui.transfer.LoadAction;
@@ -103,19 +104,21 @@ public class SfvPanel extends JComponent {
 
 		ChecksumTableModel model = table.getModel();
 
-		// calculate new hashes, one executor for each checksum column
-		Map<File, ExecutorService> executors = new HashMap<File, ExecutorService>(4);
+		// calculate new hashes, one executor for each device
+		Map<Object, ExecutorService> executors = new HashMap<Object, ExecutorService>(4);
+		Map<File, Object> devices = new HashMap<File, Object>(4);
 
 		for (ChecksumRow row : model.rows()) {
 			for (ChecksumCell cell : row.values()) {
 				if (cell.getChecksum(hash) == null && cell.getRoot().isDirectory()) {
 					cell.putTask(new ChecksumComputationTask(new File(cell.getRoot(), cell.getName()), hash));
 
-					ExecutorService executor = executors.get(cell.getRoot());
+					Object device = devices.computeIfAbsent(cell.getRoot(), VerificationEngine::getDevice);
+					ExecutorService executor = executors.get(device);
 
 					if (executor == null) {
 						executor = computationService.newExecutor();
-						executors.put(cell.getRoot(), executor);
+						executors.put(device, executor);
 					}
 
 					// start computation
@@ -23,16 +23,27 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import javax.swing.AbstractAction;
@@ -64,6 +75,8 @@ import net.filebot.WebServices;
 import net.filebot.platform.mac.MacAppUtilities;
 import net.filebot.subtitle.SubtitleMetrics;
 import net.filebot.subtitle.SubtitleNaming;
+import net.filebot.util.DefaultThreadFactory;
+import net.filebot.util.SystemProperty;
 import net.filebot.util.ui.AbstractBean;
 import net.filebot.util.ui.DashedSeparator;
 import net.filebot.util.ui.EmptySelectionModel;
@@ -77,6 +90,9 @@ import net.miginfocom.swing.MigLayout;
 
 class SubtitleAutoMatchDialog extends JDialog {
 
+	public static final int DOWNLOAD_THREAD_POOL_SIZE = SystemProperty.of("net.filebot.subtitle.download.threadPool", Integer::parseInt, 4).get();
+	public static final int DOWNLOAD_THREADS_PER_SERVICE = SystemProperty.of("net.filebot.subtitle.download.threadsPerService", Integer::parseInt, 2).get();
+
 	private static final Color hashMatchColor = new Color(0xFAFAD2); // LightGoldenRodYellow
 	private static final Color nameMatchColor = new Color(0xFFEBCD); // BlanchedAlmond
 	private final JPanel hashMatcherServicePanel = createServicePanel(hashMatchColor);
@@ -191,7 +207,11 @@ class SubtitleAutoMatchDialog extends JDialog {
 
 	public void startQuery(Locale locale) {
 		SubtitleMappingTableModel mappingModel = (SubtitleMappingTableModel) subtitleMappingTable.getModel();
-		QueryTask queryTask = new QueryTask(services, mappingModel.getVideoFiles(), locale, SubtitleAutoMatchDialog.this) {
+
+		// one thread for the query task and one thread for each service lookup
+		queryService = Executors.newFixedThreadPool(services.size() + 1, new DefaultThreadFactory("SubtitleQuery", Thread.NORM_PRIORITY, true));
+
+		QueryTask queryTask = new QueryTask(services, mappingModel.getVideoFiles(), locale, SubtitleAutoMatchDialog.this, queryService) {
 
 			@Override
 			protected void process(List<Map<File, List<SubtitleDescriptorBean>>> sequence) {
@@ -218,7 +238,6 @@ class SubtitleAutoMatchDialog extends JDialog {
 			}
 		};
 
-		queryService = Executors.newSingleThreadExecutor();
 		queryService.submit(queryTask);
 	}
 
@@ -324,15 +343,24 @@ class SubtitleAutoMatchDialog extends JDialog {
 
 			// start download
 			if (downloadQueue.size() > 0) {
-				downloadService = Executors.newSingleThreadExecutor();
+				ExecutorService executor = Executors.newFixedThreadPool(DOWNLOAD_THREAD_POOL_SIZE, new DefaultThreadFactory("SubtitleDownload", Thread.NORM_PRIORITY, true));
+				AtomicInteger remaining = new AtomicInteger(downloadQueue.size());
 
 				for (DownloadTask downloadTask : downloadQueue) {
 					downloadTask.getSubtitleBean().setState(StateValue.PENDING);
-					downloadService.execute(downloadTask);
+					downloadTask.getSubtitleBean().getService().submitDownload(() -> {
+						try {
+							downloadTask.run();
+						} finally {
+							// terminate after all downloads have been completed
+							if (remaining.decrementAndGet() == 0) {
+								executor.shutdown();
+							}
+						}
+					}, executor);
 				}
 
-				// terminate after all downloads have been completed
-				downloadService.shutdown();
+				downloadService = executor;
 			}
 		}
 	};
@@ -577,12 +605,13 @@ class SubtitleAutoMatchDialog extends JDialog {
 		}
 	}
 
-	private static class SubtitleMapping extends AbstractBean {
+	static class SubtitleMapping extends AbstractBean {
 
 		private File videoFile;
 		private File subtitleFile;
 
 		private SubtitleDescriptorBean selectedOption;
+		private SubtitleDescriptorBean defaultOption;
 		private List<SubtitleDescriptorBean> options = new ArrayList<SubtitleDescriptorBean>();
 
 		public SubtitleMapping(File videoFile) {
@@ -627,10 +656,21 @@ class SubtitleAutoMatchDialog extends JDialog {
 		}
 
 		public void addOptions(List<SubtitleDescriptorBean> options) {
-			this.options.addAll(options);
+			// results from concurrent lookups may arrive in any order, so merge new options by relevance but keep the order of options from the same service
+			List<SubtitleDescriptorBean> merged = new ArrayList<SubtitleDescriptorBean>(this.options.size() + options.size());
+			for (int i = 0, j = 0; i < this.options.size() || j < options.size();) {
+				if (j == options.size() || (i < this.options.size() && this.options.get(i).getMatchProbability() >= options.get(j).getMatchProbability())) {
+					merged.add(this.options.get(i++));
+				} else {
+					merged.add(options.get(j++));
+				}
+			}
+			this.options = merged;
 
-			if (selectedOption == null && options.size() > 0) {
-				setSelectedOption(options.get(0));
+			// select best option unless the user has already made a different choice or the download has already started
+			if (merged.size() > 0 && selectedOption == defaultOption && (selectedOption == null || selectedOption.getState() == null) && selectedOption != merged.get(0)) {
+				defaultOption = merged.get(0);
+				setSelectedOption(defaultOption);
 			}
 		}
 
@@ -643,11 +683,12 @@ class SubtitleAutoMatchDialog extends JDialog {
 		};
 	}
 
-	private static class SubtitleDescriptorBean extends AbstractBean {
+	static class SubtitleDescriptorBean extends AbstractBean {
 
 		private final File videoFile;
 		private final SubtitleDescriptor descriptor;
 		private final SubtitleServiceBean service;
+		private final float matchProbability;
 
 		private StateValue state;
 		private Exception error;
@@ -656,14 +697,19 @@ class SubtitleAutoMatchDialog extends JDialog {
 			this.videoFile = videoFile;
 			this.descriptor = descriptor;
 			this.service = service;
+			this.matchProbability = service.getMatchProbabilty(videoFile, descriptor); // options are created in the background but compared and rendered on the EDT
 		}
 
 		public SubtitleDescriptor getDescriptor() {
 			return descriptor;
 		}
 
+		public SubtitleServiceBean getService() {
+			return service;
+		}
+
 		public float getMatchProbability() {
-			return service.getMatchProbabilty(videoFile, descriptor);
+			return matchProbability;
 		}
 
 		public String getText() {
@@ -714,7 +760,7 @@ class SubtitleAutoMatchDialog extends JDialog {
 		}
 	}
 
-	private static class QueryTask extends SwingWorker<Collection<File>, Map<File, List<SubtitleDescriptorBean>>> {
+	static class QueryTask extends SwingWorker<Collection<File>, Map<File, List<SubtitleDescriptorBean>>> {
 
 		private final Component parent;
 		private final Collection<SubtitleServiceBean> services;
@@ -722,16 +768,25 @@ class SubtitleAutoMatchDialog extends JDialog {
 		private final Collection<File> remainingVideos;
 		private final Locale locale;
 
-		public QueryTask(Collection<SubtitleServiceBean> services, Collection<File> videoFiles, Locale locale, Component parent) {
+		private final ExecutorService executor;
+
+		public QueryTask(Collection<SubtitleServiceBean> services, Collection<File> videoFiles, Locale locale, Component parent, ExecutorService executor) {
 			this.parent = parent;
 			this.services = services;
 			this.remainingVideos = new TreeSet<File>(videoFiles);
 			this.locale = locale;
+			this.executor = executor;
 		}
 
 		@Override
 		protected Collection<File> doInBackground() throws Exception {
+			// query services of the same kind concurrently, but only query name matching services for videos that could not be matched by hash
+			Map<Boolean, List<SubtitleServiceBean>> servicesByKind = new LinkedHashMap<Boolean, List<SubtitleServiceBean>>();
 			for (SubtitleServiceBean service : services) {
+				servicesByKind.computeIfAbsent(service instanceof VideoHashSubtitleServiceBean, k -> new ArrayList<SubtitleServiceBean>()).add(service);
+			}
+
+			for (List<SubtitleServiceBean> group : servicesByKind.values()) {
 				if (isCancelled() || Thread.interrupted()) {
 					throw new CancellationException();
 				}
@@ -740,52 +795,71 @@ class SubtitleAutoMatchDialog extends JDialog {
 					break;
 				}
 
-				try {
-					Map<File, List<SubtitleDescriptorBean>> subtitleSet = new HashMap<File, List<SubtitleDescriptorBean>>();
-					for (final Entry<File, List<SubtitleDescriptor>> result : service.lookupSubtitles(remainingVideos, locale, parent).entrySet()) {
-						Set<SubtitleDescriptor> subtitlesByRelevance = new LinkedHashSet<SubtitleDescriptor>();
-
-						// guess best hash match (default order is open bad due to invalid hash links)
-						SubtitleDescriptor bestMatch = getBestMatch(result.getKey(), result.getValue(), false);
-						if (bestMatch != null) {
-							subtitlesByRelevance.add(bestMatch);
-						}
+				List<File> videoFiles = new ArrayList<File>(remainingVideos);
+				CompletionService<Map<File, List<SubtitleDescriptorBean>>> lookups = new ExecutorCompletionService<Map<File, List<SubtitleDescriptorBean>>>(executor);
+				List<Future<Map<File, List<SubtitleDescriptorBean>>>> futures = new ArrayList<Future<Map<File, List<SubtitleDescriptorBean>>>>(group.size());
 
-						subtitlesByRelevance.addAll(result.getValue());
+				for (SubtitleServiceBean service : group) {
+					futures.add(lookups.submit(() -> lookupSubtitles(service, videoFiles)));
+				}
 
-						// associate subtitles with services
-						List<SubtitleDescriptorBean> subtitles = new ArrayList<SubtitleDescriptorBean>();
-						for (SubtitleDescriptor it : subtitlesByRelevance) {
-							subtitles.add(new SubtitleDescriptorBean(result.getKey(), it, service));
-						}
-						subtitleSet.put(result.getKey(), subtitles);
-					}
+				try {
+					// publish results as soon as each service has responded
+					for (int i = 0; i < futures.size(); i++) {
+						try {
+							Map<File, List<SubtitleDescriptorBean>> subtitleSet = lookups.take().get();
+
+							// only lookup subtitles for remaining videos
+							for (Entry<File, List<SubtitleDescriptorBean>> it : subtitleSet.entrySet()) {
+								if (it.getValue() != null && it.getValue().size() > 0) {
+									remainingVideos.remove(it.getKey());
+								}
+							}
 
-					// only lookup subtitles for remaining videos
-					for (Entry<File, List<SubtitleDescriptorBean>> it : subtitleSet.entrySet()) {
-						if (it.getValue() != null && it.getValue().size() > 0) {
-							remainingVideos.remove(it.getKey());
+							publish(subtitleSet);
+						} catch (ExecutionException e) {
+							// log and ignore
+							debug.log(Level.WARNING, e.getCause().getMessage(), e.getCause());
 						}
 					}
-
-					publish(subtitleSet);
-				} catch (CancellationException e) {
+				} finally {
 					// don't ignore cancellation
-					throw e;
-				} catch (InterruptedException e) {
-					// don't ignore cancellation
-					throw e;
-				} catch (Exception e) {
-					// log and ignore
-					debug.log(Level.WARNING, e.getMessage(), e);
+					for (Future<?> it : futures) {
+						it.cancel(true);
+					}
 				}
 			}
 
 			return remainingVideos;
 		}
+
+		protected Map<File, List<SubtitleDescriptorBean>> lookupSubtitles(SubtitleServiceBean service, Collection<File> videoFiles) throws Exception {
+			Map<File, List<SubtitleDescriptorBean>> subtitleSet = new HashMap<File, List<SubtitleDescriptorBean>>();
+
+			for (final Entry<File, List<SubtitleDescriptor>> result : service.lookupSubtitles(videoFiles, locale, parent).entrySet()) {
+				Set<SubtitleDescriptor> subtitlesByRelevance = new LinkedHashSet<SubtitleDescriptor>();
+
+				// guess best hash match (default order is open bad due to invalid hash links)
+				SubtitleDescriptor bestMatch = getBestMatch(result.getKey(), result.getValue(), false);
+				if (bestMatch != null) {
+					subtitlesByRelevance.add(bestMatch);
+				}
+
+				subtitlesByRelevance.addAll(result.getValue());
+
+				// associate subtitles with services
+				List<SubtitleDescriptorBean> subtitles = new ArrayList<SubtitleDescriptorBean>();
+				for (SubtitleDescriptor it : subtitlesByRelevance) {
+					subtitles.add(new SubtitleDescriptorBean(result.getKey(), it, service));
+				}
+				subtitleSet.put(result.getKey(), subtitles);
+			}
+
+			return subtitleSet;
+		}
 	}
 
-	private static class DownloadTask extends SwingWorker<File, Void> {
+	static class DownloadTask extends SwingWorker<File, Void> {
 
 		private final File video;
 		private final SubtitleDescriptorBean descriptor;
@@ -845,6 +919,9 @@ class SubtitleAutoMatchDialog extends JDialog {
 		private StateValue state = StateValue.PENDING;
 		private Exception error = null;
 
+		private final Semaphore downloadPermits = new Semaphore(DOWNLOAD_THREADS_PER_SERVICE);
+		private final Queue<Runnable> pendingDownloads = new ConcurrentLinkedQueue<Runnable>();
+
 		public SubtitleServiceBean(String name, Icon icon, URI link) {
 			this.name = name;
 			this.icon = icon;
@@ -881,6 +958,40 @@ class SubtitleAutoMatchDialog extends JDialog {
 			}
 		}
 
+		/**
+		 * Downloads are only handed to the executor while this service has a free download permit, so that a slow service doesn't block the threads of a shared download pool
+		 */
+		public void submitDownload(Runnable download, Executor executor) {
+			pendingDownloads.add(download);
+			dispatchDownloads(executor);
+		}
+
+		private void dispatchDownloads(Executor executor) {
+			while (!pendingDownloads.isEmpty() && downloadPermits.tryAcquire()) {
+				Runnable download = pendingDownloads.poll();
+				if (download == null) {
+					downloadPermits.release();
+					return;
+				}
+
+				try {
+					executor.execute(() -> {
+						try {
+							download.run();
+						} finally {
+							downloadPermits.release();
+							dispatchDownloads(executor);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					// executor has been shut down, discard remaining downloads
+					downloadPermits.release();
+					pendingDownloads.clear();
+					return;
+				}
+			}
+		}
+
 		private void setState(StateValue state) {
 			this.state = state;
 			firePropertyChange("state", null, this.state);
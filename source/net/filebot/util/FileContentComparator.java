@@ -0,0 +1,211 @@
+package net.filebot.util;
+
+import static net.filebot.Logging.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.sun.jna.Platform;
+
+/**
+ * Compare files byte by byte, but check file size, a few sample blocks (head, tail and evenly spaced blocks in between) and previously stored checksums first, so that most files that are not equal are rejected without reading the whole file.
+ */
+public class FileContentComparator {
+
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+	public static final int DEFAULT_SAMPLES = 16;
+
+	// map large regions at once, but not more than we can address with a single buffer
+	private static final long MAP_SIZE = 64 * 1024 * 1024;
+
+	// mapped files cannot be deleted on Windows until the mapping has been garbage collected
+	private static final boolean MEMORY_MAPPED = !Platform.isWindows();
+
+	private final int blockSize;
+	private final int samples;
+
+	private final Function<File, String> checksumReader;
+	private final BiConsumer<File, String> checksumWriter;
+
+	private final AtomicLong comparisons = new AtomicLong();
+	private final AtomicLong fullComparisons = new AtomicLong();
+
+	public FileContentComparator() {
+		this(DEFAULT_BLOCK_SIZE, DEFAULT_SAMPLES, null, null);
+	}
+
+	public FileContentComparator(Function<File, String> checksumReader, BiConsumer<File, String> checksumWriter) {
+		this(DEFAULT_BLOCK_SIZE, DEFAULT_SAMPLES, checksumReader, checksumWriter);
+	}
+
+	public FileContentComparator(int blockSize, int samples, Function<File, String> checksumReader, BiConsumer<File, String> checksumWriter) {
+		this.blockSize = blockSize;
+		this.samples = samples;
+		this.checksumReader = checksumReader;
+		this.checksumWriter = checksumWriter;
+	}
+
+	public boolean equals(File a, File b) throws IOException {
+		BasicFileAttributes attrA = Files.readAttributes(a.toPath(), BasicFileAttributes.class);
+		BasicFileAttributes attrB = Files.readAttributes(b.toPath(), BasicFileAttributes.class);
+
+		comparisons.incrementAndGet();
+
+		// must be files of the same size
+		if (!attrA.isRegularFile() || !attrB.isRegularFile() || attrA.size() != attrB.size()) {
+			return false;
+		}
+
+		// empty files, same file or hard link to the same file
+		if (attrA.size() == 0 || Files.isSameFile(a.toPath(), b.toPath())) {
+			return true;
+		}
+
+		// use previously computed checksums if files have not been modified since
+		String checksumA = getChecksum(a, attrA);
+		String checksumB = getChecksum(b, attrB);
+		if (checksumA != null && checksumB != null) {
+			return checksumA.equals(checksumB);
+		}
+
+		long size = attrA.size();
+
+		try (FileChannel channelA = FileChannel.open(a.toPath(), StandardOpenOption.READ); FileChannel channelB = FileChannel.open(b.toPath(), StandardOpenOption.READ)) {
+			// compare sample blocks first, unless we have to read everything anyway
+			if (size > (samples + 2L) * blockSize && !equalsSampleBlocks(channelA, channelB, size)) {
+				return false;
+			}
+
+			// compare everything and compute checksum on the way
+			fullComparisons.incrementAndGet();
+			MessageDigest digest = checksumWriter == null ? null : MessageDigest.getInstance("MD5");
+
+			if (!equalsContent(channelA, channelB, size, digest)) {
+				return false;
+			}
+
+			if (digest != null) {
+				String checksum = String.format("%032x", new BigInteger(1, digest.digest()));
+				setChecksum(a, attrA, checksum);
+				setChecksum(b, attrB, checksum);
+			}
+			return true;
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	private boolean equalsSampleBlocks(FileChannel a, FileChannel b, long size) throws IOException {
+		ByteBuffer bufferA = ByteBuffer.allocate(blockSize);
+		ByteBuffer bufferB = ByteBuffer.allocate(blockSize);
+
+		// head and tail first, since that is where headers, indices and truncated downloads differ
+		if (!equalsBlock(a, b, 0, bufferA, bufferB) || !equalsBlock(a, b, size - blockSize, bufferA, bufferB)) {
+			return false;
+		}
+
+		long stride = (size - blockSize) / (samples + 1);
+		for (int i = 1; i <= samples; i++) {
+			if (!equalsBlock(a, b, i * stride, bufferA, bufferB)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean equalsBlock(FileChannel a, FileChannel b, long position, ByteBuffer bufferA, ByteBuffer bufferB) throws IOException {
+		read(a, position, bufferA, blockSize);
+		read(b, position, bufferB, blockSize);
+		return bufferA.equals(bufferB);
+	}
+
+	private boolean equalsContent(FileChannel a, FileChannel b, long size, MessageDigest digest) throws IOException {
+		ByteBuffer bufferA = MEMORY_MAPPED ? null : ByteBuffer.allocateDirect(blockSize * 16);
+		ByteBuffer bufferB = MEMORY_MAPPED ? null : ByteBuffer.allocateDirect(blockSize * 16);
+
+		for (long position = 0; position < size;) {
+			ByteBuffer regionA, regionB;
+
+			if (MEMORY_MAPPED) {
+				long length = Math.min(MAP_SIZE, size - position);
+				regionA = a.map(MapMode.READ_ONLY, position, length);
+				regionB = b.map(MapMode.READ_ONLY, position, length);
+			} else {
+				int length = (int) Math.min(bufferA.capacity(), size - position);
+				regionA = read(a, position, bufferA, length);
+				regionB = read(b, position, bufferB, length);
+			}
+
+			if (!regionA.equals(regionB)) {
+				return false;
+			}
+
+			position += regionA.remaining();
+
+			if (digest != null) {
+				digest.update(regionA);
+			}
+		}
+		return true;
+	}
+
+	private ByteBuffer read(FileChannel channel, long position, ByteBuffer buffer, int length) throws IOException {
+		buffer.clear().limit(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file: " + channel.size());
+			}
+		}
+		return buffer.flip();
+	}
+
+	private String getChecksum(File file, BasicFileAttributes attr) {
+		if (checksumReader == null) {
+			return null;
+		}
+
+		try {
+			// checksum is only valid for the same file size and last-modified time
+			String value = checksumReader.apply(file);
+			if (value != null) {
+				String[] field = value.split("/", 3);
+				if (field.length == 3 && Long.parseLong(field[0]) == attr.size() && Long.parseLong(field[1]) == attr.lastModifiedTime().toMillis()) {
+					return field[2];
+				}
+			}
+		} catch (Exception e) {
+			debug.warning(cause("Failed to read checksum", e));
+		}
+		return null;
+	}
+
+	private void setChecksum(File file, BasicFileAttributes attr, String checksum) {
+		try {
+			checksumWriter.accept(file, attr.size() + "/" + attr.lastModifiedTime().toMillis() + "/" + checksum);
+		} catch (Exception e) {
+			debug.finest(cause("Failed to store checksum", e));
+		}
+	}
+
+	public long getComparisonCount() {
+		return comparisons.get();
+	}
+
+	public long getFullComparisonCount() {
+		return fullComparisons.get();
+	}
+
+}
@@ -0,0 +1,160 @@
+package net.filebot.util;
+
+import static net.filebot.Logging.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy files via {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} (i.e. sendfile or copy_file_range where supported) into a temporary file next to the destination and then atomically move the temporary file into place, so that the destination file is either complete or does not exist at all.
+ * <p>
+ * Copy tasks are executed in parallel, but tasks that read from and write to the same devices are executed one after another.
+ */
+public class FileCopier implements AutoCloseable {
+
+	public static final int DEFAULT_PARALLELISM = SystemProperty.of("net.filebot.util.FileCopier.parallelism", Integer::parseInt, 4).get();
+
+	public static final long DEFAULT_CHUNK_SIZE = SystemProperty.of("net.filebot.util.FileCopier.chunkSize", Long::parseLong, 16L * 1024 * 1024).get();
+
+	@FunctionalInterface
+	public interface Progress {
+
+		void update(File source, File destination, long bytes, long length);
+
+	}
+
+	// progress callback for copy operations on the current thread
+	private static final ThreadLocal<Progress> progress = new ThreadLocal<Progress>();
+
+	public static File copy(File source, File destination) throws IOException {
+		return copy(source, destination, progress.get(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public static File copy(File source, File destination, Progress progress, long chunkSize) throws IOException {
+		Path target = destination.toPath();
+		Path part = target.resolveSibling('.' + destination.getName() + ".part");
+
+		try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ); FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long length = in.size();
+			long position = 0;
+
+			if (progress != null) {
+				progress.update(source, destination, position, length);
+			}
+
+			while (position < length) {
+				if (Thread.interrupted()) {
+					throw new InterruptedIOException("Copy interrupted: " + source);
+				}
+
+				// transferTo may transfer fewer bytes than requested
+				long n = in.transferTo(position, Math.min(chunkSize, length - position), out);
+				if (n <= 0) {
+					// file has been truncated while copying
+					throw new IOException(String.format("Unexpected end of file at %d of %d bytes: %s", position, length, source));
+				}
+				position += n;
+
+				if (progress != null) {
+					progress.update(source, destination, position, length);
+				}
+			}
+		} catch (Throwable e) {
+			// never leave partial files behind
+			try {
+				Files.deleteIfExists(part);
+			} catch (Exception d) {
+				debug.warning(format("Failed to delete partial file [%s]: %s", part, d));
+			}
+			throw e;
+		}
+
+		copyPermissions(source.toPath(), part);
+
+		try {
+			return Files.move(part, target, StandardCopyOption.ATOMIC_MOVE).toFile();
+		} catch (AtomicMoveNotSupportedException e) {
+			debug.warning(e::toString);
+			return Files.move(part, target, StandardCopyOption.REPLACE_EXISTING).toFile();
+		}
+	}
+
+	private static void copyPermissions(Path source, Path target) {
+		// keep file permissions (same as Files.copy() would)
+		if (Files.getFileAttributeView(target, PosixFileAttributeView.class) != null) {
+			try {
+				Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+			} catch (Exception e) {
+				debug.finest(format("Failed to copy permissions: %s", e));
+			}
+		}
+	}
+
+	private final ExecutorService executor;
+	private final Progress listener;
+
+	// device pair => last task
+	private final Map<Object, CompletableFuture<?>> lanes = new HashMap<Object, CompletableFuture<?>>();
+
+	public FileCopier(int parallelism, Progress listener) {
+		this.executor = Executors.newFixedThreadPool(parallelism, new DefaultThreadFactory("FileCopier", Thread.NORM_PRIORITY, true));
+		this.listener = listener;
+	}
+
+	/**
+	 * Run the given copy task after all previously submitted tasks for the same source and destination devices have completed. Copy operations within the given task will report progress to the listener of this copier.
+	 */
+	public synchronized <T> CompletableFuture<T> submit(File source, File destination, Callable<T> task) {
+		Object lane = getDevicePair(source, destination);
+		CompletableFuture<?> previous = lanes.getOrDefault(lane, CompletableFuture.completedFuture(null));
+
+		CompletableFuture<T> next = previous.handle((r, e) -> null).thenApplyAsync(v -> {
+			progress.set(listener);
+			try {
+				return task.call();
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			} finally {
+				progress.remove();
+			}
+		}, executor);
+
+		lanes.put(lane, next);
+		return next;
+	}
+
+	private Object getDevicePair(File source, File destination) {
+		return FileUtilities.getFileStore(source) + " => " + FileUtilities.getFileStore(destination);
+	}
+
+	/**
+	 * Cancel all pending tasks, interrupt running tasks and wait for running tasks to terminate.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			// restore interrupt flag so that the caller can still handle the interrupt
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,430 @@
+package net.filebot.util;
+
+import static java.util.Collections.*;
+import static net.filebot.Logging.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import com.sun.jna.Platform;
+
+/**
+ * Recursively collect files the same way as {@link File#listFiles(FileFilter)} with {@link FileUtilities#NOT_HIDDEN} and {@link FileUtilities#FOLDERS} would, but read the attributes of each file only once and walk sub-folders in parallel. The filter and comparator are called concurrently from multiple threads and must be thread-safe.
+ */
+class FileTreeWalker {
+
+	public static final int DEFAULT_PARALLELISM = SystemProperty.of("net.filebot.util.FileTreeWalker.parallelism", Integer::parseInt, Math.max(4, Runtime.getRuntime().availableProcessors())).get();
+
+	// File.isHidden() checks the DOS hidden attribute on Windows and the leading dot on all other platforms
+	private static final boolean DOS_ATTRIBUTES = Platform.isWindows();
+
+	private static ExecutorService executor;
+	private static ThreadGroup threadGroup;
+
+	private static synchronized ExecutorService getExecutor() {
+		// can't use fork/join pool because fork/join worker threads don't inherit the permissions of the caller when running with the security manager
+		if (executor == null) {
+			DefaultThreadFactory threadFactory = new DefaultThreadFactory("FileTreeWalker", Thread.NORM_PRIORITY, true);
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(DEFAULT_PARALLELISM, DEFAULT_PARALLELISM, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+			pool.allowCoreThreadTimeOut(true);
+
+			executor = pool;
+			threadGroup = threadFactory.getThreadGroup();
+		}
+		return executor;
+	}
+
+	private static synchronized boolean isWorkerThread() {
+		return threadGroup != null && threadGroup == Thread.currentThread().getThreadGroup();
+	}
+
+	private final FileFilter filter;
+	private final Comparator<File> order;
+	private final int parallelism;
+
+	public FileTreeWalker(FileFilter filter, Comparator<File> order) {
+		this(filter, order, DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * @param parallelism
+	 *            maximum number of folders that a single walk lists concurrently on the shared pool of {@link #DEFAULT_PARALLELISM} threads, or 1 to walk on the calling thread
+	 */
+	public FileTreeWalker(FileFilter filter, Comparator<File> order, int parallelism) {
+		this.filter = filter;
+		this.order = order;
+		this.parallelism = parallelism;
+	}
+
+	public List<File> walk(File folder, int depth) {
+		Walk root = new Walk(folder.toPath(), depth);
+		traverse(root);
+
+		List<File> sink = new ArrayList<File>();
+		root.collect(sink);
+		return sink;
+	}
+
+	/**
+	 * Collect the top-most folders that contain at least one (possibly hidden) file accepted by the filter, without following symbolic links. Each folder is listed only once.
+	 */
+	public List<File> walkFolders(File folder) {
+		Entry entry = new Entry(folder.toPath(), LinkOption.NOFOLLOW_LINKS);
+		if (!entry.isDirectory() || entry.isHidden()) {
+			return emptyList();
+		}
+
+		WalkFolders root = new WalkFolders(entry.toPath());
+		traverse(root);
+
+		List<File> folders = new ArrayList<File>();
+		root.collect(folders);
+
+		if (order != null) {
+			folders.sort(order);
+		}
+
+		return folders;
+	}
+
+	private interface Node {
+
+		/**
+		 * List a single folder and pass on the nodes for its sub-folders
+		 */
+		void visit(Consumer<Node> children);
+
+		void collect(List<File> sink);
+	}
+
+	private void traverse(Node root) {
+		// walk nested file trees on the current thread so that worker threads never wait for each other
+		if (parallelism <= 1 || isWorkerThread()) {
+			visit(root);
+			return;
+		}
+
+		Traversal traversal = new Traversal(getExecutor(), parallelism);
+		traversal.submit(root);
+		traversal.await();
+	}
+
+	private void visit(Node node) {
+		node.visit(this::visit);
+	}
+
+	/**
+	 * Visit nodes on the given executor with at most the given number of concurrent tasks, without blocking worker threads, and let only the calling thread wait until all nodes have been visited.
+	 */
+	private static class Traversal {
+
+		private final ExecutorService executor;
+		private final int parallelism;
+
+		private final Queue<Node> queue = new ConcurrentLinkedQueue<Node>();
+		private final AtomicInteger active = new AtomicInteger(0);
+
+		private final AtomicInteger pending = new AtomicInteger(0);
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		public Traversal(ExecutorService executor, int parallelism) {
+			this.executor = executor;
+			this.parallelism = parallelism;
+		}
+
+		public void submit(Node node) {
+			pending.incrementAndGet();
+			queue.add(node);
+			schedule();
+		}
+
+		private void schedule() {
+			while (!queue.isEmpty()) {
+				int n = active.get();
+				if (n >= parallelism) {
+					// a running task will schedule the remaining nodes when it is done
+					return;
+				}
+
+				if (active.compareAndSet(n, n + 1)) {
+					Node node = queue.poll();
+					if (node == null) {
+						active.decrementAndGet();
+					} else {
+						executor.execute(() -> run(node));
+					}
+				}
+			}
+		}
+
+		private void run(Node node) {
+			try {
+				if (failure.get() == null) {
+					node.visit(this::submit);
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				active.decrementAndGet();
+				if (pending.decrementAndGet() == 0) {
+					done.countDown();
+				} else {
+					schedule();
+				}
+			}
+		}
+
+		public void await() {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				// skip remaining folders
+				failure.compareAndSet(null, new CancellationException());
+				Thread.currentThread().interrupt();
+				throw new CancellationException();
+			}
+
+			Throwable e = failure.get();
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			if (e instanceof IOException) {
+				throw new UncheckedIOException((IOException) e);
+			}
+			if (e != null) {
+				// checked exceptions thrown sneakily by filters or comparators
+				throw new CompletionException(e);
+			}
+		}
+	}
+
+	private class Walk implements Node {
+
+		private final Path folder;
+		private final int depth;
+
+		private List<Walk> subfolders = emptyList();
+		private List<Entry> selection = emptyList();
+
+		public Walk(Path folder, int depth) {
+			this.folder = folder;
+			this.depth = depth;
+		}
+
+		@Override
+		public void visit(Consumer<Node> children) {
+			if (depth < 0) {
+				return;
+			}
+
+			List<Entry> entries = list(folder);
+
+			subfolders = new ArrayList<Walk>();
+			for (Entry it : folders(entries)) {
+				subfolders.add(new Walk(it.toPath(), depth - 1));
+			}
+			selection = files(entries);
+
+			// traverse file tree recursively
+			subfolders.forEach(children);
+		}
+
+		@Override
+		public void collect(List<File> sink) {
+			for (Walk it : subfolders) {
+				it.collect(sink);
+			}
+
+			// add selected files in preferred order
+			for (Entry it : selection) {
+				sink.add(it.getFile());
+			}
+		}
+	}
+
+	private class WalkFolders implements Node {
+
+		private final Path folder;
+
+		private boolean accept = false;
+		private List<WalkFolders> subfolders = emptyList();
+
+		public WalkFolders(Path folder) {
+			this.folder = folder;
+		}
+
+		@Override
+		public void visit(Consumer<Node> children) {
+			List<Entry> entries = list(folder, true, LinkOption.NOFOLLOW_LINKS);
+			if (entries.stream().anyMatch(filter::accept)) {
+				accept = true;
+				return;
+			}
+
+			subfolders = new ArrayList<WalkFolders>();
+			for (Entry it : entries) {
+				if (it.isDirectory() && !it.isHidden()) {
+					subfolders.add(new WalkFolders(it.toPath()));
+				}
+			}
+
+			subfolders.forEach(children);
+		}
+
+		@Override
+		public void collect(List<File> sink) {
+			if (accept) {
+				sink.add(folder.toFile());
+				return;
+			}
+
+			for (WalkFolders it : subfolders) {
+				it.collect(sink);
+			}
+		}
+	}
+
+	private List<Entry> list(Path folder) {
+		return list(folder, false);
+	}
+
+	private List<Entry> list(Path folder, boolean hidden, LinkOption... options) {
+		List<Entry> entries = new ArrayList<Entry>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+			for (Path path : stream) {
+				Entry entry = new Entry(path, options);
+				if (hidden || !entry.isHidden()) {
+					entries.add(entry);
+				}
+			}
+		} catch (IOException e) {
+			// folder permissions may not allow listing of files
+			debug.finest(format("Failed to list files: %s", e));
+		} catch (SecurityException e) {
+			// security manager does not allow listing of files
+			debug.warning(format("Failed to list files: %s", e));
+		}
+
+		return entries;
+	}
+
+	private List<Entry> folders(List<Entry> entries) {
+		return select(entries, FileUtilities.FOLDERS);
+	}
+
+	private List<Entry> files(List<Entry> entries) {
+		return select(entries, filter);
+	}
+
+	private List<Entry> select(List<Entry> entries, FileFilter filter) {
+		List<Entry> selection = new ArrayList<Entry>();
+		for (Entry it : entries) {
+			if (filter.accept(it)) {
+				selection.add(it);
+			}
+		}
+
+		if (order != null) {
+			selection.sort(order);
+		}
+
+		return selection;
+	}
+
+	/**
+	 * File with attributes read once while listing the parent folder, so that filters and comparators do not need to query the file system again.
+	 */
+	private static class Entry extends File {
+
+		private final BasicFileAttributes attributes;
+		private final boolean hidden;
+
+		public Entry(Path path, LinkOption... options) {
+			super(path.toString());
+
+			BasicFileAttributes attributes = null;
+			boolean hidden = false;
+
+			try {
+				if (DOS_ATTRIBUTES) {
+					DosFileAttributes dos = Files.readAttributes(path, DosFileAttributes.class, options);
+					attributes = dos;
+					hidden = dos.isHidden();
+				} else {
+					attributes = Files.readAttributes(path, BasicFileAttributes.class, options);
+					hidden = getName().startsWith(".");
+				}
+			} catch (IOException | SecurityException e) {
+				// broken symlinks and files that cannot be accessed (same as File.isFile() and File.isDirectory())
+				hidden = !DOS_ATTRIBUTES && getName().startsWith(".");
+			}
+
+			this.attributes = attributes;
+			this.hidden = hidden;
+		}
+
+		public File getFile() {
+			// do not leak cached attributes
+			return new File(getPath());
+		}
+
+		@Override
+		public boolean exists() {
+			return attributes != null;
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return attributes != null && attributes.isDirectory();
+		}
+
+		@Override
+		public boolean isFile() {
+			return attributes != null && attributes.isRegularFile();
+		}
+
+		@Override
+		public boolean isHidden() {
+			return hidden;
+		}
+
+		@Override
+		public long length() {
+			return attributes != null ? attributes.size() : 0L;
+		}
+
+		@Override
+		public long lastModified() {
+			return attributes != null ? attributes.lastModifiedTime().toMillis() : 0L;
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileStore;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -96,8 +97,8 @@ public final class FileUtilities {
 			return destination;
 		}
 
-		// copy file
-		return Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING).toFile();
+		// copy file via temporary file and atomic move
+		return FileCopier.copy(source, destination);
 	}
 
 	public static File resolve(File source, File destination) {
@@ -280,6 +281,10 @@ public final class FileUtilities {
 	}
 
 	public static boolean equalsFileContent(File a, File b) {
+		return equalsFileContent(a, b, new FileContentComparator());
+	}
+
+	public static boolean equalsFileContent(File a, File b, FileContentComparator comparator) {
 		// must have the same file size
 		if (a.length() != b.length()) {
 			return false;
@@ -292,7 +297,7 @@ public final class FileUtilities {
 
 		// must be equal byte by byte
 		try {
-			return FileUtils.contentEquals(a, b);
+			return comparator.equals(a, b);
 		} catch (Exception e) {
 			log.warning(cause(e));
 		}
@@ -494,6 +499,20 @@ public final class FileUtilities {
 		return asList(roots);
 	}
 
+	public static FileStore getFileStore(File file) {
+		// file or folder may not exist yet
+		for (Path it = file.toPath().toAbsolutePath(); it != null; it = it.getParent()) {
+			try {
+				if (Files.exists(it)) {
+					return Files.getFileStore(it);
+				}
+			} catch (Exception e) {
+				debug.finest(format("Failed to get file store [%s]: %s", it, e));
+			}
+		}
+		return null;
+	}
+
 	public static List<File> getChildren(File folder) {
 		return getChildren(folder, null, null);
 	}
@@ -531,11 +550,15 @@ public final class FileUtilities {
 		return listFiles(folders.toArray(new File[0]), FILE_WALK_MAX_DEPTH, filter, order);
 	}
 
+	/**
+	 * Collect all files accepted by the given filter. Sub-folders are walked in parallel, so the filter and comparator must be thread-safe.
+	 */
 	public static List<File> listFiles(File[] files, int depth, FileFilter filter, Comparator<File> order) {
 		List<File> sink = new ArrayList<File>();
+		FileTreeWalker walker = new FileTreeWalker(filter, order);
 
 		// traverse file tree recursively
-		streamFiles(files, FOLDERS, order).forEach(f -> listFiles(f, sink, depth, filter, order));
+		streamFiles(files, FOLDERS, order).forEach(f -> sink.addAll(walker.walk(f, depth)));
 
 		// add selected files in preferred order
 		streamFiles(files, filter, order).forEach(sink::add);
@@ -543,19 +566,11 @@ public final class FileUtilities {
 		return sink;
 	}
 
-	private static void listFiles(File folder, List<File> sink, int depth, FileFilter filter, Comparator<File> order) {
-		if (depth < 0) {
-			return;
-		}
-
-		// children array may be null if folder permissions do not allow listing of files
-		File[] files = folder.listFiles(NOT_HIDDEN);
-
-		// traverse file tree recursively
-		streamFiles(files, FOLDERS, order).forEach(f -> listFiles(f, sink, depth - 1, filter, order));
-
-		// add selected files in preferred order
-		streamFiles(files, filter, order).forEach(sink::add);
+	/**
+	 * Find the top-most folders that contain at least one file accepted by the given filter. Sub-folders are walked in parallel, so the filter and comparator must be thread-safe.
+	 */
+	public static List<File> listFolders(File folder, FileFilter filter, Comparator<File> order) {
+		return new FileTreeWalker(filter, order).walkFolders(folder);
 	}
 
 	private static Stream<File> streamFiles(File[] files, FileFilter filter, Comparator<File> order) {
@@ -96,7 +96,7 @@ public class AcoustIDClient implements MusicIdentificationService {
 			requestParam.put("Content-Encoding", "gzip");
 			requestParam.put("Accept-Encoding", "gzip");
 
-			return UTF_8.decode(post(url, postParam, requestParam)).toString();
+			return UTF_8.decode(observeResponseHeaders(REQUEST_LIMIT::update, () -> post(url, postParam, requestParam))).toString();
 		});
 	}
 
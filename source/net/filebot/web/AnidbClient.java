@@ -1,33 +1,24 @@
 package net.filebot.web;
 
-import static java.nio.charset.StandardCharsets.*;
 import static java.util.Collections.*;
-import static java.util.stream.Collectors.*;
 import static net.filebot.CachedResource.*;
 import static net.filebot.Logging.*;
 import static net.filebot.util.StringUtilities.*;
 import static net.filebot.util.XPathUtilities.*;
 import static net.filebot.web.EpisodeUtilities.*;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.swing.Icon;
 
-import org.jsoup.Jsoup;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
@@ -175,7 +166,7 @@ public class AnidbClient extends AbstractEpisodeListProvider {
 
 	private Document getXmlResource(int aid) throws Exception {
 		Cache cache = Cache.getCache(getName(), CacheType.Monthly);
-		return cache.xml(aid, this::getResource).fetch(withPermit(fetchIfModified(), r -> REQUEST_LIMIT.acquirePermit())).expire(Cache.ONE_WEEK).get();
+		return cache.xml(aid, this::getResource).fetch(withPermit(fetchIfModified(), REQUEST_LIMIT)).expire(Cache.ONE_WEEK).get();
 	}
 
 	private URL getResource(int aid) throws Exception {
@@ -213,65 +204,27 @@ public class AnidbClient extends AbstractEpisodeListProvider {
 	 */
 	public SearchResult[] getAnimeTitles() throws Exception {
 		// get data file (unzip and cache)
-		byte[] bytes = getCache("root").bytes("anime-titles.dat.gz", n -> new URL("http://anidb.net/api/" + n)).get();
-
-		// <aid>|<type>|<language>|<title>
-		// type: 1=primary title (one per anime), 2=synonyms (multiple per anime), 3=shorttitles (multiple per anime), 4=official title (one per language)
-		Pattern pattern = Pattern.compile("^(?!#)(\\d+)[|](\\d)[|]([\\w-]+)[|](.+)$");
-
-		List<String> languageOrder = new ArrayList<String>();
-		languageOrder.add("x-jat");
-		languageOrder.add("en");
-		languageOrder.add("ja");
-
-		List<String> typeOrder = new ArrayList<String>();
-		typeOrder.add("1");
-		typeOrder.add("4");
-		typeOrder.add("2");
-		typeOrder.add("3");
-
-		// fetch data
-		Map<Integer, List<Object[]>> entriesByAnime = new HashMap<Integer, List<Object[]>>(65536);
-
-		try (BufferedReader text = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), UTF_8))) {
-			text.lines().forEach(line -> {
-				Matcher matcher = pattern.matcher(line);
-
-				if (matcher.matches()) {
-					int aid = Integer.parseInt(matcher.group(1));
-					String type = matcher.group(2);
-					String language = matcher.group(3);
-					String title = matcher.group(4);
-
-					if (aid > 0 && title.length() > 0 && typeOrder.contains(type) && languageOrder.contains(language)) {
-						// resolve HTML entities
-						title = Jsoup.parse(title).text();
-
-						if (type.equals("3") && (title.length() < 5 || !Character.isUpperCase(title.charAt(0)) || Character.isUpperCase(title.charAt(title.length() - 1)))) {
-							return;
-						}
-
-						entriesByAnime.computeIfAbsent(aid, k -> new ArrayList<Object[]>()).add(new Object[] { typeOrder.indexOf(type), languageOrder.indexOf(language), title });
-					}
+		Cache cache = getCache("root");
+		byte[] bytes = cache.bytes("anime-titles.dat.gz", n -> new URL("http://anidb.net/api/" + n)).get();
+
+		// reuse previously built index if the data file has not changed
+		String checksum = AnidbTitles.getChecksum(bytes);
+		Object snapshot = cache.get("anime-titles.idx");
+
+		if (snapshot instanceof byte[]) {
+			try {
+				SearchResult[] index = AnidbTitles.readSnapshot((byte[]) snapshot, checksum);
+				if (index != null) {
+					return index;
 				}
-			});
+			} catch (Exception e) {
+				debug.warning(cause("Failed to read AniDB index", e));
+			}
 		}
 
-		// build up a list of all possible AniDB search results
-		return entriesByAnime.entrySet().stream().map(it -> {
-			List<String> names = it.getValue().stream().sorted((a, b) -> {
-				for (int i = 0; i < a.length; i++) {
-					if (!a[i].equals(b[i])) {
-						return ((Comparable) a[i]).compareTo(b[i]);
-					}
-				}
-				return 0;
-			}).map(n -> n[2].toString()).collect(toList());
-
-			String primaryTitle = names.get(0);
-			List<String> aliasNames = names.subList(1, names.size());
-			return new SearchResult(it.getKey(), primaryTitle, aliasNames);
-		}).toArray(SearchResult[]::new);
+		SearchResult[] index = AnidbTitles.parse(bytes);
+		cache.put("anime-titles.idx", AnidbTitles.writeSnapshot(index, checksum));
+		return index;
 	}
 
 }
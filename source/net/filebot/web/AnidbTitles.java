@@ -0,0 +1,325 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.jsoup.Jsoup;
+
+/**
+ * Parse the AniDB anime-titles.dat dump in a single pass over the raw bytes, and read / write the resulting search index as a compact binary snapshot.
+ */
+public final class AnidbTitles {
+
+	// increment whenever the parsing rules or the binary format change, so that existing snapshots are rebuilt
+	public static final int SNAPSHOT_VERSION = 1;
+
+	private static final int SNAPSHOT_MAGIC = 0x41494458; // AIDX
+
+	// type: 1=primary title (one per anime), 2=synonyms (multiple per anime), 3=shorttitles (multiple per anime), 4=official title (one per language)
+	private static final int[] TYPE_ORDER = { -1, 0, 2, 3, 1, -1, -1, -1, -1, -1 };
+	private static final byte[][] LANGUAGE_ORDER = { "x-jat".getBytes(US_ASCII), "en".getBytes(US_ASCII), "ja".getBytes(US_ASCII) };
+
+	/**
+	 * Parse {@code <aid>|<type>|<language>|<title>} lines and group titles by anime, ordered by type, language and title.
+	 */
+	public static SearchResult[] parse(byte[] data) {
+		// sort key: aid << 32 | rank << 28 | entry index
+		long[] keys = new long[4096];
+		String[] titles = new String[4096];
+		int size = 0;
+
+		for (int start = 0, end = 0; start < data.length; start = end + 1) {
+			end = start;
+			while (end < data.length && data[end] != '\n' && data[end] != '\r') {
+				end++;
+			}
+
+			// aid
+			int p = start;
+			long aid = 0;
+			while (p < end && isDigit(data[p]) && aid <= Integer.MAX_VALUE) {
+				aid = aid * 10 + (data[p++] - '0');
+			}
+			if (p == start || aid <= 0 || aid > Integer.MAX_VALUE || p + 2 >= end || data[p] != '|') {
+				continue;
+			}
+
+			// type
+			if (!isDigit(data[p + 1]) || data[p + 2] != '|' || TYPE_ORDER[data[p + 1] - '0'] < 0) {
+				continue;
+			}
+			int type = TYPE_ORDER[data[p + 1] - '0'];
+			p += 3;
+
+			// language
+			int languageStart = p;
+			while (p < end && data[p] != '|' && isWordChar(data[p])) {
+				p++;
+			}
+			if (p == languageStart || p + 1 >= end || data[p] != '|') {
+				continue;
+			}
+			int language = getLanguage(data, languageStart, p);
+			if (language < 0) {
+				continue;
+			}
+
+			// title
+			String title = new String(data, p + 1, end - p - 1, UTF_8);
+			if (containsLineSeparator(title)) {
+				continue;
+			}
+			title = unescapeHtml(title);
+
+			if (type == 3 && (title.length() < 5 || !Character.isUpperCase(title.charAt(0)) || Character.isUpperCase(title.charAt(title.length() - 1)))) {
+				continue;
+			}
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				titles = Arrays.copyOf(titles, size * 2);
+			}
+
+			keys[size] = aid << 32 | (long) (type * LANGUAGE_ORDER.length + language) << 28 | size;
+			titles[size] = title;
+			size++;
+		}
+
+		Arrays.sort(keys, 0, size);
+
+		// build up a list of all possible AniDB search results
+		List<SearchResult> index = new ArrayList<SearchResult>();
+
+		for (int i = 0, j = 0; i < size; i = j) {
+			int aid = (int) (keys[i] >>> 32);
+			while (j < size && (int) (keys[j] >>> 32) == aid) {
+				j++;
+			}
+
+			String[] names = new String[j - i];
+			for (int k = i, m = i; k < j; k = m) {
+				while (m < j && keys[m] >>> 28 == keys[k] >>> 28) {
+					names[m - i] = titles[(int) (keys[m] & 0xFFFFFFF)];
+					m++;
+				}
+
+				// titles of the same type and language are ordered alphabetically
+				if (m - k > 1) {
+					Arrays.sort(names, k - i, m - i);
+				}
+			}
+
+			index.add(new SearchResult(aid, names[0], Arrays.copyOfRange(names, 1, names.length)));
+		}
+
+		return index.toArray(new SearchResult[0]);
+	}
+
+	/**
+	 * Resolve HTML entities and normalize whitespace the same way {@code Jsoup.parse(html).text()} does, but without building a DOM for the common case of plain titles and simple entities.
+	 */
+	public static String unescapeHtml(String html) {
+		if (!hasMarkup(html) && isNormalizedWhitespace(html)) {
+			return html;
+		}
+
+		StringBuilder text = new StringBuilder(html.length());
+
+		for (int i = 0; i < html.length(); i++) {
+			char c = html.charAt(i);
+
+			if (c == '<' || c == 0) {
+				return Jsoup.parse(html).text();
+			}
+
+			if (c == '&') {
+				// ampersand followed by space or end of text is not a character reference
+				if (i + 1 == html.length() || html.charAt(i + 1) == ' ') {
+					text.append(c);
+					continue;
+				}
+
+				int end = html.indexOf(';', i);
+				int codePoint = end < 0 ? -1 : getCharacterReference(html, i + 1, end);
+				if (codePoint < 0) {
+					return Jsoup.parse(html).text();
+				}
+
+				text.appendCodePoint(codePoint);
+				i = end;
+				continue;
+			}
+
+			text.append(c);
+		}
+
+		String value = text.toString();
+		return isNormalizedWhitespace(value) ? value : Jsoup.parse(html).text();
+	}
+
+	private static int getCharacterReference(String s, int from, int to) {
+		if (to - from < 2 || to - from > 8) {
+			return -1;
+		}
+
+		if (s.charAt(from) == '#') {
+			boolean hex = s.charAt(from + 1) == 'x' || s.charAt(from + 1) == 'X';
+			try {
+				int codePoint = Integer.parseInt(s.substring(hex ? from + 2 : from + 1, to), hex ? 16 : 10);
+
+				// control characters are remapped or replaced by the HTML parser
+				if ((codePoint >= 0x20 && codePoint < 0x7F) || (codePoint >= 0xA0 && codePoint <= Character.MAX_CODE_POINT && !(codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE))) {
+					return codePoint;
+				}
+			} catch (NumberFormatException e) {
+				// fall back to HTML parser
+			}
+			return -1;
+		}
+
+		switch (s.substring(from, to)) {
+		case "amp":
+			return '&';
+		case "lt":
+			return '<';
+		case "gt":
+			return '>';
+		case "quot":
+			return '"';
+		case "apos":
+			return '\'';
+		default:
+			return -1;
+		}
+	}
+
+	private static boolean hasMarkup(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '&' || c == '<' || c == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isNormalizedWhitespace(String s) {
+		char last = ' ';
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == ' ' ? last == ' ' : Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+				return false;
+			}
+			last = c;
+		}
+		return last != ' ';
+	}
+
+	private static boolean containsLineSeparator(String s) {
+		// titles must not contain unicode line separators
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int getLanguage(byte[] data, int from, int to) {
+		for (int i = 0; i < LANGUAGE_ORDER.length; i++) {
+			if (Arrays.equals(data, from, to, LANGUAGE_ORDER[i], 0, LANGUAGE_ORDER[i].length)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private static boolean isWordChar(byte b) {
+		return isDigit(b) || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' || b == '-';
+	}
+
+	public static String getChecksum(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		return String.format("%d/%08X", data.length, crc.getValue());
+	}
+
+	public static byte[] writeSnapshot(SearchResult[] index, String checksum) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(index.length * 64);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeUTF(checksum);
+			out.writeInt(index.length);
+
+			for (SearchResult it : index) {
+				String[] aliasNames = it.getAliasNames();
+				out.writeInt(it.getId());
+				writeString(out, it.getName());
+				out.writeInt(aliasNames.length);
+				for (String name : aliasNames) {
+					writeString(out, name);
+				}
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @return index or {@code null} if the snapshot has been created by a different version or for a different data file
+	 */
+	public static SearchResult[] readSnapshot(byte[] snapshot, String checksum) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION || !in.readUTF().equals(checksum)) {
+				return null;
+			}
+
+			SearchResult[] index = new SearchResult[in.readInt()];
+
+			for (int i = 0; i < index.length; i++) {
+				int id = in.readInt();
+				String name = readString(in);
+				String[] aliasNames = new String[in.readInt()];
+				for (int j = 0; j < aliasNames.length; j++) {
+					aliasNames[j] = readString(in);
+				}
+				index[i] = new SearchResult(id, name, aliasNames);
+			}
+
+			return index;
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private AnidbTitles() {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -1,35 +1,218 @@
-
 package net.filebot.web;
 
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import static net.filebot.Logging.*;
 
-import net.filebot.util.DefaultThreadFactory;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Token bucket request limiter. Requests may burst up to the given permit limit, and permits are refilled continuously at a rate of permit limit per time window. The refill rate adapts to rate limit response headers (Retry-After, X-RateLimit-Remaining, X-RateLimit-Reset). No more than permit limit requests are granted within any time window, including the first one.
+ */
 public class FloodLimit {
 
-	private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new DefaultThreadFactory("FloodLimitTimer", Thread.NORM_PRIORITY, true));
+	public interface Clock {
+
+		long nanoTime();
+
+		long currentTimeMillis();
+
+		void sleep(long nanos) throws InterruptedException;
+
+		Clock SYSTEM = new Clock() {
+
+			@Override
+			public long nanoTime() {
+				return System.nanoTime();
+			}
+
+			@Override
+			public long currentTimeMillis() {
+				return System.currentTimeMillis();
+			}
+
+			@Override
+			public void sleep(long nanos) throws InterruptedException {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			}
+		};
+	}
+
+	private final Clock clock;
+
+	private final int capacity;
+	private final long window;
+	private final double defaultRate; // permits per nanosecond
+
+	private double rate;
+	private long rateExpiration;
 
-	private final Semaphore permits;
+	private double permits;
+	private long lastRefill;
+	private long notBefore;
 
-	private final long releaseDelay;
-	private final TimeUnit timeUnit;
+	// time of the last permit limit grants (ring buffer)
+	private final long[] grants;
+	private int oldestGrant;
+
+	private long permitsGranted;
+	private long waits;
+	private long throttles;
 
 	public FloodLimit(int permitLimit, long releaseDelay, TimeUnit timeUnit) {
-		this.permits = new Semaphore(permitLimit, true);
-		this.releaseDelay = releaseDelay;
-		this.timeUnit = timeUnit;
+		this(permitLimit, releaseDelay, timeUnit, Clock.SYSTEM);
+	}
+
+	public FloodLimit(int permitLimit, long releaseDelay, TimeUnit timeUnit, Clock clock) {
+		this.clock = clock;
+		this.capacity = permitLimit;
+		this.window = timeUnit.toNanos(releaseDelay);
+		this.defaultRate = (double) permitLimit / window;
+		this.rate = defaultRate;
+		this.permits = permitLimit;
+		this.lastRefill = clock.nanoTime();
+		this.notBefore = lastRefill;
+		this.grants = new long[permitLimit];
+		Arrays.fill(grants, lastRefill - window);
+	}
+
+	public void acquirePermit() throws InterruptedException {
+		long wait = reservePermit();
+
+		if (wait > 0) {
+			clock.sleep(wait);
+		}
+	}
+
+	protected synchronized long reservePermit() {
+		long now = refill();
+
+		// reserve permit right away and wait for the bucket to refill if necessary, so that waiting threads are served in order
+		permits -= 1;
+		permitsGranted++;
+
+		long start = Math.max(now + (permits < 0 ? (long) Math.ceil(-permits / rate) : 0), notBefore);
+
+		// a full bucket must not allow another burst within the same time window (e.g. right after the first burst)
+		start = Math.max(start, grants[oldestGrant] + window);
+		grants[oldestGrant] = start;
+		oldestGrant = (oldestGrant + 1) % grants.length;
+
+		long wait = start - now;
+		if (wait > 0) {
+			waits++;
+		}
+		return wait;
+	}
+
+	private long refill() {
+		long now = clock.nanoTime();
+
+		// return to the default rate once the server-defined rate limit window has passed
+		if (rate != defaultRate && now - rateExpiration >= 0) {
+			rate = defaultRate;
+		}
+
+		permits = Math.min(capacity, permits + (now - lastRefill) * rate);
+		lastRefill = now;
+		return now;
+	}
+
+	/**
+	 * Adapt to rate limit response headers (e.g. as reported via {@link WebRequest#observeResponseHeaders})
+	 */
+	public synchronized void update(Map<String, List<String>> responseHeaders) {
+		long now = refill();
+
+		// Retry-After: 120 or Retry-After: Fri, 31 Dec 1999 23:59:59 GMT
+		Long retryAfter = getHeader(responseHeaders, "Retry-After", this::parseRetryAfter);
+		if (retryAfter != null) {
+			throttle(now, retryAfter);
+			return;
+		}
+
+		// X-RateLimit-Remaining: 39 and X-RateLimit-Reset: 1483395313 (epoch seconds) or X-RateLimit-Reset: 10 (seconds)
+		Long remaining = getHeader(responseHeaders, "X-RateLimit-Remaining", Long::parseLong);
+		Long reset = getHeader(responseHeaders, "X-RateLimit-Reset", this::parseRateLimitReset);
+
+		if (remaining != null && reset != null && reset > 0) {
+			if (remaining <= 0) {
+				throttle(now, reset);
+			} else {
+				// spread the remaining requests evenly over the remaining time window
+				permits = Math.min(permits, remaining);
+				rate = remaining / (double) reset;
+				rateExpiration = now + reset;
+			}
+		}
+	}
+
+	private void throttle(long now, long nanos) {
+		debug.finest(format("Throttle requests for %d ms", TimeUnit.NANOSECONDS.toMillis(nanos)));
+
+		throttles++;
+		permits = Math.min(permits, 0);
+		notBefore = Math.max(notBefore, now + nanos);
+	}
+
+	private long parseRetryAfter(String value) {
+		if (value.chars().allMatch(Character::isDigit)) {
+			return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+		}
+		return untilEpochMillis(ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli());
+	}
+
+	private long parseRateLimitReset(String value) {
+		long seconds = Long.parseLong(value);
+
+		// epoch seconds or seconds until reset
+		if (seconds > 1000000000L) {
+			return untilEpochMillis(Instant.ofEpochSecond(seconds).toEpochMilli());
+		}
+		return TimeUnit.SECONDS.toNanos(seconds);
+	}
+
+	private long untilEpochMillis(long epochMillis) {
+		return TimeUnit.MILLISECONDS.toNanos(Math.max(0, epochMillis - clock.currentTimeMillis()));
+	}
+
+	private <T> T getHeader(Map<String, List<String>> responseHeaders, String name, HeaderParser<T> parser) {
+		for (Map.Entry<String, List<String>> it : responseHeaders.entrySet()) {
+			if (name.equalsIgnoreCase(it.getKey()) && it.getValue() != null && it.getValue().size() > 0) {
+				try {
+					return parser.parse(it.getValue().get(0).trim());
+				} catch (Exception e) {
+					debug.warning(format("Bad %s header: %s", name, e));
+				}
+			}
+		}
+		return null;
+	}
+
+	@FunctionalInterface
+	private interface HeaderParser<T> {
+		T parse(String value) throws Exception;
+	}
+
+	public synchronized long getPermitsGranted() {
+		return permitsGranted;
+	}
+
+	public synchronized long getWaits() {
+		return waits;
 	}
 
-	public ScheduledFuture<?> acquirePermit() throws InterruptedException {
-		permits.acquire();
-		return TIMER.schedule(this::releasePermit, releaseDelay, timeUnit);
+	public synchronized long getThrottles() {
+		return throttles;
 	}
 
-	protected void releasePermit() {
-		permits.release();
+	@Override
+	public synchronized String toString() {
+		return String.format("%s [permits: %d, waits: %d, throttles: %d]", getClass().getSimpleName(), permitsGranted, waits, throttles);
 	}
 
 }
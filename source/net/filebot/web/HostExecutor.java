@@ -0,0 +1,90 @@
+package net.filebot.web;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.filebot.util.DefaultThreadFactory;
+import net.filebot.util.SystemProperty;
+
+/**
+ * Bounded worker pool for blocking requests to the same host. Requests made on worker threads and requests made on the calling thread via {@link #call(Callable)} share the same limit of concurrent requests.
+ */
+public class HostExecutor {
+
+	// HttpURLConnection will keep at most 5 idle connections per host by default (see http.maxConnections)
+	public static final int DEFAULT_THREAD_POOL_SIZE = SystemProperty.of("net.filebot.web.HostExecutor.threadPool", Integer::parseInt, 4).get();
+	public static final int DEFAULT_QUEUE_LIMIT = SystemProperty.of("net.filebot.web.HostExecutor.queueLimit", Integer::parseInt, 64).get();
+
+	private static final Map<String, HostExecutor> executors = new ConcurrentHashMap<String, HostExecutor>();
+
+	public static HostExecutor of(URL url) {
+		String host = url.getProtocol() + "://" + url.getHost() + ":" + (url.getPort() < 0 ? url.getDefaultPort() : url.getPort());
+		return executors.computeIfAbsent(host, k -> new HostExecutor(k, DEFAULT_THREAD_POOL_SIZE, DEFAULT_QUEUE_LIMIT));
+	}
+
+	private final ThreadPoolExecutor executor;
+	private final Semaphore queue;
+	private final Semaphore running;
+
+	public HostExecutor(String host, int threadPoolSize, int queueLimit) {
+		this.executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DefaultThreadFactory(host, Thread.NORM_PRIORITY, true));
+		this.executor.allowCoreThreadTimeOut(true);
+		this.queue = new Semaphore(threadPoolSize + queueLimit, true);
+		this.running = new Semaphore(threadPoolSize, true);
+	}
+
+	/**
+	 * Enqueue the given task, but block the calling thread while too many tasks are already pending for this host. If the calling thread is interrupted while waiting, the returned future fails with an {@link InterruptedException}.
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+		try {
+			return submitWithBackPressure(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Enqueue the given task, but block the calling thread while too many tasks are already pending for this host. Must not be called from tasks of the same host executor.
+	 */
+	public <T> CompletableFuture<T> submitWithBackPressure(Callable<T> task) throws InterruptedException {
+		// response headers of requests made on worker threads are passed to the observer of the calling thread
+		Callable<T> observed = WebRequest.inheritResponseHeaderObserver(task);
+
+		queue.acquire();
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return call(observed);
+				} catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			}, executor).whenComplete((value, error) -> queue.release());
+		} catch (RuntimeException e) {
+			queue.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Run the given task on the calling thread, but wait while too many requests are already running for this host.
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		running.acquire();
+		try {
+			return task.call();
+		} finally {
+			running.release();
+		}
+	}
+
+}
@@ -7,23 +7,28 @@ import static java.util.stream.Collectors.*;
 import static net.filebot.similarity.Normalization.*;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 
 import com.ibm.icu.text.Transliterator;
 
 import uk.ac.shef.wit.simmetrics.similaritymetrics.AbstractStringMetric;
 import uk.ac.shef.wit.simmetrics.similaritymetrics.QGramsDistance;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserQGram3Extended;
 
 public class LocalSearch<T> {
 
-	private AbstractStringMetric metric = new QGramsDistance();
+	private InterfaceTokeniser tokeniser = new TokeniserQGram3Extended();
+	private AbstractStringMetric metric = new QGramsDistance(tokeniser);
 	private float resultMinimumSimilarity = 0.5f;
 	private int resultSetSize = 20;
 
@@ -32,23 +37,36 @@ public class LocalSearch<T> {
 	private T[] objects;
 	private Set<String>[] fields;
 
+	// q-gram index over all fields of all objects
+	private QGramIndex index;
+
 	public LocalSearch(T[] data, Function<T, Collection<String>> keywords) {
 		objects = data.clone();
 		fields = stream(objects).map(keywords).map(this::normalize).toArray(Set[]::new);
+		index = new QGramIndex();
 	}
 
 	public List<T> search(String q) throws ExecutionException, InterruptedException {
 		String query = normalize(q);
 
-		return IntStream.range(0, objects.length).mapToObj(i -> {
+		// only objects that contain the query or share enough q-grams with the query may be part of the result set
+		BitSet candidates = index.getCandidates(query);
+
+		List<Entry<T, Double>> results = new ArrayList<Entry<T, Double>>();
+
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
 			T object = objects[i];
 			Set<String> field = fields[i];
 
 			boolean match = field.stream().anyMatch(it -> it.contains(query));
 			double similarity = field.stream().mapToDouble(it -> metric.getSimilarity(query, it)).max().orElse(0);
 
-			return match || similarity > resultMinimumSimilarity ? new SimpleImmutableEntry<T, Double>(object, similarity) : null;
-		}).filter(Objects::nonNull).sorted(reverseOrder(comparing(Entry::getValue))).limit(resultSetSize).map(Entry::getKey).collect(toList());
+			if (match || similarity > resultMinimumSimilarity) {
+				results.add(new SimpleImmutableEntry<T, Double>(object, similarity));
+			}
+		}
+
+		return results.stream().sorted(reverseOrder(comparing(Entry::getValue))).limit(resultSetSize).map(Entry::getKey).collect(toList());
 	}
 
 	public void setResultMinimumSimilarity(float resultMinimumSimilarity) {
@@ -65,7 +83,141 @@ public class LocalSearch<T> {
 
 	protected String normalize(String value) {
 		// normalize separator, trim and normalize case
-		return normalizePunctuation(transliterator.transform(value)).toLowerCase();
+		return normalizePunctuation(transliterate(value)).toLowerCase();
+	}
+
+	protected String transliterate(String value) {
+		// transliteration does not affect plain ASCII text except for ^ and `
+		if (value.chars().allMatch(c -> c < 128 && c != '^' && c != '`')) {
+			return value;
+		}
+
+		synchronized (transliterator) {
+			return transliterator.transform(value);
+		}
+	}
+
+	/**
+	 * Inverted index that maps each q-gram to the fields that contain it. The number of shared q-grams of a query and a field yields the exact q-gram similarity, so that only fields that may exceed the minimum similarity need to be scored.
+	 */
+	private class QGramIndex {
+
+		// field id => field value
+		private final String[] value;
+
+		// field id => object index
+		private final int[] owner;
+
+		// field id => number of q-grams
+		private final int[] length;
+
+		// q-gram => [field id, q-gram count, field id, q-gram count, ...] ordered by field id
+		private final Map<String, int[]> postings = new HashMap<String, int[]>();
+
+		public QGramIndex() {
+			List<String> values = new ArrayList<String>();
+			List<Integer> owners = new ArrayList<Integer>();
+			List<Integer> lengths = new ArrayList<Integer>();
+			Map<String, List<Integer>> postingLists = new HashMap<String, List<Integer>>();
+
+			for (int i = 0; i < fields.length; i++) {
+				for (String field : fields[i]) {
+					int id = owners.size();
+					List<String> tokens = tokeniser.tokenizeToArrayList(field);
+
+					values.add(field);
+					owners.add(i);
+					lengths.add(tokens.size());
+
+					count(tokens).forEach((token, count) -> {
+						List<Integer> list = postingLists.computeIfAbsent(token, k -> new ArrayList<Integer>(2));
+						list.add(id);
+						list.add(count);
+					});
+				}
+			}
+
+			value = values.toArray(new String[0]);
+			owner = owners.stream().mapToInt(Integer::intValue).toArray();
+			length = lengths.stream().mapToInt(Integer::intValue).toArray();
+			postingLists.forEach((token, list) -> postings.put(token, list.stream().mapToInt(Integer::intValue).toArray()));
+		}
+
+		public BitSet getCandidates(String query) {
+			BitSet candidates = new BitSet(objects.length);
+
+			// all similarity values are non-negative, so we can't rule out anything if the minimum similarity is negative
+			if (resultMinimumSimilarity < 0) {
+				candidates.set(0, objects.length);
+				return candidates;
+			}
+
+			// fields that contain the query
+			addSubstringMatches(query, candidates);
+
+			// fields that may exceed the minimum similarity
+			List<String> tokens = tokeniser.tokenizeToArrayList(query);
+			int[] common = new int[owner.length];
+
+			count(tokens).forEach((token, count) -> {
+				int[] posting = postings.get(token);
+				if (posting != null) {
+					for (int p = 0; p < posting.length; p += 2) {
+						common[posting[p]] += Math.min(count, posting[p + 1]);
+					}
+				}
+			});
+
+			for (int id = 0; id < common.length; id++) {
+				if (common[id] > 0 && !candidates.get(owner[id])) {
+					// q-gram similarity is 2 * common q-grams / all q-grams (allow for some rounding error since the similarity will be verified anyway)
+					double similarity = 2d * common[id] / (tokens.size() + length[id]);
+					if (similarity > resultMinimumSimilarity - 1e-4) {
+						candidates.set(owner[id]);
+					}
+				}
+			}
+
+			return candidates;
+		}
+
+		private void addSubstringMatches(String query, BitSet candidates) {
+			if (query.length() < 3) {
+				// short queries may be contained in any field
+				for (int i = 0; i < fields.length; i++) {
+					if (fields[i].stream().anyMatch(it -> it.contains(query))) {
+						candidates.set(i);
+					}
+				}
+				return;
+			}
+
+			// any field that contains the query must also contain the least frequent 3-character substring of the query
+			int[] posting = null;
+			for (int i = 0; i + 3 <= query.length(); i++) {
+				int[] p = postings.get(query.substring(i, i + 3));
+				if (p == null) {
+					return;
+				}
+				if (posting == null || p.length < posting.length) {
+					posting = p;
+				}
+			}
+
+			for (int p = 0; p < posting.length; p += 2) {
+				if (value[posting[p]].contains(query)) {
+					candidates.set(owner[posting[p]]);
+				}
+			}
+		}
+
+		private Map<String, Integer> count(List<String> tokens) {
+			Map<String, Integer> counts = new HashMap<String, Integer>(tokens.size());
+			for (String token : tokens) {
+				counts.merge(token, 1, Integer::sum);
+			}
+			return counts;
+		}
 	}
 
 }
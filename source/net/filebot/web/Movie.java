@@ -1,10 +1,14 @@
 package net.filebot.web;
 
+import static net.filebot.Logging.*;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
+import net.filebot.Resource;
+
 public class Movie extends SearchResult {
 
 	protected int year;
@@ -14,6 +18,9 @@ public class Movie extends SearchResult {
 	// optional movie name language hint
 	protected String language;
 
+	// alias names that are only resolved when needed (e.g. alternative titles that are still being fetched)
+	private transient Resource<String[]> lazyAliasNames;
+
 	public Movie() {
 		// used by deserializer
 	}
@@ -38,6 +45,37 @@ public class Movie extends SearchResult {
 		this.language = locale == null ? null : locale.getLanguage();
 	}
 
+	public Movie(String name, int year, int imdbId, int tmdbId, Locale locale, Resource<String[]> aliasNames) {
+		this(name, (String[]) null, year, imdbId, tmdbId, locale);
+		this.lazyAliasNames = aliasNames;
+	}
+
+	/**
+	 * Wait for alias names that are still being fetched, e.g. before the fields of this object are written by a serializer
+	 */
+	public synchronized void resolveAliasNames() {
+		if (lazyAliasNames == null) {
+			return;
+		}
+
+		try {
+			String[] names = lazyAliasNames.get();
+			if (names != null) {
+				aliasNames = names.clone();
+			}
+		} catch (Exception e) {
+			debug.warning(cause("Failed to resolve alias names for " + name, e));
+		} finally {
+			lazyAliasNames = null;
+		}
+	}
+
+	@Override
+	public String[] getAliasNames() {
+		resolveAliasNames();
+		return super.getAliasNames();
+	}
+
 	public int getYear() {
 		return year;
 	}
@@ -60,6 +98,8 @@ public class Movie extends SearchResult {
 
 	@Override
 	public List<String> getEffectiveNames() {
+		resolveAliasNames();
+
 		if (aliasNames == null || aliasNames.length == 0) {
 			return Collections.singletonList(toString(name, year));
 		}
@@ -73,6 +113,7 @@ public class Movie extends SearchResult {
 	}
 
 	public List<String> getEffectiveNamesWithoutYear() {
+		resolveAliasNames();
 		return super.getEffectiveNames();
 	}
 
@@ -96,6 +137,7 @@ public class Movie extends SearchResult {
 
 	@Override
 	public Movie clone() {
+		resolveAliasNames();
 		return new Movie(name, aliasNames, year, imdbId, tmdbId, getLanguage());
 	}
 
@@ -104,6 +146,12 @@ public class Movie extends SearchResult {
 		return toString(name, year);
 	}
 
+	protected Object writeReplace() {
+		// lazy alias names are transient
+		resolveAliasNames();
+		return this;
+	}
+
 	private static String toString(String name, int year) {
 		return String.format("%s (%04d)", name, year < 0 ? 0 : year);
 	}
@@ -138,7 +138,7 @@ public class OMDbClient implements MovieIdentificationService {
 
 		return cache.json(encodeParameters(parameters, true), s -> {
 			return getResource('?' + s + "&apikey=" + apikey);
-		}).fetch(withPermit(fetchIfModified(), r -> REQUEST_LIMIT.acquirePermit())).expire(Cache.ONE_WEEK).get();
+		}).fetch(withPermit(fetchIfModified(), REQUEST_LIMIT)).expire(Cache.ONE_WEEK).get();
 	}
 
 	public URL getResource(String file) throws Exception {
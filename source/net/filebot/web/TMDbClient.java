@@ -21,6 +21,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -109,12 +110,27 @@ public class TMDbClient implements MovieIdentificationService, ArtworkProvider {
 				title = originalTitle;
 			}
 
-			String[] alternativeTitles = getAlternativeTitles("movie/" + id, "titles", title, originalTitle, extendedInfo);
+			if (extendedInfo) {
+				// fetch alternative titles for all search results at once, and only wait for them when alias names are actually needed
+				CompletableFuture<String[]> alternativeTitles = getAlternativeTitlesAsync("movie/" + id, "titles", title, originalTitle);
+				return new Movie(title, year, -1, id, locale, alternativeTitles::get);
+			}
+
+			String[] alternativeTitles = getAlternativeTitles("movie/" + id, "titles", title, originalTitle, false);
 
 			return new Movie(title, alternativeTitles, year, -1, id, locale);
 		}).filter(Objects::nonNull).collect(toList());
 	}
 
+	protected CompletableFuture<String[]> getAlternativeTitlesAsync(String path, String key, String title, String originalTitle) {
+		try {
+			// concurrent requests are still subject to the shared request limit
+			return HostExecutor.of(getResource(path, null)).submit(() -> getAlternativeTitles(path, key, title, originalTitle, true));
+		} catch (Exception e) {
+			return CompletableFuture.completedFuture(getAlternativeTitles(path, key, title, originalTitle, true));
+		}
+	}
+
 	protected String[] getAlternativeTitles(String path, String key, String title, String originalTitle, boolean extendedInfo) {
 		Set<String> alternativeTitles = new LinkedHashSet<String>();
 		if (originalTitle != null) {
@@ -361,7 +377,7 @@ public class TMDbClient implements MovieIdentificationService, ArtworkProvider {
 		String cacheName = language == null ? getName() : getName() + "_" + language;
 
 		Cache cache = Cache.getCache(cacheName, CacheType.Monthly);
-		Object json = cache.json(key, k -> getResource(k, language)).fetch(withPermit(fetchIfNoneMatch(url -> key, cache), r -> REQUEST_LIMIT.acquirePermit())).expire(Cache.ONE_WEEK).get();
+		Object json = cache.json(key, k -> getResource(k, language)).fetch(withPermit(fetchIfNoneMatch(url -> key, cache), REQUEST_LIMIT)).expire(Cache.ONE_WEEK).get();
 
 		if (asMap(json).isEmpty()) {
 			throw new FileNotFoundException(String.format("Resource is empty: %s => %s", json, getResource(key, language)));
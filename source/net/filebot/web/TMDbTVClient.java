@@ -7,11 +7,14 @@ import static net.filebot.util.JsonUtilities.*;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.stream.Stream;
 
@@ -19,6 +22,9 @@ import javax.swing.Icon;
 
 public class TMDbTVClient extends AbstractEpisodeListProvider {
 
+	// TMDb accepts at most 20 appended responses per request
+	public static final int MAX_APPEND_TO_RESPONSE = 20;
+
 	private final TMDbClient tmdb;
 
 	public TMDbTVClient(TMDbClient tmdb) {
@@ -118,9 +124,10 @@ public class TMDbTVClient extends AbstractEpisodeListProvider {
 		List<Episode> episodes = new ArrayList<Episode>();
 		List<Episode> specials = new ArrayList<Episode>();
 
+		Map<Integer, Object> seasonData = getSeasons(series.getId(), seasons, locale);
+
 		for (int s : seasons) {
-			// http://api.themoviedb.org/3/tv/id/season/season_number
-			Object season = tmdb.request("tv/" + series.getId() + "/season/" + s, emptyMap(), locale);
+			Object season = seasonData.get(s);
 
 			streamJsonObjects(season, "episodes").forEach(episode -> {
 				Integer id = getInteger(episode, "id");
@@ -145,4 +152,53 @@ public class TMDbTVClient extends AbstractEpisodeListProvider {
 		return new SeriesData(info, episodes);
 	}
 
+	protected Map<Integer, Object> getSeasons(int id, int[] seasons, Locale locale) throws Exception {
+		List<int[]> groups = new ArrayList<int[]>();
+		for (int i = 0; i < seasons.length; i += MAX_APPEND_TO_RESPONSE) {
+			groups.add(copyOfRange(seasons, i, Math.min(i + MAX_APPEND_TO_RESPONSE, seasons.length)));
+		}
+
+		if (groups.isEmpty()) {
+			return emptyMap();
+		}
+
+		// request remaining groups concurrently while the first group is requested on the current thread
+		HostExecutor executor = HostExecutor.of(tmdb.getResource("tv/" + id, null));
+		List<CompletableFuture<Map<Integer, Object>>> requests = groups.stream().skip(1).map(group -> executor.submit(() -> getSeasonGroup(id, group, locale))).collect(toList());
+
+		Map<Integer, Object> seasonData = getSeasonGroup(id, groups.get(0), locale);
+		try {
+			for (CompletableFuture<Map<Integer, Object>> request : requests) {
+				seasonData.putAll(request.get());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		} finally {
+			requests.forEach(it -> it.cancel(true));
+		}
+
+		return seasonData;
+	}
+
+	protected Map<Integer, Object> getSeasonGroup(int id, int[] seasons, Locale locale) throws Exception {
+		// http://api.themoviedb.org/3/tv/id?append_to_response=season/1,season/2
+		Object response = tmdb.request("tv/" + id, singletonMap("append_to_response", stream(seasons).mapToObj(s -> "season/" + s).collect(joining(","))), locale);
+
+		Map<Integer, Object> seasonData = new HashMap<Integer, Object>(seasons.length);
+		for (int s : seasons) {
+			Object season = asMap(response).get("season/" + s);
+
+			if (season == null) {
+				// http://api.themoviedb.org/3/tv/id/season/season_number
+				season = tmdb.request("tv/" + id + "/season/" + s, emptyMap(), locale);
+			}
+
+			seasonData.put(s, season);
+		}
+		return seasonData;
+	}
+
 }
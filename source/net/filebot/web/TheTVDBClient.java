@@ -5,6 +5,7 @@ import static java.util.Arrays.*;
 import static java.util.Collections.*;
 import static java.util.stream.Collectors.*;
 import static net.filebot.CachedResource.fetchIfModified;
+import static net.filebot.CachedResource.withHostLimit;
 import static net.filebot.Logging.*;
 import static net.filebot.util.JsonUtilities.*;
 import static net.filebot.util.StringUtilities.*;
@@ -64,7 +65,7 @@ public class TheTVDBClient extends AbstractEpisodeListProvider implements Artwor
 
 	protected Object requestJson(String path, Locale locale, Duration expirationTime) throws Exception {
 		Cache cache = Cache.getCache(locale == null || locale == Locale.ROOT ? getName() : getName() + "_" + locale.getLanguage(), CacheType.Monthly);
-		return cache.json(path, this::getEndpoint).fetch(fetchIfModified(() -> getRequestHeader(locale))).expire(expirationTime).get();
+		return cache.json(path, this::getEndpoint).fetch(withHostLimit(fetchIfModified(() -> getRequestHeader(locale)))).expire(expirationTime).get();
 	}
 
 	protected URL getEndpoint(String path) throws Exception {
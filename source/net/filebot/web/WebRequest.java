@@ -32,6 +32,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -139,12 +141,15 @@ public final class WebRequest {
 		int contentLength = connection.getContentLength();
 		String encoding = connection.getContentEncoding();
 
+		// notify rate limit observers (error responses such as 429 Too Many Requests may contain rate limit headers as well)
+		notifyResponseHeaders(connection.getHeaderFields());
+
 		InputStream inputStream = connection.getInputStream();
 		if (ENCODING_GZIP.equalsIgnoreCase(encoding)) {
 			inputStream = new GZIPInputStream(inputStream);
 		}
 
-		// store response headers
+		// store response headers of successful responses only (e.g. ETag)
 		if (responseParameters != null) {
 			responseParameters.accept(connection.getHeaderFields());
 		}
@@ -171,6 +176,48 @@ public final class WebRequest {
 		return buffer.getByteBuffer();
 	}
 
+	private static final ThreadLocal<Consumer<Map<String, List<String>>>> responseHeaderObserver = new ThreadLocal<Consumer<Map<String, List<String>>>>();
+
+	/**
+	 * Pass the response headers of all requests made by the current thread during the given call to the given observer (e.g. {@link FloodLimit#update})
+	 */
+	public static <T> T observeResponseHeaders(Consumer<Map<String, List<String>>> observer, Callable<T> call) throws Exception {
+		Consumer<Map<String, List<String>>> previous = responseHeaderObserver.get();
+		responseHeaderObserver.set(observer);
+		try {
+			return call.call();
+		} finally {
+			responseHeaderObserver.set(previous);
+		}
+	}
+
+	/**
+	 * Wrap the given task so that it passes response headers to the observer of the current thread, even if the task is run on a different thread
+	 */
+	public static <T> Callable<T> inheritResponseHeaderObserver(Callable<T> task) {
+		Consumer<Map<String, List<String>>> observer = responseHeaderObserver.get();
+		if (observer == null) {
+			return task;
+		}
+		return () -> observeResponseHeaders(observer, task);
+	}
+
+	private static void notifyResponseHeaders(Map<String, List<String>> responseHeaders) {
+		Consumer<Map<String, List<String>>> observer = responseHeaderObserver.get();
+		if (observer != null) {
+			observer.accept(responseHeaders);
+		}
+	}
+
+	public static CompletableFuture<ByteBuffer> fetchAsync(URL resource) {
+		return fetchAsync(resource, 0, null, null, null);
+	}
+
+	public static CompletableFuture<ByteBuffer> fetchAsync(URL url, long ifModifiedSince, Object etag, Map<String, String> requestParameters, Consumer<Map<String, List<String>>> responseParameters) {
+		// requests are queued per host and processed by a small number of worker threads
+		return HostExecutor.of(url).submit(() -> fetch(url, ifModifiedSince, etag, requestParameters, responseParameters));
+	}
+
 	public static ByteBuffer post(URL url, Map<String, ?> parameters, Map<String, String> requestParameters) throws IOException {
 		byte[] postData = encodeParameters(parameters, true).getBytes("UTF-8");
 		if (requestParameters != null && ENCODING_GZIP.equals(requestParameters.get("Content-Encoding"))) {
@@ -203,6 +250,8 @@ public final class WebRequest {
 		int contentLength = connection.getContentLength();
 		String encoding = connection.getContentEncoding();
 
+		notifyResponseHeaders(connection.getHeaderFields());
+
 		InputStream inputStream = connection.getInputStream();
 		if (ENCODING_GZIP.equalsIgnoreCase(encoding)) {
 			inputStream = new GZIPInputStream(inputStream);
@@ -4,8 +4,14 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import net.filebot.cli.ScriptShellMethodsTest;
+import net.filebot.cli.SubtitlePipelineTest;
 import net.filebot.format.ExpressionFormatTest;
+import net.filebot.hash.VerificationEngineTest;
 import net.filebot.hash.VerificationFormatTest;
+import net.filebot.media.ContainerHeaderTest;
+import net.filebot.media.ImageMetadataTest;
+import net.filebot.media.LocalGeocoderTest;
 import net.filebot.media.MediaDetectionTest;
 import net.filebot.media.ReleaseInfoTest;
 import net.filebot.media.VideoFormatTest;
@@ -14,11 +20,14 @@ import net.filebot.similarity.EpisodeMetricsTest;
 import net.filebot.similarity.SimilarityTestSuite;
 import net.filebot.subtitle.SubtitleReaderTestSuite;
 import net.filebot.ui.rename.MatchModelTest;
+import net.filebot.ui.sfv.VerificationTrackerTest;
+import net.filebot.torrent.BencodeReaderTest;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialogTest;
 import net.filebot.util.UtilTestSuite;
 import net.filebot.web.WebTestSuite;
 
 @RunWith(Suite.class)
-@SuiteClasses({ ExpressionFormatTest.class, VerificationFormatTest.class, MatchModelTest.class, EpisodeMetricsTest.class, ReleaseInfoTest.class, VideoFormatTest.class, MediaDetectionTest.class, MediaInfoTest.class, SimilarityTestSuite.class, WebTestSuite.class, SubtitleReaderTestSuite.class, UtilTestSuite.class })
+@SuiteClasses({ ExpressionFormatTest.class, VerificationFormatTest.class, VerificationEngineTest.class, MatchModelTest.class, VerificationTrackerTest.class, SubtitleAutoMatchDialogTest.class, EpisodeMetricsTest.class, ReleaseInfoTest.class, VideoFormatTest.class, MediaDetectionTest.class, MediaInfoTest.class, ContainerHeaderTest.class, LocalGeocoderTest.class, ImageMetadataTest.class, SimilarityTestSuite.class, WebTestSuite.class, SubtitleReaderTestSuite.class, SubtitlePipelineTest.class, ScriptShellMethodsTest.class, BencodeReaderTest.class, UtilTestSuite.class })
 public class AllTests {
 
 }
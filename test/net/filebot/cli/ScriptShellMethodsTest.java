@@ -0,0 +1,257 @@
+package net.filebot.cli;
+
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static net.filebot.MediaTypes.*;
+import static net.filebot.util.FileUtilities.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import net.filebot.media.MediaDetection;
+import net.filebot.similarity.NameSimilarityMetric;
+import net.filebot.similarity.SimilarityMetric;
+
+public class ScriptShellMethodsTest {
+
+	/**
+	 * Reference implementation that computes similarity in the comparator
+	 */
+	static List<Object> legacySortBySimilarity(Collection<?> self, Object prime, Function<Object, String> toStringFunction) {
+		List<Object> values = new ArrayList<Object>(self);
+
+		SimilarityMetric metric = new NameSimilarityMetric();
+		values.sort((o1, o2) -> {
+			String s1 = toStringFunction.apply(o1);
+			String s2 = toStringFunction.apply(o2);
+			return Float.compare(metric.getSimilarity(s2, prime), metric.getSimilarity(s1, prime));
+		});
+
+		return values;
+	}
+
+	static List<String> names(int size) {
+		String[] words = { "Alias", "Buffy", "the", "Vampire", "Slayer", "Firefly", "Serenity", "Angel", "Dollhouse", "Doctor", "Who", "Star", "Trek", "Wars", "Mr. Robot", "Amélie", "Léon", "Die Hard", "Über" };
+		Random random = new Random(size);
+
+		return IntStream.range(0, size).mapToObj(i -> {
+			return IntStream.range(0, 1 + random.nextInt(3)).mapToObj(w -> words[random.nextInt(words.length)]).collect(joining(" ")) + " (" + (1990 + random.nextInt(30)) + ")";
+		}).collect(toList());
+	}
+
+	@Test
+	public void getSimilarity() {
+		assertEquals(1, ScriptShellMethods.getSimilarity("Amélie", "amelie"), 0);
+		assertEquals(new NameSimilarityMetric().getSimilarity("Doctor Who", "Dr. Who"), ScriptShellMethods.getSimilarity("Doctor Who", "Dr. Who"), 0);
+	}
+
+	@Test
+	public void sortBySimilarity() {
+		List<String> names = names(500);
+
+		assertEquals(legacySortBySimilarity(names, "Buffy the Vampire Slayer", Object::toString), ScriptShellMethods.sortBySimilarity(names, "Buffy the Vampire Slayer", Object::toString));
+		assertEquals(legacySortBySimilarity(names, "Leon", Object::toString), ScriptShellMethods.sortBySimilarity(names, "Leon", Object::toString));
+	}
+
+	@Test
+	public void sortBySimilarityToString() {
+		List<File> files = names(200).stream().map(n -> new File("/media/" + n + ".mkv")).collect(toList());
+		Function<Object, String> toString = f -> ((File) f).getName().replaceAll("\\.\\w+$", "");
+
+		List<?> sorted = ScriptShellMethods.sortBySimilarity(files, "Star Wars", toString);
+		assertEquals(legacySortBySimilarity(files, "Star Wars", toString), sorted);
+		assertTrue(((File) sorted.get(0)).getName().startsWith("Star"));
+	}
+
+	@Test
+	public void sortBySimilarityCallsToStringOnce() {
+		List<String> names = names(100);
+		ConcurrentHashMap<Object, Integer> calls = new ConcurrentHashMap<Object, Integer>();
+
+		ScriptShellMethods.sortBySimilarity(names, "Firefly", it -> {
+			calls.merge(it, 1, Integer::sum);
+			return it.toString();
+		});
+
+		assertEquals(names.stream().distinct().count(), calls.size());
+		assertEquals(names.size(), calls.values().stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	public void parallelCollect() throws Exception {
+		List<Integer> values = IntStream.range(0, 1000).boxed().collect(toList());
+
+		assertEquals(values.stream().map(i -> i * i).collect(toList()), ScriptShellMethods.parallelCollect(values, 4, it -> (Integer) it * (Integer) it));
+		assertEquals(new ArrayList<Object>(), ScriptShellMethods.parallelCollect(new ArrayList<Object>(), 4, it -> it));
+	}
+
+	@Test
+	public void parallelCollectConcurrently() throws Exception {
+		// all threads must wait for each other, so this only returns if all values are processed concurrently
+		CyclicBarrier barrier = new CyclicBarrier(4);
+		List<String> values = new ArrayList<String>(List.of("a", "b", "c", "d"));
+		ConcurrentHashMap<Object, Object> threads = new ConcurrentHashMap<Object, Object>();
+
+		ScriptShellMethods.parallelCollect(values, 4, it -> {
+			try {
+				barrier.await(10, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return threads.put(it, Thread.currentThread().getName());
+		});
+
+		assertEquals(values.size(), threads.size());
+		assertEquals(4, threads.values().stream().distinct().count());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parallelCollectException() throws Exception {
+		ScriptShellMethods.parallelCollect(List.of(1, 2, 3), 2, it -> {
+			if (it.equals(2)) {
+				throw new IllegalArgumentException();
+			}
+			return it;
+		});
+	}
+
+	/**
+	 * Reference implementation that lists each folder twice and checks each folder with separate file system calls
+	 */
+	static List<File> legacyGetMediaFolders(File self) throws IOException {
+		SortedSet<File> folders = new TreeSet<File>(CASE_INSENSITIVE_PATH_ORDER);
+
+		Files.walkFileTree(self.toPath(), new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				File folder = dir.toFile();
+
+				if (folder.isHidden() || !folder.canRead()) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				if (getChildren(folder, VIDEO_FILES).size() > 0 || MediaDetection.isDiskFolder(folder)) {
+					folders.add(folder);
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		return new ArrayList<File>(folders);
+	}
+
+	static void touch(File folder, String... names) throws IOException {
+		folder.mkdirs();
+		for (String name : names) {
+			new File(folder, name).createNewFile();
+		}
+	}
+
+	/**
+	 * Create a library of series and movie folders with extras, disk folders, hidden files and folders and symlinks
+	 */
+	static void createLibrary(File root, int series, int movies) throws IOException {
+		Random random = new Random(series + movies);
+
+		for (int i = 0; i < series; i++) {
+			File show = new File(root, "TV Shows/Show " + i);
+			touch(show, "tvshow.nfo", "poster.jpg");
+
+			for (int s = 1; s <= 1 + random.nextInt(5); s++) {
+				File season = new File(show, "Season " + s);
+				touch(season, "folder.jpg");
+				for (int e = 1; e <= 10; e++) {
+					touch(season, String.format("Show %d - S%02dE%02d.mkv", i, s, e), String.format("Show %d - S%02dE%02d.srt", i, s, e));
+				}
+			}
+
+			// hidden folders are ignored
+			touch(new File(show, ".actors"), "Actor.mkv");
+		}
+
+		for (int i = 0; i < movies; i++) {
+			File movie = new File(root, (i % 3 == 0 ? "movies" : "Movies") + "/Movie " + i + " (" + (1950 + i % 70) + ")");
+			touch(movie, "movie.nfo", "fanart.jpg");
+
+			switch (i % 5) {
+			case 0:
+				touch(new File(movie, "VIDEO_TS"), "VIDEO_TS.IFO", "VTS_01_1.VOB");
+				break;
+			case 1:
+				touch(new File(movie, "BDMV/STREAM"), "00000.m2ts");
+				break;
+			case 2:
+				// only AppleDouble files
+				touch(movie, "._Movie " + i + ".mkv");
+				break;
+			case 3:
+				touch(new File(movie, "Extras/Featurettes"), "Making Of.mp4");
+				break;
+			default:
+				touch(movie, "Movie " + i + ".avi");
+				touch(new File(movie, "Sample"), "sample.avi");
+				break;
+			}
+		}
+
+		touch(new File(root, "Music/Artist/Album"), "01.flac", "cover.jpg");
+		touch(new File(root, ".Trash/Movie"), "Movie.mkv");
+	}
+
+	@Test
+	public void getMediaFolders() throws Exception {
+		File root = Files.createTempDirectory("MediaFolders").toFile();
+		try {
+			createLibrary(root, 20, 50);
+
+			// symlinks are not followed
+			Files.createSymbolicLink(new File(root, "Link").toPath(), new File(root, "TV Shows").toPath());
+
+			List<File> folders = ScriptShellMethods.getMediaFolders(root);
+			assertEquals(legacyGetMediaFolders(root), folders);
+
+			assertTrue(folders.contains(new File(root, "Movies/Movie 1 (1951)")));
+			assertTrue(folders.contains(new File(root, "Movies/Movie 2 (1952)")));
+			assertTrue(folders.contains(new File(root, "movies/Movie 3 (1953)/Extras/Featurettes")));
+			assertTrue(folders.contains(new File(root, "Movies/Movie 4 (1954)")));
+			assertFalse(folders.contains(new File(root, "Movies/Movie 4 (1954)/Sample")));
+			assertFalse(folders.stream().anyMatch(f -> f.getPath().contains(".Trash") || f.getPath().contains("Link") || f.getPath().contains("Music")));
+
+			assertEquals(ScriptShellMethods.getMediaFolders(new File(root, "Movies/Movie 1 (1951)")), singletonList(new File(root, "Movies/Movie 1 (1951)")));
+			assertEquals(ScriptShellMethods.getMediaFolders(new File(root, ".Trash")), emptyList());
+			assertEquals(ScriptShellMethods.getMediaFolders(new File(root, "Missing")), emptyList());
+		} finally {
+			delete(root);
+		}
+	}
+
+	static void delete(File folder) throws IOException {
+		try (Stream<Path> paths = Files.walk(folder.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+}
@@ -0,0 +1,266 @@
+package net.filebot.cli;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.swing.Icon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.filebot.subtitle.SubtitleNaming;
+import net.filebot.web.SubtitleDescriptor;
+import net.filebot.web.SubtitleProvider;
+import net.filebot.web.SubtitleSearchResult;
+import net.filebot.web.VideoHashSubtitleService;
+
+public class SubtitlePipelineTest {
+
+	static final long LATENCY = 25;
+
+	File root;
+	List<File> videos;
+
+	@Before
+	public void createFiles() throws Exception {
+		maxRunning.set(0);
+		root = Files.createTempDirectory("SubtitlePipelineTest").toFile();
+		videos = new ArrayList<File>();
+
+		for (int s = 1; s <= 4; s++) {
+			File folder = new File(root, "Season " + s);
+			folder.mkdirs();
+
+			for (int e = 1; e <= 10; e++) {
+				File video = new File(folder, String.format("Firefly.S%02dE%02d.mkv", s, e));
+				video.createNewFile();
+				videos.add(video);
+			}
+		}
+	}
+
+	@After
+	public void deleteFiles() throws Exception {
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Test
+	public void getSubtitlesByHash() throws Exception {
+		StubSubtitleService service = new StubSubtitleService();
+
+		getSubtitlesByHash(service, 1);
+		Map<File, String> expected = readSubtitles();
+		assertEquals(1, maxRunning.getAndSet(0));
+
+		getSubtitlesByHash(service, 8);
+		Map<File, String> actual = readSubtitles();
+		assertTrue(maxRunning.get() > 1);
+
+		assertEquals(videos.size(), expected.size());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void getSubtitlesByName() throws Exception {
+		StubSubtitleService service = new StubSubtitleService();
+
+		getSubtitlesByName(service, 1);
+		Map<File, String> expected = readSubtitles();
+		assertEquals(1, maxRunning.getAndSet(0));
+
+		getSubtitlesByName(service, 8);
+		Map<File, String> actual = readSubtitles();
+		assertTrue(maxRunning.get() > 1);
+
+		assertEquals(videos.size(), expected.size());
+		assertEquals(expected, actual);
+	}
+
+	Map<File, File> getSubtitlesByHash(StubSubtitleService service, int threads) {
+		try {
+			Map<File, File> subtitles = new SubtitlePipeline(Locale.ENGLISH, null, null, SubtitleNaming.MATCH_VIDEO, false, threads).getSubtitlesByHash(service, videos);
+
+			// results in input order
+			assertEquals(videos, new ArrayList<File>(subtitles.keySet()));
+			return subtitles;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	Map<File, File> getSubtitlesByName(StubSubtitleService service, int threads) {
+		try {
+			return new SubtitlePipeline(Locale.ENGLISH, null, null, SubtitleNaming.MATCH_VIDEO, false, threads).getSubtitlesByName(service, videos, "Firefly");
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	Map<File, String> readSubtitles() throws Exception {
+		Map<File, String> subtitles = new LinkedHashMap<File, String>();
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			for (Path it : paths.filter(p -> p.toString().endsWith(".srt")).sorted().collect(toList())) {
+				subtitles.put(it.toFile(), new String(Files.readAllBytes(it), UTF_8));
+				Files.delete(it);
+			}
+		}
+		return subtitles;
+	}
+
+	// maximum number of concurrent requests
+	static final AtomicInteger running = new AtomicInteger();
+	static final AtomicInteger maxRunning = new AtomicInteger();
+
+	static void sleep() {
+		maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+		try {
+			Thread.sleep(LATENCY);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} finally {
+			running.decrementAndGet();
+		}
+	}
+
+	static class StubSubtitleService implements SubtitleProvider, VideoHashSubtitleService {
+
+		@Override
+		public String getIdentifier() {
+			return "Stub";
+		}
+
+		@Override
+		public Icon getIcon() {
+			return null;
+		}
+
+		@Override
+		public URI getLink() {
+			return URI.create("http://localhost/");
+		}
+
+		@Override
+		public Map<File, List<SubtitleDescriptor>> getSubtitleList(File[] videoFiles, Locale locale) throws Exception {
+			Map<File, List<SubtitleDescriptor>> subtitles = new LinkedHashMap<File, List<SubtitleDescriptor>>();
+			for (File f : videoFiles) {
+				sleep();
+				subtitles.put(f, singletonList(new StubSubtitleDescriptor(f.getName().replace(".mkv", ""))));
+			}
+			return subtitles;
+		}
+
+		@Override
+		public List<SubtitleSearchResult> search(String query) throws Exception {
+			sleep();
+			return singletonList(new SubtitleSearchResult(303461, "Firefly", 2002, "tv series", 100));
+		}
+
+		@Override
+		public List<SubtitleSearchResult> guess(String tag) throws Exception {
+			return emptyList();
+		}
+
+		@Override
+		public List<SubtitleDescriptor> getSubtitleList(SubtitleSearchResult searchResult, int[][] episodeFilter, Locale locale) throws Exception {
+			sleep();
+			return Arrays.stream(episodeFilter).flatMap(f -> {
+				return Stream.iterate(1, e -> e + 1).limit(10).map(e -> new StubSubtitleDescriptor(String.format("Firefly.S%02dE%02d", f[0], e)));
+			}).collect(toList());
+		}
+
+		@Override
+		public URI getSubtitleListLink(SubtitleSearchResult searchResult, Locale locale) {
+			return null;
+		}
+
+		@Override
+		public CheckResult checkSubtitle(File videoFile, File subtitleFile) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void uploadSubtitle(Object identity, Locale locale, File[] videoFiles, File[] subtitleFiles) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static class StubSubtitleDescriptor implements SubtitleDescriptor {
+
+		private final String name;
+
+		public StubSubtitleDescriptor(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getLanguageName() {
+			return "English";
+		}
+
+		@Override
+		public String getType() {
+			return "srt";
+		}
+
+		@Override
+		public String getPath() {
+			return name + ".srt";
+		}
+
+		@Override
+		public long getLength() {
+			return -1;
+		}
+
+		@Override
+		public File toFile() {
+			return new File(getPath());
+		}
+
+		@Override
+		public ByteBuffer fetch() throws Exception {
+			sleep();
+			return UTF_8.encode(String.format("1%n00:00:01,000 --> 00:00:02,000%n%s%n", name));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof StubSubtitleDescriptor && name.equals(((StubSubtitleDescriptor) obj).name);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+package net.filebot.hash;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.filebot.cli.CmdlineOperations;
+
+public class VerificationEngineTest {
+
+	File root;
+	List<File> files;
+
+	@Before
+	public void createFiles() throws Exception {
+		root = Files.createTempDirectory("VerificationEngineTest").toFile();
+		files = new ArrayList<File>();
+
+		Random random = new Random(42);
+		for (int size : new int[] { 0, 1, 1000, 65536, 1024 * 1024, 1024 * 1024 + 1, 3 * 1024 * 1024 + 7 }) {
+			byte[] data = new byte[size];
+			random.nextBytes(data);
+
+			File file = new File(root, "File." + size + ".bin");
+			Files.write(file.toPath(), data);
+			files.add(file);
+		}
+	}
+
+	@After
+	public void deleteFiles() throws Exception {
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	/**
+	 * Reference implementation based on a 64 KB buffered stream
+	 */
+	static String legacyComputeHash(File file, HashType type) throws Exception {
+		Hash hash = type.newHash();
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buffer = new byte[64 * 1024];
+			int len = 0;
+			while ((len = in.read(buffer)) >= 0) {
+				hash.update(buffer, 0, len);
+			}
+		}
+		return hash.digest();
+	}
+
+	@Test
+	public void computeHash() throws Exception {
+		for (HashType type : HashType.values()) {
+			for (File file : files) {
+				assertEquals(type + " " + file, legacyComputeHash(file, type), VerificationEngine.computeHash(file, type));
+			}
+		}
+	}
+
+	@Test
+	public void submit() throws Exception {
+		try (VerificationEngine engine = new VerificationEngine(4)) {
+			for (HashType type : HashType.values()) {
+				List<CompletableFuture<String>> hashes = new ArrayList<CompletableFuture<String>>();
+				for (File file : files) {
+					hashes.add(engine.submit(file, type));
+				}
+
+				for (int i = 0; i < files.size(); i++) {
+					assertEquals(legacyComputeHash(files.get(i), type), hashes.get(i).get());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void missingFile() throws Exception {
+		try (VerificationEngine engine = new VerificationEngine(4)) {
+			engine.submit(new File(root, "404.bin"), HashType.SFV).get();
+			fail("Missing file must not be verified");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	File writeVerificationFile(String name, HashType type, List<File> files) throws Exception {
+		File file = new File(root, name);
+		try (VerificationFileWriter out = new VerificationFileWriter(file, type.getFormat(), UTF_8)) {
+			for (File it : files) {
+				out.write(it.getName(), legacyComputeHash(it, type));
+			}
+		}
+		return file;
+	}
+
+	@Test
+	public void checkMixedHashTypes() throws Exception {
+		List<File> verificationFiles = new ArrayList<File>();
+		verificationFiles.add(writeVerificationFile("Files.sfv", HashType.SFV, files));
+		verificationFiles.add(writeVerificationFile("Files.md5", HashType.MD5, files));
+		verificationFiles.add(writeVerificationFile("Files.sha1", HashType.SHA1, files));
+		verificationFiles.add(writeVerificationFile("Files.sha256", HashType.SHA256, files));
+
+		assertTrue(new CmdlineOperations().check(verificationFiles));
+	}
+
+	@Test
+	public void checkMismatch() throws Exception {
+		File sfv = writeVerificationFile("Files.sfv", HashType.SFV, files);
+		File md5 = writeVerificationFile("Files.md5", HashType.MD5, files);
+
+		// modify one file
+		File file = files.get(3);
+		byte[] data = Files.readAllBytes(file.toPath());
+		data[data.length / 2] ^= 0xFF;
+		Files.write(file.toPath(), data);
+
+		assertFalse(new CmdlineOperations().check(singletonList(sfv)));
+		assertFalse(new CmdlineOperations().check(singletonList(md5)));
+	}
+
+	@Test
+	public void checkMissingFile() throws Exception {
+		File sfv = writeVerificationFile("Files.sfv", HashType.SFV, files);
+		files.get(2).delete();
+
+		assertFalse(new CmdlineOperations().check(singletonList(sfv)));
+	}
+
+}
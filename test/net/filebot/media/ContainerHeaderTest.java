@@ -0,0 +1,165 @@
+package net.filebot.media;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import net.filebot.media.ContainerHeader.Container;
+import net.filebot.media.ContainerHeader.UnsupportedContainerException;
+
+public class ContainerHeaderTest {
+
+	@Test
+	public void matroska() throws Exception {
+		byte[] info = concat(ebml(0x2AD7B1, uint(1000000, 3)), ebml(0x4489, ByteBuffer.allocate(8).putDouble(1325000).array()));
+		byte[] video = ebml(0xAE, concat(ebml(0x83, uint(1, 1)), ebml(0x86, ascii("V_MPEG4/ISO/AVC")), ebml(0x23E383, uint(41708333, 4)), ebml(0xE0, concat(ebml(0xB0, uint(1920, 2)), ebml(0xBA, uint(1080, 2))))));
+		byte[] audio = ebml(0xAE, concat(ebml(0x83, uint(2, 1)), ebml(0x86, ascii("A_AC3")), ebml(0x22B59C, ascii("jpn"))));
+		byte[] text = ebml(0xAE, concat(ebml(0x83, uint(0x11, 1)), ebml(0x86, ascii("S_TEXT/ASS"))));
+		byte[] segment = concat(ebml(0x1549A966, info), ebml(0x1654AE6B, concat(video, audio, text)), ebml(0x1F43B675, new byte[1024]));
+
+		ContainerHeader mkv = ContainerHeader.read(sample("mkv", concat(ebml(0x1A45DFA3, ebml(0x4282, ascii("matroska"))), ebml(0x18538067, segment))));
+
+		assertEquals(Container.Matroska, mkv.getContainer());
+		assertEquals("V_MPEG4/ISO/AVC", mkv.getVideoCodec());
+		assertEquals("A_AC3", mkv.getAudioCodec());
+		assertEquals("jpn", mkv.getAudioLanguage());
+		assertEquals("S_TEXT/ASS", mkv.getSubtitleCodec());
+		assertEquals(1325000, mkv.getDuration().toMillis());
+		assertEquals(1920, mkv.getWidth().intValue());
+		assertEquals(1080, mkv.getHeight().intValue());
+		assertEquals(23.976f, mkv.getFrameRate(), 0);
+	}
+
+	@Test
+	public void mpeg4() throws Exception {
+		byte[] mvhd = box("mvhd", ByteBuffer.allocate(20).putInt(12, 1000).putInt(16, 60000).array());
+		byte[] video = box("trak", box("mdia", concat(mdhd(24000, 1441440, "und"), hdlr("vide"), box("minf", box("stbl", concat(stsd("avc1", 1280, 720), stts(1440)))))));
+		byte[] audio = box("trak", box("mdia", concat(mdhd(48000, 2880000, "eng"), hdlr("soun"), box("minf", box("stbl", stsd("mp4a", 0, 0))))));
+
+		ContainerHeader mp4 = ContainerHeader.read(sample("mp4", concat(box("ftyp", ascii("isom")), box("mdat", new byte[1024]), box("moov", concat(mvhd, video, audio)))));
+
+		assertEquals(Container.MPEG4, mp4.getContainer());
+		assertEquals("avc1", mp4.getVideoCodec());
+		assertEquals("mp4a", mp4.getAudioCodec());
+		assertEquals("eng", mp4.getAudioLanguage());
+		assertEquals("", mp4.getSubtitleCodec());
+		assertEquals(60000, mp4.getDuration().toMillis());
+		assertEquals(1280, mp4.getWidth().intValue());
+		assertEquals(720, mp4.getHeight().intValue());
+		assertEquals(23.976f, mp4.getFrameRate(), 0);
+	}
+
+	@Test
+	public void avi() throws Exception {
+		byte[] avih = chunk("avih", le(56).putInt(0, 40000).putInt(16, 1500).putInt(32, 640).putInt(36, 480).array());
+		byte[] vids = list("strl", concat(chunk("strh", le(56).put(ascii("vids")).putInt(20, 1).putInt(24, 25).array()), chunk("strf", le(40).putInt(4, 640).putInt(8, 480).position(16).put(ascii("XVID")).array())));
+		byte[] auds = list("strl", concat(chunk("strh", le(56).put(ascii("auds")).array()), chunk("strf", le(18).putShort(0, (short) 0x55).array())));
+
+		ContainerHeader avi = ContainerHeader.read(sample("avi", concat(ascii("RIFF"), le(4).putInt(0, 4096).array(), ascii("AVI "), list("hdrl", concat(avih, vids, auds)), list("movi", new byte[1024]))));
+
+		assertEquals(Container.AVI, avi.getContainer());
+		assertEquals("XVID", avi.getVideoCodec());
+		assertEquals("55", avi.getAudioCodec());
+		assertEquals(60000, avi.getDuration().toMillis());
+		assertEquals(640, avi.getWidth().intValue());
+		assertEquals(480, avi.getHeight().intValue());
+		assertEquals(25f, avi.getFrameRate(), 0);
+	}
+
+	@Test(expected = UnsupportedContainerException.class)
+	public void unsupported() throws Exception {
+		ContainerHeader.read(sample("ts", new byte[1024]));
+	}
+
+	@Test
+	public void concurrent() throws Exception {
+		File f = sample("mp4", concat(box("ftyp", ascii("isom")), box("moov", concat(box("mvhd", ByteBuffer.allocate(20).putInt(12, 1000).putInt(16, 5000).array()), box("trak", box("mdia", concat(hdlr("vide"), box("minf", box("stbl", stsd("hvc1", 3840, 2160))))))))));
+
+		List<String> values = IntStream.range(0, 1000).parallel().mapToObj(i -> {
+			try (ContainerHeader mp4 = ContainerHeader.read(f)) {
+				return mp4.getVideoCodec() + " " + mp4.getWidth() + "x" + mp4.getHeight() + " " + mp4.getDuration().toMillis();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}).distinct().collect(toList());
+
+		assertEquals("[hvc1 3840x2160 5000]", values.toString());
+	}
+
+	File sample(String extension, byte[] bytes) throws Exception {
+		File f = File.createTempFile(getClass().getSimpleName(), "." + extension);
+		f.deleteOnExit();
+		Files.write(f.toPath(), bytes);
+		return f;
+	}
+
+	byte[] ebml(int id, byte[] data) {
+		byte[] head = id > 0xFFFFFF ? uint(id, 4) : id > 0xFFFF ? uint(id, 3) : id > 0xFF ? uint(id, 2) : uint(id, 1);
+		return concat(head, uint(0x0100000000000000L | data.length, 8), data);
+	}
+
+	byte[] box(String type, byte[] data) {
+		return concat(uint(8 + data.length, 4), ascii(type), data);
+	}
+
+	byte[] mdhd(int timescale, int duration, String language) {
+		int code = ((language.charAt(0) - 0x60) << 10) | ((language.charAt(1) - 0x60) << 5) | (language.charAt(2) - 0x60);
+		return box("mdhd", ByteBuffer.allocate(24).putInt(12, timescale).putInt(16, duration).putShort(20, (short) code).array());
+	}
+
+	byte[] hdlr(String handler) {
+		return box("hdlr", ByteBuffer.allocate(24).put(8, ascii(handler)[0]).put(9, ascii(handler)[1]).put(10, ascii(handler)[2]).put(11, ascii(handler)[3]).array());
+	}
+
+	byte[] stsd(String codec, int width, int height) {
+		byte[] entry = box(codec, ByteBuffer.allocate(78).putShort(24, (short) width).putShort(26, (short) height).array());
+		return box("stsd", concat(uint(0, 4), uint(1, 4), entry));
+	}
+
+	byte[] stts(int samples) {
+		return box("stts", concat(uint(0, 4), uint(1, 4), uint(samples, 4), uint(1001, 4)));
+	}
+
+	byte[] chunk(String id, byte[] data) {
+		return concat(ascii(id), le(4).putInt(0, data.length).array(), data);
+	}
+
+	byte[] list(String type, byte[] data) {
+		return chunk("LIST", concat(ascii(type), data));
+	}
+
+	ByteBuffer le(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	byte[] uint(long value, int size) {
+		byte[] b = new byte[size];
+		for (int i = size - 1; i >= 0; i--, value >>>= 8) {
+			b[i] = (byte) value;
+		}
+		return b;
+	}
+
+	byte[] ascii(String s) {
+		return s.getBytes(US_ASCII);
+	}
+
+	byte[] concat(byte[]... values) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] b : values) {
+			out.write(b, 0, b.length);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,402 @@
+package net.filebot.media;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.lang.GeoLocation;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.exif.GpsDirectory;
+
+import net.filebot.media.ImageMetadata.CameraProperty;
+
+public class ImageMetadataTest {
+
+	static File root;
+	static byte[] image;
+
+	@BeforeClass
+	public static void createFolder() throws Exception {
+		root = Files.createTempDirectory("ImageMetadataTest").toFile();
+
+		// noise does not compress well, just like real photos
+		Random random = new Random(42);
+		BufferedImage noise = new BufferedImage(160, 120, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < noise.getHeight(); y++) {
+			for (int x = 0; x < noise.getWidth(); x++) {
+				noise.setRGB(x, y, random.nextInt());
+			}
+		}
+
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		ImageIO.write(noise, "jpg", jpeg);
+		image = jpeg.toByteArray();
+	}
+
+	@AfterClass
+	public static void deleteFolder() throws Exception {
+		delete(root);
+	}
+
+	static void delete(File folder) throws IOException {
+		try (Stream<Path> paths = Files.walk(folder.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	static class Entry {
+
+		final int tag;
+		final int type;
+		final int count;
+		byte[] value;
+
+		public Entry(int tag, int type, int count, byte[] value) {
+			this.tag = tag;
+			this.type = type;
+			this.count = count;
+			this.value = value;
+		}
+	}
+
+	static Entry ascii(int tag, String value) {
+		byte[] bytes = (value + '\0').getBytes(US_ASCII);
+		return new Entry(tag, 2, bytes.length, bytes);
+	}
+
+	static Entry pointer(int tag) {
+		return new Entry(tag, 4, 1, new byte[4]);
+	}
+
+	static Entry rational(int tag, double... values) {
+		ByteBuffer buffer = ByteBuffer.allocate(values.length * 8);
+		for (double v : values) {
+			buffer.putInt((int) Math.round(v * 10000)).putInt(10000);
+		}
+		return new Entry(tag, 5, values.length, buffer.array());
+	}
+
+	static Entry undefined(int tag, byte[] value) {
+		return new Entry(tag, 7, value.length, value);
+	}
+
+	static double[] dms(double degrees) {
+		double d = Math.floor(degrees);
+		double m = Math.floor((degrees - d) * 60);
+		return new double[] { d, m, ((degrees - d) * 60 - m) * 60 };
+	}
+
+	static int size(List<Entry> ifd) {
+		return 2 + ifd.size() * 12 + 4;
+	}
+
+	static byte[] int32(int value) {
+		return ByteBuffer.allocate(4).putInt(value).array();
+	}
+
+	/**
+	 * Big-endian TIFF structure with IFD0 (camera and date), Exif SubIFD (maker note), GPS IFD and IFD1 (thumbnail)
+	 */
+	static byte[] tiff(String make, String model, ZonedDateTime date, GeoLocation location, byte[] makerNote, byte[] thumbnail) {
+		String dateTime = String.format("%tY:%<tm:%<td %<tH:%<tM:%<tS", date);
+
+		List<Entry> ifd0 = new ArrayList<Entry>();
+		List<Entry> exif = new ArrayList<Entry>();
+		List<Entry> gps = new ArrayList<Entry>();
+		List<Entry> ifd1 = new ArrayList<Entry>();
+
+		Entry exifPointer = pointer(ExifIFD0Directory.TAG_EXIF_SUB_IFD_OFFSET);
+		Entry gpsPointer = pointer(ExifIFD0Directory.TAG_GPS_INFO_OFFSET);
+		Entry thumbnailPointer = pointer(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+
+		ifd0.add(ascii(ExifIFD0Directory.TAG_MAKE, make));
+		ifd0.add(ascii(ExifIFD0Directory.TAG_MODEL, model));
+		ifd0.add(ascii(ExifIFD0Directory.TAG_DATETIME, dateTime));
+		ifd0.add(exifPointer);
+		if (location != null) {
+			ifd0.add(gpsPointer);
+		}
+
+		exif.add(ascii(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL, dateTime));
+		exif.add(undefined(ExifSubIFDDirectory.TAG_MAKERNOTE, makerNote));
+
+		if (location != null) {
+			gps.add(ascii(GpsDirectory.TAG_LATITUDE_REF, location.getLatitude() < 0 ? "S" : "N"));
+			gps.add(rational(GpsDirectory.TAG_LATITUDE, dms(Math.abs(location.getLatitude()))));
+			gps.add(ascii(GpsDirectory.TAG_LONGITUDE_REF, location.getLongitude() < 0 ? "W" : "E"));
+			gps.add(rational(GpsDirectory.TAG_LONGITUDE, dms(Math.abs(location.getLongitude()))));
+		}
+
+		ifd1.add(thumbnailPointer);
+		ifd1.add(new Entry(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH, 4, 1, int32(thumbnail.length)));
+
+		// layout: header, IFD0, Exif SubIFD, GPS IFD, IFD1, values, thumbnail
+		int exifOffset = 8 + size(ifd0);
+		int gpsOffset = exifOffset + size(exif);
+		int ifd1Offset = gpsOffset + (gps.isEmpty() ? 0 : size(gps));
+		int dataOffset = ifd1Offset + size(ifd1);
+
+		exifPointer.value = int32(exifOffset);
+		gpsPointer.value = int32(gpsOffset);
+
+		List<List<Entry>> ifds = new ArrayList<List<Entry>>();
+		ifds.add(ifd0);
+		ifds.add(exif);
+		if (!gps.isEmpty()) {
+			ifds.add(gps);
+		}
+		ifds.add(ifd1);
+
+		int dataSize = ifds.stream().flatMap(List::stream).filter(e -> e.value.length > 4).mapToInt(e -> e.value.length + 1 & ~1).sum();
+		thumbnailPointer.value = int32(dataOffset + dataSize);
+
+		ByteBuffer tiff = ByteBuffer.allocate(dataOffset + dataSize + thumbnail.length);
+		tiff.put("MM".getBytes(US_ASCII)).putShort((short) 42).putInt(8);
+
+		int data = dataOffset;
+		for (List<Entry> ifd : ifds) {
+			tiff.putShort((short) ifd.size());
+			for (Entry e : ifd) {
+				tiff.putShort((short) e.tag).putShort((short) e.type).putInt(e.count);
+				if (e.value.length > 4) {
+					tiff.putInt(data);
+					tiff.duplicate().position(data).put(e.value);
+					data += e.value.length + 1 & ~1;
+				} else {
+					tiff.put(e.value).position(tiff.position() + 4 - e.value.length);
+				}
+			}
+			tiff.putInt(ifd == ifd0 ? ifd1Offset : 0);
+		}
+
+		tiff.position(data);
+		tiff.put(thumbnail);
+		return tiff.array();
+	}
+
+	static byte[] jpeg(byte[] tiff) {
+		byte[] header = "Exif\0\0".getBytes(US_ASCII);
+
+		// insert APP1 segment after SOI marker
+		ByteBuffer jpeg = ByteBuffer.allocate(image.length + 4 + header.length + tiff.length);
+		jpeg.put(image, 0, 2);
+		jpeg.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (2 + header.length + tiff.length));
+		jpeg.put(header).put(tiff);
+		jpeg.put(image, 2, image.length - 2);
+		return jpeg.array();
+	}
+
+	static byte[] box(String type, byte[]... content) {
+		int size = 8 + Stream.of(content).mapToInt(b -> b.length).sum();
+		ByteBuffer box = ByteBuffer.allocate(size).putInt(size).put(type.getBytes(US_ASCII));
+		Stream.of(content).forEach(box::put);
+		return box.array();
+	}
+
+	static byte[] mp4(ZonedDateTime date, int mdat) {
+		// seconds since 1904-01-01
+		long time = date.toEpochSecond() + 2082844800L;
+
+		ByteBuffer mvhd = ByteBuffer.allocate(100);
+		mvhd.putInt(0).putInt((int) time).putInt((int) time).putInt(1000).putInt(60000).putInt(0x00010000).putShort((short) 0x0100);
+		mvhd.position(mvhd.position() + 10);
+		mvhd.putInt(0x00010000).putInt(0).putInt(0).putInt(0).putInt(0x00010000).putInt(0).putInt(0).putInt(0).putInt(0x40000000);
+		mvhd.position(mvhd.position() + 24);
+		mvhd.putInt(2);
+
+		return concat(box("ftyp", "isom".getBytes(US_ASCII), int32(512), "isomiso2mp41".getBytes(US_ASCII)), box("moov", box("mvhd", mvhd.array())), box("mdat", new byte[mdat]));
+	}
+
+	static byte[] concat(byte[]... bytes) {
+		ByteBuffer buffer = ByteBuffer.allocate(Stream.of(bytes).mapToInt(b -> b.length).sum());
+		Stream.of(bytes).forEach(buffer::put);
+		return buffer.array();
+	}
+
+	/**
+	 * Create JPEG photos with camera, date and location, some without location, and some MP4 videos
+	 */
+	static List<File> createPhotos(File folder, int count) throws Exception {
+		Random random = new Random(count);
+		List<File> files = new ArrayList<File>();
+
+		for (int i = 0; i < count; i++) {
+			ZonedDateTime date = ZonedDateTime.of(2010, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).plusMinutes(random.nextInt(5000000));
+
+			if (i % 10 == 9) {
+				File mp4 = new File(folder, String.format("VID_%05d.mp4", i));
+				Files.write(mp4.toPath(), mp4(date, 64 * 1024));
+				files.add(mp4);
+				continue;
+			}
+
+			GeoLocation location = i % 5 == 4 ? null : new GeoLocation(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+			byte[] makerNote = new byte[8 * 1024];
+			byte[] thumbnail = new byte[16 * 1024];
+			random.nextBytes(makerNote);
+			random.nextBytes(thumbnail);
+
+			File jpg = new File(folder, String.format("IMG_%05d.jpg", i));
+			Files.write(jpg.toPath(), jpeg(tiff("Canon", "Canon EOS " + (i % 7) + "D", date, location, makerNote, thumbnail)));
+			files.add(jpg);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Reference implementation that reads and keeps all metadata
+	 */
+	static class LegacyImageMetadata {
+
+		final Metadata metadata;
+
+		public LegacyImageMetadata(File file) throws Exception {
+			this.metadata = ImageMetadataReader.readMetadata(file);
+		}
+
+		public Optional<ZonedDateTime> getDateTaken() {
+			return Optional.ofNullable(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class)).map(d -> d.getDate(ExifSubIFDDirectory.TAG_DATETIME)).map(d -> d.toInstant().atZone(ZoneOffset.UTC));
+		}
+
+		public Optional<Map<CameraProperty, String>> getCameraModel() {
+			return Optional.ofNullable(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class)).map(d -> {
+				Map<CameraProperty, String> camera = new EnumMap<CameraProperty, String>(CameraProperty.class);
+				Optional.ofNullable(d.getDescription(ExifIFD0Directory.TAG_MAKE)).ifPresent(v -> camera.put(CameraProperty.maker, v));
+				Optional.ofNullable(d.getDescription(ExifIFD0Directory.TAG_MODEL)).ifPresent(v -> camera.put(CameraProperty.model, v));
+				return camera;
+			}).filter(m -> !m.isEmpty());
+		}
+
+		public Optional<GeoLocation> getGeoLocation() {
+			return Optional.ofNullable(metadata.getFirstDirectoryOfType(GpsDirectory.class)).map(GpsDirectory::getGeoLocation);
+		}
+	}
+
+	static void assertSameMetadata(File file) throws Exception {
+		LegacyImageMetadata expected = new LegacyImageMetadata(file);
+		ImageMetadata actual = new ImageMetadata(file);
+
+		assertEquals(file.getName(), expected.getDateTaken(), actual.getDateTaken());
+		assertEquals(file.getName(), expected.getCameraModel(), actual.getCameraModel());
+		assertEquals(file.getName(), expected.getGeoLocation(), actual.getGeoLocation());
+	}
+
+	@Test
+	public void jpeg() throws Exception {
+		File folder = new File(root, "jpeg");
+		folder.mkdirs();
+
+		for (File file : createPhotos(folder, 50)) {
+			assertSameMetadata(file);
+		}
+	}
+
+	@Test
+	public void jpegValues() throws Exception {
+		ZonedDateTime date = ZonedDateTime.of(2017, 5, 6, 12, 34, 56, 0, ZoneOffset.UTC);
+		File file = new File(root, "IMG_0001.jpg");
+		Files.write(file.toPath(), jpeg(tiff("NIKON CORPORATION", "NIKON D750", date, new GeoLocation(48.8584, 2.2945), new byte[100], new byte[100])));
+
+		ImageMetadata metadata = new ImageMetadata(file);
+		assertEquals(date, metadata.getDateTaken().get());
+		assertEquals("{maker=NIKON CORPORATION, model=NIKON D750}", metadata.getCameraModel().get().toString());
+		assertEquals(48.8584, metadata.getGeoLocation().get().getLatitude(), 0.001);
+		assertEquals(2.2945, metadata.getGeoLocation().get().getLongitude(), 0.001);
+		assertEquals("IMG_0001.jpg", metadata.getName().get());
+
+		// full snapshot includes tags that are not kept in memory
+		Map<String, String> snapshot = metadata.snapshot();
+		assertEquals("NIKON D750", snapshot.get("Model"));
+		assertTrue(snapshot.containsKey("Date/Time Original"));
+	}
+
+	@Test
+	public void readMetadataOnce() throws Exception {
+		ZonedDateTime date = ZonedDateTime.of(2017, 5, 6, 12, 34, 56, 0, ZoneOffset.UTC);
+		File file = new File(root, "IMG_0004.jpg");
+		Files.write(file.toPath(), jpeg(tiff("NIKON CORPORATION", "NIKON D750", date, null, new byte[100], new byte[100])));
+
+		ImageMetadata metadata = new ImageMetadata(file);
+		Map<String, String> snapshot = metadata.snapshot();
+
+		// all metadata has been read already
+		assertTrue(file.delete());
+		assertEquals(snapshot, metadata.snapshot());
+		assertEquals("NIKON D750", metadata.extract(m -> m.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MODEL)).get());
+	}
+
+	@Test
+	public void tiff() throws Exception {
+		ZonedDateTime date = ZonedDateTime.of(2015, 12, 24, 18, 0, 0, 0, ZoneOffset.UTC);
+		File file = new File(root, "IMG_0002.tif");
+		Files.write(file.toPath(), tiff("Canon", "Canon EOS 5D", date, new GeoLocation(-33.8568, 151.2153), new byte[1000], new byte[1000]));
+
+		assertSameMetadata(file);
+		assertEquals(date, new ImageMetadata(file).getDateTaken().get());
+	}
+
+	@Test
+	public void jpegWithoutExif() throws Exception {
+		File file = new File(root, "IMG_0003.jpg");
+		Files.write(file.toPath(), image);
+
+		ImageMetadata metadata = new ImageMetadata(file);
+		assertFalse(metadata.getDateTaken().isPresent());
+		assertFalse(metadata.getCameraModel().isPresent());
+		assertFalse(metadata.getLocationTaken().isPresent());
+	}
+
+	@Test
+	public void mp4() throws Exception {
+		File file = new File(root, "VID_0001.mp4");
+		Files.write(file.toPath(), mp4(ZonedDateTime.now(ZoneOffset.UTC), 1000));
+
+		assertSameMetadata(file);
+	}
+
+	@Test
+	public void matchExif() throws Exception {
+		File folder = new File(root, "match");
+		folder.mkdirs();
+
+		List<File> files = createPhotos(folder, 40);
+		files.add(new File(folder, "README.txt"));
+
+		Map<File, Object> strict = LocalDatasource.EXIF.match(files, true);
+		Map<File, Object> all = LocalDatasource.EXIF.match(files, false);
+
+		// photos with date taken in original order
+		assertEquals(36, strict.size());
+		assertTrue(strict.values().stream().allMatch(LocalDatasource.PhotoFile.class::isInstance));
+		assertEquals(files.subList(0, 40), new ArrayList<File>(all.keySet()));
+	}
+
+}
@@ -0,0 +1,240 @@
+package net.filebot.media;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.filebot.media.ImageMetadata.AddressComponent;
+
+public class LocalGeocoderTest {
+
+	static final String CITIES = String.join("\n",
+			// geonameid, name, asciiname, alternatenames, latitude, longitude, feature class, feature code, country code, cc2, admin1 code, admin2 code, admin3 code, admin4 code, population, elevation, dem, timezone, modification date
+			"5128581\tNew York City\tNew York City\tNYC,New York\t40.71427\t-74.00597\tP\tPPL\tUS\t\tNY\t\t\t\t8175133\t10\t57\tAmerica/New_York\t2017-05-23",
+			"5125771\tLong Island City\tLong Island City\t\t40.74482\t-73.94875\tP\tPPL\tUS\t\tNY\t081\t\t\t0\t\t9\tAmerica/New_York\t2017-05-23",
+			"5128638\tNew York\tNew York\t\t43.00035\t-75.4999\tA\tADM1\tUS\t\tNY\t\t\t\t19274244\t\t307\tAmerica/New_York\t2017-05-23",
+			"5368361\tLos Angeles\tLos Angeles\tLA\t34.05223\t-118.24368\tP\tPPLA2\tUS\t\tCA\t037\t\t\t3971883\t89\t115\tAmerica/Los_Angeles\t2017-05-23",
+			"4164138\tMiami\tMiami\t\t25.77427\t-80.19366\tP\tPPLA2\tUS\t\tFL\t086\t\t\t441003\t2\t4\tAmerica/New_York\t2017-05-23",
+			"6167865\tToronto\tToronto\t\t43.70011\t-79.4163\tP\tPPLA\tCA\t\t08\t\t\t\t2600000\t\t175\tAmerica/Toronto\t2017-05-23",
+			"2643743\tLondon\tLondon\t\t51.50853\t-0.12574\tP\tPPLC\tGB\t\tENG\tGLA\t\t\t7556900\t\t25\tEurope/London\t2017-05-23",
+			"2988507\tParis\tParis\t\t48.85341\t2.3488\tP\tPPLC\tFR\t\t11\t75\t751\t75056\t2138551\t\t42\tEurope/Paris\t2017-05-23",
+			"2950159\tBerlin\tBerlin\t\t52.52437\t13.41053\tP\tPPLC\tDE\t\t16\t00\t11000\t11000000\t3426354\t74\t43\tEurope/Berlin\t2017-05-23",
+			"1850147\tTokyo\tTokyo\t\t35.6895\t139.69171\tP\tPPLC\tJP\t\t40\t\t\t\t8336599\t\t44\tAsia/Tokyo\t2017-05-23",
+			"2147714\tSydney\tSydney\t\t-33.86785\t151.20732\tP\tPPLA\tAU\t\t02\t17200\t\t\t4627345\t\t58\tAustralia/Sydney\t2017-05-23",
+			"2193733\tAuckland\tAuckland\t\t-36.84853\t174.76349\tP\tPPLA\tNZ\t\tE7\t\t\t\t417910\t\t26\tPacific/Auckland\t2017-05-23",
+			"2198148\tSuva\tSuva\t\t-18.14161\t178.44149\tP\tPPLC\tFJ\t\tC\t\t\t\t77366\t\t14\tPacific/Fiji\t2017-05-23",
+			"3435910\tBuenos Aires\tBuenos Aires\t\t-34.61315\t-58.37723\tP\tPPLC\tAR\t\t07\t\t\t\t13076300\t\t31\tAmerica/Argentina/Buenos_Aires\t2017-05-23",
+			"2729907\tLongyearbyen\tLongyearbyen\t\t78.22334\t15.64689\tP\tPPLC\tSJ\t\t21\t\t\t\t2060\t\t11\tArctic/Longyearbyen\t2017-05-23",
+			"5139568\tMount Marcy\tMount Marcy\t\t44.11283\t-73.92374\tT\tMT\tUS\t\tNY\t031\t\t\t0\t1629\t1604\tAmerica/New_York\t2017-05-23",
+			"0000000\tMalformed\tMalformed\t\tnorth\twest\tP\tPPL\tUS\t\tNY\t\t\t\t0\t\t0\tAmerica/New_York\t2017-05-23",
+			"0000001\tTruncated");
+
+	static final String COUNTRIES = String.join("\n",
+			"# ISO\tISO3\tISO-Numeric\tfips\tCountry\tCapital",
+			"US\tUSA\t840\tUS\tUnited States\tWashington",
+			"CA\tCAN\t124\tCA\tCanada\tOttawa",
+			"GB\tGBR\t826\tUK\tUnited Kingdom\tLondon",
+			"FR\tFRA\t250\tFR\tFrance\tParis",
+			"DE\tDEU\t276\tGM\tGermany\tBerlin",
+			"JP\tJPN\t392\tJA\tJapan\tTokyo",
+			"AU\tAUS\t036\tAS\tAustralia\tCanberra",
+			"NZ\tNZL\t554\tNZ\tNew Zealand\tWellington",
+			"FJ\tFJI\t242\tFJ\tFiji\tSuva",
+			"AR\tARG\t032\tAR\tArgentina\tBuenos Aires");
+
+	static final String ADMIN1 = String.join("\n",
+			"US.NY\tNew York\tNew York\t5128638",
+			"US.CA\tCalifornia\tCalifornia\t5332921",
+			"US.FL\tFlorida\tFlorida\t4155751",
+			"CA.08\tOntario\tOntario\t6093943",
+			"GB.ENG\tEngland\tEngland\t6269131",
+			"FR.11\tÎle-de-France\tIle-de-France\t3012874",
+			"DE.16\tBerlin\tBerlin\t2950157",
+			"JP.40\tTokyo\tTokyo\t1850144",
+			"AU.02\tNew South Wales\tNew South Wales\t2155400",
+			"NZ.E7\tAuckland\tAuckland\t2193734",
+			"AR.07\tBuenos Aires F.D.\tBuenos Aires F.D.\t3433955");
+
+	static LocalGeocoder geocoder() throws Exception {
+		return LocalGeocoder.read(new StringReader(CITIES), new StringReader(COUNTRIES), new StringReader(ADMIN1));
+	}
+
+	static Map<AddressComponent, String> address(String country, String state, String city) {
+		Map<AddressComponent, String> address = new EnumMap<AddressComponent, String>(AddressComponent.class);
+		address.put(AddressComponent.country, country);
+		if (state != null) {
+			address.put(AddressComponent.administrative_area_level_1, state);
+		}
+		address.put(AddressComponent.locality, city);
+		return address;
+	}
+
+	@Test
+	public void locate() throws Exception {
+		LocalGeocoder geocoder = geocoder();
+
+		// populated places only
+		assertEquals(14, geocoder.size());
+
+		assertEquals(address("United States", "New York", "Long Island City"), geocoder.locate(40.7470444, -73.9411611));
+		assertEquals(address("United States", "New York", "New York City"), geocoder.locate(40.7127, -74.0059));
+		assertEquals(address("United States", "New York", "Long Island City"), geocoder.locate(44.11283, -73.92374));
+		assertEquals(address("United States", "California", "Los Angeles"), geocoder.locate(34.1341, -118.3215));
+		assertEquals(address("Canada", "Ontario", "Toronto"), geocoder.locate(43.6426, -79.3871));
+		assertEquals(address("United Kingdom", "England", "London"), geocoder.locate(51.5007, -0.1246));
+		assertEquals(address("France", "Île-de-France", "Paris"), geocoder.locate(48.8584, 2.2945));
+		assertEquals(address("Germany", "Berlin", "Berlin"), geocoder.locate(52.5163, 13.3777));
+		assertEquals(address("Japan", "Tokyo", "Tokyo"), geocoder.locate(35.6586, 139.7454));
+		assertEquals(address("Australia", "New South Wales", "Sydney"), geocoder.locate(-33.8568, 151.2153));
+		assertEquals(address("Argentina", "Buenos Aires F.D.", "Buenos Aires"), geocoder.locate(-34.6037, -58.3816));
+	}
+
+	@Test
+	public void locateAcrossAntimeridian() throws Exception {
+		LocalGeocoder geocoder = geocoder();
+
+		// no admin1 name for FJ.C
+		assertEquals(address("Fiji", null, "Suva"), geocoder.locate(-17.5, -179.9));
+		assertEquals(address("New Zealand", "Auckland", "Auckland"), geocoder.locate(-36.0, -179.9));
+	}
+
+	@Test
+	public void locateNearPoles() throws Exception {
+		LocalGeocoder geocoder = geocoder();
+
+		assertEquals("Longyearbyen", geocoder.locate(89.9, -170).get(AddressComponent.locality));
+		assertEquals("Auckland", geocoder.locate(-89.9, -60).get(AddressComponent.locality));
+	}
+
+	@Test
+	public void locateWithoutNames() throws Exception {
+		LocalGeocoder geocoder = LocalGeocoder.read(new StringReader(CITIES), null, null);
+
+		// fall back to country code
+		assertEquals(address("FR", null, "Paris"), geocoder.locate(48.8584, 2.2945));
+	}
+
+	@Test
+	public void locateEmpty() throws Exception {
+		LocalGeocoder geocoder = LocalGeocoder.read(new StringReader("# empty"), null, null);
+
+		assertEquals(0, geocoder.size());
+		assertTrue(geocoder.locate(48.8584, 2.2945).isEmpty());
+	}
+
+	@Test
+	public void readFolder() throws Exception {
+		File folder = Files.createTempDirectory("LocalGeocoderTest").toFile();
+		File cities = new File(folder, "cities1000.txt");
+		File countryInfo = new File(folder, "countryInfo.txt");
+		File admin1Codes = new File(folder, "admin1CodesASCII.txt");
+
+		try {
+			Files.write(cities.toPath(), CITIES.getBytes(UTF_8));
+			Files.write(countryInfo.toPath(), COUNTRIES.getBytes(UTF_8));
+			Files.write(admin1Codes.toPath(), ADMIN1.getBytes(UTF_8));
+
+			System.setProperty("net.filebot.media.gazetteer", cities.getPath());
+			ReverseGeocoder geocoder = ReverseGeocoder.getDefault();
+
+			assertTrue(geocoder instanceof LocalGeocoder);
+			assertEquals(address("France", "Île-de-France", "Paris"), geocoder.locate(48.8584, 2.2945));
+		} finally {
+			System.clearProperty("net.filebot.media.gazetteer");
+
+			cities.delete();
+			countryInfo.delete();
+			admin1Codes.delete();
+			folder.delete();
+		}
+	}
+
+	@Test
+	public void readFolderCorrupt() throws Exception {
+		File cities = Files.createTempFile("cities1000", ".txt").toFile();
+
+		try {
+			// malformed UTF-8
+			Files.write(cities.toPath(), new byte[] { 'P', 'a', 'r', 'i', 's', (byte) 0xC3, (byte) 0x28, '\n' });
+
+			System.setProperty("net.filebot.media.gazetteer", cities.getPath());
+			assertTrue(ReverseGeocoder.getDefault() instanceof GoogleGeocoder);
+		} finally {
+			System.clearProperty("net.filebot.media.gazetteer");
+			cities.delete();
+		}
+	}
+
+	@Test
+	public void quantizeCacheKey() {
+		// photos from the same street share the same cache entry
+		assertEquals("40.747,-73.941", GoogleGeocoder.getKey(40.7470444, -73.9411611));
+		assertEquals("40.747,-73.941", GoogleGeocoder.getKey(40.7468, -73.9408));
+		assertEquals("0.000,0.000", GoogleGeocoder.getKey(-0.0001, -0.0004));
+	}
+
+	/**
+	 * Places evenly distributed over the surface of the earth in GeoNames format
+	 */
+	static String randomPlaces(Random random, int size) {
+		StringBuilder places = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			double latitude = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+			double longitude = 360 * random.nextDouble() - 180;
+			places.append(String.format(Locale.ROOT, "%d\tPlace %d\tPlace %d\t\t%.5f\t%.5f\tP\tPPL\tXX\t\t%02d\t\t\t\t0\t\t0\tUTC\t2017-05-23%n", i, i, i, latitude, longitude, i % 100));
+		}
+		return places.toString();
+	}
+
+	static double distance(double lat1, double lon1, double lat2, double lon2) {
+		// haversine formula
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+	}
+
+	@Test
+	public void nearest() throws Exception {
+		Random random = new Random(42);
+		String places = randomPlaces(random, 5000);
+
+		LocalGeocoder geocoder = LocalGeocoder.read(new StringReader(places), null, null);
+
+		List<double[]> coordinates = new ArrayList<double[]>();
+		for (String line : places.split("\\R")) {
+			String[] row = line.split("\t");
+			coordinates.add(new double[] { Double.parseDouble(row[4]), Double.parseDouble(row[5]) });
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			double latitude = 180 * random.nextDouble() - 90;
+			double longitude = 360 * random.nextDouble() - 180;
+
+			// brute force search by great-circle distance
+			int expected = -1;
+			double min = Double.POSITIVE_INFINITY;
+			for (int j = 0; j < coordinates.size(); j++) {
+				double d = distance(latitude, longitude, coordinates.get(j)[0], coordinates.get(j)[1]);
+				if (d < min) {
+					min = d;
+					expected = j;
+				}
+			}
+
+			assertEquals("Place " + expected, geocoder.locate(latitude, longitude).get(AddressComponent.locality));
+		}
+	}
+
+}
@@ -1,13 +1,30 @@
 package net.filebot.media;
 
 import static java.util.Collections.*;
+import static net.filebot.similarity.CommonSequenceMatcher.*;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.junit.Test;
 
+import net.filebot.similarity.SeasonEpisodeMatcher.SeasonEpisodePattern;
+import net.filebot.similarity.SeasonEpisodeMatcher.SxE;
+
 public class MediaDetectionTest {
 
 	@Test
@@ -102,4 +119,131 @@ public class MediaDetectionTest {
 		assertEquals("Avatar 2009", MediaDetection.stripReleaseInfo("Avatar.2009.AAC.5.1"));
 	}
 
+	@Test
+	public void mapSeriesNamesByFiles() throws Exception {
+		Random random = new Random(42);
+		String[] shows = { "Doctor Who", "doctor who", "Dóctor Who", "Firefly", "Lost", "Heroes", "Fringe", "Alias", "House", "24", "Breaking Bad", "Game of Thrones" };
+
+		// synthetic library with a few thousand show folders, some of which share series names
+		Map<File, List<File>> filesByFolder = new TreeMap<File, List<File>>();
+		Map<File, Set<String>> seriesNamesByFolder = new LinkedHashMap<File, Set<String>>();
+		List<File> files = new ArrayList<File>();
+
+		for (int i = 0; i < 3000; i++) {
+			File folder = new File("Media/Show " + i);
+			Set<String> names = new TreeSet<String>(getLenientCollator(Locale.ENGLISH));
+
+			int n = random.nextInt(4);
+			for (int k = 0; k < n; k++) {
+				names.add(random.nextInt(10) == 0 ? shows[random.nextInt(shows.length)] : "Show " + random.nextInt(3000));
+			}
+
+			List<File> episodes = new ArrayList<File>();
+			for (int e = 1 + random.nextInt(6); e > 0; e--) {
+				String name = random.nextInt(8) == 0 ? "Extra " + e + ".mkv" : random.nextInt(8) == 0 ? String.format("Show %d%02d.mkv", 1 + random.nextInt(3), e) : String.format("Show S%02dE%02d.mkv", 1 + random.nextInt(3), e);
+				episodes.add(new File(folder, name));
+			}
+
+			filesByFolder.put(folder, episodes);
+			seriesNamesByFolder.put(folder, names);
+			files.addAll(episodes);
+		}
+
+		Map<Set<File>, Set<String>> expected = legacyMapSeriesNamesByFiles(files, filesByFolder, new HashMap<File, Set<String>>(seriesNamesByFolder), Locale.ENGLISH);
+		Map<Set<File>, Set<String>> actual = MediaDetection.mapSeriesNamesByFiles(files, filesByFolder, seriesNamesByFolder, Locale.ENGLISH);
+
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Reference implementation that joins folders by comparing the series names of all folders with each other
+	 */
+	static Map<Set<File>, Set<String>> legacyMapSeriesNamesByFiles(Collection<File> files, Map<File, List<File>> filesByFolder, Map<File, Set<String>> seriesNamesByFolder, Locale locale) {
+		Map<String, Set<File>> foldersBySeriesName = new HashMap<String, Set<File>>();
+
+		for (Set<String> nameSet : seriesNamesByFolder.values()) {
+			for (String name : nameSet) {
+				Set<File> foldersForSeries = new HashSet<File>();
+				for (Entry<File, Set<String>> it : seriesNamesByFolder.entrySet()) {
+					if (it.getValue().contains(name)) {
+						foldersForSeries.add(it.getKey());
+					}
+				}
+				foldersBySeriesName.put(name, foldersForSeries);
+			}
+		}
+
+		Map<Set<File>, Set<String>> batchSets = new HashMap<Set<File>, Set<String>>();
+
+		while (seriesNamesByFolder.size() > 0) {
+			Set<String> combinedNameSet = new TreeSet<String>(getLenientCollator(locale));
+			Set<File> combinedFolderSet = new HashSet<File>();
+			combinedFolderSet.add(seriesNamesByFolder.keySet().iterator().next());
+
+			boolean resolveFurther = true;
+			while (resolveFurther) {
+				boolean modified = false;
+				for (File folder : combinedFolderSet) {
+					modified |= combinedNameSet.addAll(seriesNamesByFolder.get(folder));
+				}
+				for (String name : combinedNameSet) {
+					modified |= combinedFolderSet.addAll(foldersBySeriesName.get(name));
+				}
+				resolveFurther &= modified;
+			}
+
+			Set<File> combinedFileSet = new TreeSet<File>();
+			for (File folder : combinedFolderSet) {
+				combinedFileSet.addAll(filesByFolder.get(folder));
+			}
+
+			if (combinedFileSet.size() > 0) {
+				Map<Object, List<File>> filesByEpisode = new LinkedHashMap<Object, List<File>>();
+				for (File file : combinedFileSet) {
+					Object eid = MediaDetection.getEpisodeIdentifier(file.getName(), true);
+					if (eid == null) {
+						List<SxE> d3sxe = new SeasonEpisodePattern(null, "(?<!\\p{Alnum})(\\d)(\\d{2})(?!\\p{Alnum})").match(file.getName());
+						if (d3sxe != null && d3sxe.size() > 0) {
+							eid = d3sxe;
+						}
+					}
+					if (eid == null) {
+						eid = file;
+					}
+					filesByEpisode.computeIfAbsent(eid, k -> new ArrayList<File>()).add(file);
+				}
+
+				for (int i = 0; true; i++) {
+					Set<File> series = new LinkedHashSet<File>();
+					for (List<File> episode : filesByEpisode.values()) {
+						if (i < episode.size()) {
+							series.add(episode.get(i));
+						}
+					}
+					if (series.isEmpty()) {
+						break;
+					}
+					combinedFileSet.removeAll(series);
+					batchSets.put(series, combinedNameSet);
+				}
+
+				if (combinedFileSet.size() > 0) {
+					batchSets.put(combinedFileSet, combinedNameSet);
+				}
+			}
+
+			seriesNamesByFolder.keySet().removeAll(combinedFolderSet);
+		}
+
+		Set<File> remainingFiles = new HashSet<File>(files);
+		for (Set<File> batch : batchSets.keySet()) {
+			remainingFiles.removeAll(batch);
+		}
+		if (remainingFiles.size() > 0) {
+			batchSets.put(remainingFiles, null);
+		}
+
+		return batchSets;
+	}
+
 }
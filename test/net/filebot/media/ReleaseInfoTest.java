@@ -1,13 +1,18 @@
 
 package net.filebot.media;
 
+import static java.util.Arrays.*;
 import static java.util.Collections.*;
 import static org.junit.Assert.*;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.junit.Test;
 
+import net.filebot.Resource;
+
 public class ReleaseInfoTest {
 
 	ReleaseInfo info = new ReleaseInfo();
@@ -50,6 +55,47 @@ public class ReleaseInfoTest {
 		assertEquals("John [2016]  ", clean(info.getClutterBracketPattern(false), "John [2016] [Action, Drama] (ENG)"));
 	}
 
+	@Test
+	public void cleanReleaseCache() throws Exception {
+		OfflineReleaseInfo offline = new OfflineReleaseInfo();
+		List<String> names = asList("Jurassic.Park[1993]DvDrip-aXXo", "[HorribleSubs]_Infinite_Stratos_2_-_01_[HorribleSubs]", "The.Legend.of.the.Blue.Sea.E01", "aXXo");
+
+		List<String> strict = offline.cleanRelease(names, true);
+		List<String> lenient = offline.cleanRelease(names, false);
+		int count = offline.count;
+
+		assertEquals("[Jurassic Park 1993, Infinite Stratos 2 01, The Legend of the Blue Sea E01]", strict.toString());
+		assertEquals("[Jurassic Park 1993, Infinite Stratos 2 01, The Legend of the Blue Sea E01]", lenient.toString());
+
+		// same results without applying the patterns again
+		assertEquals(strict, offline.cleanRelease(names, true));
+		assertEquals(lenient, offline.cleanRelease(names, false));
+		assertEquals(count, offline.count);
+	}
+
+	static class OfflineReleaseInfo extends ReleaseInfo {
+
+		int count;
+
+		@Override
+		protected Resource<String[]> lines(String name, Duration expirationTime) {
+			switch (name) {
+			case "url.release-groups":
+				return () -> new String[] { "aXXo", "HorribleSubs", "RARBG" };
+			case "url.query-blacklist":
+				return () -> new String[] { "Sample" };
+			default:
+				return super.lines(name, expirationTime);
+			}
+		}
+
+		@Override
+		public String clean(String item, Pattern... blacklisted) {
+			count++;
+			return super.clean(item, blacklisted);
+		}
+	}
+
 	private static String clean(Pattern p, String s) {
 		return p.matcher(s).replaceAll("");
 	}
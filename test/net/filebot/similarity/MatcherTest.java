@@ -0,0 +1,215 @@
+package net.filebot.similarity;
+
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import net.filebot.util.FileTreeWalkerTest;
+
+public class MatcherTest {
+
+	@Test
+	public void match() throws Exception {
+		List<String> values = asList("a1", "b2", "c3");
+		List<String> candidates = asList("C3", "A1", "B2", "D4");
+
+		SimilarityMetric metric = (o1, o2) -> o1.toString().equalsIgnoreCase(o2.toString()) ? 1 : 0;
+		List<Match<String, String>> matches = new Matcher<String, String>(values, candidates, true, new SimilarityMetric[] { metric }).match();
+
+		assertEquals("[[a1, A1], [b2, B2], [c3, C3]]", matches.toString());
+	}
+
+	@Test
+	public void matchNonStrict() throws Exception {
+		SimilarityMetric metric = (o1, o2) -> 0;
+		Matcher<String, String> matcher = new Matcher<String, String>(asList("b", "a"), asList("y", "x", "z"), false, new SimilarityMetric[] { metric });
+
+		assertEquals("[[b, y], [a, x]]", matcher.match().toString());
+		assertEquals("[z]", matcher.remainingCandidates().toString());
+	}
+
+	@Test
+	public void equivalence() throws Exception {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 500; i++) {
+			List<Object> values = sample(random, "v", random.nextInt(30));
+			List<Object> candidates = sample(random, "c", random.nextInt(30));
+
+			SimilarityMetric[] metrics = new SimilarityMetric[1 + random.nextInt(4)];
+			for (int m = 0; m < metrics.length; m++) {
+				metrics[m] = metric(random.nextInt(), 1 + random.nextInt(4));
+			}
+
+			for (boolean strict : new boolean[] { true, false }) {
+				List<Match<Object, Object>> expected = new LegacyMatcher(values, candidates, strict, metrics).match();
+				List<Match<Object, Object>> actual = new Matcher<Object, Object>(values, candidates, strict, metrics).match();
+
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void equivalenceParallel() throws Exception {
+		Random random = new Random(42);
+
+		// large enough to compute similarity on multiple threads
+		List<Object> values = sample(random, "v", 60);
+		List<Object> candidates = sample(random, "c", 60);
+		SimilarityMetric[] metrics = { metric(random.nextInt(), 3), metric(random.nextInt(), 4) };
+
+		assertEquals(new LegacyMatcher(values, candidates, true, metrics).match(), new Matcher<Object, Object>(values, candidates, true, metrics).match());
+	}
+
+	@Test
+	public void securityManager() throws Exception {
+		File folder = Files.createTempDirectory("MatcherTest").toFile();
+		try {
+			List<File> files = new ArrayList<File>();
+			for (int i = 0; i < 60; i++) {
+				File f = new File(folder, "File " + i);
+				Files.write(f.toPath(), new byte[i]);
+				files.add(f);
+			}
+
+			List<File> candidates = new ArrayList<File>(files);
+			reverse(candidates);
+
+			List<Match<File, File>> matches = FileTreeWalkerTest.withSecurityManager(() -> {
+				try {
+					return new Matcher<File, File>(files, candidates, true, new SimilarityMetric[] { new FileSizeMetric() }).match();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+
+			assertEquals(files.size(), matches.size());
+			matches.forEach(m -> assertEquals(m.getValue(), m.getCandidate()));
+		} finally {
+			for (File f : folder.listFiles()) {
+				f.delete();
+			}
+			folder.delete();
+		}
+	}
+
+	private List<Object> sample(Random random, String prefix, int size) {
+		List<Object> sample = new ArrayList<Object>();
+		for (int i = 0; i < size; i++) {
+			// equal but not identical objects
+			sample.add(new String(prefix + random.nextInt(size + 1)));
+		}
+		return sample;
+	}
+
+	private SimilarityMetric metric(int seed, int levels) {
+		float[] similarity = { 0, -0f, 0.5f, 1, Float.NaN };
+		return (o1, o2) -> similarity[Math.floorMod(seed ^ o1.hashCode() * 31 + o2.hashCode(), Math.min(levels, similarity.length))];
+	}
+
+	/**
+	 * Reference implementation that operates on the cross product of Match objects.
+	 */
+	private static class LegacyMatcher {
+
+		private final List<Object> values;
+		private final List<Object> candidates;
+		private final boolean strict;
+		private final SimilarityMetric[] metrics;
+
+		private final Map<Object, Match<Object, Object>> byValue = new IdentityHashMap<Object, Match<Object, Object>>();
+		private final Map<Object, Match<Object, Object>> byCandidate = new IdentityHashMap<Object, Match<Object, Object>>();
+
+		public LegacyMatcher(List<Object> values, List<Object> candidates, boolean strict, SimilarityMetric[] metrics) {
+			this.values = values;
+			this.candidates = candidates;
+			this.strict = strict;
+			this.metrics = metrics;
+		}
+
+		public List<Match<Object, Object>> match() {
+			List<Match<Object, Object>> possibleMatches = new ArrayList<Match<Object, Object>>();
+			for (Object v : values) {
+				for (Object c : candidates) {
+					possibleMatches.add(new Match<Object, Object>(v, c));
+				}
+			}
+
+			deepMatch(possibleMatches, 0);
+
+			List<Match<Object, Object>> result = new ArrayList<Match<Object, Object>>();
+			for (Object v : values) {
+				if (byValue.containsKey(v)) {
+					result.add(byValue.get(v));
+				}
+			}
+			return result;
+		}
+
+		private void add(Match<Object, Object> m) {
+			if (disjoint(m)) {
+				byValue.put(m.getValue(), m);
+				byCandidate.put(m.getCandidate(), m);
+			}
+		}
+
+		private boolean disjoint(Match<Object, Object> m) {
+			return !byValue.containsKey(m.getValue()) && !byCandidate.containsKey(m.getCandidate());
+		}
+
+		private void deepMatch(Collection<Match<Object, Object>> possibleMatches, int level) {
+			if (level >= metrics.length || possibleMatches.isEmpty()) {
+				if (!strict) {
+					List<Match<Object, Object>> rest = new ArrayList<Match<Object, Object>>(possibleMatches);
+					rest.sort((m1, m2) -> m1.toString().compareToIgnoreCase(m2.toString()));
+					rest.forEach(this::add);
+				}
+				return;
+			}
+
+			TreeMap<Float, Set<Match<Object, Object>>> similarityMap = new TreeMap<Float, Set<Match<Object, Object>>>((f1, f2) -> f2.compareTo(f1));
+			for (Match<Object, Object> m : possibleMatches) {
+				similarityMap.computeIfAbsent(metrics[level].getSimilarity(m.getValue(), m.getCandidate()), k -> new LinkedHashSet<Match<Object, Object>>()).add(m);
+			}
+
+			for (Set<Match<Object, Object>> group : similarityMap.values()) {
+				Map<Object, Integer> valueCount = new HashMap<Object, Integer>();
+				Map<Object, Integer> candidateCount = new HashMap<Object, Integer>();
+				group.forEach(m -> {
+					valueCount.merge(m.getValue(), 1, Integer::sum);
+					candidateCount.merge(m.getCandidate(), 1, Integer::sum);
+				});
+
+				List<Match<Object, Object>> disjointMatches = new ArrayList<Match<Object, Object>>();
+				group.forEach(m -> {
+					if (valueCount.get(m.getValue()) == 1 && candidateCount.get(m.getCandidate()) == 1) {
+						disjointMatches.add(m);
+					}
+				});
+
+				disjointMatches.forEach(this::add);
+				group.removeAll(disjointMatches);
+				group.removeIf(m -> !disjoint(m));
+
+				deepMatch(group, level + 1);
+			}
+		}
+	}
+
+}
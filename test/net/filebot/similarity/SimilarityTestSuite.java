@@ -5,7 +5,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ SeriesNameMatcherTest.class, SeasonEpisodeMatcherTest.class, DateMatcherTest.class, NameSimilarityMetricTest.class, NumericSimilarityMetricTest.class, SeasonEpisodeMetricTest.class, SimilarityComparatorTest.class })
+@SuiteClasses({ SeriesNameMatcherTest.class, SeasonEpisodeMatcherTest.class, DateMatcherTest.class, NameSimilarityMetricTest.class, NumericSimilarityMetricTest.class, SeasonEpisodeMetricTest.class, SimilarityComparatorTest.class, MatcherTest.class })
 public class SimilarityTestSuite {
 
 }
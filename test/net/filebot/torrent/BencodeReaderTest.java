@@ -0,0 +1,321 @@
+package net.filebot.torrent;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class BencodeReaderTest {
+
+	static void encode(Object value, ByteArrayOutputStream out) {
+		if (value instanceof Long) {
+			write(("i" + value + "e").getBytes(US_ASCII), out);
+		} else if (value instanceof byte[]) {
+			byte[] bytes = (byte[]) value;
+			write((bytes.length + ":").getBytes(US_ASCII), out);
+			write(bytes, out);
+		} else if (value instanceof String) {
+			encode(((String) value).getBytes(UTF_8), out);
+		} else if (value instanceof List) {
+			out.write('l');
+			((List<?>) value).forEach(it -> encode(it, out));
+			out.write('e');
+		} else if (value instanceof Map) {
+			// keys must be sorted by raw bytes
+			out.write('d');
+			new TreeMap<Object, Object>((Map<?, ?>) value).forEach((k, v) -> {
+				encode(((String) k).getBytes(ISO_8859_1), out);
+				encode(v, out);
+			});
+			out.write('e');
+		} else {
+			throw new IllegalArgumentException(String.valueOf(value));
+		}
+	}
+
+	static void write(byte[] bytes, ByteArrayOutputStream out) {
+		out.write(bytes, 0, bytes.length);
+	}
+
+	static byte[] encode(Object value) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encode(value, out);
+		return out.toByteArray();
+	}
+
+	static Object random(Random random, int depth) {
+		switch (depth <= 0 ? random.nextInt(2) : random.nextInt(4)) {
+		case 0:
+			long[] numbers = { 0, -1, 42, Long.MIN_VALUE, Long.MAX_VALUE, random.nextLong(), random.nextInt(1000) };
+			return numbers[random.nextInt(numbers.length)];
+		case 1:
+			byte[] bytes = new byte[random.nextInt(5) == 0 ? random.nextInt(1000) : random.nextInt(10)];
+			random.nextBytes(bytes);
+			return bytes;
+		case 2:
+			List<Object> list = new ArrayList<Object>();
+			for (int i = random.nextInt(5); i > 0; i--) {
+				list.add(random(random, depth - 1));
+			}
+			return list;
+		default:
+			return randomMap(random, depth);
+		}
+	}
+
+	static Map<String, Object> randomMap(Random random, int depth) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		for (int i = random.nextInt(6); i > 0; i--) {
+			byte[] key = new byte[random.nextInt(6)];
+			random.nextBytes(key);
+			map.put(new String(key, ISO_8859_1), random(random, depth - 1));
+		}
+		return map;
+	}
+
+	/**
+	 * Deep copy with comparable byte strings
+	 */
+	static Object normalize(Object value) {
+		if (value instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) value);
+		}
+		if (value instanceof List) {
+			List<Object> list = new ArrayList<Object>();
+			for (Object it : (List<?>) value) {
+				list.add(normalize(it));
+			}
+			return list;
+		}
+		if (value instanceof Map) {
+			Map<Object, Object> map = new TreeMap<Object, Object>();
+			((Map<?, ?>) value).forEach((k, v) -> map.put(k, normalize(v)));
+			return map;
+		}
+		return value;
+	}
+
+	static Map<?, ?> decode(byte[] bytes) throws IOException {
+		return BencodeReader.decode(ByteBuffer.wrap(bytes));
+	}
+
+	static Map<?, ?> legacyDecode(byte[] bytes) throws IOException {
+		return BDecoder.decode(new ByteArrayInputStream(bytes));
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 2000; i++) {
+			Map<String, Object> value = randomMap(random, 4);
+			byte[] bytes = encode(value);
+
+			assertEquals(normalize(value), normalize(decode(bytes)));
+			assertEquals(normalize(legacyDecode(bytes)), normalize(decode(bytes)));
+		}
+	}
+
+	@Test
+	public void views() throws Exception {
+		Map<?, ?> map = decode("d4:infod5:filesld6:lengthi42e4:pathl1:a5:b.mkveed6:lengthi-7e4:pathl1:ceee4:name4:Test6:pieces20:01234567890123456789ee".getBytes(US_ASCII));
+
+		Map<?, ?> info = (Map<?, ?>) map.get("info");
+		assertEquals(1, map.size());
+		assertEquals(3, info.size());
+		assertTrue(info.containsKey("pieces"));
+		assertFalse(info.containsKey("piece"));
+		assertNull(info.get("length"));
+		assertNull(info.get(42));
+		assertEquals("Test", new String((byte[]) info.get("name"), UTF_8));
+
+		List<?> files = (List<?>) info.get("files");
+		assertEquals(2, files.size());
+		assertEquals(-7L, ((Map<?, ?>) files.get(1)).get("length"));
+		assertEquals("b.mkv", new String((byte[]) ((List<?>) ((Map<?, ?>) files.get(0)).get("path")).get(1), UTF_8));
+		assertEquals("[files, name, pieces]", info.keySet().toString());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void viewsIndexOutOfBounds() throws Exception {
+		((List<?>) decode("d1:alee".getBytes(US_ASCII)).get("a")).get(0);
+	}
+
+	static void assertInvalid(String data) {
+		try {
+			decode(data.getBytes(ISO_8859_1));
+			fail(data);
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void invalid() throws Exception {
+		assertInvalid("");
+		assertInvalid("li1ee");
+		assertInvalid("d");
+		assertInvalid("d3:fooe");
+		assertInvalid("di1ei2ee");
+		assertInvalid("dle1:ae");
+		assertInvalid("d3:foo5:abce");
+		assertInvalid("d1:aie");
+		assertInvalid("d1:ai-e");
+		assertInvalid("d1:ai1x2e");
+		assertInvalid("d1:ai9223372036854775808ee");
+		assertInvalid("d1:a99999999999:xe");
+		assertInvalid("d1:ax1:be");
+		assertInvalid("d1:ale");
+		assertInvalid("d1:alllllll");
+
+		// trailing data is ignored, same as BDecoder
+		assertEquals(1, decode("d1:ai-9223372036854775808eeXYZ".getBytes(US_ASCII)).size());
+	}
+
+	@Test
+	public void fuzz() throws Exception {
+		Random random = new Random(7);
+
+		for (int i = 0; i < 5000; i++) {
+			byte[] bytes = encode(randomMap(random, 3));
+
+			// replace a byte or truncate
+			switch (random.nextInt(3)) {
+			case 0:
+				bytes[random.nextInt(bytes.length)] = "deil:0123456789-x".getBytes(US_ASCII)[random.nextInt(17)];
+				break;
+			case 1:
+				bytes[random.nextInt(bytes.length)] = (byte) random.nextInt(256);
+				break;
+			default:
+				bytes = Arrays.copyOf(bytes, random.nextInt(bytes.length));
+				break;
+			}
+
+			// either reject invalid data or decode everything without errors
+			Map<?, ?> map = null;
+			try {
+				map = decode(bytes);
+			} catch (IOException e) {
+				continue;
+			}
+			assertEquals(normalize(map), normalize(decode(encode(toEncodable(map)))));
+		}
+	}
+
+	/**
+	 * Convert decoded values into values accepted by the test encoder
+	 */
+	static Object toEncodable(Object value) {
+		if (value instanceof List) {
+			List<Object> list = new ArrayList<Object>();
+			((List<?>) value).forEach(it -> list.add(toEncodable(it)));
+			return list;
+		}
+		if (value instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			((Map<?, ?>) value).forEach((k, v) -> map.put((String) k, toEncodable(v)));
+			return map;
+		}
+		return value;
+	}
+
+	static Map<String, Object> createTorrent(int files) {
+		Random random = new Random(files);
+
+		List<Object> entries = new ArrayList<Object>();
+		long size = 0;
+		for (int i = 0; i < files; i++) {
+			Map<String, Object> file = new LinkedHashMap<String, Object>();
+			long length = random.nextInt(Integer.MAX_VALUE);
+			file.put("length", length);
+			file.put("path", List.of("Season " + (1 + i % 10), "Extras", String.format("Série %05d - Épisode.mkv", i)));
+			entries.add(file);
+			size += length;
+		}
+
+		Map<String, Object> info = new LinkedHashMap<String, Object>();
+		long pieceLength = 4 * 1024 * 1024;
+		byte[] pieces = new byte[(int) Math.min(20 * (size / pieceLength + 1), 8 * 1024 * 1024 / 20 * 20)];
+		random.nextBytes(pieces);
+
+		info.put("name", "Test Torrent");
+		info.put("piece length", pieceLength);
+		info.put("pieces", pieces);
+		info.put("files", entries);
+
+		Map<String, Object> torrent = new LinkedHashMap<String, Object>();
+		torrent.put("announce", "http://tracker.example.org/announce");
+		torrent.put("created by", "BencodeReaderTest");
+		torrent.put("creation date", 1500000000L);
+		torrent.put("encoding", "UTF-8");
+		torrent.put("info", info);
+		return torrent;
+	}
+
+	static Torrent legacyTorrent(File file) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			return new Torrent(BDecoder.decode(in));
+		}
+	}
+
+	static void assertTorrentEquals(Torrent expected, Torrent actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getAnnounce(), actual.getAnnounce());
+		assertEquals(expected.getComment(), actual.getComment());
+		assertEquals(expected.getCreatedBy(), actual.getCreatedBy());
+		assertEquals(expected.getCreationDate(), actual.getCreationDate());
+		assertEquals(expected.getEncoding(), actual.getEncoding());
+		assertEquals(expected.getPieceLength(), actual.getPieceLength());
+		assertEquals(expected.isSingleFileTorrent(), actual.isSingleFileTorrent());
+		assertEquals(expected.getFiles(), actual.getFiles());
+	}
+
+	@Test
+	public void torrent() throws Exception {
+		File file = File.createTempFile("multi", ".torrent");
+		try {
+			Files.write(file.toPath(), encode(createTorrent(100)));
+
+			Torrent torrent = new Torrent(file);
+			assertTorrentEquals(legacyTorrent(file), torrent);
+			assertEquals("Season 4/Extras/Série 00013 - Épisode.mkv", torrent.getFiles().get(13).getPath());
+
+			// read into memory instead of mapping the file (e.g. on Windows)
+			assertTorrentEquals(legacyTorrent(file), new Torrent(BencodeReader.decode(file, false)));
+
+			// single file torrent
+			Map<String, Object> single = createTorrent(0);
+			@SuppressWarnings("unchecked")
+			Map<String, Object> info = (Map<String, Object>) single.get("info");
+			info.remove("files");
+			info.put("length", 1234L);
+			Files.write(file.toPath(), encode(single));
+
+			torrent = new Torrent(file);
+			assertTorrentEquals(legacyTorrent(file), torrent);
+			assertTrue(torrent.isSingleFileTorrent());
+			assertEquals(1234L, torrent.getFiles().get(0).getLength());
+		} finally {
+			file.delete();
+		}
+	}
+
+}
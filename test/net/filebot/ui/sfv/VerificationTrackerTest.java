@@ -0,0 +1,211 @@
+package net.filebot.ui.sfv;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static net.filebot.MediaTypes.*;
+import static net.filebot.hash.VerificationUtilities.*;
+import static net.filebot.util.FileUtilities.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.filebot.hash.HashType;
+import net.filebot.hash.VerificationFileReader;
+import net.filebot.hash.VerificationFileWriter;
+import net.filebot.ui.sfv.ChecksumTableTransferablePolicy.VerificationTracker;
+
+public class VerificationTrackerTest {
+
+	static File root;
+	static List<File> files;
+
+	static ExecutorService executor;
+
+	@BeforeClass
+	public static void createTree() throws Exception {
+		root = Files.createTempDirectory("VerificationTrackerTest").toFile();
+		files = createTree(root, 50, 4, 20);
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterClass
+	public static void deleteTree() throws Exception {
+		executor.shutdownNow();
+		delete(root);
+	}
+
+	static void delete(File folder) throws IOException {
+		try (Stream<Path> paths = Files.walk(folder.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	/**
+	 * Create folders with multiple verification files each, partially overlapping and with nested folders, and return all files (listed and unlisted)
+	 */
+	static List<File> createTree(File root, int folders, int verificationFilesPerFolder, int entries) throws Exception {
+		Random random = new Random(42);
+		HashType[] types = { HashType.SFV, HashType.MD5, HashType.SHA1, HashType.SHA256 };
+		List<File> files = new ArrayList<File>();
+
+		// verification file in the root folder for all folders
+		try (VerificationFileWriter all = new VerificationFileWriter(new File(root, "all.md5"), HashType.MD5.getFormat(), UTF_8)) {
+			for (int f = 0; f < folders; f++) {
+				File folder = new File(root, String.format("Disc.%04d", f));
+				File nested = new File(folder, "CD1");
+				nested.mkdirs();
+
+				for (int v = 0; v < verificationFilesPerFolder; v++) {
+					HashType type = types[v % types.length];
+					File verificationFile = new File(v % 3 == 2 ? nested : folder, String.format("part%d.%s", v, type.name().toLowerCase()));
+
+					try (VerificationFileWriter out = new VerificationFileWriter(verificationFile, type.getFormat(), UTF_8)) {
+						for (int e = 0; e < entries; e++) {
+							// overlapping file sets
+							int n = v * entries / 2 + e;
+							String path = v % 3 == 1 ? "CD1/File." + n + ".bin" : "File." + n + ".bin";
+							String hash = String.format("%0" + type.newHash().digest().length() + "x", random.nextInt(Integer.MAX_VALUE));
+
+							out.write(path, hash);
+							files.add(new File(verificationFile.getParentFile(), path));
+
+							if (e % 5 == 0) {
+								all.write(folder.getName() + "/" + path, hash);
+							}
+						}
+					}
+				}
+
+				// files not listed in any verification file
+				files.add(new File(folder, "Unknown.bin"));
+				files.add(new File(nested, "Unknown.bin"));
+			}
+		}
+
+		return files;
+	}
+
+	/**
+	 * Reference implementation that searches all previously read verification files for each file
+	 */
+	static class LegacyVerificationTracker {
+
+		private final Map<File, Integer> seen = new HashMap<File, Integer>();
+		private final Map<File, Map<File, String>> cache = new HashMap<File, Map<File, String>>();
+		private final Map<File, HashType> types = new HashMap<File, HashType>();
+
+		private final int maxDepth;
+
+		public LegacyVerificationTracker(int maxDepth) {
+			this.maxDepth = maxDepth;
+		}
+
+		public Map<File, String> getHashByVerificationFile(File file) throws IOException {
+			File folder = file.getParentFile();
+			int depth = 0;
+
+			while (folder != null && depth <= maxDepth) {
+				Integer seenLevel = seen.get(folder);
+
+				if (seenLevel != null && seenLevel <= depth) {
+					break;
+				}
+
+				if (seenLevel == null) {
+					for (File verificationFile : getChildren(folder, VERIFICATION_FILES)) {
+						HashType hashType = getHashType(verificationFile);
+						cache.put(verificationFile, importVerificationFile(verificationFile, hashType, verificationFile.getParentFile()));
+						types.put(verificationFile, hashType);
+					}
+				}
+
+				seen.put(folder, depth);
+				folder = folder.getParentFile();
+				depth++;
+			}
+
+			if (cache.isEmpty()) {
+				return emptyMap();
+			}
+
+			Map<File, String> result = new HashMap<File, String>(2);
+			for (Entry<File, Map<File, String>> entry : cache.entrySet()) {
+				String hash = entry.getValue().get(file);
+				if (hash != null) {
+					result.put(entry.getKey(), hash);
+				}
+			}
+			return result;
+		}
+
+		public HashType getVerificationFileType(File verificationFile) {
+			return types.get(verificationFile);
+		}
+
+		private Map<File, String> importVerificationFile(File verificationFile, HashType hashType, File baseFolder) throws IOException {
+			Map<File, String> result = new HashMap<File, String>();
+			try (VerificationFileReader parser = new VerificationFileReader(createTextReader(verificationFile), hashType.getFormat())) {
+				while (parser.hasNext()) {
+					Entry<File, String> entry = parser.next();
+					result.put(new File(baseFolder, entry.getKey().getPath()), entry.getValue());
+				}
+			}
+			return result;
+		}
+	}
+
+	@Test
+	public void getHashByVerificationFile() throws Exception {
+		LegacyVerificationTracker expected = new LegacyVerificationTracker(5);
+		VerificationTracker actual = new VerificationTracker(5, executor);
+
+		int verified = 0;
+		for (File file : files) {
+			Map<File, String> hashes = expected.getHashByVerificationFile(file);
+			assertEquals(file.getPath(), hashes, actual.getHashByVerificationFile(file));
+
+			for (File verificationFile : hashes.keySet()) {
+				assertEquals(expected.getVerificationFileType(verificationFile), actual.getVerificationFileType(verificationFile));
+			}
+
+			if (hashes.size() > 0) {
+				verified++;
+			}
+		}
+
+		// make sure we are actually testing something
+		assertTrue(verified > files.size() / 2);
+		assertEquals(2, actual.getHashByVerificationFile(new File(root, "Disc.0001/File.0.bin")).size());
+	}
+
+	@Test
+	public void getHashByVerificationFileOrder() throws Exception {
+		// files may be looked up in any order, e.g. nested folders first
+		List<File> reverse = new ArrayList<File>(files);
+		reverse(reverse);
+
+		LegacyVerificationTracker expected = new LegacyVerificationTracker(5);
+		VerificationTracker actual = new VerificationTracker(5, executor);
+
+		for (File file : reverse) {
+			assertEquals(file.getPath(), expected.getHashByVerificationFile(file), actual.getHashByVerificationFile(file));
+		}
+	}
+
+}
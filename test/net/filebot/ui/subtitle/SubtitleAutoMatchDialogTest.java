@@ -0,0 +1,495 @@
+package net.filebot.ui.subtitle;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+import java.awt.Component;
+import java.io.File;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.swing.Icon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.filebot.subtitle.SubtitleNaming;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.DownloadTask;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.QueryTask;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.SubtitleDescriptorBean;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.SubtitleMapping;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.SubtitleProviderBean;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.SubtitleServiceBean;
+import net.filebot.ui.subtitle.SubtitleAutoMatchDialog.VideoHashSubtitleServiceBean;
+import net.filebot.web.SubtitleDescriptor;
+import net.filebot.web.SubtitleProvider;
+import net.filebot.web.SubtitleSearchResult;
+import net.filebot.web.VideoHashSubtitleService;
+
+public class SubtitleAutoMatchDialogTest {
+
+	static final long LATENCY = 25;
+
+	File root;
+	List<File> videos;
+
+	ExecutorService executor;
+
+	@Before
+	public void createFiles() throws Exception {
+		root = Files.createTempDirectory("SubtitleAutoMatchDialogTest").toFile();
+		videos = new ArrayList<File>();
+
+		for (int e = 1; e <= 8; e++) {
+			File video = new File(root, String.format("Firefly.S01E%02d.mkv", e));
+			video.createNewFile();
+			videos.add(video);
+		}
+
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void deleteFiles() throws Exception {
+		executor.shutdownNow();
+
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Test
+	public void queryServicesConcurrently() throws Exception {
+		// each service waits for the other service to be queried at the same time
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		StubHashService opensubtitles = new StubHashService("OpenSubtitles", f -> true, barrier);
+		StubHashService shooter = new StubHashService("Shooter", f -> true, barrier);
+		StubProvider provider = new StubProvider();
+
+		List<SubtitleMapping> mappings = query(2, new VideoHashSubtitleServiceBean(opensubtitles), new VideoHashSubtitleServiceBean(shooter), new StubProviderBean(provider));
+
+		for (SubtitleMapping mapping : mappings) {
+			String name = mapping.getVideoFile().getName().replace(".mkv", "");
+			assertEquals(2, mapping.getOptions().length);
+			assertEquals(name, mapping.getSelectedOption().getDescriptor().getName());
+			assertEquals(asList("OpenSubtitles", "Shooter"), Stream.of(mapping.getOptions()).map(it -> it.getService().getName()).sorted().collect(toList()));
+		}
+
+		// all videos have been matched by hash
+		assertEquals(0, provider.searchRequests.get());
+	}
+
+	@Test
+	public void queryRemainingVideosByName() throws Exception {
+		StubHashService opensubtitles = new StubHashService("OpenSubtitles", f -> f.getName().contains("E01"), null);
+		StubProvider provider = new StubProvider();
+
+		List<SubtitleMapping> mappings = query(2, new VideoHashSubtitleServiceBean(opensubtitles), new StubProviderBean(provider));
+
+		for (SubtitleMapping mapping : mappings) {
+			String name = mapping.getVideoFile().getName().replace(".mkv", "");
+			if (name.endsWith("E01")) {
+				assertEquals(asList("OpenSubtitles"), Stream.of(mapping.getOptions()).map(it -> it.getService().getName()).collect(toList()));
+			} else {
+				assertTrue(Stream.of(mapping.getOptions()).allMatch(it -> it.getService().getName().equals("Stub")));
+				assertEquals(name, mapping.getSelectedOption().getDescriptor().getName());
+			}
+		}
+
+		assertEquals(1, provider.searchRequests.get());
+	}
+
+	@Test
+	public void queryServiceFailure() throws Exception {
+		StubHashService failure = new StubHashService("Failure", f -> true, null) {
+
+			@Override
+			public Map<File, List<SubtitleDescriptor>> getSubtitleList(File[] videoFiles, Locale locale) throws Exception {
+				throw new IllegalStateException("Service Unavailable");
+			}
+		};
+		StubHashService shooter = new StubHashService("Shooter", f -> true, null);
+
+		VideoHashSubtitleServiceBean failureBean = new VideoHashSubtitleServiceBean(failure);
+		List<SubtitleMapping> mappings = query(1, failureBean, new VideoHashSubtitleServiceBean(shooter));
+
+		assertEquals("Service Unavailable", failureBean.getError().getMessage());
+		for (SubtitleMapping mapping : mappings) {
+			assertEquals(1, mapping.getOptions().length);
+		}
+	}
+
+	@Test
+	public void mergeOptionsByRelevance() throws Exception {
+		File video = videos.get(0);
+		SubtitleServiceBean hash = new VideoHashSubtitleServiceBean(new StubHashService("OpenSubtitles", f -> true, null));
+		SubtitleServiceBean name = new StubProviderBean(new StubProvider());
+
+		SubtitleDescriptorBean exact = new SubtitleDescriptorBean(video, new StubSubtitleDescriptor("Firefly.S01E01", null), name);
+		SubtitleDescriptorBean poor = new SubtitleDescriptorBean(video, new StubSubtitleDescriptor("Firefly.S01E02", null), name);
+		SubtitleDescriptorBean hash1 = new SubtitleDescriptorBean(video, new StubSubtitleDescriptor("Firefly.S01E01.HDTV", null), hash);
+		SubtitleDescriptorBean hash2 = new SubtitleDescriptorBean(video, new StubSubtitleDescriptor("Firefly.S01E01.BluRay", null), hash);
+		assertTrue(exact.getMatchProbability() > poor.getMatchProbability());
+
+		// first result is selected by default
+		SubtitleMapping mapping = new SubtitleMapping(video);
+		mapping.addOptions(asList(exact, poor));
+		assertSame(exact, mapping.getSelectedOption());
+
+		// better results are merged in front and selected instead, but results of the same service keep their order
+		mapping.addOptions(asList(hash1, hash2));
+		assertEquals(asList(hash1, hash2, exact, poor), asList(mapping.getOptions()));
+		assertSame(hash1, mapping.getSelectedOption());
+
+		// keep user selection
+		SubtitleMapping userSelection = new SubtitleMapping(video);
+		userSelection.addOptions(asList(exact, poor));
+		userSelection.setSelectedOption(poor);
+		userSelection.addOptions(asList(hash1));
+		assertEquals(asList(hash1, exact, poor), asList(userSelection.getOptions()));
+		assertSame(poor, userSelection.getSelectedOption());
+	}
+
+	@Test
+	public void downloadConcurrently() throws Exception {
+		SubtitleServiceBean opensubtitles = new VideoHashSubtitleServiceBean(new StubHashService("OpenSubtitles", f -> true, null));
+		SubtitleServiceBean shooter = new VideoHashSubtitleServiceBean(new StubHashService("Shooter", f -> true, null));
+
+		Map<SubtitleServiceBean, DownloadMonitor> monitors = new LinkedHashMap<SubtitleServiceBean, DownloadMonitor>();
+		List<DownloadTask> downloadQueue = new ArrayList<DownloadTask>();
+
+		// downloads of the same service are queued one after another
+		for (SubtitleServiceBean service : asList(opensubtitles, shooter)) {
+			DownloadMonitor monitor = monitors.computeIfAbsent(service, k -> new DownloadMonitor());
+			for (File video : videos) {
+				String name = video.getName().replace(".mkv", "");
+				SubtitleDescriptorBean subtitle = new SubtitleDescriptorBean(video, new StubSubtitleDescriptor(name + "." + service.getName(), monitor), service);
+				downloadQueue.add(new DownloadTask(video, subtitle, SubtitleNaming.ORIGINAL));
+			}
+		}
+
+		ExecutorService downloadService = Executors.newFixedThreadPool(SubtitleAutoMatchDialog.DOWNLOAD_THREAD_POOL_SIZE);
+		for (DownloadTask task : downloadQueue) {
+			task.getSubtitleBean().getService().submitDownload(task, downloadService);
+		}
+		for (DownloadTask task : downloadQueue) {
+			assertTrue(task.get().exists());
+		}
+		downloadService.shutdown();
+
+		for (DownloadMonitor monitor : monitors.values()) {
+			assertEquals(videos.size(), monitor.downloads.get());
+			assertTrue(monitor.maxConcurrentDownloads.get() <= SubtitleAutoMatchDialog.DOWNLOAD_THREADS_PER_SERVICE);
+		}
+		assertEquals(videos.size() * monitors.size(), root.listFiles((dir, name) -> name.endsWith(".srt")).length);
+	}
+
+	@Test
+	public void downloadWhileServiceIsBusy() throws Exception {
+		SubtitleServiceBean slow = new VideoHashSubtitleServiceBean(new StubHashService("Slow", f -> true, null));
+		SubtitleServiceBean fast = new VideoHashSubtitleServiceBean(new StubHashService("Fast", f -> true, null));
+
+		CountDownLatch busy = new CountDownLatch(1);
+		DownloadMonitor blocked = new DownloadMonitor() {
+
+			@Override
+			void download() {
+				try {
+					busy.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				super.download();
+			}
+		};
+
+		List<DownloadTask> slowDownloads = new ArrayList<DownloadTask>();
+		List<DownloadTask> fastDownloads = new ArrayList<DownloadTask>();
+		for (File video : videos) {
+			String name = video.getName().replace(".mkv", "");
+			slowDownloads.add(new DownloadTask(video, new SubtitleDescriptorBean(video, new StubSubtitleDescriptor(name + ".Slow", blocked), slow), SubtitleNaming.ORIGINAL));
+			fastDownloads.add(new DownloadTask(video, new SubtitleDescriptorBean(video, new StubSubtitleDescriptor(name + ".Fast", new DownloadMonitor()), fast), SubtitleNaming.ORIGINAL));
+		}
+
+		// all downloads of the slow service are submitted first, but only take as many threads as the service has permits
+		ExecutorService downloadService = Executors.newFixedThreadPool(SubtitleAutoMatchDialog.DOWNLOAD_THREADS_PER_SERVICE + 1);
+		try {
+			for (DownloadTask task : slowDownloads) {
+				slow.submitDownload(task, downloadService);
+			}
+			for (DownloadTask task : fastDownloads) {
+				fast.submitDownload(task, downloadService);
+			}
+			for (DownloadTask task : fastDownloads) {
+				assertTrue(task.get(5, TimeUnit.SECONDS).exists());
+			}
+
+			busy.countDown();
+			for (DownloadTask task : slowDownloads) {
+				assertTrue(task.get(5, TimeUnit.SECONDS).exists());
+			}
+		} finally {
+			downloadService.shutdownNow();
+		}
+
+		assertEquals(videos.size(), blocked.downloads.get());
+		assertTrue(blocked.maxConcurrentDownloads.get() <= SubtitleAutoMatchDialog.DOWNLOAD_THREADS_PER_SERVICE);
+	}
+
+	List<SubtitleMapping> query(int expectedResults, SubtitleServiceBean... services) throws Exception {
+		List<SubtitleMapping> mappings = videos.stream().map(SubtitleMapping::new).collect(toList());
+		CountDownLatch published = new CountDownLatch(expectedResults);
+
+		QueryTask queryTask = new QueryTask(asList(services), videos, Locale.ENGLISH, null, executor) {
+
+			@Override
+			protected void process(List<Map<File, List<SubtitleDescriptorBean>>> sequence) {
+				for (Map<File, List<SubtitleDescriptorBean>> subtitles : sequence) {
+					for (SubtitleMapping mapping : mappings) {
+						List<SubtitleDescriptorBean> options = subtitles.get(mapping.getVideoFile());
+						if (options != null && options.size() > 0) {
+							mapping.addOptions(options);
+						}
+					}
+					published.countDown();
+				}
+			}
+		};
+
+		executor.submit(queryTask);
+		queryTask.get(1, TimeUnit.MINUTES);
+
+		assertTrue(published.await(1, TimeUnit.MINUTES));
+		return mappings;
+	}
+
+	static void sleep() {
+		try {
+			Thread.sleep(LATENCY);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static class DownloadMonitor {
+
+		final AtomicInteger downloads = new AtomicInteger();
+		final AtomicInteger concurrentDownloads = new AtomicInteger();
+		final AtomicInteger maxConcurrentDownloads = new AtomicInteger();
+
+		void download() {
+			maxConcurrentDownloads.accumulateAndGet(concurrentDownloads.incrementAndGet(), Math::max);
+			sleep();
+			concurrentDownloads.decrementAndGet();
+			downloads.incrementAndGet();
+		}
+	}
+
+	static class StubHashService implements VideoHashSubtitleService {
+
+		private final String name;
+		private final Predicate<File> filter;
+		private final CyclicBarrier barrier;
+
+		public StubHashService(String name, Predicate<File> filter, CyclicBarrier barrier) {
+			this.name = name;
+			this.filter = filter;
+			this.barrier = barrier;
+		}
+
+		@Override
+		public String getIdentifier() {
+			return name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public Icon getIcon() {
+			return null;
+		}
+
+		@Override
+		public URI getLink() {
+			return URI.create("http://localhost/");
+		}
+
+		@Override
+		public Map<File, List<SubtitleDescriptor>> getSubtitleList(File[] videoFiles, Locale locale) throws Exception {
+			if (barrier != null) {
+				barrier.await(10, TimeUnit.SECONDS);
+			}
+			sleep();
+
+			Map<File, List<SubtitleDescriptor>> subtitles = new LinkedHashMap<File, List<SubtitleDescriptor>>();
+			for (File f : videoFiles) {
+				if (filter.test(f)) {
+					subtitles.put(f, singletonList(new StubSubtitleDescriptor(f.getName().replace(".mkv", ""), null)));
+				}
+			}
+			return subtitles;
+		}
+
+		@Override
+		public CheckResult checkSubtitle(File videoFile, File subtitleFile) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void uploadSubtitle(Object identity, Locale locale, File[] videoFiles, File[] subtitleFiles) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static class StubProvider implements SubtitleProvider {
+
+		final AtomicInteger searchRequests = new AtomicInteger();
+
+		@Override
+		public String getIdentifier() {
+			return "Stub";
+		}
+
+		@Override
+		public Icon getIcon() {
+			return null;
+		}
+
+		@Override
+		public URI getLink() {
+			return URI.create("http://localhost/");
+		}
+
+		@Override
+		public List<SubtitleSearchResult> search(String query) throws Exception {
+			searchRequests.incrementAndGet();
+			sleep();
+			return singletonList(new SubtitleSearchResult(303461, "Firefly", 2002, "tv series", 100));
+		}
+
+		@Override
+		public List<SubtitleSearchResult> guess(String tag) throws Exception {
+			return emptyList();
+		}
+
+		@Override
+		public List<SubtitleDescriptor> getSubtitleList(SubtitleSearchResult searchResult, int[][] episodeFilter, Locale locale) throws Exception {
+			sleep();
+			return Stream.iterate(1, e -> e + 1).limit(8).map(e -> new StubSubtitleDescriptor(String.format("Firefly.S01E%02d", e), null)).collect(toList());
+		}
+
+		@Override
+		public URI getSubtitleListLink(SubtitleSearchResult searchResult, Locale locale) {
+			return null;
+		}
+	}
+
+	/**
+	 * Match subtitles by name without media detection, which requires online data
+	 */
+	static class StubProviderBean extends SubtitleProviderBean {
+
+		private final SubtitleProvider service;
+
+		public StubProviderBean(SubtitleProvider service) {
+			super(service, null);
+			this.service = service;
+		}
+
+		@Override
+		protected Map<File, List<SubtitleDescriptor>> getSubtitleList(Collection<File> files, Locale locale, Component parent) throws Exception {
+			List<SubtitleDescriptor> subtitles = service.getSubtitleList(service.search("Firefly").get(0), null, locale);
+
+			Map<File, List<SubtitleDescriptor>> options = new LinkedHashMap<File, List<SubtitleDescriptor>>();
+			for (File f : files) {
+				options.put(f, subtitles.stream().sorted((a, b) -> Float.compare(getMatchProbabilty(f, b), getMatchProbabilty(f, a))).collect(toList()));
+			}
+			return options;
+		}
+
+		@Override
+		public float getMatchProbabilty(File videoFile, SubtitleDescriptor descriptor) {
+			return videoFile.getName().startsWith(descriptor.getName() + '.') ? 0.9f : 0.5f;
+		}
+	}
+
+	static class StubSubtitleDescriptor implements SubtitleDescriptor {
+
+		private final String name;
+		private final DownloadMonitor monitor;
+
+		public StubSubtitleDescriptor(String name, DownloadMonitor monitor) {
+			this.name = name;
+			this.monitor = monitor;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getLanguageName() {
+			return "English";
+		}
+
+		@Override
+		public String getType() {
+			return "srt";
+		}
+
+		@Override
+		public String getPath() {
+			return name + ".srt";
+		}
+
+		@Override
+		public long getLength() {
+			return -1;
+		}
+
+		@Override
+		public File toFile() {
+			return new File(getPath());
+		}
+
+		@Override
+		public ByteBuffer fetch() throws Exception {
+			if (monitor != null) {
+				monitor.download();
+			} else {
+				sleep();
+			}
+			return UTF_8.encode(String.format("1%n00:00:01,000 --> 00:00:02,000%n%s%n", name));
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package net.filebot.util;
+
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileContentComparatorTest {
+
+	File root;
+
+	@Before
+	public void createFolder() throws Exception {
+		root = Files.createTempDirectory("FileContentComparatorTest").toFile();
+	}
+
+	@After
+	public void deleteFolder() throws Exception {
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	byte[] data(int size) {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		return data;
+	}
+
+	File write(String name, byte[] data) throws Exception {
+		File file = new File(root, name);
+		Files.write(file.toPath(), data);
+		return file;
+	}
+
+	static File modify(File file, long position) throws Exception {
+		try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+			f.seek(position);
+			int b = f.read();
+			f.seek(position);
+			f.write(b ^ 0xFF);
+		}
+		return file;
+	}
+
+	@Test
+	public void equalFiles() throws Exception {
+		FileContentComparator comparator = new FileContentComparator();
+
+		for (int size : new int[] { 0, 1, 1000, 65536, 1024 * 1024 + 1, 3 * 1024 * 1024 }) {
+			File a = write("a." + size, data(size));
+			File b = write("b." + size, data(size));
+
+			assertTrue(comparator.equals(a, b));
+			assertTrue(comparator.equals(a, a));
+		}
+	}
+
+	@Test
+	public void differentFiles() throws Exception {
+		FileContentComparator comparator = new FileContentComparator();
+
+		for (int size : new int[] { 1, 1000, 65536, 1024 * 1024 + 1, 3 * 1024 * 1024 }) {
+			for (long position : new long[] { 0, size / 3, size / 2, size - 1 }) {
+				File a = write("a." + size, data(size));
+				File b = modify(write("b." + size, data(size)), position);
+
+				assertFalse(size + " @ " + position, comparator.equals(a, b));
+				assertFalse(size + " @ " + position, comparator.equals(b, a));
+			}
+		}
+
+		assertFalse(comparator.equals(write("a", data(100)), write("b", data(101))));
+	}
+
+	@Test
+	public void differentLastByte() throws Exception {
+		FileContentComparator comparator = new FileContentComparator(4096, 4, null, null);
+
+		// last byte is outside of the last sample block, because the last block is aligned to the end of the file
+		byte[] data = data(1024 * 1024);
+		File a = write("a", data);
+		File b = modify(write("b", data), data.length - 1);
+
+		assertFalse(comparator.equals(a, b));
+		assertEquals(0, comparator.getFullComparisonCount());
+
+		// middle byte is not covered by any sample block
+		File c = modify(write("c", data), 4096 * 2 + 7);
+		assertFalse(comparator.equals(a, c));
+		assertEquals(1, comparator.getFullComparisonCount());
+	}
+
+	@Test
+	public void checksums() throws Exception {
+		Map<File, String> xattr = new HashMap<File, String>();
+		FileContentComparator comparator = new FileContentComparator(4096, 4, xattr::get, xattr::put);
+
+		byte[] data = data(1024 * 1024);
+		File a = write("a", data);
+		File b = write("b", data);
+
+		assertTrue(comparator.equals(a, b));
+		assertEquals(1, comparator.getFullComparisonCount());
+		assertEquals(2, xattr.size());
+
+		// reuse checksums
+		assertTrue(comparator.equals(a, b));
+		assertEquals(1, comparator.getFullComparisonCount());
+
+		// ignore checksum if file has been modified
+		modify(b, 4096 * 2 + 7);
+		b.setLastModified(b.lastModified() + 2000);
+		assertFalse(comparator.equals(a, b));
+		assertEquals(2, comparator.getFullComparisonCount());
+	}
+
+	@Test
+	public void equalsFileContent() throws Exception {
+		File a = write("a", data(100000));
+		File b = write("b", data(100000));
+		File c = modify(write("c", data(100000)), 99999);
+
+		assertTrue(FileUtilities.equalsFileContent(a, b));
+		assertFalse(FileUtilities.equalsFileContent(a, c));
+		assertFalse(FileUtilities.equalsFileContent(a, root));
+		assertFalse(FileUtilities.equalsFileContent(a, new File(root, "404")));
+	}
+
+}
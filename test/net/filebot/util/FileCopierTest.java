@@ -0,0 +1,169 @@
+package net.filebot.util;
+
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileCopierTest {
+
+	File root;
+
+	@Before
+	public void createFolder() throws Exception {
+		root = Files.createTempDirectory("FileCopierTest").toFile();
+	}
+
+	@After
+	public void deleteFolder() throws Exception {
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	File createFile(String name, int size) throws Exception {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+
+		File file = new File(root, name);
+		Files.write(file.toPath(), data);
+		return file;
+	}
+
+	@Test
+	public void copy() throws Exception {
+		File source = createFile("source.bin", 3 * 1024 * 1024 + 7);
+		File destination = new File(root, "destination.bin");
+
+		List<Long> progress = new ArrayList<Long>();
+		File result = FileCopier.copy(source, destination, (s, d, bytes, length) -> progress.add(bytes), 1024 * 1024);
+
+		assertEquals(destination, result);
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(destination.toPath()));
+		assertEquals(0, (long) progress.get(0));
+		assertEquals(source.length(), (long) progress.get(progress.size() - 1));
+		assertTrue(progress.size() >= 5);
+		assertEquals(2, root.list().length);
+	}
+
+	@Test
+	public void copyEmptyFile() throws Exception {
+		File source = createFile("source.bin", 0);
+		File destination = FileCopier.copy(source, new File(root, "destination.bin"));
+
+		assertTrue(destination.isFile());
+		assertEquals(0, destination.length());
+	}
+
+	@Test
+	public void replaceExisting() throws Exception {
+		File source = createFile("source.bin", 1000);
+		File destination = createFile("destination.bin", 2000);
+
+		FileCopier.copy(source, destination);
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void copySparseFile() throws Exception {
+		File source = new File(root, "sparse.bin");
+		try (RandomAccessFile f = new RandomAccessFile(source, "rw")) {
+			f.setLength(64 * 1024 * 1024);
+			for (long position : new long[] { 0, 1024 * 1024, 63 * 1024 * 1024 }) {
+				f.seek(position);
+				f.write("FileBot".getBytes());
+			}
+		}
+
+		File destination = FileCopier.copy(source, new File(root, "destination.bin"), null, 4 * 1024 * 1024);
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void interrupt() throws Exception {
+		File source = createFile("source.bin", 1024 * 1024);
+		File destination = new File(root, "destination.bin");
+
+		try {
+			FileCopier.copy(source, destination, (s, d, bytes, length) -> {
+				if (bytes > 0) {
+					Thread.currentThread().interrupt();
+				}
+			}, 64 * 1024);
+			fail("Copy should have been interrupted");
+		} catch (IOException e) {
+			// expected
+		} finally {
+			Thread.interrupted();
+		}
+
+		// no partial files
+		assertArrayEquals(new String[] { "source.bin" }, root.list());
+	}
+
+	@Test
+	public void submit() throws Exception {
+		List<File> sources = new ArrayList<File>();
+		for (int i = 0; i < 10; i++) {
+			sources.add(createFile("source." + i + ".bin", 100000 + i));
+		}
+
+		AtomicInteger updates = new AtomicInteger();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		List<CompletableFuture<File>> copies = new ArrayList<CompletableFuture<File>>();
+
+		try (FileCopier copier = new FileCopier(4, (s, d, bytes, length) -> updates.incrementAndGet())) {
+			for (File source : sources) {
+				File destination = new File(root, source.getName().replace("source", "destination"));
+				copies.add(copier.submit(source, destination, () -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(10);
+						return FileCopier.copy(source, destination);
+					} finally {
+						running.decrementAndGet();
+					}
+				}));
+			}
+
+			for (int i = 0; i < sources.size(); i++) {
+				assertArrayEquals(Files.readAllBytes(sources.get(i).toPath()), Files.readAllBytes(copies.get(i).get().toPath()));
+			}
+		}
+
+		// tasks for the same devices are executed one after another
+		assertEquals(1, maxRunning.get());
+		assertTrue(updates.get() >= 2 * sources.size());
+	}
+
+	@Test
+	public void submitFailure() throws Exception {
+		File source = createFile("source.bin", 1000);
+
+		try (FileCopier copier = new FileCopier(4, null)) {
+			CompletableFuture<File> failure = copier.submit(source, root, () -> FileCopier.copy(new File(root, "404.bin"), new File(root, "destination.404.bin")));
+			CompletableFuture<File> success = copier.submit(source, root, () -> FileCopier.copy(source, new File(root, "destination.bin")));
+
+			// subsequent tasks in the same lane are not affected by previous failures
+			assertTrue(success.get().isFile());
+			assertTrue(failure.isCompletedExceptionally());
+		}
+	}
+
+}
@@ -0,0 +1,255 @@
+package net.filebot.util;
+
+import static java.util.Arrays.*;
+import static java.util.Comparator.*;
+import static net.filebot.util.FileUtilities.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Permission;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FileTreeWalkerTest {
+
+	static File root;
+
+	@BeforeClass
+	public static void createTree() throws Exception {
+		root = Files.createTempDirectory("FileTreeWalkerTest").toFile();
+
+		Random random = new Random(42);
+		String[] extensions = { "mkv", "avi", "srt", "nfo", "jpg", "txt" };
+
+		// deep tree with a few thousand folders and files
+		createFolder(new File(root, "Media"), 5, random, extensions);
+
+		// hidden files and folders
+		new File(root, ".hidden").mkdirs();
+		new File(root, ".hidden/Movie.mkv").createNewFile();
+		new File(root, "Media/.DS_Store").createNewFile();
+
+		// symlinks to folders, symlinks to files and broken symlinks
+		try {
+			Files.createSymbolicLink(new File(root, "Link").toPath(), new File(root, "Media").toPath().resolve("Folder 0"));
+			Files.createSymbolicLink(new File(root, "Link.mkv").toPath(), new File(root, ".hidden/Movie.mkv").toPath());
+			Files.createSymbolicLink(new File(root, "Broken.mkv").toPath(), new File(root, "404.mkv").toPath());
+		} catch (UnsupportedOperationException | IOException e) {
+			System.out.println("Symbolic links not supported: " + e);
+		}
+	}
+
+	static void createFolder(File folder, int depth, Random random, String[] extensions) throws Exception {
+		folder.mkdirs();
+
+		for (int i = random.nextInt(8); i >= 0; i--) {
+			File file = new File(folder, "File " + i + "." + extensions[random.nextInt(extensions.length)]);
+			Files.write(file.toPath(), new byte[random.nextInt(64)]);
+		}
+
+		if (depth > 0) {
+			for (int i = 1 + random.nextInt(4); i >= 0; i--) {
+				createFolder(new File(folder, "Folder " + i), depth - 1, random, extensions);
+			}
+		}
+	}
+
+	@AfterClass
+	public static void deleteTree() throws Exception {
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	/**
+	 * Reference implementation based on {@link File#listFiles(FileFilter)}
+	 */
+	static List<File> legacyListFiles(File[] files, int depth, FileFilter filter, Comparator<File> order) {
+		List<File> sink = new ArrayList<File>();
+		streamFiles(files, FOLDERS, order).forEach(f -> legacyListFiles(f, sink, depth, filter, order));
+		streamFiles(files, filter, order).forEach(sink::add);
+		return sink;
+	}
+
+	static void legacyListFiles(File folder, List<File> sink, int depth, FileFilter filter, Comparator<File> order) {
+		if (depth < 0) {
+			return;
+		}
+
+		File[] files = folder.listFiles(NOT_HIDDEN);
+		streamFiles(files, FOLDERS, order).forEach(f -> legacyListFiles(f, sink, depth - 1, filter, order));
+		streamFiles(files, filter, order).forEach(sink::add);
+	}
+
+	static Stream<File> streamFiles(File[] files, FileFilter filter, Comparator<File> order) {
+		if (files == null || files.length == 0) {
+			return Stream.empty();
+		}
+		return order == null ? stream(files).filter(filter::accept) : stream(files).filter(filter::accept).sorted(order);
+	}
+
+	static final FileFilter[] filters = { FILES, FOLDERS, f -> true, new ExtensionFileFilter("mkv", "srt"), f -> f.length() > 32 };
+
+	static final List<Comparator<File>> orders = asList(null, HUMAN_NAME_ORDER, comparing(File::length).thenComparing(File::getPath));
+
+	@Test
+	public void equivalence() {
+		for (FileFilter filter : filters) {
+			for (Comparator<File> order : orders) {
+				for (int depth : new int[] { 0, 1, 3, FILE_WALK_MAX_DEPTH }) {
+					List<File> expected = legacyListFiles(new File[] { root }, depth, filter, order);
+
+					// compare as sets if there is no specific order
+					for (int parallelism : new int[] { 1, 8 }) {
+						List<File> actual = walk(new File[] { root }, depth, filter, order, parallelism);
+						if (order == null) {
+							assertEquals(expected.size(), actual.size());
+							assertEquals(new HashSet<File>(expected), new HashSet<File>(actual));
+						} else {
+							assertEquals(expected, actual);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void listFiles() {
+		assertEquals(legacyListFiles(new File[] { root }, FILE_WALK_MAX_DEPTH, FILES, HUMAN_NAME_ORDER), FileUtilities.listFiles(root, FILES, HUMAN_NAME_ORDER));
+	}
+
+	@Test
+	public void plainFiles() {
+		// returned files must not cache file attributes
+		for (File f : FileUtilities.listFiles(root, FILES, HUMAN_NAME_ORDER)) {
+			assertEquals(File.class, f.getClass());
+		}
+	}
+
+	@Test
+	public void hidden() {
+		List<File> files = FileUtilities.listFiles(root, f -> true);
+
+		assertFalse(files.contains(new File(root, ".hidden")));
+		assertFalse(files.contains(new File(root, ".hidden/Movie.mkv")));
+		assertFalse(files.contains(new File(root, "Media/.DS_Store")));
+	}
+
+	@Test
+	public void parallelism() {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		FileFilter filter = f -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				running.decrementAndGet();
+			}
+			return f.isFile();
+		};
+
+		assertEquals(FileUtilities.listFiles(root, FILES, HUMAN_NAME_ORDER), new FileTreeWalker(filter, HUMAN_NAME_ORDER, 2).walk(root, FILE_WALK_MAX_DEPTH));
+		assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test(expected = UncheckedIOException.class)
+	public void checkedException() {
+		new FileTreeWalker(f -> sneakyThrow(new IOException(f.getPath())), null, 4).walk(root, FILE_WALK_MAX_DEPTH);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <E extends Throwable> boolean sneakyThrow(Throwable e) throws E {
+		throw (E) e;
+	}
+
+	@Test
+	public void securityManager() {
+		List<File> expected = FileUtilities.listFiles(root, FILES, HUMAN_NAME_ORDER);
+		assertFalse(expected.isEmpty());
+
+		assertEquals(expected, withSecurityManager(() -> FileUtilities.listFiles(root, FILES, HUMAN_NAME_ORDER)));
+	}
+
+	@Test
+	public void listFoldersSecurityManager() throws Exception {
+		File tree = Files.createTempDirectory("FileTreeWalkerTest").toFile();
+		try {
+			for (String path : new String[] { "a/b/Movie.mkv", "a/b/c/Movie.mkv", "a/Movie.srt", "c/Movie.mkv", "d/Movie.avi" }) {
+				new File(tree, path).getParentFile().mkdirs();
+				new File(tree, path).createNewFile();
+			}
+
+			FileFilter filter = new ExtensionFileFilter("mkv");
+			List<File> expected = asList(new File(tree, "a/b"), new File(tree, "c"));
+
+			assertEquals(expected, FileUtilities.listFolders(tree, filter, CASE_INSENSITIVE_PATH_ORDER));
+			assertEquals(expected, withSecurityManager(() -> FileUtilities.listFolders(tree, filter, CASE_INSENSITIVE_PATH_ORDER)));
+		} finally {
+			try (Stream<Path> paths = Files.walk(tree.toPath())) {
+				paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	/**
+	 * Run the given action with the same security manager and security policy as the application
+	 */
+	public static <T> T withSecurityManager(Supplier<T> action) {
+		Policy policy = Policy.getPolicy();
+		Policy.setPolicy(new Policy() {
+
+			@Override
+			public boolean implies(ProtectionDomain domain, Permission permission) {
+				return true;
+			}
+		});
+
+		try {
+			System.setSecurityManager(new SecurityManager());
+		} catch (UnsupportedOperationException e) {
+			// security manager is disabled on recent Java versions
+			Policy.setPolicy(policy);
+			assumeNoException(e);
+		}
+
+		try {
+			return action.get();
+		} finally {
+			System.setSecurityManager(null);
+			Policy.setPolicy(policy);
+		}
+	}
+
+	static List<File> walk(File[] files, int depth, FileFilter filter, Comparator<File> order, int parallelism) {
+		FileTreeWalker walker = new FileTreeWalker(filter, order, parallelism);
+
+		List<File> sink = new ArrayList<File>();
+		streamFiles(files, FOLDERS, order).forEach(f -> sink.addAll(walker.walk(f, depth)));
+		streamFiles(files, filter, order).forEach(sink::add);
+		return sink;
+	}
+
+}
@@ -0,0 +1,158 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Comparator.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+public class AnidbTitlesTest {
+
+	static final String[] TITLES = { "One Piece", "Seikai no Senki", "Banner of the Stars", "Juuni Kokuki", "Princess Tutu", "Monster", "ワンピース", "十二国記", "Tom & Jerry", "Tom &amp; Jerry", "Kimi no Na wa.", "Lupin &#039;III&#039;", "&quot;Bungaku Shoujo&quot; Movie", "K&#x014d;kaku Kid&#x14D;tai", "&lt;Harmonie&gt;", "Fate/stay night &#x2605;", "Re:Zero &hellip;", "Aria &apos;The Animation&apos;", "Hack &amp&amp; Slash", "Rock &nbsp;Lee", "Eden of the East&", "Shin&#128;Chan", "Naruto&#0;", "<b>Naruto</b>", "1 < 2", "  Naruto  ", "Naruto  Shippuuden", "Naruto\tShippuuden", "Naruto\u00A0Shippuuden", "Naruto\u2028Shippuuden", "Naruto&#160;Shippuuden", "Naruto&#10;Shippuuden", "Naru to", "AKB0048", "ABCDE", "Abcd", "abcde", "Hidamari Sketch x 365", "&#x110000;", "&#xD800;", "&#;", "&#x;", "&unknown;" };
+
+	static final String[] LANGUAGES = { "x-jat", "en", "ja", "de", "zh-Hans", "x-other" };
+
+	static byte[] createDump(long seed, int lines) {
+		Random random = new Random(seed);
+		StringBuilder dump = new StringBuilder("\uFEFF# created: Sat Oct 6 02:00:01 2018\n# <aid>|<type>|<language>|<title>\n");
+
+		for (int i = 0; i < lines; i++) {
+			int aid = random.nextInt(lines / 4 + 1);
+			int type = random.nextInt(6);
+			String language = LANGUAGES[random.nextInt(LANGUAGES.length)];
+			String title = TITLES[random.nextInt(TITLES.length)];
+
+			// make titles unique
+			if (random.nextBoolean()) {
+				title = title + ' ' + Integer.toString(i, 36);
+			}
+
+			dump.append(aid).append('|').append(type).append('|').append(language).append('|').append(title);
+			dump.append(i % 7 == 0 ? "\r\n" : "\n");
+		}
+
+		// malformed lines
+		dump.append("|1|en|No AID\n");
+		dump.append("42|1|en|\n");
+		dump.append("42|12|en|Two Digit Type\n");
+		dump.append("42|1|e n|Bad Language\n");
+		dump.append("42|1||Empty Language\n");
+		dump.append("x42|1|en|Bad AID\n");
+		dump.append("42|1|en");
+
+		return dump.toString().getBytes(UTF_8);
+	}
+
+	/**
+	 * Reference implementation based on regex matching and HTML parsing
+	 */
+	static SearchResult[] legacyParse(byte[] bytes) throws Exception {
+		Pattern pattern = Pattern.compile("^(?!#)(\\d+)[|](\\d)[|]([\\w-]+)[|](.+)$");
+
+		List<String> languageOrder = new ArrayList<String>();
+		languageOrder.add("x-jat");
+		languageOrder.add("en");
+		languageOrder.add("ja");
+
+		List<String> typeOrder = new ArrayList<String>();
+		typeOrder.add("1");
+		typeOrder.add("4");
+		typeOrder.add("2");
+		typeOrder.add("3");
+
+		Map<Integer, List<Object[]>> entriesByAnime = new HashMap<Integer, List<Object[]>>(65536);
+
+		try (BufferedReader text = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), UTF_8))) {
+			text.lines().forEach(line -> {
+				Matcher matcher = pattern.matcher(line);
+
+				if (matcher.matches()) {
+					int aid = Integer.parseInt(matcher.group(1));
+					String type = matcher.group(2);
+					String language = matcher.group(3);
+					String title = matcher.group(4);
+
+					if (aid > 0 && title.length() > 0 && typeOrder.contains(type) && languageOrder.contains(language)) {
+						title = Jsoup.parse(title).text();
+
+						if (type.equals("3") && (title.length() < 5 || !Character.isUpperCase(title.charAt(0)) || Character.isUpperCase(title.charAt(title.length() - 1)))) {
+							return;
+						}
+
+						entriesByAnime.computeIfAbsent(aid, k -> new ArrayList<Object[]>()).add(new Object[] { typeOrder.indexOf(type), languageOrder.indexOf(language), title });
+					}
+				}
+			});
+		}
+
+		return entriesByAnime.entrySet().stream().map(it -> {
+			List<String> names = it.getValue().stream().sorted(comparing((Object[] n) -> (Integer) n[0]).thenComparing(n -> (Integer) n[1]).thenComparing(n -> (String) n[2])).map(n -> n[2].toString()).collect(toList());
+
+			return new SearchResult(it.getKey(), names.get(0), names.subList(1, names.size()));
+		}).toArray(SearchResult[]::new);
+	}
+
+	static Map<Integer, List<String>> names(SearchResult[] index) {
+		Map<Integer, List<String>> names = new TreeMap<Integer, List<String>>();
+		for (SearchResult it : index) {
+			assertNull(names.put(it.getId(), Stream.concat(Stream.of(it.getName()), Stream.of(it.getAliasNames())).collect(toList())));
+		}
+		return names;
+	}
+
+	@Test
+	public void unescapeHtml() {
+		for (String title : TITLES) {
+			assertEquals(title, Jsoup.parse(title).text(), AnidbTitles.unescapeHtml(title));
+		}
+	}
+
+	@Test
+	public void parse() throws Exception {
+		for (long seed = 0; seed < 10; seed++) {
+			byte[] dump = createDump(seed, 2000);
+			assertEquals(names(legacyParse(dump)), names(AnidbTitles.parse(dump)));
+		}
+	}
+
+	@Test
+	public void parseEmpty() throws Exception {
+		assertEquals(0, AnidbTitles.parse(new byte[0]).length);
+		assertEquals(0, AnidbTitles.parse("# comment\n\n".getBytes(UTF_8)).length);
+		assertEquals(0, AnidbTitles.parse("99999999999|1|en|Large AID\n".getBytes(UTF_8)).length);
+	}
+
+	@Test
+	public void snapshot() throws Exception {
+		byte[] dump = createDump(42, 2000);
+		String checksum = AnidbTitles.getChecksum(dump);
+
+		SearchResult[] index = AnidbTitles.parse(dump);
+		byte[] snapshot = AnidbTitles.writeSnapshot(index, checksum);
+
+		assertEquals(names(index), names(AnidbTitles.readSnapshot(snapshot, checksum)));
+
+		// data file has changed
+		assertNull(AnidbTitles.readSnapshot(snapshot, AnidbTitles.getChecksum(createDump(7, 2000))));
+
+		// snapshot has been created by a different version
+		snapshot[7]++;
+		assertNull(AnidbTitles.readSnapshot(snapshot, checksum));
+	}
+
+}
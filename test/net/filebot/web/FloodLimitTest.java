@@ -0,0 +1,241 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class FloodLimitTest {
+
+	static class FakeClock implements FloodLimit.Clock {
+
+		long nanos = 0;
+		long slept = 0;
+
+		@Override
+		public long nanoTime() {
+			return nanos;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return 1500000000000L + TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+
+		@Override
+		public void sleep(long nanos) {
+			this.nanos += nanos;
+			this.slept += nanos;
+		}
+
+		long sleptMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(slept);
+		}
+	}
+
+	static Map<String, List<String>> header(String name, Object value) {
+		return singletonMap(name, singletonList(value.toString()));
+	}
+
+	static HttpServer server;
+	static AtomicInteger requests = new AtomicInteger();
+
+	@BeforeClass
+	public static void start() throws Exception {
+		// avoid Nagle / delayed ACK stalls between response header and response body
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			int remaining = 2 - requests.getAndIncrement();
+			byte[] body = String.valueOf(remaining).getBytes(UTF_8);
+
+			if (remaining >= 0) {
+				exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(remaining));
+				exchange.getResponseHeaders().add("X-RateLimit-Reset", "10");
+				exchange.sendResponseHeaders(200, body.length);
+			} else {
+				exchange.getResponseHeaders().add("Retry-After", "5");
+				exchange.sendResponseHeaders(429, body.length);
+			}
+
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() {
+		server.stop(0);
+	}
+
+	@Test
+	public void burst() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(10, 1, TimeUnit.SECONDS, clock);
+
+		for (int i = 0; i < 10; i++) {
+			limit.acquirePermit();
+		}
+		assertEquals(0, clock.sleptMillis());
+		assertEquals(0, limit.getWaits());
+
+		// next burst once the time window of the first burst has passed
+		for (int i = 0; i < 10; i++) {
+			limit.acquirePermit();
+		}
+		assertEquals(1000, clock.sleptMillis());
+		assertEquals(1, limit.getWaits());
+		assertEquals(20, limit.getPermitsGranted());
+	}
+
+	@Test
+	public void window() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(2, 5, TimeUnit.SECONDS, clock);
+
+		// no more than 2 requests within any 5 second window, starting with the first window and after the bucket has been refilled
+		List<Long> grants = new ArrayList<Long>();
+		for (int i = 0; i < 20; i++) {
+			if (i == 10) {
+				clock.sleep(TimeUnit.MINUTES.toNanos(1));
+			}
+			limit.acquirePermit();
+			grants.add(clock.nanos);
+		}
+
+		assertEquals(0, (long) grants.get(1));
+		assertEquals(TimeUnit.SECONDS.toNanos(5), (long) grants.get(2));
+
+		for (int i = 2; i < grants.size(); i++) {
+			assertTrue(grants.get(i) - grants.get(i - 2) >= TimeUnit.SECONDS.toNanos(5));
+		}
+	}
+
+	@Test
+	public void reservation() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(1, 1, TimeUnit.SECONDS, clock);
+
+		// waiting threads are served in order
+		assertEquals(0, limit.reservePermit());
+		assertEquals(TimeUnit.SECONDS.toNanos(1), limit.reservePermit());
+		assertEquals(TimeUnit.SECONDS.toNanos(2), limit.reservePermit());
+	}
+
+	@Test
+	public void retryAfterSeconds() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(10, 1, TimeUnit.SECONDS, clock);
+
+		limit.update(header("Retry-After", 3));
+		limit.acquirePermit();
+
+		assertEquals(3000, clock.sleptMillis());
+		assertEquals(1, limit.getThrottles());
+	}
+
+	@Test
+	public void retryAfterDate() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(10, 1, TimeUnit.SECONDS, clock);
+
+		// Fri, 14 Jul 2017 02:40:00 GMT is 1500000000 epoch seconds
+		limit.update(header("retry-after", "Fri, 14 Jul 2017 02:40:07 GMT"));
+		limit.acquirePermit();
+
+		assertEquals(7000, clock.sleptMillis());
+	}
+
+	@Test
+	public void rateLimitExhausted() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(10, 1, TimeUnit.SECONDS, clock);
+
+		Map<String, List<String>> headers = new HashMap<String, List<String>>();
+		headers.put("X-RateLimit-Remaining", singletonList("0"));
+		headers.put("X-RateLimit-Reset", singletonList("1500000004"));
+
+		limit.update(headers);
+		limit.acquirePermit();
+
+		assertEquals(4000, clock.sleptMillis());
+	}
+
+	@Test
+	public void rateLimitRemaining() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(10, 1, TimeUnit.SECONDS, clock);
+
+		Map<String, List<String>> headers = new HashMap<String, List<String>>();
+		headers.put("X-RateLimit-Remaining", singletonList("2"));
+		headers.put("X-RateLimit-Reset", singletonList("10"));
+
+		// 2 requests left in the next 10 seconds
+		limit.update(headers);
+		limit.acquirePermit();
+		limit.acquirePermit();
+		assertEquals(0, clock.sleptMillis());
+
+		limit.acquirePermit();
+		assertEquals(5000, clock.sleptMillis());
+
+		// back to the default rate after the rate limit window has passed
+		clock.sleep(TimeUnit.SECONDS.toNanos(10));
+		clock.slept = 0;
+
+		for (int i = 0; i < 10; i++) {
+			limit.acquirePermit();
+		}
+		assertEquals(0, clock.sleptMillis());
+	}
+
+	@Test
+	public void responseHeaders() throws Exception {
+		FakeClock clock = new FakeClock();
+		FloodLimit limit = new FloodLimit(10, 1, TimeUnit.SECONDS, clock);
+		URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+
+		requests.set(0);
+
+		for (int i = 0; i < 3; i++) {
+			limit.acquirePermit();
+			WebRequest.observeResponseHeaders(limit::update, () -> WebRequest.fetch(url));
+		}
+
+		// 2 requests remaining, then 1 request remaining, then no requests remaining within the next 10 seconds
+		assertEquals(0, clock.sleptMillis());
+		assertEquals(1, limit.getThrottles());
+
+		// 429 Too Many Requests
+		limit.acquirePermit();
+		assertEquals(10000, clock.sleptMillis());
+		try {
+			WebRequest.observeResponseHeaders(limit::update, () -> WebRequest.fetch(url));
+			fail("429");
+		} catch (Exception e) {
+			// expected
+		}
+		assertEquals(2, limit.getThrottles());
+
+		clock.slept = 0;
+		limit.acquirePermit();
+		assertEquals(5000, clock.sleptMillis());
+	}
+
+}
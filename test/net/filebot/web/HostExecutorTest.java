@@ -0,0 +1,181 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class HostExecutorTest {
+
+	static HttpServer server;
+
+	@BeforeClass
+	public static void start() throws Exception {
+		// avoid Nagle / delayed ACK stalls between response header and response body
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(8));
+		server.createContext("/", exchange -> {
+			byte[] body = exchange.getRequestURI().getQuery().getBytes(UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() {
+		server.stop(0);
+	}
+
+	URL url(int i) throws Exception {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/?" + i);
+	}
+
+	@Test
+	public void fetchAsync() throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int baseline = threads.getThreadCount();
+		threads.resetPeakThreadCount();
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[1000];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = WebRequest.fetchAsync(url(i));
+		}
+		CompletableFuture.allOf(futures).join();
+
+		for (int i = 0; i < futures.length; i++) {
+			assertEquals(String.valueOf(i), UTF_8.decode((ByteBuffer) futures[i].get()).toString());
+		}
+
+		// 4 workers + 8 server threads + keep-alive and JVM housekeeping threads
+		int peak = threads.getPeakThreadCount() - baseline;
+		assertTrue("Peak threads: " + peak, peak <= HostExecutor.DEFAULT_THREAD_POOL_SIZE + 8 + 4);
+	}
+
+	@Test
+	public void backPressure() throws Exception {
+		HostExecutor executor = new HostExecutor("test", 2, 3);
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicInteger submitted = new AtomicInteger();
+
+		Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; i < 10; i++) {
+					executor.submitWithBackPressure(() -> {
+						latch.await();
+						return null;
+					});
+					submitted.incrementAndGet();
+				}
+			} catch (InterruptedException e) {
+				// stop producing
+			}
+		});
+		producer.start();
+		producer.join(1000);
+
+		// 2 running and 3 queued tasks, the producer is blocked until tasks complete
+		assertEquals(5, submitted.get());
+
+		latch.countDown();
+		producer.join(1000);
+		assertEquals(10, submitted.get());
+	}
+
+	@Test
+	public void submitBackPressure() throws Exception {
+		HostExecutor executor = new HostExecutor("test", 2, 3);
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicInteger submitted = new AtomicInteger();
+
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 10; i++) {
+				executor.submit(() -> {
+					latch.await();
+					return null;
+				});
+				submitted.incrementAndGet();
+			}
+		});
+		producer.start();
+		producer.join(1000);
+
+		// submit() is bounded the same way as submitWithBackPressure()
+		assertEquals(5, submitted.get());
+
+		latch.countDown();
+		producer.join(1000);
+		assertEquals(10, submitted.get());
+	}
+
+	@Test
+	public void callOnCallingThread() throws Exception {
+		HostExecutor executor = new HostExecutor("test", 2, 3);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		List<String> threads = IntStream.range(0, 16).parallel().mapToObj(i -> {
+			try {
+				return executor.call(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					Thread.sleep(10);
+					running.decrementAndGet();
+					return Thread.currentThread().getName();
+				});
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}).collect(toList());
+
+		// tasks are not handed off to worker threads, but at most 2 are running at once
+		assertFalse(threads.stream().anyMatch(it -> it.startsWith("test")));
+		assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test
+	public void observeResponseHeaders() throws Exception {
+		List<String> contentLength = new CopyOnWriteArrayList<String>();
+
+		WebRequest.observeResponseHeaders(headers -> contentLength.add(headers.get("Content-length").get(0)), () -> {
+			return WebRequest.fetchAsync(url(42)).get();
+		});
+
+		assertEquals(singletonList("2"), contentLength);
+	}
+
+	@Test
+	public void call() throws Exception {
+		List<String> values = IntStream.range(0, 100).parallel().mapToObj(i -> {
+			try {
+				return HostExecutor.of(url(i)).call(() -> UTF_8.decode(WebRequest.fetch(url(i))).toString());
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}).collect(toList());
+
+		assertEquals(IntStream.range(0, 100).mapToObj(String::valueOf).collect(toList()), values);
+	}
+
+}
@@ -0,0 +1,113 @@
+package net.filebot.web;
+
+import static java.util.Arrays.*;
+import static java.util.Collections.reverseOrder;
+import static java.util.Comparator.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.ac.shef.wit.simmetrics.similaritymetrics.QGramsDistance;
+
+public class LocalSearchTest {
+
+	static String[][] titles;
+	static LocalSearch<String[]> index;
+
+	static Map<String[][], List<Set<String>>> normalized = new IdentityHashMap<String[][], List<Set<String>>>();
+
+	@BeforeClass
+	public static void setup() {
+		String[] words = { "the", "dark", "knight", "rises", "star", "wars", "trek", "empire", "strikes", "back", "return", "of", "jedi", "doctor", "who", "game", "thrones", "big", "bang", "theory", "breaking", "bad", "firefly", "serenity", "alias", "lost", "heroes", "fringe", "house", "24", "1984", "ii", "über", "amélie", "東京", "café", "naïve", "x-files", "s.h.i.e.l.d.", "it's", "a" };
+
+		Random random = new Random(42);
+		titles = new String[100000][];
+
+		for (int i = 0; i < titles.length; i++) {
+			String[] names = new String[1 + random.nextInt(3)];
+			for (int n = 0; n < names.length; n++) {
+				names[n] = random.ints(1 + random.nextInt(5), 0, words.length).mapToObj(w -> words[w]).collect(joining(random.nextBoolean() ? " " : "."));
+			}
+			titles[i] = names;
+		}
+
+		index = new LocalSearch<String[]>(titles, t -> asList(t));
+	}
+
+	@Test
+	public void search() throws Exception {
+		List<String[]> results = index.search("Star Wars");
+
+		assertEquals(20, results.size());
+		assertTrue(stream(results.get(0)).anyMatch(t -> t.equals("star wars") || t.equals("star.wars")));
+	}
+
+	@Test
+	public void equivalence() throws Exception {
+		String[] queries = { "star wars", "Star.Wars.Return.of.the.Jedi", "the", "a", "", "24", "Doctor Who 1984", "amelie", "Uber Cafe", "xfiles", "shield", "its a big bang", "東京", "Firefly Serenity", "breaking bad heroes lost", "zzz" };
+
+		for (String q : queries) {
+			assertEquals(q, names(scan(index, titles, q)), names(index.search(q)));
+		}
+	}
+
+	@Test
+	public void equivalenceMinimumSimilarity() throws Exception {
+		String[][] sample = copyOf(titles, 10000);
+		LocalSearch<String[]> search = new LocalSearch<String[]>(sample, t -> asList(t));
+
+		for (float minimumSimilarity : new float[] { -1, 0, 0.25f, 0.75f, 1 }) {
+			search.setResultMinimumSimilarity(minimumSimilarity);
+			search.setResultSetSize(100);
+
+			for (String q : new String[] { "star wars", "the dark knight", "b" }) {
+				assertEquals(q, names(scan(search, sample, q, minimumSimilarity, 100)), names(search.search(q)));
+			}
+		}
+	}
+
+	static List<String[]> scan(LocalSearch<String[]> search, String[][] objects, String q) {
+		return scan(search, objects, q, 0.5f, 20);
+	}
+
+	/**
+	 * Reference implementation that scores all objects
+	 */
+	static List<String[]> scan(LocalSearch<String[]> search, String[][] objects, String q, float resultMinimumSimilarity, int resultSetSize) {
+		QGramsDistance metric = new QGramsDistance();
+		String query = search.normalize(q);
+
+		List<Set<String>> fields = normalized.computeIfAbsent(objects, o -> stream(o).map(it -> search.normalize(asList(it))).collect(toList()));
+
+		return IntStream.range(0, objects.length).mapToObj(i -> {
+			Set<String> field = fields.get(i);
+
+			boolean match = field.stream().anyMatch(it -> it.contains(query));
+			double similarity = field.stream().mapToDouble(it -> metric.getSimilarity(query, it)).max().orElse(0);
+
+			return match || similarity > resultMinimumSimilarity ? new SimpleImmutableEntry<String[], Double>(objects[i], similarity) : null;
+		}).filter(Objects::nonNull).sorted(reverseOrder(comparing(Entry::getValue))).limit(resultSetSize).map(Entry::getKey).collect(toList());
+	}
+
+	static List<String> names(List<String[]> results) {
+		List<String> names = new ArrayList<String>();
+		for (String[] it : results) {
+			names.add(String.join("|", it));
+		}
+		return names;
+	}
+
+}
@@ -0,0 +1,199 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Arrays.*;
+import static net.filebot.util.JsonUtilities.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import net.filebot.media.MetaAttributes;
+
+public class TMDbAlternativeTitlesTest {
+
+	static final int RESULTS = 20;
+	static final int DELAY = 50;
+
+	static HttpServer server;
+
+	static AtomicInteger searchRequests = new AtomicInteger();
+	static AtomicInteger alternativeTitlesRequests = new AtomicInteger();
+
+	static AtomicInteger running = new AtomicInteger();
+	static AtomicInteger maxRunning = new AtomicInteger();
+
+	@BeforeClass
+	public static void start() throws Exception {
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		Pattern alternativeTitles = Pattern.compile("/3/movie/(\\d+)/alternative_titles");
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(8));
+		server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			String json = "{}";
+
+			if (path.equals("/3/search/movie")) {
+				searchRequests.incrementAndGet();
+				json = IntStream.rangeClosed(1, RESULTS).mapToObj(i -> String.format("{\"id\":%d,\"title\":\"Movie %d\",\"original_title\":\"Original %d\",\"release_date\":\"2001-01-01\"}", i, i, i)).collect(Collectors.joining(",", "{\"results\":[", "]}"));
+			} else {
+				Matcher matcher = alternativeTitles.matcher(path);
+				if (matcher.matches()) {
+					alternativeTitlesRequests.incrementAndGet();
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					String id = matcher.group(1);
+					json = String.format("{\"id\":%s,\"titles\":[{\"iso_3166_1\":\"US\",\"title\":\"Alias %s\"},{\"iso_3166_1\":\"DE\",\"title\":\"Movie %s\"}]}", id, id, id);
+
+					// simulate network latency
+					try {
+						Thread.sleep(DELAY);
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					} finally {
+						running.decrementAndGet();
+					}
+				}
+			}
+
+			byte[] body = json.getBytes(UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() {
+		server.stop(0);
+	}
+
+	@Before
+	public void reset() {
+		searchRequests.set(0);
+		alternativeTitlesRequests.set(0);
+		maxRunning.set(0);
+	}
+
+	/**
+	 * TMDb client for the local stub server that bypasses the persistent cache
+	 */
+	static class TMDbStubClient extends TMDbClient {
+
+		public TMDbStubClient() {
+			super("apikey", false);
+		}
+
+		@Override
+		protected URL getResource(String path, String language) throws Exception {
+			return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/3/" + path + (path.lastIndexOf('?') < 0 ? '?' : '&') + "api_key=apikey");
+		}
+
+		@Override
+		protected Object request(String resource, Map<String, Object> parameters, Locale locale) throws Exception {
+			String key = parameters.isEmpty() ? resource : resource + '?' + WebRequest.encodeParameters(parameters, true);
+			return readJson(UTF_8.decode(WebRequest.fetch(getResource(key, null))));
+		}
+	}
+
+	@Test
+	public void searchMovie() throws Exception {
+		List<Movie> movies = new TMDbStubClient().searchMovie("Movie", 2001, Locale.ENGLISH, false);
+
+		assertEquals(RESULTS, movies.size());
+		assertEquals("[Original 1]", asList(movies.get(0).getAliasNames()).toString());
+		assertEquals(1, searchRequests.get());
+		assertEquals(0, alternativeTitlesRequests.get());
+	}
+
+	@Test
+	public void searchMovieExtendedInfo() throws Exception {
+		List<Movie> movies = new TMDbStubClient().searchMovie("Movie", 2001, Locale.ENGLISH, true);
+
+		for (Movie movie : movies) {
+			int id = movie.getTmdbId();
+			assertEquals("[Original " + id + ", Alias " + id + "]", asList(movie.getAliasNames()).toString());
+			assertEquals("[Movie " + id + " (2001), Original " + id + " (2001), Alias " + id + " (2001)]", movie.getEffectiveNames().toString());
+		}
+
+		assertEquals(RESULTS, movies.size());
+		assertEquals(1, searchRequests.get());
+		assertEquals(RESULTS, alternativeTitlesRequests.get());
+
+		// alternative titles are requested concurrently
+		assertTrue(maxRunning.get() > 1);
+	}
+
+	@Test
+	public void lazyAliasNames() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		Movie movie = new Movie("Serenity", 2005, 379786, 16320, Locale.ENGLISH, () -> {
+			calls.incrementAndGet();
+			return new String[] { "Firefly" };
+		});
+
+		assertEquals("Serenity (2005)", movie.toString());
+		assertEquals(16320, movie.getId());
+		assertEquals(0, calls.get());
+
+		assertEquals("[Serenity (2005), Firefly (2005)]", movie.getEffectiveNames().toString());
+		assertEquals("[Serenity, Firefly]", movie.getEffectiveNamesWithoutYear().toString());
+		assertEquals("[Firefly]", asList(movie.clone().getAliasNames()).toString());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void lazyAliasNamesSerialization() throws Exception {
+		Movie movie = new Movie("Serenity", 2005, 379786, 16320, Locale.ENGLISH, () -> new String[] { "Firefly" });
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(movie);
+		}
+
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals("[Firefly]", asList(((Movie) in.readObject()).getAliasNames()).toString());
+		}
+	}
+
+	@Test
+	public void lazyAliasNamesJson() throws Exception {
+		Movie movie = new Movie("Serenity", 2005, 379786, 16320, Locale.ENGLISH, () -> new String[] { "Firefly" });
+		Movie copy = (Movie) MetaAttributes.toObject(MetaAttributes.toJson(movie));
+
+		assertEquals(movie, copy);
+		assertEquals("[Firefly]", asList(copy.getAliasNames()).toString());
+	}
+
+	@Test
+	public void lazyAliasNamesFailure() throws Exception {
+		Movie movie = new Movie("Serenity", 2005, 379786, 16320, Locale.ENGLISH, () -> {
+			throw new IllegalStateException();
+		});
+
+		assertEquals("[Serenity (2005)]", movie.getEffectiveNames().toString());
+		assertEquals(0, movie.getAliasNames().length);
+	}
+
+}
@@ -0,0 +1,196 @@
+package net.filebot.web;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static net.filebot.util.JsonUtilities.*;
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class TMDbTVSeasonsTest {
+
+	static HttpServer server;
+
+	static AtomicInteger requests = new AtomicInteger();
+	static AtomicInteger maxAppendToResponse = new AtomicInteger();
+
+	/**
+	 * Series {id} has {id} regular seasons and season 0 for specials, and season {s} has {s} episodes
+	 */
+	static String getSeries(int id) {
+		String seasons = IntStream.rangeClosed(0, id).mapToObj(s -> "{\"season_number\":" + s + "}").collect(joining(","));
+		return String.format("{\"id\":%d,\"name\":\"Soap %d\",\"original_name\":\"Soap\",\"status\":\"Ended\",\"original_language\":\"en\",\"first_air_date\":\"1990-01-01\",\"vote_average\":7.5,\"vote_count\":42,\"episode_run_time\":[45],\"genres\":[{\"name\":\"Soap\"}],\"networks\":[{\"name\":\"NBC\"}],\"seasons\":[%s]}", id, id, seasons);
+	}
+
+	static String getSeason(int id, int s) {
+		String episodes = IntStream.rangeClosed(1, Math.max(s, 2)).mapToObj(e -> String.format("{\"id\":%d,\"episode_number\":%d,\"season_number\":%d,\"name\":\"Episode %d-%d\",\"air_date\":\"%d-01-%02d\"}", id * 100000 + s * 100 + e, e, s, s, e, 1990 + s, e)).collect(joining(","));
+		return String.format("{\"season_number\":%d,\"episodes\":[%s]}", s, episodes);
+	}
+
+	@BeforeClass
+	public static void start() throws Exception {
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		Pattern series = Pattern.compile("/3/tv/(\\d+)");
+		Pattern season = Pattern.compile("/3/tv/(\\d+)/season/(\\d+)");
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(8));
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+
+			String path = exchange.getRequestURI().getPath();
+			String json = "{}";
+
+			Matcher seriesMatcher = series.matcher(path);
+			Matcher seasonMatcher = season.matcher(path);
+
+			if (seriesMatcher.matches()) {
+				int id = Integer.parseInt(seriesMatcher.group(1));
+				json = getSeries(id);
+
+				// e.g. append_to_response=season/1,season/2
+				String append = Stream.of(exchange.getRequestURI().getRawQuery().split("&")).filter(it -> it.startsWith("append_to_response=")).map(it -> URLDecoder.decode(it.substring(19), UTF_8)).findFirst().orElse(null);
+				if (append != null) {
+					String[] items = append.split(",");
+					maxAppendToResponse.accumulateAndGet(items.length, Math::max);
+					json = json.substring(0, json.length() - 1) + Stream.of(items).map(it -> '"' + it + "\":" + getSeason(id, Integer.parseInt(it.substring(7)))).collect(joining(",", ",", "}"));
+				}
+			} else if (seasonMatcher.matches()) {
+				json = getSeason(Integer.parseInt(seasonMatcher.group(1)), Integer.parseInt(seasonMatcher.group(2)));
+			}
+
+			byte[] body = json.getBytes(UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterClass
+	public static void stop() {
+		server.stop(0);
+	}
+
+	@Before
+	public void reset() {
+		requests.set(0);
+		maxAppendToResponse.set(0);
+	}
+
+	/**
+	 * TMDb client for the local stub server that bypasses the persistent cache
+	 */
+	static class TMDbStubClient extends TMDbClient {
+
+		public TMDbStubClient() {
+			super("apikey", false);
+		}
+
+		@Override
+		protected URL getResource(String path, String language) throws Exception {
+			return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/3/" + path + (path.lastIndexOf('?') < 0 ? '?' : '&') + "api_key=apikey");
+		}
+
+		@Override
+		protected Object request(String resource, Map<String, Object> parameters, Locale locale) throws Exception {
+			String key = parameters.isEmpty() ? resource : resource + '?' + WebRequest.encodeParameters(parameters, true);
+			return readJson(UTF_8.decode(WebRequest.fetch(getResource(key, null))));
+		}
+	}
+
+	/**
+	 * Reference implementation that requests each season separately
+	 */
+	static List<Episode> legacyFetchEpisodes(TMDbClient tmdb, SeriesInfo info, int id, Locale locale) throws Exception {
+		Object tv = tmdb.request("tv/" + id, emptyMap(), locale);
+		String name = getString(tv, "name");
+
+		int[] seasons = streamJsonObjects(tv, "seasons").mapToInt(it -> getInteger(it, "season_number")).toArray();
+		List<Episode> episodes = new ArrayList<Episode>();
+		List<Episode> specials = new ArrayList<Episode>();
+
+		for (int s : seasons) {
+			Object season = tmdb.request("tv/" + id + "/season/" + s, emptyMap(), locale);
+
+			streamJsonObjects(season, "episodes").forEach(episode -> {
+				Integer episodeId = getInteger(episode, "id");
+				Integer episodeNumber = getInteger(episode, "episode_number");
+				Integer seasonNumber = getInteger(episode, "season_number");
+				String episodeTitle = getString(episode, "name");
+				SimpleDate airdate = getStringValue(episode, "air_date", SimpleDate::parse);
+
+				Integer absoluteNumber = episodes.size() + 1;
+
+				if (s > 0) {
+					episodes.add(new Episode(name, seasonNumber, episodeNumber, episodeTitle, absoluteNumber, null, airdate, episodeId, info));
+				} else {
+					specials.add(new Episode(name, null, null, episodeTitle, null, episodeNumber, airdate, episodeId, info));
+				}
+			});
+		}
+
+		episodes.addAll(specials);
+		return episodes;
+	}
+
+	static List<String> describe(List<Episode> episodes) {
+		return episodes.stream().map(e -> Stream.of(e.getSeriesName(), e.getSeason(), e.getEpisode(), e.getTitle(), e.getAbsolute(), e.getSpecial(), e.getAirdate(), e.getId()).map(String::valueOf).collect(joining("|"))).collect(toList());
+	}
+
+	void assertSeriesData(int id, int expectedRequests) throws Exception {
+		TMDbStubClient tmdb = new TMDbStubClient();
+		TMDbTVClient client = new TMDbTVClient(tmdb);
+
+		AbstractEpisodeListProvider.SeriesData data = client.fetchSeriesData(new SearchResult(id, "Soap"), SortOrder.Airdate, Locale.ENGLISH);
+		int actualRequests = requests.getAndSet(0);
+
+		List<Episode> expected = legacyFetchEpisodes(tmdb, data.getSeriesInfo(), id, Locale.ENGLISH);
+		int legacyRequests = requests.getAndSet(0);
+
+		assertEquals(describe(expected), describe(data.getEpisodeList()));
+		assertEquals("Soap " + id, data.getSeriesInfo().getName());
+		assertEquals(expectedRequests, actualRequests);
+		assertEquals(id + 2, legacyRequests);
+		assertTrue(maxAppendToResponse.get() <= TMDbTVClient.MAX_APPEND_TO_RESPONSE);
+	}
+
+	@Test
+	public void singleSeason() throws Exception {
+		assertSeriesData(1, 2);
+	}
+
+	@Test
+	public void singleGroup() throws Exception {
+		assertSeriesData(19, 2);
+	}
+
+	@Test
+	public void multipleGroups() throws Exception {
+		// 31 seasons including specials
+		assertSeriesData(30, 3);
+		assertSeriesData(45, 4);
+	}
+
+}